@@ -0,0 +1,262 @@
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmarks for the WolfpackLending methods. Each benchmark cycles through a table of
+ * pre-generated applications so that the measured inputs follow a realistic mix of dates,
+ * credit scores, incomes, loan amounts, and processing types instead of one constant case.
+ * Requires jmh-core and jmh-generator-annprocess on the classpath, so it lives in bench/
+ * rather than test/ (see the README for the compile line). Run with
+ * "java WolfpackLendingBenchmark" to measure throughput and average time with the GC
+ * profiler reporting allocation rate.
+ * @author Jessica Greene
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class WolfpackLendingBenchmark {
+    /** Number of pre-generated applications (a power of 2 so the index can be masked) */
+    public static final int APPLICATIONS = 1 << 12;
+
+    /** Seed for the pre-generated applications so every run measures the same inputs */
+    public static final long SEED = 20200101L;
+
+    /** Days in each month of 2020 */
+    private static final int[] DAYS_IN_MONTH =
+        {31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    /** Application months */
+    private int[] months = new int[APPLICATIONS];
+
+    /** Application days */
+    private int[] days = new int[APPLICATIONS];
+
+    /** Applicant credit scores */
+    private int[] creditScores = new int[APPLICATIONS];
+
+    /** Applicant incomes */
+    private int[] incomes = new int[APPLICATIONS];
+
+    /** Loan amounts including the express processing fee */
+    private int[] loanAmounts = new int[APPLICATIONS];
+
+    /** Express processing flags */
+    private boolean[] express = new boolean[APPLICATIONS];
+
+    /** Interest rates for approved applications (denied entries use the high rate) */
+    private double[] rates = new double[APPLICATIONS];
+
+    /** Output rates for the columnar pricing benchmark */
+    private double[] columnRates = new double[APPLICATIONS];
+
+    /** Output payments for the columnar pricing benchmark */
+    private double[] columnPayments = new double[APPLICATIONS];
+
+    /** Loan amounts in cents for the portfolio total benchmarks */
+    private long[] loanCents = new long[APPLICATIONS];
+
+    /** Interest rates in basis points for the portfolio total benchmarks */
+    private int[] rateBasisPoints = new int[APPLICATIONS];
+
+    /** Reusable quote for the structured quote benchmark */
+    private WolfpackQuote quote = new WolfpackQuote();
+
+    /** Index of the next application to use */
+    private int next;
+
+    /**
+     * Generates the application table. Roughly 5% of dates are invalid, credit scores
+     * cluster between the fair and good thresholds, incomes range from half to six times
+     * the loan amount, and one application in four requests express processing.
+     */
+    @Setup(Level.Trial)
+    public void generateApplications() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < APPLICATIONS; i++) {
+            months[i] = random.nextInt(WolfpackLending.MONTHS_IN_YEAR) + 1;
+            if (random.nextInt(20) == 0) {
+                days[i] = DAYS_IN_MONTH[months[i] - 1] + 1;
+            } else {
+                days[i] = random.nextInt(DAYS_IN_MONTH[months[i] - 1]) + 1;
+            }
+            double score = 610 + random.nextDouble(-1, 1) * 120 +
+                           random.nextDouble(-1, 1) * 120;
+            creditScores[i] = (int) Math.max(WolfpackLending.MIN_CREDIT_SCORE,
+                Math.min(WolfpackLending.MAX_CREDIT_SCORE, score));
+            express[i] = random.nextInt(4) == 0;
+            loanAmounts[i] = random.nextInt(WolfpackLending.MIN_LOAN,
+                                            WolfpackLending.MAX_LOAN + 1) +
+                             (express[i] ? WolfpackLending.EXPRESS_PROCESSING_FEE : 0);
+            incomes[i] = (int) (loanAmounts[i] * random.nextDouble(0.5, 6.0));
+            double rate = WolfpackLending.getInterestRate(loanAmounts[i], creditScores[i],
+                                                          incomes[i]);
+            rates[i] = rate == -1 ? WolfpackLending.HIGH_INTEREST_RATE : rate;
+            loanCents[i] = loanAmounts[i] * 100L;
+            rateBasisPoints[i] = WolfpackFixedPoint.basisPoints(rates[i]);
+        }
+    }
+
+    /**
+     * Returns the index of the next application, wrapping around the table
+     * @return Application index
+     */
+    private int nextIndex() {
+        int i = next;
+        next = (i + 1) & (APPLICATIONS - 1);
+        return i;
+    }
+
+    /**
+     * Benchmarks isValidDate
+     * @return Whether the date is valid
+     */
+    @Benchmark
+    public boolean isValidDate() {
+        int i = nextIndex();
+        return WolfpackLending.isValidDate(months[i], days[i]);
+    }
+
+    /**
+     * Benchmarks getInterestRate
+     * @return Interest rate or -1.0
+     */
+    @Benchmark
+    public double getInterestRate() {
+        int i = nextIndex();
+        return WolfpackLending.getInterestRate(loanAmounts[i], creditScores[i], incomes[i]);
+    }
+
+    /**
+     * Benchmarks getMonthlyPayment over the 60-month term
+     * @return Monthly payment
+     */
+    @Benchmark
+    public double getMonthlyPayment() {
+        int i = nextIndex();
+        return WolfpackLending.getMonthlyPayment(loanAmounts[i], rates[i],
+                                                 WolfpackLending.NUMBER_OF_MONTHS);
+    }
+
+    /**
+     * Benchmarks getDisbursementDate for valid dates
+     * @return Disbursement date
+     */
+    @Benchmark
+    public String getDisbursementDate() {
+        int i = nextIndex();
+        int day = Math.min(days[i], DAYS_IN_MONTH[months[i] - 1]);
+        return WolfpackLending.getDisbursementDate(months[i], day, express[i]);
+    }
+
+    /**
+     * Benchmarks a full quote: date validation, interest rate, monthly payment, and
+     * disbursement date, in the same order as the interactive program
+     * @param blackhole Sink for the quote results
+     */
+    @Benchmark
+    public void fullQuote(Blackhole blackhole) {
+        int i = nextIndex();
+        if (!WolfpackLending.isValidDate(months[i], days[i])) {
+            blackhole.consume(false);
+            return;
+        }
+        String disbursementDate = WolfpackLending.getDisbursementDate(months[i], days[i],
+                                                                      express[i]);
+        double rate = WolfpackLending.getInterestRate(loanAmounts[i], creditScores[i],
+                                                      incomes[i]);
+        if (rate == -1) {
+            blackhole.consume(rate);
+            return;
+        }
+        blackhole.consume(WolfpackLending.getMonthlyPayment(loanAmounts[i], rate,
+                          WolfpackLending.NUMBER_OF_MONTHS));
+        blackhole.consume(disbursementDate);
+    }
+
+    /**
+     * Benchmarks a full quote through the allocation-free structured quote API
+     * @return Monthly payment in cents
+     */
+    @Benchmark
+    public long structuredQuote() {
+        int i = nextIndex();
+        int loanAmount = loanAmounts[i] -
+                         (express[i] ? WolfpackLending.EXPRESS_PROCESSING_FEE : 0);
+        return WolfpackLending.quote(months[i], days[i], creditScores[i], incomes[i],
+                                     loanAmount, express[i], quote).getPaymentCents();
+    }
+
+    /**
+     * Benchmarks branch-free columnar pricing of the whole application table; scores are
+     * reported per application
+     * @return Payment of the first application
+     */
+    @Benchmark
+    @OperationsPerInvocation(APPLICATIONS)
+    public double columnarPricing() {
+        WolfpackColumnarPricing.price(loanAmounts, creditScores, incomes, columnRates,
+                                      columnPayments);
+        return columnPayments[0];
+    }
+
+    /**
+     * Benchmarks summing the rounded monthly payments of the whole application table with
+     * fixed-point cents; scores are reported per application
+     * @return Total monthly payments in cents
+     */
+    @Benchmark
+    @OperationsPerInvocation(APPLICATIONS)
+    public long fixedPointTotal() {
+        return WolfpackFixedPoint.totalPaymentCents(loanCents, rateBasisPoints,
+                                                    WolfpackLending.NUMBER_OF_MONTHS);
+    }
+
+    /**
+     * Benchmarks the same total as fixedPointTotal with BigDecimal arithmetic; scores are
+     * reported per application
+     * @return Total monthly payments in dollars
+     */
+    @Benchmark
+    @OperationsPerInvocation(APPLICATIONS)
+    public BigDecimal bigDecimalTotal() {
+        MathContext context = MathContext.DECIMAL64;
+        BigDecimal monthsPerYear = BigDecimal.valueOf(WolfpackLending.MONTHS_IN_YEAR * 100);
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < APPLICATIONS; i++) {
+            BigDecimal rate = BigDecimal.valueOf(rates[i]).divide(monthsPerYear, context);
+            BigDecimal power = BigDecimal.ONE.add(rate)
+                                   .pow(WolfpackLending.NUMBER_OF_MONTHS, context);
+            BigDecimal payment = BigDecimal.valueOf(loanAmounts[i]).multiply(rate)
+                                 .multiply(power)
+                                 .divide(power.subtract(BigDecimal.ONE), context);
+            total = total.add(payment.setScale(2, RoundingMode.HALF_UP));
+        }
+        return total;
+    }
+
+    /**
+     * Runs all benchmarks with the GC profiler
+     * @param args command line arguments (not used)
+     * @throws RunnerException if JMH fails to run the benchmarks
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(WolfpackLendingBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,311 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+
+/**
+ * Measures how much decision metrics slow down pricing. Comparing separate JVMs run with
+ * and without -Dwolfpack.metrics=false mixes the overhead with the noise between runs,
+ * which on a shared machine is far larger than the effect. Instead this program loads two
+ * copies of the classes in one JVM, one with metrics and one without, and times them in
+ * alternating rounds (in the order on, off, off, on), so drift on the machine affects both
+ * copies alike. The quote loop is timed in CPU time of the calling thread; the batch prices
+ * on its own pool thread and is timed in elapsed time, since process CPU time is only
+ * counted in scheduler ticks. Two workloads are measured: the structured quote loop
+ * counting into a WolfpackMetrics.Tally as the bulk paths do, and WolfpackBatch on one
+ * thread. The measurement is repeated in several JVMs; for each workload it prints the
+ * median time per application of both copies and the median overhead over the JVMs with a
+ * 95% confidence interval. Run with "java WolfpackMetricsOverhead [forks [pairs]]" with the
+ * compiled classes on the class path.
+ * @author Jessica Greene
+ */
+public class WolfpackMetricsOverhead {
+    /** Number of pre-generated applications (a power of 2 so the index can be masked) */
+    public static final int APPLICATIONS = 1 << 12;
+
+    /** Seed for the pre-generated applications so every run measures the same inputs */
+    public static final long SEED = 20200101L;
+
+    /** Workload that prices applications with WolfpackLending.quote */
+    public static final int QUOTE = 0;
+
+    /** Workload that prices a CSV file of applications with WolfpackBatch */
+    public static final int BATCH = 1;
+
+    /** Names of the workloads */
+    private static final String[] WORKLOADS = {"quote", "batch"};
+
+    /** Applications priced in one round of each workload */
+    private static final int[] ROUND_APPLICATIONS = {10_000_000, 500_000};
+
+    /** Rounds of each copy run before measuring, so both are fully compiled */
+    public static final int WARMUP_ROUNDS = 5;
+
+    /** Default number of JVMs measured */
+    public static final int DEFAULT_FORKS = 20;
+
+    /** Default number of measured pairs of rounds in each JVM */
+    public static final int DEFAULT_PAIRS = 10;
+
+    /** Argument that makes the program measure one fork */
+    private static final String FORK = "-fork";
+
+    /** z value of a two-sided 95% interval */
+    private static final double Z_95 = 1.96;
+
+    /** Application months */
+    private static final int[] MONTHS = new int[APPLICATIONS];
+
+    /** Application days */
+    private static final int[] DAYS = new int[APPLICATIONS];
+
+    /** Applicant credit scores */
+    private static final int[] CREDIT_SCORES = new int[APPLICATIONS];
+
+    /** Applicant incomes */
+    private static final int[] INCOMES = new int[APPLICATIONS];
+
+    /** Loan amounts without the express processing fee */
+    private static final int[] LOAN_AMOUNTS = new int[APPLICATIONS];
+
+    /** Express processing flags */
+    private static final boolean[] EXPRESS = new boolean[APPLICATIONS];
+
+    /** CSV text of one round of the batch workload */
+    private static final String CSV;
+
+    static {
+        WolfpackWorkload workload =
+            new WolfpackWorkload(SEED, WolfpackWorkload.DEFAULT_EXPRESS_RATIO);
+        for (int i = 0; i < APPLICATIONS; i++) {
+            workload.next();
+            MONTHS[i] = workload.getMonth();
+            DAYS[i] = workload.getDay();
+            CREDIT_SCORES[i] = workload.getCreditScore();
+            INCOMES[i] = workload.getIncome();
+            LOAN_AMOUNTS[i] = workload.getLoanAmount();
+            EXPRESS[i] = workload.isExpressProcessing();
+        }
+        StringWriter csv = new StringWriter();
+        try {
+            new WolfpackWorkload(SEED, WolfpackWorkload.DEFAULT_EXPRESS_RATIO)
+                .writeCsv(csv, ROUND_APPLICATIONS[BATCH]);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        CSV = csv.toString();
+    }
+
+    /**
+     * Runs one round of a workload; called in each loaded copy
+     * @param workload QUOTE or BATCH
+     * @return Sum of the quote fields, or the number of rows, so the work cannot be removed
+     * @throws IOException if the batch fails
+     */
+    public static long round(int workload) throws IOException {
+        if (workload == BATCH) {
+            Writer discard = Writer.nullWriter();
+            return WolfpackBatch.run(new BufferedReader(new StringReader(CSV)), discard, 1);
+        }
+        WolfpackQuote quote = new WolfpackQuote();
+        WolfpackMetrics.Tally tally = new WolfpackMetrics.Tally();
+        long total = 0;
+        for (int k = 0; k < ROUND_APPLICATIONS[QUOTE]; k++) {
+            int i = k & (APPLICATIONS - 1);
+            WolfpackLending.quote(MONTHS[i], DAYS[i], CREDIT_SCORES[i], INCOMES[i],
+                                  LOAN_AMOUNTS[i], EXPRESS[i], quote);
+            tally.count(quote);
+            //use every field counted so the copy without metrics cannot skip computing them
+            total += quote.getPaymentCents() + quote.getRateBasisPoints() +
+                     quote.getDecision();
+        }
+        tally.flush();
+        return total;
+    }
+
+    /**
+     * Loads a copy of the classes with metrics turned on or off
+     * @param metrics Value of the wolfpack.metrics property while the copy initializes
+     * @return round of the copy
+     * @throws ReflectiveOperationException if the copy cannot be loaded
+     */
+    private static Method loadCopy(boolean metrics) throws ReflectiveOperationException {
+        URL classes = WolfpackMetricsOverhead.class.getProtectionDomain().getCodeSource()
+                                                   .getLocation();
+        ClassLoader loader = new URLClassLoader(new URL[] {classes},
+                                                ClassLoader.getPlatformClassLoader());
+        System.setProperty("wolfpack.metrics", Boolean.toString(metrics));
+        try {
+            Class.forName(WolfpackMetrics.class.getName(), true, loader);
+        } finally {
+            System.clearProperty("wolfpack.metrics");
+        }
+        return Class.forName(WolfpackMetricsOverhead.class.getName(), true, loader)
+                    .getMethod("round", int.class);
+    }
+
+    /**
+     * Runs one round of a copy
+     * @param copy round of the copy
+     * @param workload QUOTE or BATCH
+     * @return Nanoseconds per application
+     * @throws ReflectiveOperationException if the copy cannot be called
+     */
+    private static double time(Method copy, int workload)
+        throws ReflectiveOperationException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        boolean cpu = workload == QUOTE;
+        long start = cpu ? threads.getCurrentThreadCpuTime() : System.nanoTime();
+        copy.invoke(null, workload);
+        long end = cpu ? threads.getCurrentThreadCpuTime() : System.nanoTime();
+        return (end - start) / (double) ROUND_APPLICATIONS[workload];
+    }
+
+    /**
+     * Returns the median of sorted values
+     * @param sorted Values in ascending order
+     * @return Median
+     */
+    private static double median(double[] sorted) {
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] :
+               (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    /**
+     * Returns the ranks of sorted values that cover their median with 95% confidence
+     * (sign test)
+     * @param count Number of values
+     * @return Lowest and highest rank
+     */
+    private static int[] confidenceRanks(int count) {
+        int spread = (int) Math.ceil(Z_95 * Math.sqrt(count) / 2);
+        return new int[] {Math.max(count / 2 - spread, 0),
+                          Math.min((count + 1) / 2 + spread - 1, count - 1)};
+    }
+
+    /**
+     * Measures the overhead of metrics on one workload in this JVM
+     * @param on round of the copy with metrics
+     * @param off round of the copy without metrics
+     * @param workload QUOTE or BATCH
+     * @param pairs Number of measured pairs of rounds
+     * @return Median nanoseconds per application with and without metrics, and median
+     *         overhead of the pairs
+     * @throws ReflectiveOperationException if a copy cannot be called
+     */
+    private static double[] measure(Method on, Method off, int workload, int pairs)
+        throws ReflectiveOperationException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            time(on, workload);
+            time(off, workload);
+        }
+        double[] onNanos = new double[pairs];
+        double[] offNanos = new double[pairs];
+        double[] overheads = new double[pairs];
+        for (int i = 0; i < pairs; i++) {
+            //alternate which copy goes first so a trend within a pair cancels out
+            if (i % 2 == 0) {
+                onNanos[i] = time(on, workload);
+                offNanos[i] = time(off, workload);
+            } else {
+                offNanos[i] = time(off, workload);
+                onNanos[i] = time(on, workload);
+            }
+            overheads[i] = onNanos[i] / offNanos[i] - 1;
+        }
+        Arrays.sort(onNanos);
+        Arrays.sort(offNanos);
+        Arrays.sort(overheads);
+        return new double[] {median(onNanos), median(offNanos), median(overheads)};
+    }
+
+    /**
+     * Runs one fork: measures each workload in this JVM and prints one line per workload
+     * with the median nanoseconds with and without metrics and the median overhead
+     * @param pairs Number of measured pairs of rounds
+     * @param onFirst Whether the copy with metrics is loaded and compiled first
+     * @throws ReflectiveOperationException if the copies cannot be loaded or called
+     */
+    private static void fork(int pairs, boolean onFirst)
+        throws ReflectiveOperationException {
+        Method first = loadCopy(onFirst);
+        Method second = loadCopy(!onFirst);
+        Method on = onFirst ? first : second;
+        Method off = onFirst ? second : first;
+        for (int workload = QUOTE; workload <= BATCH; workload++) {
+            double[] result = measure(on, off, workload, pairs);
+            System.out.println(result[0] + " " + result[1] + " " + result[2]);
+        }
+    }
+
+    /**
+     * Measures the overhead of metrics on each workload in separate JVMs and prints the
+     * results. Each JVM compiles the two copies differently, which moves the overhead by
+     * more than the noise within one JVM, so the interval is taken over the forks, which
+     * take turns loading the copy with metrics first.
+     * @param args command line arguments: optionally the number of forks and of measured
+     *        pairs in each fork
+     * @throws IOException if a fork cannot be started or fails
+     * @throws InterruptedException if interrupted while waiting for a fork
+     * @throws ReflectiveOperationException if the copies cannot be loaded or called
+     */
+    public static void main(String[] args)
+        throws IOException, InterruptedException, ReflectiveOperationException {
+        if (args.length == 3 && args[0].equals(FORK)) {
+            fork(Integer.parseInt(args[1]), Boolean.parseBoolean(args[2]));
+            return;
+        }
+        int forks = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FORKS;
+        String pairs = args.length > 1 ? args[1] : Integer.toString(DEFAULT_PAIRS);
+        String java = new File(new File(System.getProperty("java.home"), "bin"), "java")
+                      .getPath();
+        double[][][] results = new double[WORKLOADS.length][3][forks];
+        for (int f = 0; f < forks; f++) {
+            //alternate the copy loaded first so the order does not favor either
+            Process process =
+                new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                                   WolfpackMetricsOverhead.class.getName(), FORK, pairs,
+                                   Boolean.toString(f % 2 == 0))
+                .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            try (BufferedReader out = new BufferedReader(
+                     new InputStreamReader(process.getInputStream()))) {
+                for (int workload = QUOTE; workload <= BATCH; workload++) {
+                    String line = out.readLine();
+                    if (line == null) {
+                        throw new IOException("Fork " + f + " failed");
+                    }
+                    String[] fields = line.split(" ");
+                    for (int i = 0; i < fields.length; i++) {
+                        results[workload][i][f] = Double.parseDouble(fields[i]);
+                    }
+                }
+            }
+            if (process.waitFor() != 0) {
+                throw new IOException("Fork " + f + " failed");
+            }
+        }
+        int[] ranks = confidenceRanks(forks);
+        for (int workload = QUOTE; workload <= BATCH; workload++) {
+            for (double[] values : results[workload]) {
+                Arrays.sort(values);
+            }
+            double[] overheads = results[workload][2];
+            System.out.printf("%-5s metrics on %8.2f ns, off %8.2f ns per application; " +
+                              "overhead %+.2f%% (95%% confidence %+.2f%% to " +
+                              "%+.2f%%)\n",
+                              WORKLOADS[workload], median(results[workload][0]),
+                              median(results[workload][1]), 100 * median(overheads),
+                              100 * overheads[ranks[0]], 100 * overheads[ranks[1]]);
+        }
+    }
+}
@@ -0,0 +1,378 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.*;
+
+/**
+ * Generates the month-by-month principal, interest, and balance schedule of a loan. A
+ * schedule is a cursor: each call to next moves to the following month and the getters
+ * return that month's figures, so walking a schedule creates no objects and one schedule
+ * can be reset and reused for any number of loans. Rows can also be produced lazily as a
+ * Stream, and the schedules of a whole portfolio can be written straight to a file.
+ * Each month's interest is the remaining balance times the monthly interest rate, and the
+ * rest of the payment repays principal. The final payment is adjusted so that the balance
+ * ends at exactly zero.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackAmortizationSchedule {
+
+    /** Header written as the first line of a schedule file */
+    public static final String OUTPUT_HEADER = "loan,month,payment,interest,principal,balance";
+
+    /** Loan amount */
+    private double loanAmount;
+
+    /** Monthly interest rate as a fraction */
+    private double monthlyInterestRate;
+
+    /** Regular monthly payment */
+    private double monthlyPayment;
+
+    /** Number of months in the repayment period */
+    private int numberOfMonths;
+
+    /** Current month (0 before the first call to next) */
+    private int month;
+
+    /** Payment for the current month */
+    private double payment;
+
+    /** Interest for the current month */
+    private double interest;
+
+    /** Principal repaid in the current month */
+    private double principal;
+
+    /** Balance after the current month's payment */
+    private double balance;
+
+    /**
+     * Creates the schedule of a loan, positioned before the first month
+     * @param loanAmount Total loan amount (including express processing fee)
+     * @param annualInterestRate Annual interest rate for approved loan
+     * @param numberOfMonths Number of months in loan repayment period
+     * @throws IllegalArgumentException if an argument is not valid for getMonthlyPayment
+     */
+    public WolfpackAmortizationSchedule(double loanAmount, double annualInterestRate,
+                                        int numberOfMonths) {
+        reset(loanAmount, annualInterestRate, numberOfMonths);
+    }
+
+    /**
+     * Starts the schedule of another loan, positioned before the first month
+     * @param loanAmount Total loan amount (including express processing fee)
+     * @param annualInterestRate Annual interest rate for approved loan
+     * @param numberOfMonths Number of months in loan repayment period
+     * @return This schedule
+     * @throws IllegalArgumentException if an argument is not valid for getMonthlyPayment
+     */
+    public WolfpackAmortizationSchedule reset(double loanAmount, double annualInterestRate,
+                                              int numberOfMonths) {
+        this.monthlyPayment = WolfpackLending.getMonthlyPayment(loanAmount, annualInterestRate,
+                                                                numberOfMonths);
+        this.loanAmount = loanAmount;
+        this.monthlyInterestRate = annualInterestRate /
+                                   (WolfpackLending.MONTHS_IN_YEAR * 100.0);
+        this.numberOfMonths = numberOfMonths;
+        this.month = 0;
+        this.payment = 0;
+        this.interest = 0;
+        this.principal = 0;
+        this.balance = loanAmount;
+        return this;
+    }
+
+    /**
+     * Moves to the next month of the schedule
+     * @return True if there was another month, false if the schedule is finished
+     */
+    public boolean next() {
+        if (month == numberOfMonths) {
+            return false;
+        }
+        month++;
+        interest = balance * monthlyInterestRate;
+        if (month == numberOfMonths) {
+            principal = balance;
+            payment = principal + interest;
+        } else {
+            payment = monthlyPayment;
+            principal = payment - interest;
+        }
+        balance -= principal;
+        if (month == numberOfMonths) {
+            balance = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the current month
+     * @return Month number from 1 to the number of months
+     */
+    public int getMonth() {
+        return month;
+    }
+
+    /**
+     * Returns the payment for the current month
+     * @return Payment
+     */
+    public double getPayment() {
+        return payment;
+    }
+
+    /**
+     * Returns the interest paid in the current month
+     * @return Interest
+     */
+    public double getInterest() {
+        return interest;
+    }
+
+    /**
+     * Returns the principal repaid in the current month
+     * @return Principal
+     */
+    public double getPrincipal() {
+        return principal;
+    }
+
+    /**
+     * Returns the balance after the current month's payment
+     * @return Remaining balance
+     */
+    public double getBalance() {
+        return balance;
+    }
+
+    /**
+     * Returns the loan amount of the schedule
+     * @return Loan amount
+     */
+    public double getLoanAmount() {
+        return loanAmount;
+    }
+
+    /**
+     * Returns the rows of a loan's schedule as a lazy Stream. Rows are computed only as the
+     * stream is consumed.
+     * @param loanAmount Total loan amount (including express processing fee)
+     * @param annualInterestRate Annual interest rate for approved loan
+     * @param numberOfMonths Number of months in loan repayment period
+     * @return Stream of schedule rows in month order
+     * @throws IllegalArgumentException if an argument is not valid for getMonthlyPayment
+     */
+    public static Stream<Row> rows(double loanAmount, double annualInterestRate,
+                                   int numberOfMonths) {
+        WolfpackAmortizationSchedule schedule =
+            new WolfpackAmortizationSchedule(loanAmount, annualInterestRate, numberOfMonths);
+        Spliterator<Row> rows = new Spliterators.AbstractSpliterator<Row>(numberOfMonths,
+            Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SIZED) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Row> action) {
+                if (!schedule.next()) {
+                    return false;
+                }
+                action.accept(new Row(schedule.month, schedule.payment, schedule.interest,
+                                      schedule.principal, schedule.balance));
+                return true;
+            }
+        };
+        return StreamSupport.stream(rows, false);
+    }
+
+    /**
+     * Writes the 5-year schedule of every approved loan in a WolfpackBatch result file
+     * to an output file
+     * @param args command line arguments: batch result file and schedule output file
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: java WolfpackAmortizationSchedule results.csv " +
+                               "schedules.csv");
+            System.exit(1);
+        }
+        try {
+            long loans = writeSchedules(new File(args[0]), new File(args[1]));
+            System.out.println("Wrote schedules for " + loans + " loans");
+        } catch (IOException e) {
+            System.out.println("Could not write schedules: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Writes the 5-year schedule of every approved loan in a WolfpackBatch result file.
+     * Loans are numbered by their row in the result file, starting at 1.
+     * @param results WolfpackBatch result file
+     * @param output Schedule file to write
+     * @return Number of loans written
+     * @throws IOException if the result file cannot be read, has an approved row whose
+     *         loan amount or interest rate is invalid, or the output file cannot be written
+     */
+    public static long writeSchedules(File results, File output) throws IOException {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                 new FileInputStream(results), StandardCharsets.UTF_8), 1 << 16);
+             Writer out = new BufferedWriter(new OutputStreamWriter(
+                 new FileOutputStream(output), StandardCharsets.UTF_8), 1 << 16)) {
+            out.write(OUTPUT_HEADER);
+            out.write('\n');
+            WolfpackAmortizationSchedule schedule = new WolfpackAmortizationSchedule(1, 1, 1);
+            StringBuilder rows = new StringBuilder(1 << 13);
+            long loans = 0;
+            long rowNumber = 0;
+            long lineNumber = 1;
+            String line = in.readLine();
+            while (line != null) {
+                if (!line.equals(WolfpackBatch.OUTPUT_HEADER)) {
+                    rowNumber++;
+                    //fields 7 and 8 are the total loan and interest rate of approved rows
+                    String[] fields = line.split(",", 10);
+                    if (fields.length >= 9 && fields[6].equals("Approved")) {
+                        try {
+                            schedule.reset(Double.parseDouble(fields[7]),
+                                           Double.parseDouble(fields[8]),
+                                           WolfpackLending.NUMBER_OF_MONTHS);
+                        } catch (IllegalArgumentException e) {
+                            //covers NumberFormatException and an invalid loan
+                            throw new IOException("Invalid result row on line " + lineNumber,
+                                                  e);
+                        }
+                        appendSchedule(rows, rowNumber, schedule);
+                        out.append(rows);
+                        rows.setLength(0);
+                        loans++;
+                    }
+                }
+                line = in.readLine();
+                lineNumber++;
+            }
+            return loans;
+        }
+    }
+
+    /**
+     * Writes the schedules of a portfolio held in columns, one loan at a time, without
+     * creating an object per row. Loans are numbered by index, starting at 0.
+     * @param loanAmounts Total loan amounts (including express processing fee)
+     * @param rates Annual interest rates
+     * @param numberOfMonths Number of months in loan repayment period
+     * @param out Destination of the schedule rows
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if the arrays are not the same length
+     */
+    public static void writeSchedules(int[] loanAmounts, double[] rates, int numberOfMonths,
+                                      Writer out) throws IOException {
+        if (loanAmounts.length != rates.length) {
+            throw new IllegalArgumentException("Invalid array lengths");
+        }
+        WolfpackAmortizationSchedule schedule = new WolfpackAmortizationSchedule(1, 1, 1);
+        StringBuilder rows = new StringBuilder(1 << 13);
+        for (int i = 0; i < loanAmounts.length; i++) {
+            schedule.reset(loanAmounts[i], rates[i], numberOfMonths);
+            appendSchedule(rows, i, schedule);
+            out.append(rows);
+            rows.setLength(0);
+        }
+    }
+
+    /**
+     * Appends every remaining row of a schedule as CSV, with amounts in dollars and cents
+     * @param rows Buffer to append to
+     * @param loan Loan number
+     * @param schedule Schedule to walk
+     */
+    private static void appendSchedule(StringBuilder rows, long loan,
+                                       WolfpackAmortizationSchedule schedule) {
+        while (schedule.next()) {
+            rows.append(loan).append(',').append(schedule.month).append(',');
+            WolfpackQuote.appendCents(rows, Math.round(schedule.payment * 100));
+            rows.append(',');
+            WolfpackQuote.appendCents(rows, Math.round(schedule.interest * 100));
+            rows.append(',');
+            WolfpackQuote.appendCents(rows, Math.round(schedule.principal * 100));
+            rows.append(',');
+            WolfpackQuote.appendCents(rows, Math.round(schedule.balance * 100));
+            rows.append('\n');
+        }
+    }
+
+    /**
+     * One month of a schedule
+     */
+    public static final class Row {
+        /** Month number */
+        private final int month;
+
+        /** Payment */
+        private final double payment;
+
+        /** Interest */
+        private final double interest;
+
+        /** Principal repaid */
+        private final double principal;
+
+        /** Remaining balance */
+        private final double balance;
+
+        /**
+         * Creates a row
+         * @param month Month number
+         * @param payment Payment
+         * @param interest Interest
+         * @param principal Principal repaid
+         * @param balance Remaining balance
+         */
+        Row(int month, double payment, double interest, double principal, double balance) {
+            this.month = month;
+            this.payment = payment;
+            this.interest = interest;
+            this.principal = principal;
+            this.balance = balance;
+        }
+
+        /**
+         * Returns the month number
+         * @return Month number
+         */
+        public int getMonth() {
+            return month;
+        }
+
+        /**
+         * Returns the payment
+         * @return Payment
+         */
+        public double getPayment() {
+            return payment;
+        }
+
+        /**
+         * Returns the interest
+         * @return Interest
+         */
+        public double getInterest() {
+            return interest;
+        }
+
+        /**
+         * Returns the principal repaid
+         * @return Principal
+         */
+        public double getPrincipal() {
+            return principal;
+        }
+
+        /**
+         * Returns the remaining balance
+         * @return Balance
+         */
+        public double getBalance() {
+            return balance;
+        }
+    }
+}
@@ -0,0 +1,510 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.*;
+
+/**
+ * Compact binary file of loan applications for repeated what-if runs. A CSV file in the
+ * WolfpackBatch input format is converted once into fixed-width RECORD_SIZE-byte records,
+ * which are then read by memory-mapping the file, so later runs do no text parsing and
+ * create no objects per record. Each record holds, in little-endian order:
+ * month (1 byte), day (1 byte), flags (1 byte: FLAG_EXPRESS and FLAG_INVALID_INPUT),
+ * a reserved byte, and the credit score, income, and loan amount (4 bytes each).
+ * Rows that could not be parsed are kept as records with FLAG_INVALID_INPUT, so record
+ * numbers match CSV row numbers. A month or day that does not fit in a byte is stored as
+ * 0, which is an invalid date just like the original value.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackApplicationFile {
+
+    /** Size of a record in bytes */
+    public static final int RECORD_SIZE = 16;
+
+    /** Size of the file header in bytes */
+    public static final int HEADER_SIZE = 16;
+
+    /** Flag of a record that requests express processing */
+    public static final int FLAG_EXPRESS = 1;
+
+    /** Flag of a record whose CSV row could not be parsed */
+    public static final int FLAG_INVALID_INPUT = 2;
+
+    /** Largest part of the file mapped at once, in bytes (a multiple of RECORD_SIZE) */
+    public static final int MAX_MAPPED_BYTES = 1 << 30;
+
+    /** Number of records written to the file at once during conversion */
+    public static final int WRITE_RECORDS = 4096;
+
+    /** Number of records priced between commits of the decision journal */
+    public static final int COMMIT_RECORDS = 8192;
+
+    /** Number of decision codes */
+    public static final int DECISIONS = WolfpackValidation.INVALID_INPUT + 1;
+
+    /** First int of an application file ("WPAF") */
+    private static final int FILE_MAGIC = 0x57504146;
+
+    /** Version of the application file format */
+    private static final int FILE_VERSION = 1;
+
+    /** Largest month or day value stored as is */
+    private static final int MAX_BYTE_VALUE = 0xFF;
+
+    /**
+     * Receives records read from an application file
+     */
+    public interface Handler {
+        /**
+         * Receives one record
+         * @param index Record number, starting at 0
+         * @param parsed False if the CSV row could not be parsed (the other fields are 0)
+         * @param month Application month
+         * @param day Application day of the month
+         * @param creditScore Credit score
+         * @param income Income for 2019
+         * @param loanAmount Requested loan amount (not including express processing fee)
+         * @param expressProcessing True for express processing, otherwise false
+         */
+        void application(long index, boolean parsed, int month, int day, int creditScore,
+                         int income, int loanAmount, boolean expressProcessing);
+    }
+
+    /**
+     * Converts a CSV file to an application file, or prices an application file
+     * @param args command line arguments: "convert input.csv output.bin" or
+     *             "price input.bin [threads]"
+     */
+    public static void main(String[] args) {
+        try {
+            if (args.length == 3 && args[0].equals("convert")) {
+                long start = System.nanoTime();
+                long records = convert(new File(args[1]), new File(args[2]));
+                double seconds = (System.nanoTime() - start) / WolfpackBatch.NANOS_PER_SECOND;
+                System.out.printf("Converted %d applications in %.3f seconds\n", records,
+                                  seconds);
+                return;
+            }
+            if ((args.length == 2 || args.length == 3) && args[0].equals("price")) {
+                int threads = args.length > 2 ? Integer.parseInt(args[2]) :
+                              Runtime.getRuntime().availableProcessors();
+                long start = System.nanoTime();
+                Totals totals = price(new File(args[1]), threads);
+                double seconds = (System.nanoTime() - start) / WolfpackBatch.NANOS_PER_SECOND;
+                System.out.println(totals);
+                System.out.printf("Priced %d applications in %.3f seconds (%.0f rows/sec)\n",
+                                  totals.getRecords(), seconds,
+                                  totals.getRecords() / Math.max(seconds, 1e-9));
+                return;
+            }
+        } catch (IOException e) {
+            System.out.println("Application file failed: " + e.getMessage());
+            System.exit(1);
+        }
+        System.out.println("Usage: java WolfpackApplicationFile convert input.csv output.bin");
+        System.out.println("       java WolfpackApplicationFile price input.bin [threads]");
+        System.exit(1);
+    }
+
+    /**
+     * Converts a CSV file of applications to an application file
+     * @param csv CSV file in the WolfpackBatch input format
+     * @param binary Application file to write
+     * @return Number of records written
+     * @throws IOException if the CSV file cannot be read or the application file written
+     */
+    public static long convert(File csv, File binary) throws IOException {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                 new FileInputStream(csv), StandardCharsets.UTF_8), 1 << 16)) {
+            return convert(in, binary);
+        }
+    }
+
+    /**
+     * Converts CSV application rows to an application file. A header line, if present,
+     * and empty lines are skipped, as in WolfpackBatch.
+     * @param in Reader supplying CSV application rows
+     * @param binary Application file to write
+     * @return Number of records written
+     * @throws IOException if reading or writing fails
+     */
+    public static long convert(BufferedReader in, File binary) throws IOException {
+        try (FileChannel out = FileChannel.open(binary.toPath(), StandardOpenOption.CREATE,
+                                                StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_RECORDS * RECORD_SIZE)
+                                          .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(FILE_MAGIC).putInt(FILE_VERSION).putInt(RECORD_SIZE).putInt(0);
+            long records = 0;
+            String line = in.readLine();
+            if (line != null && WolfpackBatch.isHeader(line)) {
+                line = in.readLine();
+            }
+            for (; line != null; line = in.readLine()) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (!buffer.hasRemaining()) {
+                    write(buffer, out);
+                }
+                putRecord(line, buffer);
+                records++;
+            }
+            write(buffer, out);
+            return records;
+        }
+    }
+
+    /**
+     * Writes a full or final buffer to the file and empties it
+     * @param buffer Buffer of records
+     * @param out File channel
+     * @throws IOException if writing fails
+     */
+    private static void write(ByteBuffer buffer, FileChannel out) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Parses a CSV application row into a record
+     * @param line Application row "month,day,creditScore,income,loanAmount,express"
+     * @param buffer Buffer that receives the record
+     */
+    private static void putRecord(String line, ByteBuffer buffer) {
+        long[] fields = new long[WolfpackBatch.FIELDS_PER_ROW];
+        if (!WolfpackBatch.parseRow(line, false, fields)) {
+            buffer.put((byte) 0).put((byte) 0).put((byte) FLAG_INVALID_INPUT).put((byte) 0);
+            buffer.putInt(0).putInt(0).putInt(0);
+            return;
+        }
+        long month = fields[0];
+        long day = fields[1];
+        boolean express = fields[5] != 0;
+        buffer.put((byte) (month >= 0 && month <= MAX_BYTE_VALUE ? month : 0));
+        buffer.put((byte) (day >= 0 && day <= MAX_BYTE_VALUE ? day : 0));
+        buffer.put((byte) (express ? FLAG_EXPRESS : 0));
+        buffer.put((byte) 0);
+        buffer.putInt((int) fields[2]).putInt((int) fields[3]).putInt((int) fields[4]);
+    }
+
+    /**
+     * Returns the number of records in an application file
+     * @param file Application file
+     * @return Number of records
+     * @throws IOException if the file cannot be read or is not an application file
+     */
+    public static long count(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return count(channel);
+        }
+    }
+
+    /**
+     * Checks the header of an open application file and returns its number of records
+     * @param channel Open application file
+     * @return Number of records
+     * @throws IOException if the file cannot be read or is not an application file
+     */
+    private static long count(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE || (size - HEADER_SIZE) % RECORD_SIZE != 0) {
+            throw new IOException("Invalid application file");
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Invalid application file");
+            }
+        }
+        if (header.getInt(0) != FILE_MAGIC || header.getInt(4) != FILE_VERSION ||
+            header.getInt(8) != RECORD_SIZE) {
+            throw new IOException("Invalid application file");
+        }
+        return (size - HEADER_SIZE) / RECORD_SIZE;
+    }
+
+    /**
+     * Reads every record of an application file in order
+     * @param file Application file
+     * @param handler Receives the records
+     * @return Number of records read
+     * @throws IOException if the file cannot be read or is not an application file
+     */
+    public static long scan(File file, Handler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long records = count(channel);
+            scan(channel, 0, records, handler);
+            return records;
+        }
+    }
+
+    /**
+     * Reads a range of records of an application file in order
+     * @param file Application file
+     * @param first Number of the first record to read
+     * @param records Number of records to read
+     * @param handler Receives the records
+     * @throws IOException if the file cannot be read or is not an application file
+     * @throws IllegalArgumentException if the range is not within the file
+     */
+    public static void scan(File file, long first, long records, Handler handler)
+        throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long total = count(channel);
+            if (first < 0 || records < 0 || first > total || records > total - first) {
+                throw new IllegalArgumentException("Invalid record range");
+            }
+            scan(channel, first, records, handler);
+        }
+    }
+
+    /**
+     * Maps a range of records, at most MAX_MAPPED_BYTES at a time, and passes each one to
+     * a handler
+     * @param channel Open application file
+     * @param first Number of the first record to read
+     * @param records Number of records to read
+     * @param handler Receives the records
+     * @throws IOException if the file cannot be mapped
+     */
+    private static void scan(FileChannel channel, long first, long records, Handler handler)
+        throws IOException {
+        long index = first;
+        long end = first + records;
+        while (index < end) {
+            int mapped = (int) Math.min(end - index, MAX_MAPPED_BYTES / RECORD_SIZE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                                                  HEADER_SIZE + index * RECORD_SIZE,
+                                                  (long) mapped * RECORD_SIZE);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            for (int offset = 0; offset < mapped * RECORD_SIZE; offset += RECORD_SIZE) {
+                int flags = buffer.get(offset + 2);
+                handler.application(index++, (flags & FLAG_INVALID_INPUT) == 0,
+                                    buffer.get(offset) & MAX_BYTE_VALUE,
+                                    buffer.get(offset + 1) & MAX_BYTE_VALUE,
+                                    buffer.getInt(offset + 4), buffer.getInt(offset + 8),
+                                    buffer.getInt(offset + 12),
+                                    (flags & FLAG_EXPRESS) != 0);
+            }
+        }
+    }
+
+    /**
+     * Prices every record of an application file with WolfpackLending.quote, splitting the
+     * records into one contiguous range per thread
+     * @param file Application file
+     * @param threads Number of worker threads
+     * @return Totals of the decisions and approved loans
+     * @throws IOException if the file cannot be read or is not an application file, or
+     *         the decision journal cannot be written
+     * @throws IllegalArgumentException if the number of threads is less than 1
+     */
+    public static Totals price(File file, int threads) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid number of threads");
+        }
+        long records = count(file);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "wolfpack-application-file");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            ArrayList<Future<Totals>> parts = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                long first = records * i / threads;
+                long last = records * (i + 1) / threads;
+                parts.add(pool.submit(() -> priceRange(file, first, last - first)));
+            }
+            Totals totals = new Totals();
+            for (Future<Totals> part : parts) {
+                totals.add(part.get());
+            }
+            return totals;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Pricing interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Pricing failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Prices a range of records on the calling thread. The decision journal, if in use, is
+     * committed every COMMIT_RECORDS records and at the end of the range, so its buffer
+     * stays small however large the range is.
+     * @param file Application file
+     * @param first Number of the first record
+     * @param records Number of records
+     * @return Totals of the range
+     * @throws IOException if the file cannot be read or the decision journal written
+     */
+    static Totals priceRange(File file, long first, long records) throws IOException {
+        Totals totals = new Totals();
+        WolfpackQuote quote = new WolfpackQuote();
+        WolfpackMetrics.Tally tally = new WolfpackMetrics.Tally();
+        WolfpackDecisionJournal journal = WolfpackDecisionJournal.current();
+        try {
+            scan(file, first, records, (index, parsed, month, day, creditScore, income,
+                                        loanAmount, expressProcessing) -> {
+                if (!parsed) {
+                    quote.reject(WolfpackValidation.INVALID_INPUT);
+                } else {
+                    WolfpackLending.quote(month, day, creditScore, income, loanAmount,
+                                          expressProcessing, quote);
+                }
+                totals.record(quote);
+                tally.count(quote);
+                if (journal != null && (index - first + 1) % COMMIT_RECORDS == 0) {
+                    try {
+                        journal.commit();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+            if (journal != null) {
+                journal.commit();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            tally.flush();
+        }
+        return totals;
+    }
+
+    /**
+     * Counts of each decision and sums of the approved loans of a pricing run
+     */
+    public static final class Totals {
+        /** Number of records with each decision code */
+        private final long[] decisions = new long[DECISIONS];
+
+        /** Sum of the approved total loan amounts in cents */
+        private long loanCents;
+
+        /** Sum of the approved monthly payments in cents */
+        private long paymentCents;
+
+        /**
+         * Counts one pricing result
+         * @param quote Pricing result
+         */
+        void record(WolfpackQuote quote) {
+            decisions[quote.getDecision()]++;
+            if (quote.isApproved()) {
+                loanCents += quote.getLoanCents();
+                paymentCents += quote.getPaymentCents();
+            }
+        }
+
+        /**
+         * Writes the totals in binary form
+         * @param out Output that receives the totals
+         * @throws IOException if writing fails
+         */
+        void write(DataOutput out) throws IOException {
+            for (long count : decisions) {
+                out.writeLong(count);
+            }
+            out.writeLong(loanCents);
+            out.writeLong(paymentCents);
+        }
+
+        /**
+         * Reads totals written by write
+         * @param in Input that supplies the totals
+         * @return Totals
+         * @throws IOException if reading fails
+         */
+        static Totals read(DataInput in) throws IOException {
+            Totals totals = new Totals();
+            for (int i = 0; i < DECISIONS; i++) {
+                totals.decisions[i] = in.readLong();
+            }
+            totals.loanCents = in.readLong();
+            totals.paymentCents = in.readLong();
+            return totals;
+        }
+
+        /**
+         * Adds the totals of another run
+         * @param other Totals to add
+         */
+        void add(Totals other) {
+            for (int i = 0; i < DECISIONS; i++) {
+                decisions[i] += other.decisions[i];
+            }
+            loanCents += other.loanCents;
+            paymentCents += other.paymentCents;
+        }
+
+        /**
+         * Returns the number of records priced
+         * @return Number of records
+         */
+        public long getRecords() {
+            long records = 0;
+            for (long count : decisions) {
+                records += count;
+            }
+            return records;
+        }
+
+        /**
+         * Returns the number of records with a decision
+         * @param decision WolfpackQuote.APPROVED, WolfpackQuote.DENIED, or a
+         *                 WolfpackValidation error code
+         * @return Number of records
+         */
+        public long getDecisionCount(int decision) {
+            return decisions[decision];
+        }
+
+        /**
+         * Returns the sum of the approved total loan amounts
+         * @return Cents
+         */
+        public long getLoanCents() {
+            return loanCents;
+        }
+
+        /**
+         * Returns the sum of the approved monthly payments
+         * @return Cents
+         */
+        public long getPaymentCents() {
+            return paymentCents;
+        }
+
+        /**
+         * Returns the totals as printed by main
+         * @return Totals text
+         */
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(128);
+            text.append(decisions[WolfpackQuote.APPROVED]).append(" approved, ")
+                .append(decisions[WolfpackQuote.DENIED]).append(" denied, ")
+                .append(getRecords() - decisions[WolfpackQuote.APPROVED] -
+                        decisions[WolfpackQuote.DENIED]).append(" invalid\nLoans $");
+            WolfpackQuote.appendCents(text, loanCents).append(", monthly payments $");
+            return WolfpackQuote.appendCents(text, paymentCents).toString();
+        }
+    }
+}
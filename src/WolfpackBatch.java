@@ -0,0 +1,528 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs a CSV file of loan applications through the WolfpackLending pricing methods in
+ * bulk. Each input row has the form "month,day,creditScore,income,loanAmount,express"
+ * (e.g., "3,16,755,40000,5000,y"). Rows are read in fixed-size chunks, priced in parallel
+ * on all available cores, and written to the output file in the same order as the input,
+ * one result row per input row. Only a bounded number of chunks are in flight at once,
+ * so memory use does not grow with the size of the input file.
+ * With a WolfpackDedupIndex, each row carries a seventh field, a positive applicant ID.
+ * Rows whose IDs are already in the index are skipped, and the IDs of each chunk are
+ * added once its results are written, so a failed run can be repeated on the same
+ * input and output files and only the unfinished rows are priced. A row without a valid
+ * ID is reported as invalid input once: it is recorded in the index by its input line
+ * number, so a rerun on the same input file skips it too. The index also
+ * records how much of the output file its IDs cover, so a rerun can account for rows
+ * written just before a crash and cut off a row the crash tore.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackBatch {
+
+    /** Number of input rows priced together as one unit of work */
+    public static final int CHUNK_SIZE = 4096;
+
+    /** Number of chunks allowed in flight per worker thread */
+    public static final int CHUNKS_PER_THREAD = 2;
+
+    /** Number of fields in an application row */
+    public static final int FIELDS_PER_ROW = 6;
+
+    /** Header written as the first line of the output file */
+    public static final String OUTPUT_HEADER = "month,day,creditScore,income,loanAmount," +
+                                               "express,status,totalLoan,interestRate," +
+                                               "monthlyPayment,disbursementDate";
+
+    /** Header written as the first line of the output file when rows carry applicant IDs */
+    public static final String OUTPUT_HEADER_WITH_ID = "month,day,creditScore,income," +
+                                                       "loanAmount,express,status," +
+                                                       "totalLoan,interestRate," +
+                                                       "monthlyPayment,disbursementDate," +
+                                                       "applicantId";
+
+    /** Nanoseconds in a second */
+    public static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    /**
+     * Added to the input line number of a row without a valid applicant ID to give it a
+     * key in the dedup index; applicant IDs fit in an int, so the keys never collide
+     */
+    public static final long LINE_KEY_BASE = 1L << 32;
+
+    /** Applicant IDs of a chunk whose rows carry none */
+    private static final long[] NO_IDS = new long[0];
+
+    /**
+     * Prices the applications in an input CSV file and writes the results to an output
+     * CSV file
+     * @param args command line arguments: input file, output file, and optionally
+     *             the number of worker threads and a dedup index file
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: java WolfpackBatch input.csv output.csv [threads] " +
+                               "[index]");
+            System.exit(1);
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (args.length > 2) {
+            threads = Integer.parseInt(args[2]);
+        }
+        try (WolfpackDedupIndex index = args.length > 3 ?
+                 WolfpackDedupIndex.open(new File(args[3])) : null) {
+            long start = System.nanoTime();
+            long rows = run(new File(args[0]), new File(args[1]), threads, index);
+            double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+            System.out.printf("Processed %d applications in %.3f seconds (%.0f rows/sec)\n",
+                              rows, seconds, rows / Math.max(seconds, 1e-9));
+            if (index != null) {
+                System.out.printf("Skipped %d applications already decided\n",
+                                  index.getHits());
+            }
+        } catch (IOException e) {
+            System.out.println("Batch failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Prices every application in the input file and writes one result row per
+     * application to the output file, keeping input order
+     * @param input CSV file of applications
+     * @param output CSV file to write results to
+     * @param threads Number of worker threads
+     * @return Number of application rows processed
+     * @throws IOException if the input file cannot be read or the output file written
+     * @throws IllegalArgumentException if the number of threads is less than 1
+     */
+    public static long run(File input, File output, int threads) throws IOException {
+        return run(input, output, threads, null);
+    }
+
+    /**
+     * Prices the applications in the input file that are not already in a dedup index.
+     * With an index, result rows are appended to the output file, so a repeated run
+     * completes the output of a failed one.
+     * @param input CSV file of applications
+     * @param output CSV file to write results to
+     * @param threads Number of worker threads
+     * @param index Applicant IDs already decided, or null if rows carry no IDs
+     * @return Number of application rows processed (not including skipped rows)
+     * @throws IOException if the input file cannot be read or the output file written
+     * @throws IllegalArgumentException if the number of threads is less than 1
+     */
+    public static long run(File input, File output, int threads, WolfpackDedupIndex index)
+        throws IOException {
+        if (index != null) {
+            recover(output, index);
+        }
+        boolean header = index == null || output.length() == 0;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                 new FileInputStream(input), StandardCharsets.UTF_8), 1 << 16);
+             FileOutputStream file = new FileOutputStream(output, index != null);
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+                 file, StandardCharsets.UTF_8), 1 << 16)) {
+            return run(in, out, threads, index, header, file.getChannel());
+        }
+    }
+
+    /**
+     * Prepares the output file of a run with a dedup index. Rows written after the
+     * index's output offset were written by a run that stopped before it recorded their
+     * IDs: the IDs of the complete rows are added to the index from their last column,
+     * and a row torn by the crash is cut off, so the rerun neither repeats nor loses a
+     * row. The one exception is a row without a valid ID among them, which carries no
+     * line number to recover and is reported again by the rerun.
+     * @param output CSV file of results, which may not exist yet
+     * @param index Applicant IDs already decided
+     * @throws IOException if the output file cannot be read or truncated
+     */
+    static void recover(File output, WolfpackDedupIndex index) throws IOException {
+        if (!output.exists()) {
+            index.setOutputOffset(0);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(output.toPath(), StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+            long end = Math.min(index.getOutputOffset(), channel.size());
+            long position = end;
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+            int read;
+            while ((read = channel.read(buffer, position)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer.get(i);
+                    if (b != '\n') {
+                        line.write(b);
+                        continue;
+                    }
+                    //the header line and rows without an ID have no positive last column
+                    String row = new String(line.toByteArray(), StandardCharsets.UTF_8);
+                    long id = WolfpackValidation.parseInt(row, row.lastIndexOf(',') + 1,
+                                                          row.length());
+                    if (id > 0) {
+                        index.add(id);
+                    }
+                    line.reset();
+                    end = position + i + 1;
+                }
+                position += read;
+                buffer.clear();
+            }
+            channel.truncate(end);
+            index.setOutputOffset(end);
+        }
+    }
+
+    /**
+     * Prices every application read from a reader and writes one result row per
+     * application to a writer, keeping input order. A header line, if present, is skipped.
+     * @param in Reader supplying CSV application rows
+     * @param out Writer that receives CSV result rows
+     * @param threads Number of worker threads
+     * @return Number of application rows processed
+     * @throws IOException if reading or writing fails
+     * @throws IllegalArgumentException if the number of threads is less than 1
+     */
+    public static long run(BufferedReader in, Writer out, int threads) throws IOException {
+        return run(in, out, threads, null, true, null);
+    }
+
+    /**
+     * Prices every application read from a reader whose applicant ID is not in a dedup
+     * index, and writes one result row per priced application to a writer, keeping input
+     * order. Rows without a valid ID are keyed by LINE_KEY_BASE plus their input line
+     * number. The keys of a chunk are added to the index after its rows are written and
+     * flushed, and then the length of the output file is recorded in the index as the
+     * point a rerun can resume from. A header line, if present, is skipped.
+     * @param in Reader supplying CSV application rows
+     * @param out Writer that receives CSV result rows
+     * @param threads Number of worker threads
+     * @param index Applicant IDs already decided, or null if rows carry no IDs
+     * @param header True to write the output header first, otherwise false
+     * @param output Channel of the output file written by out, or null if it has none
+     * @return Number of application rows processed (not including skipped rows)
+     * @throws IOException if reading or writing fails
+     * @throws IllegalArgumentException if the number of threads is less than 1
+     */
+    static long run(BufferedReader in, Writer out, int threads, WolfpackDedupIndex index,
+                    boolean header, FileChannel output) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid number of threads");
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "wolfpack-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ArrayDeque<Future<String[]>> inFlight = new ArrayDeque<>();
+        ArrayDeque<long[]> inFlightIds = new ArrayDeque<>();
+        int maxInFlight = threads * CHUNKS_PER_THREAD;
+        boolean withIds = index != null;
+        long rows = 0;
+        try {
+            if (header) {
+                out.write(withIds ? OUTPUT_HEADER_WITH_ID : OUTPUT_HEADER);
+                out.write('\n');
+            }
+
+            String line = in.readLine();
+            long lineNumber = 1;
+            if (line != null && isHeader(line)) {
+                line = in.readLine();
+                lineNumber++;
+            }
+            while (line != null) {
+                String[] chunk = new String[CHUNK_SIZE];
+                long[] ids = withIds ? new long[CHUNK_SIZE] : null;
+                int size = 0;
+                while (line != null && size < CHUNK_SIZE) {
+                    if (!line.isEmpty()) {
+                        long id = withIds ? applicantId(line) : 0;
+                        //a row without a valid ID is recorded by its line number instead
+                        long key = id > 0 ? id : LINE_KEY_BASE + lineNumber;
+                        if (!withIds || !index.contains(key)) {
+                            if (withIds) {
+                                ids[size] = key;
+                            }
+                            chunk[size++] = line;
+                        }
+                    }
+                    line = in.readLine();
+                    lineNumber++;
+                }
+                if (size == 0) {
+                    continue;
+                }
+                final String[] lines = chunk;
+                final int count = size;
+                inFlight.add(pool.submit(() -> quoteChunk(lines, count, withIds)));
+                inFlightIds.add(withIds ? ids : NO_IDS);
+                rows += count;
+
+                //write finished chunks in order once the in-flight limit is reached
+                while (inFlight.size() >= maxInFlight) {
+                    writeChunk(inFlight.poll(), inFlightIds.poll(), out, index, output);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                writeChunk(inFlight.poll(), inFlightIds.poll(), out, index, output);
+            }
+            out.flush();
+        } finally {
+            pool.shutdownNow();
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the applicant ID of a row, the seventh field
+     * @param line Application row with an applicant ID
+     * @return Applicant ID, or 0 if the row has no positive ID
+     */
+    static long applicantId(String line) {
+        int commas = 0;
+        int start = -1;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == ',' && ++commas == FIELDS_PER_ROW) {
+                start = i + 1;
+            }
+        }
+        if (commas != FIELDS_PER_ROW) {
+            return 0;
+        }
+        long id = WolfpackValidation.parseInt(line, start, line.length());
+        return id > 0 ? id : 0;
+    }
+
+    /**
+     * Prices a chunk of application rows
+     * @param lines Application rows
+     * @param count Number of rows in use at the start of the array
+     * @param withIds True if the rows carry applicant IDs, otherwise false
+     * @return Result rows in the same order as the application rows
+     * @throws IOException if the decision journal cannot be written
+     */
+    private static String[] quoteChunk(String[] lines, int count, boolean withIds)
+        throws IOException {
+        long start = System.nanoTime();
+        String[] results = new String[count];
+        StringBuilder row = new StringBuilder(128);
+        WolfpackQuote quote = new WolfpackQuote();
+        WolfpackMetrics.Tally tally = new WolfpackMetrics.Tally();
+        for (int i = 0; i < count; i++) {
+            row.setLength(0);
+            results[i] = quoteRow(lines[i], row, quote, withIds);
+            tally.count(quote);
+        }
+        tally.flush();
+        WolfpackMetrics.recordBatchChunk(System.nanoTime() - start);
+        //results are released only after the chunk's decisions are durable
+        WolfpackDecisionJournal journal = WolfpackDecisionJournal.current();
+        if (journal != null) {
+            journal.commit();
+        }
+        return results;
+    }
+
+    /**
+     * Waits for a chunk of result rows and writes them. With a dedup index, the rows are
+     * flushed, the chunk's applicant IDs are added to the index, and then the length of
+     * the output file is recorded in the index.
+     * @param chunk Pending chunk of result rows
+     * @param ids Dedup index keys of the rows (applicant IDs or line keys)
+     * @param out Writer that receives the result rows
+     * @param index Applicant IDs already decided, or null if rows carry no IDs
+     * @param output Channel of the output file written by out, or null if it has none
+     * @throws IOException if writing fails or the chunk could not be priced
+     */
+    private static void writeChunk(Future<String[]> chunk, long[] ids, Writer out,
+                                   WolfpackDedupIndex index, FileChannel output)
+        throws IOException {
+        String[] results;
+        try {
+            results = chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Batch interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Batch pricing failed", e.getCause());
+        }
+        for (String result : results) {
+            out.write(result);
+            out.write('\n');
+        }
+        if (index != null) {
+            out.flush();
+            for (int i = 0; i < results.length; i++) {
+                index.add(ids[i]);
+            }
+            if (output != null) {
+                index.setOutputOffset(output.size());
+            }
+        }
+    }
+
+    /**
+     * Prices a single application row using the same rules as the interactive program.
+     * The result row repeats the application fields and adds a status of "Approved",
+     * "Loan denied", or the validation error message. Approved rows also contain the total
+     * loan amount, interest rate, monthly payment, and disbursement date.
+     * @param line Application row "month,day,creditScore,income,loanAmount,express"
+     * @param row Reusable buffer used to build the result row
+     * @return Result row
+     */
+    public static String quoteRow(String line, StringBuilder row) {
+        WolfpackQuote quote = new WolfpackQuote();
+        String result = quoteRow(line, row, quote, false);
+        WolfpackMetrics.recordDecision(quote);
+        return result;
+    }
+
+    /**
+     * Returns whether the first line of an input file is a header row rather than an
+     * application row
+     * @param line First line
+     * @return True if the line, after any leading spaces, starts with something other
+     *         than a number
+     */
+    static boolean isHeader(String line) {
+        String trimmed = line.trim();
+        return !trimmed.isEmpty() && !Character.isDigit(trimmed.charAt(0)) &&
+               trimmed.charAt(0) != '-';
+    }
+
+    /**
+     * Prices a single application row using a reusable quote. With an applicant ID, the
+     * ID is moved to the last column of the result row, after the disbursement date, so
+     * the status and result columns are where readers of result files expect them.
+     * @param line Application row "month,day,creditScore,income,loanAmount,express", followed
+     *             by ",applicantId" if withId is true
+     * @param row Reusable buffer used to build the result row
+     * @param quote Reusable quote that receives the pricing result (rejected with
+     *              WolfpackValidation.INVALID_INPUT if the row cannot be parsed)
+     * @param withId True if the row must end with a positive applicant ID, otherwise false
+     * @return Result row
+     */
+    static String quoteRow(String line, StringBuilder row, WolfpackQuote quote,
+                           boolean withId) {
+        //the ID column starts at the sixth comma; a row without one gets an empty ID
+        int idStart = withId ? idColumnStart(line) : line.length();
+        row.append(line, 0, idStart);
+        long[] fields = new long[FIELDS_PER_ROW];
+        if (!parseRow(line, withId, fields)) {
+            quote.reject(WolfpackValidation.INVALID_INPUT);
+            appendInvalidInput(row);
+        } else {
+            WolfpackLending.quote((int) fields[0], (int) fields[1], (int) fields[2],
+                                  (int) fields[3], (int) fields[4], fields[5] != 0, quote);
+            appendResult(row, quote);
+        }
+        if (withId) {
+            if (idStart == line.length()) {
+                row.append(',');
+            } else {
+                row.append(line, idStart, line.length());
+            }
+        }
+        return row.toString();
+    }
+
+    /**
+     * Finds the comma before the applicant ID of a row, the sixth comma
+     * @param line Application row
+     * @return Index of the comma, or the length of the row if it has fewer commas
+     */
+    private static int idColumnStart(String line) {
+        int commas = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == ',' && ++commas == FIELDS_PER_ROW) {
+                return i;
+            }
+        }
+        return line.length();
+    }
+
+    /**
+     * Parses the fields of an application row
+     * @param line Application row "month,day,creditScore,income,loanAmount,express", followed
+     *             by ",applicantId" if withId is true
+     * @param withId True if the row must end with a positive applicant ID, otherwise false
+     * @param fields Receives the month, day, credit score, income, loan amount, and 1 for
+     *               express processing or 0 for normal processing
+     * @return True if the row was parsed, false if it is invalid input
+     */
+    static boolean parseRow(String line, boolean withId, long[] fields) {
+        if (withId && applicantId(line) == 0) {
+            return false;
+        }
+        //find the field boundaries without splitting the line
+        int[] commas = new int[withId ? FIELDS_PER_ROW : FIELDS_PER_ROW - 1];
+        int found = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == ',') {
+                if (found == commas.length) {
+                    return false;
+                }
+                commas[found++] = i;
+            }
+        }
+        if (found != commas.length) {
+            return false;
+        }
+        fields[0] = WolfpackValidation.parseInt(line, 0, commas[0]);
+        for (int field = 1; field < FIELDS_PER_ROW - 1; field++) {
+            fields[field] = WolfpackValidation.parseInt(line, commas[field - 1] + 1,
+                                                        commas[field]);
+        }
+        for (int field = 0; field < FIELDS_PER_ROW - 1; field++) {
+            if (fields[field] == WolfpackValidation.NOT_A_NUMBER) {
+                return false;
+            }
+        }
+        int processing = commas[FIELDS_PER_ROW - 2] + 1;
+        while (processing < line.length() && line.charAt(processing) == ' ') {
+            processing++;
+        }
+        boolean express = processing < line.length() && 
+                          (line.charAt(processing) == 'y' || line.charAt(processing) == 'Y');
+        fields[FIELDS_PER_ROW - 1] = express ? 1 : 0;
+        return true;
+    }
+
+    /**
+     * Appends the result fields of a priced application to a row: the status, and for an
+     * approved loan the total loan amount, interest rate, monthly payment, and
+     * disbursement date
+     * @param row Row containing the application fields
+     * @param quote Pricing result
+     * @return The row
+     */
+    static StringBuilder appendResult(StringBuilder row, WolfpackQuote quote) {
+        row.append(',').append(quote.getMessage()).append(',');
+        if (!quote.isApproved()) {
+            return row.append(",,,");
+        }
+        WolfpackQuote.appendCents(row, quote.getLoanCents());
+        row.append(',').append(quote.getInterestRate()).append(',');
+        WolfpackQuote.appendCents(row, quote.getPaymentCents());
+        return row.append(",\"").append(quote.getDisbursementDate()).append('"');
+    }
+
+    /**
+     * Appends the result fields for an application row that could not be parsed
+     * @param row Result row containing the application row
+     * @return The row
+     */
+    private static StringBuilder appendInvalidInput(StringBuilder row) {
+        row.append(',').append(WolfpackValidation.message(WolfpackValidation.INVALID_INPUT));
+        return row.append(",,,,");
+    }
+}
@@ -0,0 +1,424 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * Business-day calendar for disbursing loans in any range of application years. Dates are
+ * epoch days (days from 1970-01-01), so adding processing days is integer addition. Every
+ * day from January 1 of the first year through December 31 of the year after the last
+ * (where late applications are disbursed) has one bit in a bitset that is set when the day
+ * is a Saturday, Sunday, or holiday. Finding the first business day on or after a date is
+ * a mask and a trailing-zero count on one or two words of the bitset.
+ * Holidays are read from a holiday file with one date per line: "yyyy-mm-dd" for a single
+ * date or "mm-dd" for a date that is a holiday every year. Blank lines and text after #
+ * are ignored.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackBusinessCalendar {
+
+    /** Smallest first year of a calendar */
+    public static final int MIN_YEAR = 1;
+
+    /** Largest last year of a calendar */
+    public static final int MAX_YEAR = 9998;
+
+    /** Multiplier of the year in a date packed as yyyymmdd */
+    public static final int YEAR_FACTOR = 10000;
+
+    /** Multiplier of the month in a date packed as yyyymmdd */
+    public static final int MONTH_FACTOR = 100;
+
+    /** Three-letter names of the days of the week, indexed by day of the week (Sun = 0) */
+    private static final String[] DAY_NAMES = {"Sun", "Mon", "Tue", "Wed", "Thu", "Fri",
+                                               "Sat"};
+
+    /** Day of the week of 1970-01-01 (a Thursday) */
+    private static final int EPOCH_DAY_OF_WEEK = WolfpackLending.THU;
+
+    /** Days in a 400-year cycle of the Gregorian calendar */
+    private static final int DAYS_IN_ERA = 146097;
+
+    /** Days from 0000-03-01 to 1970-01-01 */
+    private static final int EPOCH_OFFSET = 719468;
+
+    /** Number of days in each month of a common year, indexed by month number */
+    private static final int[] DAYS_IN_MONTH = {0, 31, 28, 31, 30, 31, 30, 31, 31, 30, 31,
+                                                30, 31};
+
+    /** Bits per word of the bitset */
+    private static final int WORD_BITS = Long.SIZE;
+
+    /** First application year */
+    private final int firstYear;
+
+    /** Last application year */
+    private final int lastYear;
+
+    /** Epoch day of January 1 of the first year (bit 0 of the bitset) */
+    private final int firstEpochDay;
+
+    /** Epoch day of December 31 of the year after the last year */
+    private final int lastEpochDay;
+
+    /** One bit per day, set for days that are not business days */
+    private final long[] closed;
+
+    /**
+     * Creates a calendar that closes on weekends and the given holidays
+     * @param firstYear First application year
+     * @param lastYear Last application year
+     * @param holidays Epoch days of holidays; days outside the calendar are ignored
+     * @throws IllegalArgumentException if the years are not from MIN_YEAR to MAX_YEAR or
+     *         the first year is after the last year
+     */
+    public WolfpackBusinessCalendar(int firstYear, int lastYear, int[] holidays) {
+        if (firstYear < MIN_YEAR || lastYear > MAX_YEAR || firstYear > lastYear) {
+            throw new IllegalArgumentException("Invalid year range");
+        }
+        this.firstYear = firstYear;
+        this.lastYear = lastYear;
+        this.firstEpochDay = epochDay(firstYear, WolfpackLending.JAN, 1);
+        this.lastEpochDay = epochDay(lastYear + 1, WolfpackLending.DEC,
+                                     WolfpackLending.DAYS_IN_LONG_MONTH);
+        int days = lastEpochDay - firstEpochDay + 1;
+        this.closed = new long[(days + WORD_BITS - 1) / WORD_BITS];
+
+        //weekends repeat every 7 days starting from the first Saturday and Sunday
+        int firstSaturday = firstEpochDay +
+            Math.floorMod(WolfpackLending.SAT - dayOfWeek(firstEpochDay),
+                          WolfpackLending.DAYS_IN_WEEK);
+        for (int day = firstSaturday; day <= lastEpochDay;
+             day += WolfpackLending.DAYS_IN_WEEK) {
+            close(day);
+            if (day + 1 <= lastEpochDay) {
+                close(day + 1);
+            }
+        }
+        if (dayOfWeek(firstEpochDay) == WolfpackLending.SUN) {
+            close(firstEpochDay);
+        }
+        for (int holiday : holidays) {
+            if (holiday >= firstEpochDay && holiday <= lastEpochDay) {
+                close(holiday);
+            }
+        }
+        //bits past the last day are closed so that searches stop at the end of the calendar
+        for (int bit = days; bit < closed.length * WORD_BITS; bit++) {
+            closed[bit / WORD_BITS] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Marks a day in the calendar as not a business day
+     * @param epochDay Day in the calendar
+     */
+    private void close(int epochDay) {
+        int bit = epochDay - firstEpochDay;
+        closed[bit / WORD_BITS] |= 1L << bit;
+    }
+
+    /**
+     * Reads a holiday file and creates a calendar that closes on weekends and those holidays
+     * @param file Holiday file
+     * @param firstYear First application year
+     * @param lastYear Last application year
+     * @return Calendar
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line is not a valid holiday or the year range
+     *         is not valid
+     */
+    public static WolfpackBusinessCalendar load(File file, int firstYear, int lastYear)
+        throws IOException {
+        try (Reader in = new InputStreamReader(new FileInputStream(file),
+                                               StandardCharsets.UTF_8)) {
+            return parse(in, firstYear, lastYear);
+        }
+    }
+
+    /**
+     * Reads holidays and creates a calendar that closes on weekends and those holidays
+     * @param in Holiday lines
+     * @param firstYear First application year
+     * @param lastYear Last application year
+     * @return Calendar
+     * @throws IOException if reading fails
+     * @throws IllegalArgumentException if a line is not a valid holiday or the year range
+     *         is not valid
+     */
+    public static WolfpackBusinessCalendar parse(Reader in, int firstYear, int lastYear)
+        throws IOException {
+        if (firstYear < MIN_YEAR || lastYear > MAX_YEAR || firstYear > lastYear) {
+            throw new IllegalArgumentException("Invalid year range");
+        }
+        BufferedReader lines = new BufferedReader(in);
+        ArrayList<Integer> holidays = new ArrayList<>();
+        String line = lines.readLine();
+        int lineNumber = 1;
+        while (line != null) {
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.trim();
+            if (!line.isEmpty()) {
+                String[] fields = line.split("-");
+                if (fields.length < 2 || fields.length > 3) {
+                    throw new IllegalArgumentException("Invalid holiday on line " +
+                                                       lineNumber);
+                }
+                int month = parseField(fields[fields.length - 2], lineNumber);
+                int day = parseField(fields[fields.length - 1], lineNumber);
+                if (fields.length == 3) {
+                    int year = parseField(fields[0], lineNumber);
+                    if (!isValidDate(year, month, day)) {
+                        throw new IllegalArgumentException("Invalid holiday on line " +
+                                                           lineNumber);
+                    }
+                    holidays.add(epochDay(year, month, day));
+                } else if (isValidDate(WolfpackLending.APPLICATION_YEAR, month, day)) {
+                    //an annual holiday on February 29 only falls in leap years
+                    for (int year = firstYear; year <= lastYear + 1; year++) {
+                        if (isValidDate(year, month, day)) {
+                            holidays.add(epochDay(year, month, day));
+                        }
+                    }
+                } else {
+                    throw new IllegalArgumentException("Invalid holiday on line " +
+                                                       lineNumber);
+                }
+            }
+            line = lines.readLine();
+            lineNumber++;
+        }
+        int[] days = new int[holidays.size()];
+        for (int i = 0; i < days.length; i++) {
+            days[i] = holidays.get(i);
+        }
+        return new WolfpackBusinessCalendar(firstYear, lastYear, days);
+    }
+
+    /**
+     * Parses one field of a holiday date
+     * @param field Digits
+     * @param lineNumber Line number of the holiday, for the error message
+     * @return Value of the field
+     * @throws IllegalArgumentException if the field is not a non-negative whole number
+     */
+    private static int parseField(String field, int lineNumber) {
+        long value = WolfpackValidation.parseInt(field, 0, field.length());
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid holiday on line " + lineNumber);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Returns the first application year
+     * @return First year
+     */
+    public int getFirstYear() {
+        return firstYear;
+    }
+
+    /**
+     * Returns the last application year
+     * @return Last year
+     */
+    public int getLastYear() {
+        return lastYear;
+    }
+
+    /**
+     * Returns whether a day is a business day
+     * @param epochDay Days from 1970-01-01
+     * @return True if the day is not a weekend or holiday
+     * @throws IllegalArgumentException if the day is not in the calendar
+     */
+    public boolean isBusinessDay(int epochDay) {
+        if (epochDay < firstEpochDay || epochDay > lastEpochDay) {
+            throw new IllegalArgumentException("Invalid date");
+        }
+        int bit = epochDay - firstEpochDay;
+        return (closed[bit / WORD_BITS] & (1L << bit)) == 0;
+    }
+
+    /**
+     * Returns the first business day on or after a day
+     * @param epochDay Days from 1970-01-01
+     * @return Epoch day of the business day
+     * @throws IllegalArgumentException if the day is not in the calendar or there is no
+     *         business day after it in the calendar
+     */
+    public int nextBusinessDay(int epochDay) {
+        if (epochDay < firstEpochDay || epochDay > lastEpochDay) {
+            throw new IllegalArgumentException("Invalid date");
+        }
+        int bit = epochDay - firstEpochDay;
+        int word = bit / WORD_BITS;
+        long open = ~closed[word] & (-1L << bit);
+        while (open == 0) {
+            word++;
+            if (word == closed.length) {
+                throw new IllegalArgumentException("Invalid date");
+            }
+            open = ~closed[word];
+        }
+        return firstEpochDay + word * WORD_BITS + Long.numberOfTrailingZeros(open);
+    }
+
+    /**
+     * Returns the disbursement day of an application: the processing days are added to the
+     * application date and the disbursement moves to the next business day if that date is
+     * a weekend or holiday
+     * @param applicationEpochDay Application date as days from 1970-01-01
+     * @param expressProcessing True for express processing, otherwise false
+     * @return Epoch day of the disbursement
+     * @throws IllegalArgumentException if the application is not in the calendar's years
+     */
+    public int disbursementEpochDay(int applicationEpochDay, boolean expressProcessing) {
+        if (applicationEpochDay < firstEpochDay ||
+            applicationEpochDay >= epochDay(lastYear + 1, WolfpackLending.JAN, 1)) {
+            throw new IllegalArgumentException("Invalid date");
+        }
+        return nextBusinessDay(applicationEpochDay + (expressProcessing ?
+                               WolfpackLending.DAYS_FOR_EXPRESS_PROCESSING :
+                               WolfpackLending.DAYS_FOR_NORMAL_PROCESSING));
+    }
+
+    /**
+     * Returns the disbursement date of an application in the format "Day, m d year"
+     * (e.g., "Tue, 4 21 2020")
+     * @param applicationYear Year in which the user applied for loan
+     * @param applicationMonth Month in which the user applied for loan
+     * @param applicationDay Day of the month on which the user applied for loan
+     * @param expressProcessing True for express processing, otherwise false
+     * @return Formatted disbursement date
+     * @throws IllegalArgumentException if the application date is not a valid date in the
+     *         calendar's years
+     */
+    public String getDisbursementDate(int applicationYear, int applicationMonth,
+                                      int applicationDay, boolean expressProcessing) {
+        if (!isValidDate(applicationYear, applicationMonth, applicationDay)) {
+            throw new IllegalArgumentException("Invalid date");
+        }
+        return format(disbursementEpochDay(epochDay(applicationYear, applicationMonth,
+                                                    applicationDay), expressProcessing));
+    }
+
+    /**
+     * Returns whether a date exists in the Gregorian calendar
+     * @param year Year
+     * @param month Month number
+     * @param day Day of the month
+     * @return True if the date is valid
+     */
+    public static boolean isValidDate(int year, int month, int day) {
+        if (year < MIN_YEAR || year > MAX_YEAR + 1 || month < WolfpackLending.JAN ||
+            month > WolfpackLending.DEC || day < 1) {
+            return false;
+        }
+        if (month == WolfpackLending.FEB && isLeapYear(year)) {
+            return day <= WolfpackLending.DAYS_IN_FEB_OF_LEAP_YEAR;
+        }
+        return day <= DAYS_IN_MONTH[month];
+    }
+
+    /**
+     * Returns whether a year is a leap year
+     * @param year Year
+     * @return True for leap years
+     */
+    public static boolean isLeapYear(int year) {
+        int leapCycle = WolfpackLending.LEAP_YEAR_FREQUENCY * WolfpackLending.YEARS_IN_CENTURY;
+        return year % WolfpackLending.LEAP_YEAR_FREQUENCY == 0 &&
+               (year % WolfpackLending.YEARS_IN_CENTURY != 0 || year % leapCycle == 0);
+    }
+
+    /**
+     * Converts a date to an epoch day (Source: Hinnant H. chrono-Compatible Low-Level
+     * Date Algorithms). The date is assumed to be valid.
+     * @param year Year
+     * @param month Month number
+     * @param day Day of the month
+     * @return Days from 1970-01-01
+     */
+    public static int epochDay(int year, int month, int day) {
+        //count years from March so that February 29 is the last day of the year
+        int y = month <= WolfpackLending.FEB ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > WolfpackLending.FEB ? month - 3 : month + 9) + 2) / 5 +
+                        day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_IN_ERA + dayOfEra - EPOCH_OFFSET;
+    }
+
+    /**
+     * Returns the year of an epoch day
+     * @param epochDay Days from 1970-01-01
+     * @return Year
+     */
+    public static int year(int epochDay) {
+        return date(epochDay) / YEAR_FACTOR;
+    }
+
+    /**
+     * Returns the month of an epoch day
+     * @param epochDay Days from 1970-01-01
+     * @return Month number
+     */
+    public static int month(int epochDay) {
+        return date(epochDay) / MONTH_FACTOR % MONTH_FACTOR;
+    }
+
+    /**
+     * Returns the day of the month of an epoch day
+     * @param epochDay Days from 1970-01-01
+     * @return Day of the month
+     */
+    public static int day(int epochDay) {
+        return date(epochDay) % MONTH_FACTOR;
+    }
+
+    /**
+     * Returns the day of the week of an epoch day
+     * @param epochDay Days from 1970-01-01
+     * @return Day of the week (SUN = 0 through SAT = 6)
+     */
+    public static int dayOfWeek(int epochDay) {
+        return Math.floorMod(epochDay + EPOCH_DAY_OF_WEEK, WolfpackLending.DAYS_IN_WEEK);
+    }
+
+    /**
+     * Formats an epoch day as "Day, m d year" (e.g., "Tue, 4 21 2020")
+     * @param epochDay Days from 1970-01-01
+     * @return Formatted date
+     */
+    public static String format(int epochDay) {
+        int date = date(epochDay);
+        return DAY_NAMES[dayOfWeek(epochDay)] + ", " + date / MONTH_FACTOR % MONTH_FACTOR +
+               " " + date % MONTH_FACTOR + " " + date / YEAR_FACTOR;
+    }
+
+    /**
+     * Converts an epoch day to a date packed into one int, so callers that need several
+     * of its fields convert once and allocate nothing (Source: Hinnant H.
+     * chrono-Compatible Low-Level Date Algorithms)
+     * @param epochDay Days from 1970-01-01
+     * @return Date as year * YEAR_FACTOR + month * MONTH_FACTOR + day (e.g., 20200316)
+     */
+    public static int date(int epochDay) {
+        int days = epochDay + EPOCH_OFFSET;
+        int era = Math.floorDiv(days, DAYS_IN_ERA);
+        int dayOfEra = days - era * DAYS_IN_ERA;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 -
+                         dayOfEra / (DAYS_IN_ERA - 1)) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = yearOfEra + era * 400 + (month <= WolfpackLending.FEB ? 1 : 0);
+        return year * YEAR_FACTOR + month * MONTH_FACTOR + day;
+    }
+}
@@ -0,0 +1,605 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Monte Carlo projection of the monthly cash inflows of a portfolio of approved loans
+ * over the NUMBER_OF_MONTHS repayment period, when borrowers may pay off early or
+ * default. Each path draws, for every loan, the month of its first event: a prepayment
+ * (the scheduled payment plus the remaining balance is received that month and nothing
+ * after) or a default (a share of the remaining balance is recovered that month and
+ * nothing after). Annual prepayment and default rates are converted to constant monthly
+ * probabilities, and a loan's event month is drawn directly from the geometric
+ * distribution, so a path costs one random number for most loans. Payments are added
+ * to a path's months as differences, so a path takes time proportional to the number of
+ * loans, not loans times months.
+ * Paths are simulated in parallel in blocks of BLOCK_PATHS. Every block has its own
+ * SplittableRandom split from the seed in block order, and all totals are kept in
+ * primitive long arrays per worker thread, so a seed gives the same result with any
+ * number of threads. The first PILOT_BLOCKS blocks are simulated first to find the
+ * range of each month's inflow; every month then gets a histogram of HISTOGRAM_BINS bins
+ * over that range (widened on both sides) from which the percentile bands are read.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackCashFlowSimulator {
+
+    /** Number of paths in a block */
+    public static final int BLOCK_PATHS = 1024;
+
+    /** Number of blocks simulated first to find the histogram ranges */
+    public static final int PILOT_BLOCKS = 4;
+
+    /** Number of bins in the histogram of each month's inflow */
+    public static final int HISTOGRAM_BINS = 2048;
+
+    /** Default annual prepayment rate (share of remaining loans paid off in a year) */
+    public static final double DEFAULT_PREPAYMENT_RATE = 0.08;
+
+    /** Default annual default rate (share of remaining loans defaulting in a year) */
+    public static final double DEFAULT_DEFAULT_RATE = 0.03;
+
+    /** Default share of the remaining balance recovered from a defaulted loan */
+    public static final double DEFAULT_RECOVERY_RATE = 0.25;
+
+    /** Default number of paths */
+    public static final long DEFAULT_PATHS = 100_000;
+
+    /** Percentiles printed for each month */
+    public static final double[] BANDS = {5, 25, 50, 75, 95};
+
+    /** Number of months simulated */
+    private static final int MONTHS = WolfpackLending.NUMBER_OF_MONTHS;
+
+    /** Months in a year */
+    private static final int MONTHS_IN_YEAR = 12;
+
+    /** Share of a month's pilot range added below and above it for the histogram */
+    private static final double RANGE_MARGIN = 0.5;
+
+    /** Monthly payments in cents */
+    private final long[] paymentCents;
+
+    /** Loan amounts in cents */
+    private final long[] principalCents;
+
+    /** Remaining balance per dollar of principal after each payment, for each loan's rate */
+    private final double[][] balanceFactors;
+
+    /** Index of each loan's row in balanceFactors */
+    private final int[] balanceRows;
+
+    /** Probability that a loan has an event (prepayment or default) in a given month */
+    private final double eventProbability;
+
+    /** Natural logarithm of the probability that a loan has no event in a given month */
+    private final double logNoEvent;
+
+    /** Probability that a loan has no event in any month of the repayment period */
+    private final double survivalProbability;
+
+    /** Probability that an event is a default */
+    private final double defaultShare;
+
+    /** Share of the remaining balance recovered from a defaulted loan */
+    private final double recoveryRate;
+
+    /**
+     * Simulates the cash inflows of the approved loans in a WolfpackBatch result file and
+     * prints the percentile bands of each month's inflow
+     * @param args command line arguments: result file, and optionally the number of
+     *             paths, seed, number of threads, annual prepayment rate, annual default
+     *             rate, and recovery rate
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: java WolfpackCashFlowSimulator results.csv [paths] " +
+                               "[seed] [threads] [prepayment] [default] [recovery]");
+            System.exit(1);
+        }
+        long paths = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_PATHS;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) :
+                      Runtime.getRuntime().availableProcessors();
+        double prepayment = args.length > 4 ? Double.parseDouble(args[4]) :
+                            DEFAULT_PREPAYMENT_RATE;
+        double defaults = args.length > 5 ? Double.parseDouble(args[5]) :
+                          DEFAULT_DEFAULT_RATE;
+        double recovery = args.length > 6 ? Double.parseDouble(args[6]) :
+                          DEFAULT_RECOVERY_RATE;
+        try {
+            WolfpackPortfolio portfolio = WolfpackPortfolio.load(new File(args[0]));
+            System.out.printf("%d loans, %d paths, seed %d, %d threads\n", portfolio.size(),
+                              paths, seed, threads);
+            long start = System.nanoTime();
+            Result result = new WolfpackCashFlowSimulator(portfolio, prepayment, defaults,
+                                                          recovery).simulate(paths, seed,
+                                                                             threads);
+            double seconds = (System.nanoTime() - start) / WolfpackBatch.NANOS_PER_SECOND;
+            System.out.print(result);
+            System.out.printf("Simulated %d paths in %.3f seconds (%.0f loan paths/sec)\n",
+                              paths, seconds,
+                              paths * (double) portfolio.size() / Math.max(seconds, 1e-9));
+        } catch (IOException e) {
+            System.out.println("Simulation failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Creates a simulator for a portfolio
+     * @param portfolio Approved loans
+     * @param annualPrepaymentRate Share of remaining loans paid off early in a year
+     * @param annualDefaultRate Share of remaining loans defaulting in a year
+     * @param recoveryRate Share of the remaining balance recovered from a defaulted loan
+     * @throws IllegalArgumentException if a rate is not between 0 and 1 (prepayment and
+     *         default rates must be less than 1)
+     */
+    public WolfpackCashFlowSimulator(WolfpackPortfolio portfolio, double annualPrepaymentRate,
+                                     double annualDefaultRate, double recoveryRate) {
+        if (!(annualPrepaymentRate >= 0 && annualPrepaymentRate < 1) ||
+            !(annualDefaultRate >= 0 && annualDefaultRate < 1) ||
+            !(recoveryRate >= 0 && recoveryRate <= 1)) {
+            throw new IllegalArgumentException("Invalid rate");
+        }
+        int loans = portfolio.size();
+        paymentCents = new long[loans];
+        principalCents = new long[loans];
+        balanceRows = new int[loans];
+        //one row per distinct rate; approved loans have one of four rates
+        ArrayList<Double> rates = new ArrayList<>();
+        ArrayList<double[]> rows = new ArrayList<>();
+        for (int i = 0; i < loans; i++) {
+            int loanAmount = portfolio.getLoanAmount(i);
+            double rate = portfolio.getRate(i);
+            paymentCents[i] = WolfpackPaymentMatrix.paymentCents(loanAmount, rate, MONTHS);
+            principalCents[i] = loanAmount * (long) WolfpackQuote.CENTS_PER_DOLLAR;
+            int row = rates.indexOf(rate);
+            if (row < 0) {
+                row = rates.size();
+                rates.add(rate);
+                rows.add(balanceFactors(rate));
+            }
+            balanceRows[i] = row;
+        }
+        balanceFactors = rows.toArray(new double[0][]);
+
+        double monthlyPrepayment = 1 - Math.pow(1 - annualPrepaymentRate,
+                                                1.0 / MONTHS_IN_YEAR);
+        double monthlyDefault = 1 - Math.pow(1 - annualDefaultRate, 1.0 / MONTHS_IN_YEAR);
+        //a default takes precedence over a prepayment in the same month
+        eventProbability = 1 - (1 - monthlyPrepayment) * (1 - monthlyDefault);
+        logNoEvent = Math.log(1 - eventProbability);
+        survivalProbability = Math.pow(1 - eventProbability, MONTHS);
+        defaultShare = eventProbability == 0 ? 0 : monthlyDefault / eventProbability;
+        this.recoveryRate = recoveryRate;
+    }
+
+    /**
+     * Computes the remaining balance per dollar of principal after each payment. After m
+     * of n payments the balance is the present value of the other n - m payments, which
+     * is the ratio of the annuity factors for n and n - m months.
+     * @param rate Annual interest rate
+     * @return Balance factors indexed by the number of payments made, 0 through MONTHS
+     */
+    private static double[] balanceFactors(double rate) {
+        double[] factors = new double[MONTHS + 1];
+        double payment = WolfpackPaymentEngine.annuityFactor(rate, MONTHS);
+        factors[0] = 1;
+        for (int paid = 1; paid < MONTHS; paid++) {
+            factors[paid] = payment / WolfpackPaymentEngine.annuityFactor(rate, MONTHS - paid);
+        }
+        return factors;
+    }
+
+    /**
+     * Simulates paths of the portfolio's monthly inflows
+     * @param paths Number of paths
+     * @param seed Seed of the random numbers; the same seed gives the same result
+     * @param threads Number of worker threads
+     * @return Inflow statistics
+     * @throws IllegalArgumentException if the number of paths or threads is less than 1
+     * @throws IllegalStateException if the calling thread is interrupted
+     */
+    public Result simulate(long paths, long seed, int threads) {
+        if (paths < 1) {
+            throw new IllegalArgumentException("Invalid number of paths");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid number of threads");
+        }
+        long blockCount = (paths + BLOCK_PATHS - 1) / BLOCK_PATHS;
+        if (blockCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid number of paths");
+        }
+        int blocks = (int) blockCount;
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] generators = new SplittableRandom[blocks];
+        for (int block = 0; block < blocks; block++) {
+            generators[block] = root.split();
+        }
+
+        //the pilot blocks are kept path by path to set the histogram ranges
+        int pilotBlocks = Math.min(blocks, PILOT_BLOCKS);
+        int pilotPaths = (int) Math.min(paths, (long) pilotBlocks * BLOCK_PATHS);
+        long[][] pilot = new long[pilotPaths][];
+        Worker pilotWorker = new Worker(paths, null, null);
+        for (int block = 0; block < pilotBlocks; block++) {
+            pilotWorker.simulateBlock(block, generators[block], pilot);
+        }
+        double[] low = new double[MONTHS];
+        double[] width = new double[MONTHS];
+        for (int month = 0; month < MONTHS; month++) {
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (long[] inflows : pilot) {
+                min = Math.min(min, inflows[month]);
+                max = Math.max(max, inflows[month]);
+            }
+            double margin = (max - min) * RANGE_MARGIN;
+            low[month] = Math.max(0, min - margin);
+            width[month] = (max + margin - low[month]) / HISTOGRAM_BINS;
+        }
+
+        Worker merged = new Worker(paths, low, width);
+        for (long[] inflows : pilot) {
+            merged.record(inflows);
+        }
+        merged.prepayments = pilotWorker.prepayments;
+        merged.defaults = pilotWorker.defaults;
+        if (blocks > pilotBlocks) {
+            AtomicInteger nextBlock = new AtomicInteger(pilotBlocks);
+            int workerCount = Math.min(threads, blocks - pilotBlocks);
+            ExecutorService pool = Executors.newFixedThreadPool(workerCount, runnable -> {
+                Thread thread = new Thread(runnable, "wolfpack-cash-flow");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                ArrayList<Future<Worker>> parts = new ArrayList<>();
+                for (int i = 0; i < workerCount; i++) {
+                    parts.add(pool.submit(() -> {
+                        Worker worker = new Worker(paths, low, width);
+                        for (int block = nextBlock.getAndIncrement(); block < blocks;
+                             block = nextBlock.getAndIncrement()) {
+                            worker.simulateBlock(block, generators[block], null);
+                        }
+                        return worker;
+                    }));
+                }
+                for (Future<Worker> part : parts) {
+                    merged.merge(part.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Simulation interrupted");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException("Simulation failed", e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        long[] scheduled = new long[MONTHS];
+        long scheduledPayment = 0;
+        for (long payment : paymentCents) {
+            scheduledPayment += payment;
+        }
+        Arrays.fill(scheduled, scheduledPayment);
+        return new Result(paths, scheduled, merged.sums, low, width, merged.counts,
+                          merged.prepayments, merged.defaults);
+    }
+
+    /**
+     * Totals of the paths simulated by one worker thread
+     */
+    private final class Worker {
+        /** Total number of paths in the simulation */
+        private final long paths;
+
+        /** Lower end of each month's histogram in cents, or null when not recording */
+        private final double[] low;
+
+        /** Width of each month's histogram bins in cents */
+        private final double[] width;
+
+        /** Sum of each month's inflow over the paths, in cents */
+        final long[] sums = new long[MONTHS];
+
+        /** Histogram counts, HISTOGRAM_BINS per month */
+        final long[] counts;
+
+        /** Number of prepayments over the paths */
+        long prepayments;
+
+        /** Number of defaults over the paths */
+        long defaults;
+
+        /** Differences of the scheduled payments received from one month to the next */
+        private final long[] changes = new long[MONTHS + 1];
+
+        /** Prepaid balances and recoveries received in each month of a path */
+        private final long[] extras = new long[MONTHS];
+
+        /** Inflows of each month of a path */
+        private final long[] inflows = new long[MONTHS];
+
+        /**
+         * Creates an empty worker
+         * @param paths Total number of paths in the simulation
+         * @param low Lower end of each month's histogram, or null to keep no histogram
+         * @param width Width of each month's histogram bins
+         */
+        Worker(long paths, double[] low, double[] width) {
+            this.paths = paths;
+            this.low = low;
+            this.width = width;
+            counts = low == null ? null : new long[MONTHS * HISTOGRAM_BINS];
+        }
+
+        /**
+         * Simulates the paths of a block
+         * @param block Block number
+         * @param random Random numbers of the block
+         * @param keep Receives each path's inflows by path number, or null to record them
+         *             in the histograms instead
+         */
+        void simulateBlock(int block, SplittableRandom random, long[][] keep) {
+            long first = (long) block * BLOCK_PATHS;
+            long last = Math.min(paths, first + BLOCK_PATHS);
+            for (long path = first; path < last; path++) {
+                simulatePath(random);
+                if (keep != null) {
+                    keep[(int) path] = inflows.clone();
+                } else {
+                    record(inflows);
+                }
+            }
+        }
+
+        /**
+         * Simulates one path of every loan into inflows
+         * @param random Random numbers
+         */
+        private void simulatePath(SplittableRandom random) {
+            Arrays.fill(changes, 0);
+            Arrays.fill(extras, 0);
+            for (int i = 0; i < paymentCents.length; i++) {
+                double uniform = 1 - random.nextDouble();
+                changes[0] += paymentCents[i];
+                if (uniform <= survivalProbability) {
+                    changes[MONTHS] -= paymentCents[i];
+                    continue;
+                }
+                //month of the first event, from 1, by inverting the geometric distribution
+                int month = Math.min(MONTHS, 1 + (int) (Math.log(uniform) / logNoEvent));
+                double[] factors = balanceFactors[balanceRows[i]];
+                if (random.nextDouble() < defaultShare) {
+                    defaults++;
+                    changes[month - 1] -= paymentCents[i];
+                    extras[month - 1] += Math.round(recoveryRate * principalCents[i] *
+                                                    factors[month - 1]);
+                } else {
+                    prepayments++;
+                    changes[month] -= paymentCents[i];
+                    extras[month - 1] += Math.round(principalCents[i] * factors[month]);
+                }
+            }
+            long scheduled = 0;
+            for (int month = 0; month < MONTHS; month++) {
+                scheduled += changes[month];
+                inflows[month] = scheduled + extras[month];
+            }
+        }
+
+        /**
+         * Adds one path's inflows to the sums and histograms
+         * @param path Inflows of each month of the path
+         */
+        void record(long[] path) {
+            for (int month = 0; month < MONTHS; month++) {
+                sums[month] += path[month];
+                //a month with no spread in the pilot paths has one bin of width 0
+                int bin = width[month] == 0 ? 0 : (int) Math.min(HISTOGRAM_BINS - 1,
+                    Math.max(0, (path[month] - low[month]) / width[month]));
+                counts[month * HISTOGRAM_BINS + bin]++;
+            }
+        }
+
+        /**
+         * Adds another worker's totals into this one
+         * @param other Worker to add
+         */
+        void merge(Worker other) {
+            for (int month = 0; month < MONTHS; month++) {
+                sums[month] += other.sums[month];
+            }
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            prepayments += other.prepayments;
+            defaults += other.defaults;
+        }
+    }
+
+    /**
+     * Statistics of the simulated monthly inflows. Months are numbered from 1.
+     */
+    public static final class Result {
+        /** Number of paths */
+        private final long paths;
+
+        /** Inflow of each month if every loan is repaid as scheduled, in cents */
+        private final long[] scheduled;
+
+        /** Sum of each month's inflow over the paths, in cents */
+        private final long[] sums;
+
+        /** Lower end of each month's histogram in cents */
+        private final double[] low;
+
+        /** Width of each month's histogram bins in cents */
+        private final double[] width;
+
+        /** Histogram counts, HISTOGRAM_BINS per month */
+        private final long[] counts;
+
+        /** Number of prepayments over the paths */
+        private final long prepayments;
+
+        /** Number of defaults over the paths */
+        private final long defaults;
+
+        /**
+         * Creates the statistics of a simulation
+         * @param paths Number of paths
+         * @param scheduled Scheduled inflow of each month
+         * @param sums Sum of each month's inflow over the paths
+         * @param low Lower end of each month's histogram
+         * @param width Width of each month's histogram bins
+         * @param counts Histogram counts
+         * @param prepayments Number of prepayments over the paths
+         * @param defaults Number of defaults over the paths
+         */
+        Result(long paths, long[] scheduled, long[] sums, double[] low, double[] width,
+               long[] counts, long prepayments, long defaults) {
+            this.paths = paths;
+            this.scheduled = scheduled;
+            this.sums = sums;
+            this.low = low;
+            this.width = width;
+            this.counts = counts;
+            this.prepayments = prepayments;
+            this.defaults = defaults;
+        }
+
+        /**
+         * Returns the number of paths
+         * @return Number of paths
+         */
+        public long getPaths() {
+            return paths;
+        }
+
+        /**
+         * Returns the index of a month
+         * @param month Month, 1 through NUMBER_OF_MONTHS
+         * @return Index from 0
+         * @throws IllegalArgumentException if the month is out of range
+         */
+        private static int index(int month) {
+            if (month < 1 || month > MONTHS) {
+                throw new IllegalArgumentException("Invalid month");
+            }
+            return month - 1;
+        }
+
+        /**
+         * Returns a month's inflow if every loan is repaid as scheduled
+         * @param month Month, 1 through NUMBER_OF_MONTHS
+         * @return Cents
+         * @throws IllegalArgumentException if the month is out of range
+         */
+        public long getScheduledInflowCents(int month) {
+            return scheduled[index(month)];
+        }
+
+        /**
+         * Returns the mean of a month's inflow over the paths
+         * @param month Month, 1 through NUMBER_OF_MONTHS
+         * @return Cents
+         * @throws IllegalArgumentException if the month is out of range
+         */
+        public double getMeanInflowCents(int month) {
+            return sums[index(month)] / (double) paths;
+        }
+
+        /**
+         * Returns a percentile of a month's inflow over the paths, accurate to one
+         * histogram bin
+         * @param month Month, 1 through NUMBER_OF_MONTHS
+         * @param percentile Percentile, 0 through 100
+         * @return Cents
+         * @throws IllegalArgumentException if the month or percentile is out of range
+         */
+        public long getPercentileInflowCents(int month, double percentile) {
+            int index = index(month);
+            if (!(percentile >= 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("Invalid percentile");
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * paths));
+            long seen = 0;
+            int bin = 0;
+            for (; bin < HISTOGRAM_BINS - 1; bin++) {
+                seen += counts[index * HISTOGRAM_BINS + bin];
+                if (seen >= rank) {
+                    break;
+                }
+            }
+            return Math.round(low[index] + (bin + 0.5) * width[index]);
+        }
+
+        /**
+         * Returns the mean number of loans prepaid per path
+         * @return Number of loans
+         */
+        public double getMeanPrepayments() {
+            return prepayments / (double) paths;
+        }
+
+        /**
+         * Returns the mean number of loans defaulted per path
+         * @return Number of loans
+         */
+        public double getMeanDefaults() {
+            return defaults / (double) paths;
+        }
+
+        /**
+         * Returns a table of each month's scheduled and mean inflow and the BANDS
+         * percentiles, in dollars
+         * @return Table text
+         */
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(8192);
+            text.append(String.format("%5s %14s %14s", "month", "scheduled", "mean"));
+            for (double band : BANDS) {
+                text.append(String.format(" %14s", "p" + (int) band));
+            }
+            text.append('\n');
+            double total = 0;
+            for (int month = 1; month <= MONTHS; month++) {
+                text.append(String.format("%5d %14.2f %14.2f", month,
+                                          dollars(getScheduledInflowCents(month)),
+                                          dollars(getMeanInflowCents(month))));
+                for (double band : BANDS) {
+                    text.append(String.format(" %14.2f",
+                                              dollars(getPercentileInflowCents(month, band))));
+                }
+                text.append('\n');
+                total += getMeanInflowCents(month);
+            }
+            text.append(String.format("Mean total inflow $%.2f, %.1f prepayments and " +
+                                      "%.1f defaults per path\n", dollars(total),
+                                      getMeanPrepayments(), getMeanDefaults()));
+            return text.toString();
+        }
+
+        /**
+         * Converts cents to dollars
+         * @param cents Cents
+         * @return Dollars
+         */
+        private static double dollars(double cents) {
+            return cents / WolfpackQuote.CENTS_PER_DOLLAR;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+import java.io.*;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Thin client for WolfpackDaemon. Standard input is forwarded to the daemon and everything
+ * the daemon sends is copied to standard output, so the program's header, prompts, and
+ * results look the same as when WolfpackLending runs on its own. The client does no
+ * pricing itself and loads only a few classes.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackClient {
+
+    /** Size of the copy buffers in bytes */
+    public static final int BUFFER_SIZE = 4096;
+
+    /**
+     * Runs the program through a daemon
+     * @param args command line arguments: optionally the socket path
+     */
+    public static void main(String[] args) {
+        Path socketPath = args.length > 0 ? Paths.get(args[0]) :
+                          WolfpackDaemon.defaultSocket();
+        try (SocketChannel channel =
+                 SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+            run(channel, System.in, System.out);
+        } catch (IOException e) {
+            System.out.println("Could not reach daemon: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Forwards input to a daemon connection and copies its replies to output until the
+     * daemon ends the conversation
+     * @param channel Connection to the daemon
+     * @param in Input forwarded to the daemon
+     * @param out Output that receives the daemon's replies
+     * @throws IOException if the connection fails or the output cannot be written
+     */
+    public static void run(SocketChannel channel, InputStream in, OutputStream out)
+        throws IOException {
+        Thread forwarder = new Thread(() -> forward(in, channel), "wolfpack-client-input");
+        forwarder.setDaemon(true);
+        forwarder.start();
+
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        while (channel.read(buffer) != -1) {
+            //prompts do not end in a newline, so flush after every read
+            out.write(buffer.array(), 0, buffer.position());
+            out.flush();
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Copies input to the connection, then signals the end of input to the daemon
+     * @param in Input forwarded to the daemon
+     * @param channel Connection to the daemon
+     */
+    private static void forward(InputStream in, SocketChannel channel) {
+        byte[] bytes = new byte[BUFFER_SIZE];
+        try {
+            for (int n = in.read(bytes); n != -1; n = in.read(bytes)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, n);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            channel.shutdownOutput();
+        } catch (IOException e) {
+            //the daemon ended the conversation before reading all of the input
+        }
+    }
+}
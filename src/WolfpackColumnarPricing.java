@@ -0,0 +1,143 @@
+/**
+ * Prices whole columns of loan applications stored in primitive arrays. The rate tier of
+ * each application is computed without branches: every threshold comparison becomes a
+ * 0 or 1 from the sign bit of a subtraction, the tier is the largest qualifying tier
+ * number, and the rate and annuity factor come from small tables indexed by tier. With no
+ * data-dependent branches the loop runs at the same speed for any mix of approvals and
+ * denials, and the JIT is free to unroll and vectorize it.
+ * Tier numbers are ordered so that the largest qualifying tier is the one the built-in
+ * rate rules choose. Columnar pricing always uses the built-in tiers (the WolfpackLending
+ * rate constants), even when other rules are installed with WolfpackRateRules.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackColumnarPricing {
+
+    /** Tier number of a denied (or invalid) application */
+    public static final int DENIED_TIER = WolfpackQuote.OTHER_TIER;
+
+    /** Tier number of an application approved at the high interest rate */
+    public static final int HIGH_TIER = WolfpackQuote.HIGH_TIER;
+
+    /** Tier number of an application approved at the moderate interest rate */
+    public static final int MODERATE_TIER = WolfpackQuote.MODERATE_TIER;
+
+    /** Tier number of an application approved at the low interest rate */
+    public static final int LOW_TIER = WolfpackQuote.LOW_TIER;
+
+    /** Tier number of an application approved at the special interest rate */
+    public static final int SPECIAL_TIER = WolfpackQuote.SPECIAL_TIER;
+
+    /** Number of tiers */
+    public static final int TIERS = WolfpackQuote.TIERS;
+
+    /** Interest rate of each tier (-1.0 for denied) */
+    private static final double[] TIER_RATES = {-1.0, WolfpackLending.HIGH_INTEREST_RATE,
+                                                WolfpackLending.MODERATE_INTEREST_RATE,
+                                                WolfpackLending.LOW_INTEREST_RATE,
+                                                WolfpackLending.SPECIAL_INTEREST_RATE};
+
+    /** Annuity factor of each tier over the 5-year term (0 for denied) */
+    private static final double[] TIER_FACTORS = new double[TIERS];
+
+    static {
+        for (int tier = HIGH_TIER; tier < TIERS; tier++) {
+            TIER_FACTORS[tier] = WolfpackPaymentEngine.annuityFactor(TIER_RATES[tier],
+                                     WolfpackLending.NUMBER_OF_MONTHS);
+        }
+    }
+
+    /**
+     * Returns 1 if a is at least b, otherwise 0, without branching
+     * @param a First value
+     * @param b Second value
+     * @return 1 if a >= b, otherwise 0
+     */
+    private static int atLeast(long a, long b) {
+        return (int) (((b - a - 1) >>> 63));
+    }
+
+    /**
+     * Returns the rate tier of an application without branching. Applications whose
+     * arguments are not valid for WolfpackLending.getInterestRate get DENIED_TIER.
+     * @param loanAmount Total loan amount (including express processing fee)
+     * @param creditScore Loan applicant credit score
+     * @param income Loan applicant income for 2019
+     * @return Tier number from DENIED_TIER to SPECIAL_TIER
+     */
+    public static int tier(int loanAmount, int creditScore, int income) {
+        int valid = atLeast(loanAmount, 1) & atLeast(income, 0) &
+                    atLeast(creditScore, WolfpackLending.MIN_CREDIT_SCORE) &
+                    atLeast(WolfpackLending.MAX_CREDIT_SCORE, creditScore);
+        int good = atLeast(creditScore, WolfpackLending.GOOD_CREDIT_SCORE);
+        int fair = atLeast(creditScore, WolfpackLending.FAIR_CREDIT_SCORE);
+        int poor = atLeast(creditScore, WolfpackLending.POOR_CREDIT_SCORE);
+        int highIncome = atLeast(income,
+                                 (long) WolfpackLending.HIGH_INCOME_TO_DEBT_RATIO * loanAmount);
+        int moderateIncome = atLeast(income,
+                             (long) WolfpackLending.MODERATE_INCOME_TO_DEBT_RATIO * loanAmount);
+        int lowIncome = atLeast(income,
+                                (long) WolfpackLending.LOW_INCOME_TO_DEBT_RATIO * loanAmount);
+        int tier = Math.max(Math.max(SPECIAL_TIER * good, LOW_TIER * highIncome),
+                            Math.max(MODERATE_TIER * (fair & moderateIncome),
+                                     HIGH_TIER * (poor & lowIncome)));
+        return tier * valid;
+    }
+
+    /**
+     * Returns the interest rate of a tier
+     * @param tier Tier number from DENIED_TIER to SPECIAL_TIER
+     * @return Interest rate, or -1.0 for DENIED_TIER
+     */
+    public static double tierRate(int tier) {
+        return TIER_RATES[tier];
+    }
+
+    /**
+     * Prices every application in the given columns. For each index, the interest rate is
+     * the value WolfpackLending.getInterestRate would return (-1.0 for denied applications,
+     * including those with invalid arguments) and the payment is the value
+     * WolfpackLending.getMonthlyPayment would return over the 5-year term (0.0 for denied
+     * applications).
+     * @param loanAmounts Total loan amounts (including express processing fee)
+     * @param creditScores Loan applicant credit scores
+     * @param incomes Loan applicant incomes for 2019
+     * @param rates Array that receives the interest rates
+     * @param payments Array that receives the monthly payments
+     * @throws IllegalArgumentException if the arrays are not all the same length
+     */
+    public static void price(int[] loanAmounts, int[] creditScores, int[] incomes,
+                             double[] rates, double[] payments) {
+        price(loanAmounts, creditScores, incomes, rates, payments, 0, loanAmounts.length);
+    }
+
+    /**
+     * Prices the applications from index from (inclusive) to index to (exclusive) in the
+     * given columns. See price(int[], int[], int[], double[], double[]).
+     * @param loanAmounts Total loan amounts (including express processing fee)
+     * @param creditScores Loan applicant credit scores
+     * @param incomes Loan applicant incomes for 2019
+     * @param rates Array that receives the interest rates
+     * @param payments Array that receives the monthly payments
+     * @param from First index to price
+     * @param to Index after the last index to price
+     * @throws IllegalArgumentException if the arrays are not all the same length
+     * @throws IllegalArgumentException if from and to are not a range within the arrays
+     */
+    public static void price(int[] loanAmounts, int[] creditScores, int[] incomes,
+                             double[] rates, double[] payments, int from, int to) {
+        int length = loanAmounts.length;
+        if (creditScores.length != length || incomes.length != length ||
+            rates.length != length || payments.length != length) {
+            throw new IllegalArgumentException("Invalid array lengths");
+        }
+        if (from < 0 || to > length || from > to) {
+            throw new IllegalArgumentException("Invalid range");
+        }
+        for (int i = from; i < to; i++) {
+            int tier = tier(loanAmounts[i], creditScores[i], incomes[i]);
+            rates[i] = TIER_RATES[tier];
+            payments[i] = loanAmounts[i] * TIER_FACTORS[tier];
+        }
+    }
+}
@@ -0,0 +1,183 @@
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Keeps a warm JVM that runs the interactive WolfpackLending program for callers on the
+ * same machine, so scripts that start the program once per applicant do not pay JVM
+ * startup and class loading every time. The daemon listens on a Unix domain socket and
+ * holds one complete program conversation per connection: it sends the same header and
+ * prompts the program prints, reads the answers from the connection, and sends the
+ * result. WolfpackClient forwards standard input and output over the socket, and any
+ * Unix socket tool (e.g., socat or nc -U) works as a client without starting a JVM.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackDaemon implements Closeable {
+
+    /** Name of the default socket file in the temporary directory */
+    public static final String DEFAULT_SOCKET_NAME = "wolfpack-lending.sock";
+
+    /** Path of the socket */
+    private final Path socketPath;
+
+    /** Listening socket */
+    private final ServerSocketChannel server;
+
+    /** Executor that holds the conversations */
+    private final ExecutorService executor;
+
+    /** Thread that accepts connections */
+    private final Thread acceptor;
+
+    /**
+     * Starts a daemon and keeps it running until the JVM is stopped
+     * @param args command line arguments: optionally the socket path
+     */
+    public static void main(String[] args) {
+        Path socketPath = args.length > 0 ? Paths.get(args[0]) : defaultSocket();
+        try {
+            WolfpackDaemon daemon = new WolfpackDaemon(socketPath);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    daemon.close();
+                } catch (IOException e) {
+                    //the socket file is left for the next daemon to replace
+                }
+            }));
+            System.out.println("Wolfpack Lending daemon listening on " + socketPath);
+        } catch (IOException e) {
+            System.out.println("Could not start daemon: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Returns the socket path used when none is given
+     * @return Path of DEFAULT_SOCKET_NAME in the temporary directory
+     */
+    public static Path defaultSocket() {
+        return Paths.get(System.getProperty("java.io.tmpdir"), DEFAULT_SOCKET_NAME);
+    }
+
+    /**
+     * Creates a daemon and starts accepting connections. A socket file left behind by a
+     * daemon that did not shut down cleanly is replaced.
+     * @param socketPath Path of the socket
+     * @throws IOException if another daemon is listening on the path or the socket cannot
+     *         be created
+     */
+    public WolfpackDaemon(Path socketPath) throws IOException {
+        if (Files.exists(socketPath)) {
+            if (isRunning(socketPath)) {
+                throw new IOException("Daemon already running on " + socketPath);
+            }
+            Files.delete(socketPath);
+        }
+        this.socketPath = socketPath;
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socketPath));
+        executor = WolfpackServer.newRequestExecutor();
+        acceptor = new Thread(this::accept, "wolfpack-daemon");
+        acceptor.start();
+    }
+
+    /**
+     * Returns whether a daemon is accepting connections on a socket
+     * @param socketPath Path of the socket
+     * @return True if a connection succeeds, otherwise false
+     */
+    public static boolean isRunning(Path socketPath) {
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(socketPath)).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Accepts connections until the daemon is closed, holding each conversation on the
+     * executor
+     */
+    private void accept() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel channel = server.accept();
+                executor.execute(() -> serve(channel));
+            } catch (IOException e) {
+                //closing the daemon ends the loop, other failures affect one connection
+            }
+        }
+    }
+
+    /**
+     * Holds one program conversation over a connection and closes it
+     * @param channel Connection to the client
+     */
+    private static void serve(SocketChannel channel) {
+        try (channel) {
+            PrintStream out = new PrintStream(Channels.newOutputStream(channel), true,
+                                              StandardCharsets.UTF_8);
+            converse(new Scanner(Channels.newInputStream(channel), StandardCharsets.UTF_8),
+                     out);
+        } catch (IOException e) {
+            //the client went away
+        }
+    }
+
+    /**
+     * Holds one program conversation: prints the header, asks for the application, and
+     * prints the result, exactly as WolfpackLending.main does on the console. If the
+     * input ends early or the decision journal cannot be written, an error line is printed
+     * instead of the result.
+     * @param console Scanner that reads the client's answers
+     * @param out Stream to the client
+     */
+    static void converse(Scanner console, PrintStream out) {
+        WolfpackLending.printWelcome(out);
+        try {
+            String inputValidation = WolfpackLending.userInterface(console, out);
+            if (!inputValidation.equals("valid input")) {
+                out.println(inputValidation);
+            }
+        } catch (NoSuchElementException e) {
+            //on the console the program stops with an exception; the daemon keeps running
+            out.println("\nInvalid input");
+        } catch (UncheckedIOException e) {
+            //the decision was not journaled, so no result is given
+            out.println("\n" + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the path of the socket
+     * @return Socket path
+     */
+    public Path getSocketPath() {
+        return socketPath;
+    }
+
+    /**
+     * Stops accepting connections and removes the socket file. Conversations in progress
+     * are allowed to finish.
+     * @throws IOException if the socket cannot be closed or its file removed
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        executor.shutdown();
+        try {
+            acceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Files.deleteIfExists(socketPath);
+    }
+}
@@ -0,0 +1,646 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only binary journal of loan decisions for audit. Every approved or denied
+ * application is one fixed-size RECORD_SIZE record holding the application, the decision,
+ * the rate, payment, and disbursement day, a sequence number, and a CRC32C checksum.
+ * Records are appended to an in-memory buffer, and commit makes them durable with group
+ * commit: the first thread to commit writes every record appended so far through a
+ * FileChannel and forces it to disk, while threads that commit during that write wait and
+ * are covered by the next single write and force. Many concurrent quotes therefore share
+ * one fsync instead of paying one each. Once MAX_PENDING_RECORDS records are waiting,
+ * append commits them before adding more, which bounds the buffer for callers that have
+ * no durability point of their own.
+ * When a journal is opened, a recovery scan checks every record and truncates the file at
+ * the first record that is incomplete, fails its checksum, or is out of sequence, which
+ * removes a record torn by a crash during a write.
+ * The journal used by WolfpackLending is opened at startup from the file named by the
+ * wolfpack.journal system property; without the property no decisions are journaled.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackDecisionJournal implements Closeable {
+
+    /** System property naming the journal file to open at startup */
+    public static final String JOURNAL_PROPERTY = "wolfpack.journal";
+
+    /** Size of one record in bytes */
+    public static final int RECORD_SIZE = 64;
+
+    /** Size of the file header in bytes */
+    public static final int HEADER_SIZE = 16;
+
+    /** First int of a journal file ("WPDJ") */
+    private static final int FILE_MAGIC = 0x5750444a;
+
+    /** Version of the journal file format */
+    private static final int FILE_VERSION = 1;
+
+    /** First int of every record */
+    private static final int RECORD_MAGIC = 0x52454344;
+
+    /** Number of record bytes covered by the checksum (all but the checksum itself) */
+    private static final int CHECKED_SIZE = RECORD_SIZE - Integer.BYTES;
+
+    /**
+     * Number of records waiting for a commit at which append commits them itself, so
+     * callers that never commit cannot grow the buffer without limit
+     */
+    public static final int MAX_PENDING_RECORDS = 65536;
+
+    /** Initial capacity of the append buffer */
+    private static final int INITIAL_BUFFER_SIZE = RECORD_SIZE * 1024;
+
+    /** Records read at a time by the recovery scan */
+    private static final int SCAN_RECORDS = 1024;
+
+    /** Journal used by WolfpackLending, or null if decisions are not journaled */
+    private static volatile WolfpackDecisionJournal current = openStartupJournal();
+
+    /** Journal file */
+    private final FileChannel channel;
+
+    /** Number of records found by the recovery scan */
+    private final long recoveredRecords;
+
+    /** Number of bytes removed by the recovery scan */
+    private final long truncatedBytes;
+
+    /** Records appended but not yet taken by a commit */
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    /** Buffer being written by the committing thread */
+    private ByteBuffer writing = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    /** Sequence number of the last appended record */
+    private long lastSequence;
+
+    /** Sequence number of the last record forced to disk */
+    private long durableSequence;
+
+    /** Whether a thread is writing and forcing records */
+    private boolean committing;
+
+    /** Failure of the last write, which fails every later commit */
+    private IOException failure;
+
+    /** Checksum of records, used under the lock */
+    private final CRC32C checksum = new CRC32C();
+
+    /**
+     * Opens a journal and recovers it
+     * @param channel Journal file opened for reading and writing
+     * @throws IOException if the file cannot be read or is not a journal
+     */
+    private WolfpackDecisionJournal(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long fileSize = channel.size();
+        if (fileSize == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(FILE_MAGIC).putInt(FILE_VERSION).putLong(System.currentTimeMillis());
+            header.flip();
+            writeFully(header, 0);
+            channel.force(true);
+            fileSize = HEADER_SIZE;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header, 0);
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != FILE_MAGIC ||
+            header.getInt() != FILE_VERSION) {
+            throw new IOException("Invalid journal file");
+        }
+        long records = scan(channel, null);
+        long validSize = HEADER_SIZE + records * RECORD_SIZE;
+        if (validSize < fileSize) {
+            channel.truncate(validSize);
+            channel.force(true);
+        }
+        this.recoveredRecords = records;
+        this.truncatedBytes = fileSize - validSize;
+        this.lastSequence = records;
+        this.durableSequence = records;
+        channel.position(validSize);
+    }
+
+    /**
+     * Opens a journal file, creating it if it does not exist, and truncates any torn
+     * records at its end
+     * @param file Journal file
+     * @return Journal positioned after the last valid record
+     * @throws IOException if the file cannot be opened or is not a journal
+     */
+    public static WolfpackDecisionJournal open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                                               StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        try {
+            return new WolfpackDecisionJournal(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the journal used by WolfpackLending
+     * @return Journal, or null if decisions are not journaled
+     */
+    public static WolfpackDecisionJournal current() {
+        return current;
+    }
+
+    /**
+     * Replaces the journal used by WolfpackLending. The previous journal is not closed.
+     * @param journal New journal, or null to stop journaling
+     */
+    public static void install(WolfpackDecisionJournal journal) {
+        current = journal;
+    }
+
+    /**
+     * Opens the journal named by the wolfpack.journal system property
+     * @return Journal, or null if the property is not set
+     * @throws UncheckedIOException if the journal cannot be opened
+     */
+    private static WolfpackDecisionJournal openStartupJournal() {
+        String file = System.getProperty(JOURNAL_PROPERTY);
+        if (file == null) {
+            return null;
+        }
+        try {
+            return open(new File(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open journal " + file, e);
+        }
+    }
+
+    /**
+     * Returns the number of valid records found when the journal was opened
+     * @return Number of records
+     */
+    public long getRecoveredRecords() {
+        return recoveredRecords;
+    }
+
+    /**
+     * Returns the number of bytes of torn records removed when the journal was opened
+     * @return Number of bytes
+     */
+    public long getTruncatedBytes() {
+        return truncatedBytes;
+    }
+
+    /**
+     * Appends the decision of a quote to the journal buffer. The record is not durable
+     * until a commit covers it.
+     * @param month Application month
+     * @param day Application day of the month
+     * @param creditScore Loan applicant credit score
+     * @param income Loan applicant income for 2019
+     * @param loanAmount Requested loan amount (not including the express processing fee)
+     * @param expressProcessing True for express processing, otherwise false
+     * @param quote Approved or denied quote
+     * @return Sequence number of the record
+     * @throws UncheckedIOException if too many records are waiting and committing them
+     *         fails
+     */
+    public long append(int month, int day, int creditScore, int income, int loanAmount,
+                       boolean expressProcessing, WolfpackQuote quote) {
+        if (quote.isApproved()) {
+            return append(month, day, creditScore, income, loanAmount, expressProcessing,
+                          WolfpackQuote.APPROVED, quote.getRateBasisPoints(),
+                          quote.getPaymentCents(), quote.getDisbursementEpochDay());
+        }
+        return append(month, day, creditScore, income, loanAmount, expressProcessing,
+                      quote.getDecision(), 0, 0, 0);
+    }
+
+    /**
+     * Appends a decision to the journal buffer. The record is not durable until a commit
+     * covers it. If MAX_PENDING_RECORDS records are already waiting, they are committed
+     * first.
+     * @param month Application month
+     * @param day Application day of the month
+     * @param creditScore Loan applicant credit score
+     * @param income Loan applicant income for 2019
+     * @param loanAmount Requested loan amount (not including the express processing fee)
+     * @param expressProcessing True for express processing, otherwise false
+     * @param decision WolfpackQuote.APPROVED, WolfpackQuote.DENIED, or a WolfpackValidation
+     *                 error code
+     * @param rateBasisPoints Interest rate in basis points (0 if not approved)
+     * @param paymentCents Monthly payment in cents (0 if not approved)
+     * @param disbursementEpochDay Disbursement day (0 if not approved)
+     * @return Sequence number of the record
+     * @throws UncheckedIOException if too many records are waiting and committing them
+     *         fails
+     */
+    public long append(int month, int day, int creditScore, int income, int loanAmount,
+                       boolean expressProcessing, int decision, int rateBasisPoints,
+                       long paymentCents, int disbursementEpochDay) {
+        while (pendingRecords() >= MAX_PENDING_RECORDS) {
+            try {
+                commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Journal write failed", e);
+            }
+        }
+        return appendRecord(month, day, creditScore, income, loanAmount, expressProcessing,
+                            decision, rateBasisPoints, paymentCents, disbursementEpochDay);
+    }
+
+    /**
+     * Returns the number of records waiting for a commit
+     * @return Number of records in the append buffer
+     */
+    synchronized int pendingRecords() {
+        return pending.position() / RECORD_SIZE;
+    }
+
+    /**
+     * Appends a decision to the journal buffer, growing the buffer if it is full
+     * @param month Application month
+     * @param day Application day of the month
+     * @param creditScore Loan applicant credit score
+     * @param income Loan applicant income for 2019
+     * @param loanAmount Requested loan amount (not including the express processing fee)
+     * @param expressProcessing True for express processing, otherwise false
+     * @param decision Decision code
+     * @param rateBasisPoints Interest rate in basis points (0 if not approved)
+     * @param paymentCents Monthly payment in cents (0 if not approved)
+     * @param disbursementEpochDay Disbursement day (0 if not approved)
+     * @return Sequence number of the record
+     */
+    private synchronized long appendRecord(int month, int day, int creditScore, int income,
+                                           int loanAmount, boolean expressProcessing,
+                                           int decision, int rateBasisPoints,
+                                           long paymentCents, int disbursementEpochDay) {
+        if (pending.remaining() < RECORD_SIZE) {
+            ByteBuffer larger = ByteBuffer.allocate(pending.capacity() * 2);
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+        long sequence = ++lastSequence;
+        int start = pending.position();
+        pending.putInt(RECORD_MAGIC)
+               .putLong(sequence)
+               .putLong(System.currentTimeMillis())
+               .putInt(month)
+               .putInt(day)
+               .putInt(creditScore)
+               .putInt(income)
+               .putInt(loanAmount)
+               .put((byte) (expressProcessing ? 1 : 0))
+               .put((byte) decision)
+               .putShort((short) 0)
+               .putInt(rateBasisPoints)
+               .putLong(paymentCents)
+               .putInt(disbursementEpochDay);
+        checksum.reset();
+        checksum.update(pending.array(), start, CHECKED_SIZE);
+        pending.putInt((int) checksum.getValue());
+        return sequence;
+    }
+
+    /**
+     * Makes every record appended so far durable
+     * @throws IOException if writing or forcing the journal fails
+     */
+    public void commit() throws IOException {
+        long sequence;
+        synchronized (this) {
+            sequence = lastSequence;
+        }
+        commit(sequence);
+    }
+
+    /**
+     * Waits until a record is durable, writing and forcing the journal if no other thread
+     * is. A single write and force covers every record appended before it starts.
+     * @param sequence Sequence number returned by append
+     * @throws IOException if writing or forcing the journal fails
+     */
+    public void commit(long sequence) throws IOException {
+        long through;
+        ByteBuffer batch;
+        synchronized (this) {
+            while (true) {
+                if (durableSequence >= sequence) {
+                    return;
+                }
+                if (failure != null) {
+                    throw new IOException("Journal write failed", failure);
+                }
+                if (!committing) {
+                    break;
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Journal commit interrupted");
+                }
+            }
+            //take every pending record; later appends go into the other buffer
+            committing = true;
+            through = lastSequence;
+            batch = pending;
+            pending = writing;
+            writing = batch;
+        }
+
+        IOException error = null;
+        try {
+            batch.flip();
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            batch.clear();
+            synchronized (this) {
+                committing = false;
+                if (error == null) {
+                    durableSequence = through;
+                } else {
+                    failure = error;
+                }
+                notifyAll();
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Commits every appended record and closes the journal file
+     * @throws IOException if the final commit or closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads every valid record of a journal file in order, stopping at the first torn
+     * record. The file is not modified.
+     * @param file Journal file
+     * @param action Receives each record
+     * @return Number of records read
+     * @throws IOException if the file cannot be read or is not a journal
+     */
+    public static long read(File file, Consumer<Record> action) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != FILE_MAGIC ||
+                header.getInt() != FILE_VERSION) {
+                throw new IOException("Invalid journal file");
+            }
+            return scan(channel, action);
+        }
+    }
+
+    /**
+     * Scans the records after the header, stopping at the first record that is incomplete,
+     * fails its checksum, or is out of sequence
+     * @param channel Journal file
+     * @param action Receives each valid record, or null to only count them
+     * @return Number of valid records
+     * @throws IOException if reading fails
+     */
+    private static long scan(FileChannel channel, Consumer<Record> action) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * SCAN_RECORDS);
+        CRC32C crc = new CRC32C();
+        long position = HEADER_SIZE;
+        long records = 0;
+        while (true) {
+            buffer.clear();
+            readFully(channel, buffer, position);
+            int read = buffer.position();
+            buffer.flip();
+            while (buffer.remaining() >= RECORD_SIZE) {
+                int start = buffer.position();
+                crc.reset();
+                crc.update(buffer.array(), start, CHECKED_SIZE);
+                if (buffer.getInt(start) != RECORD_MAGIC ||
+                    buffer.getLong(start + Integer.BYTES) != records + 1 ||
+                    buffer.getInt(start + CHECKED_SIZE) != (int) crc.getValue()) {
+                    return records;
+                }
+                if (action != null) {
+                    action.accept(new Record(buffer));
+                }
+                buffer.position(start + RECORD_SIZE);
+                records++;
+            }
+            if (read < buffer.capacity()) {
+                return records;
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Writes a buffer at a file position
+     * @param buffer Bytes to write
+     * @param position File position
+     * @throws IOException if writing fails
+     */
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Reads into a buffer from a file position until it is full or the file ends
+     * @param channel File to read
+     * @param buffer Buffer to fill
+     * @param position File position
+     * @throws IOException if reading fails
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+        throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                return;
+            }
+            position += n;
+        }
+    }
+
+    /**
+     * One journaled decision
+     */
+    public static final class Record {
+        /** Sequence number, starting at 1 */
+        private final long sequence;
+
+        /** Time the decision was journaled in milliseconds since 1970-01-01 UTC */
+        private final long timeMillis;
+
+        /** Application month */
+        private final int month;
+
+        /** Application day of the month */
+        private final int day;
+
+        /** Loan applicant credit score */
+        private final int creditScore;
+
+        /** Loan applicant income */
+        private final int income;
+
+        /** Requested loan amount */
+        private final int loanAmount;
+
+        /** Whether express processing was requested */
+        private final boolean expressProcessing;
+
+        /** Decision code */
+        private final int decision;
+
+        /** Interest rate in basis points */
+        private final int rateBasisPoints;
+
+        /** Monthly payment in cents */
+        private final long paymentCents;
+
+        /** Disbursement day */
+        private final int disbursementEpochDay;
+
+        /**
+         * Decodes a record
+         * @param buffer Buffer positioned at the record
+         */
+        Record(ByteBuffer buffer) {
+            buffer.getInt();
+            sequence = buffer.getLong();
+            timeMillis = buffer.getLong();
+            month = buffer.getInt();
+            day = buffer.getInt();
+            creditScore = buffer.getInt();
+            income = buffer.getInt();
+            loanAmount = buffer.getInt();
+            expressProcessing = buffer.get() != 0;
+            decision = buffer.get();
+            buffer.getShort();
+            rateBasisPoints = buffer.getInt();
+            paymentCents = buffer.getLong();
+            disbursementEpochDay = buffer.getInt();
+        }
+
+        /**
+         * Returns the sequence number
+         * @return Sequence number, starting at 1
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Returns the time the decision was journaled
+         * @return Milliseconds since 1970-01-01 UTC
+         */
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+
+        /**
+         * Returns the application month
+         * @return Month number
+         */
+        public int getMonth() {
+            return month;
+        }
+
+        /**
+         * Returns the application day of the month
+         * @return Day of the month
+         */
+        public int getDay() {
+            return day;
+        }
+
+        /**
+         * Returns the credit score
+         * @return Credit score
+         */
+        public int getCreditScore() {
+            return creditScore;
+        }
+
+        /**
+         * Returns the income
+         * @return Income for 2019
+         */
+        public int getIncome() {
+            return income;
+        }
+
+        /**
+         * Returns the requested loan amount
+         * @return Loan amount (not including the express processing fee)
+         */
+        public int getLoanAmount() {
+            return loanAmount;
+        }
+
+        /**
+         * Returns whether express processing was requested
+         * @return True for express processing
+         */
+        public boolean isExpressProcessing() {
+            return expressProcessing;
+        }
+
+        /**
+         * Returns the decision
+         * @return WolfpackQuote.APPROVED, WolfpackQuote.DENIED, or a WolfpackValidation
+         *         error code
+         */
+        public int getDecision() {
+            return decision;
+        }
+
+        /**
+         * Returns the interest rate
+         * @return Rate in basis points, or 0 if not approved
+         */
+        public int getRateBasisPoints() {
+            return rateBasisPoints;
+        }
+
+        /**
+         * Returns the monthly payment
+         * @return Payment in cents, or 0 if not approved
+         */
+        public long getPaymentCents() {
+            return paymentCents;
+        }
+
+        /**
+         * Returns the disbursement day
+         * @return Epoch day, or 0 if not approved
+         */
+        public int getDisbursementEpochDay() {
+            return disbursementEpochDay;
+        }
+    }
+}
@@ -0,0 +1,353 @@
+import java.io.*;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Persistent set of applicant IDs whose applications have already been decided, used by
+ * WolfpackBatch to skip finished rows when a failed run is repeated. The set is an
+ * open-addressing hash table of longs with linear probing, stored in a memory-mapped
+ * file, so it holds tens of millions of IDs outside the Java heap and a lookup touches
+ * one or two cache lines. Slot value 0 marks an empty slot, so applicant IDs must be
+ * positive. The table doubles, by rebuilding into a new file that is renamed over the
+ * old one, whenever it becomes more than MAX_LOAD_PERCENT full. Added IDs reach the
+ * operating system immediately and survive a crash of the JVM; force makes them
+ * durable against a crash of the machine. The header also keeps the length of the
+ * output file up to which every result row's ID has been added, so a batch rerun knows
+ * where the rows written before a crash end.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackDedupIndex implements Closeable {
+
+    /** Number of slots in a new index (a power of 2) */
+    public static final long INITIAL_CAPACITY = 1 << 16;
+
+    /** Largest share of slots in use, in percent, before the table doubles */
+    public static final int MAX_LOAD_PERCENT = 70;
+
+    /** Size of the file header in bytes */
+    public static final int HEADER_SIZE = 32;
+
+    /** First int of an index file ("WPDX") */
+    private static final int FILE_MAGIC = 0x57504458;
+
+    /** Version of the index file format */
+    private static final int FILE_VERSION = 1;
+
+    /** Header offset of the number of slots */
+    private static final int CAPACITY_OFFSET = 8;
+
+    /** Header offset of the number of IDs */
+    private static final int SIZE_OFFSET = 16;
+
+    /** Header offset of the length of the output file whose rows are all in the index */
+    private static final int OUTPUT_OFFSET = 24;
+
+    /** Base-2 logarithm of the number of slots in one mapped segment */
+    private static final int SEGMENT_SHIFT = 27;
+
+    /** Largest number of slots in one mapped segment (1 GiB of slots) */
+    private static final long SEGMENT_SLOTS = 1L << SEGMENT_SHIFT;
+
+    /** Index file */
+    private final File file;
+
+    /** Open index file */
+    private FileChannel channel;
+
+    /** Mapped header */
+    private MappedByteBuffer header;
+
+    /** Mapped slots, SEGMENT_SLOTS per segment */
+    private MappedByteBuffer[] segments;
+
+    /** Number of slots (a power of 2) */
+    private long capacity;
+
+    /** Number of IDs */
+    private long size;
+
+    /** Number of lookups that found their ID */
+    private long hits;
+
+    /**
+     * Maps an open index file
+     * @param file Index file
+     * @param channel Open index file with a valid header
+     * @param capacity Number of slots
+     * @param size Number of IDs
+     * @throws IOException if the file cannot be mapped
+     */
+    private WolfpackDedupIndex(File file, FileChannel channel, long capacity, long size)
+        throws IOException {
+        this.file = file;
+        map(channel, capacity, size);
+    }
+
+    /**
+     * Opens an index file, creating an empty index if the file does not exist or is empty
+     * @param file Index file
+     * @return Index
+     * @throws IOException if the file cannot be opened or is not an index file
+     */
+    public static WolfpackDedupIndex open(File file) throws IOException {
+        if (!file.exists() || file.length() == 0) {
+            return create(file, INITIAL_CAPACITY);
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Invalid dedup index file");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                                                  HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            long capacity = header.getLong(CAPACITY_OFFSET);
+            long size = header.getLong(SIZE_OFFSET);
+            if (header.getInt(0) != FILE_MAGIC || header.getInt(4) != FILE_VERSION ||
+                capacity < INITIAL_CAPACITY || Long.bitCount(capacity) != 1 ||
+                capacity > Long.MAX_VALUE / Long.BYTES - HEADER_SIZE ||
+                channel.size() != HEADER_SIZE + capacity * Long.BYTES ||
+                size < 0 || size > capacity) {
+                throw new IOException("Invalid dedup index file");
+            }
+            return new WolfpackDedupIndex(file, channel, capacity, size);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates an empty index file, replacing any existing file
+     * @param file Index file
+     * @param capacity Number of slots (a power of 2)
+     * @return Index
+     * @throws IOException if the file cannot be created
+     */
+    private static WolfpackDedupIndex create(File file, long capacity) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                                               StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE,
+                                               StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            //the file is sparse and the slots read as 0 (empty) until written
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                                                  HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0, FILE_MAGIC).putInt(4, FILE_VERSION)
+                  .putLong(CAPACITY_OFFSET, capacity).putLong(SIZE_OFFSET, 0);
+            return new WolfpackDedupIndex(file, channel, capacity, 0);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps the header and slots of an open index file
+     * @param channel Open index file with a valid header
+     * @param capacity Number of slots
+     * @param size Number of IDs
+     * @throws IOException if the file cannot be mapped
+     */
+    private void map(FileChannel channel, long capacity, long size) throws IOException {
+        this.channel = channel;
+        this.capacity = capacity;
+        this.size = size;
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        segments = new MappedByteBuffer[(int) ((capacity + SEGMENT_SLOTS - 1) / SEGMENT_SLOTS)];
+        for (int i = 0; i < segments.length; i++) {
+            long slots = Math.min(SEGMENT_SLOTS, capacity - i * SEGMENT_SLOTS);
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                                      HEADER_SIZE + i * SEGMENT_SLOTS * Long.BYTES,
+                                      slots * Long.BYTES);
+            segments[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Returns whether an applicant ID has been added
+     * @param applicantId Applicant ID
+     * @return True if the ID is in the index, otherwise false
+     * @throws IllegalArgumentException if the ID is not positive
+     */
+    public synchronized boolean contains(long applicantId) {
+        if (get(slot(applicantId)) == applicantId) {
+            hits++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds an applicant ID
+     * @param applicantId Applicant ID
+     * @return True if the ID was added, false if it was already in the index
+     * @throws IllegalArgumentException if the ID is not positive
+     * @throws UncheckedIOException if the table must grow and the new file cannot be written
+     */
+    public synchronized boolean add(long applicantId) {
+        long slot = slot(applicantId);
+        if (get(slot) == applicantId) {
+            return false;
+        }
+        if ((size + 1) * 100 > capacity * MAX_LOAD_PERCENT) {
+            try {
+                grow();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not grow dedup index", e);
+            }
+            slot = slot(applicantId);
+        }
+        put(slot, applicantId);
+        size++;
+        header.putLong(SIZE_OFFSET, size);
+        return true;
+    }
+
+    /**
+     * Finds the slot holding an ID, or the empty slot where it would be added
+     * @param applicantId Applicant ID
+     * @return Slot number
+     * @throws IllegalArgumentException if the ID is not positive
+     */
+    private long slot(long applicantId) {
+        if (applicantId <= 0) {
+            throw new IllegalArgumentException("Invalid applicant ID");
+        }
+        long mask = capacity - 1;
+        long slot = hash(applicantId) & mask;
+        for (long key = get(slot); key != 0 && key != applicantId; key = get(slot)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Spreads the bits of an ID so that sequential IDs do not fill neighbouring slots
+     * @param applicantId Applicant ID
+     * @return Hash
+     */
+    private static long hash(long applicantId) {
+        long hash = applicantId * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 32);
+    }
+
+    /**
+     * Reads a slot
+     * @param slot Slot number
+     * @return ID in the slot, or 0 if empty
+     */
+    private long get(long slot) {
+        return segments[(int) (slot >>> SEGMENT_SHIFT)]
+            .getLong((int) (slot & (SEGMENT_SLOTS - 1)) * Long.BYTES);
+    }
+
+    /**
+     * Writes a slot
+     * @param slot Slot number
+     * @param applicantId ID to store
+     */
+    private void put(long slot, long applicantId) {
+        segments[(int) (slot >>> SEGMENT_SHIFT)]
+            .putLong((int) (slot & (SEGMENT_SLOTS - 1)) * Long.BYTES, applicantId);
+    }
+
+    /**
+     * Rebuilds the table with twice the slots in a new file and renames it over the index
+     * file, so a crash while growing leaves the old index intact
+     * @throws IOException if the new file cannot be written
+     */
+    private void grow() throws IOException {
+        File temporary = new File(file.getPath() + ".tmp");
+        try (WolfpackDedupIndex larger = create(temporary, capacity * 2)) {
+            for (long slot = 0; slot < capacity; slot++) {
+                long key = get(slot);
+                if (key != 0) {
+                    larger.put(larger.slot(key), key);
+                }
+            }
+            larger.size = size;
+            larger.header.putLong(SIZE_OFFSET, size);
+            larger.header.putLong(OUTPUT_OFFSET, header.getLong(OUTPUT_OFFSET));
+        }
+        channel.close();
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+        map(FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE),
+            capacity * 2, size);
+    }
+
+    /**
+     * Returns the length of the output file up to which the ID of every result row has
+     * been added
+     * @return Length in bytes (0 for a new index)
+     */
+    public synchronized long getOutputOffset() {
+        return header.getLong(OUTPUT_OFFSET);
+    }
+
+    /**
+     * Records the length of the output file up to which the ID of every result row has
+     * been added
+     * @param offset Length in bytes
+     * @throws IllegalArgumentException if the length is negative
+     */
+    public synchronized void setOutputOffset(long offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Invalid output offset");
+        }
+        header.putLong(OUTPUT_OFFSET, offset);
+    }
+
+    /**
+     * Returns the number of IDs in the index
+     * @return Number of IDs
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of slots in the table
+     * @return Number of slots
+     */
+    public synchronized long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of contains lookups that found their ID since the index was opened
+     * @return Number of lookups
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Writes every added ID to the storage device
+     */
+    public synchronized void force() {
+        header.force();
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Writes every added ID to the storage device and closes the index file
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
@@ -0,0 +1,215 @@
+/**
+ * Precomputed loan disbursement dates for every application date in 2020. There are only
+ * 366 application days and two processing types, so every disbursement date is computed
+ * once when the class is loaded and stored in an immutable table holding the formatted
+ * date (e.g., "Tue, 4 21 2020") along with its year, month, day, and day of the week.
+ * Looking up a disbursement date is a few array reads and allocates nothing.
+ * The table is built with Zeller's algorithm (Source: Sedgewick R & Wayne K. Introduction
+ * to Programming in Java) to determine the day of the week for each disbursement date.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackDisbursementCalendar {
+
+    /** Number of days in 2020 (a leap year) */
+    public static final int DAYS_IN_APPLICATION_YEAR = 366;
+
+    /** Number of processing types (normal and express) */
+    public static final int PROCESSING_TYPES = 2;
+
+    /** Days from 1970-01-01 to January 1, 2020 */
+    public static final int APPLICATION_YEAR_EPOCH_DAY = 18262;
+
+    /** Three-letter names of the days of the week, indexed by day of the week (Sun = 0) */
+    private static final String[] DAY_NAMES = {"Sun", "Mon", "Tue", "Wed", "Thu", "Fri",
+                                               "Sat"};
+
+    /** Number of days in each month of 2020, indexed by month number */
+    private static final int[] DAYS_IN_MONTH = {0, 31, 29, 31, 30, 31, 30, 31, 31, 30, 31,
+                                                30, 31};
+
+    /** Number of days in 2020 before the first of each month, indexed by month number */
+    private static final int[] DAYS_BEFORE_MONTH = new int[WolfpackLending.MONTHS_IN_YEAR + 1];
+
+    /** Formatted disbursement dates, indexed by entry */
+    private static final String[] DATES;
+
+    /** Disbursement years, indexed by entry */
+    private static final int[] YEARS;
+
+    /** Disbursement months, indexed by entry */
+    private static final int[] MONTHS;
+
+    /** Disbursement days of the month, indexed by entry */
+    private static final int[] DAYS;
+
+    /** Disbursement days of the week (Sun = 0), indexed by entry */
+    private static final int[] DAYS_OF_WEEK;
+
+    static {
+        for (int month = WolfpackLending.FEB; month <= WolfpackLending.DEC; month++) {
+            DAYS_BEFORE_MONTH[month] = DAYS_BEFORE_MONTH[month - 1] + DAYS_IN_MONTH[month - 1];
+        }
+
+        int entries = DAYS_IN_APPLICATION_YEAR * PROCESSING_TYPES;
+        DATES = new String[entries];
+        YEARS = new int[entries];
+        MONTHS = new int[entries];
+        DAYS = new int[entries];
+        DAYS_OF_WEEK = new int[entries];
+        for (int month = WolfpackLending.JAN; month <= WolfpackLending.DEC; month++) {
+            for (int day = 1; day <= DAYS_IN_MONTH[month]; day++) {
+                fillEntry(month, day, false);
+                fillEntry(month, day, true);
+            }
+        }
+    }
+
+    /**
+     * Computes and stores the disbursement date for one application date and processing type
+     * @param applicationMonth Month in which the user applied for loan
+     * @param applicationDay Day of the month on which the user applied for loan
+     * @param expressProcessing True for express processing, otherwise false
+     */
+    private static void fillEntry(int applicationMonth, int applicationDay,
+                                  boolean expressProcessing) {
+        int disbursementDay = applicationDay;
+        int disbursementMonth = applicationMonth;
+        int disbursementYear = WolfpackLending.APPLICATION_YEAR;
+
+        if (expressProcessing) {
+            disbursementDay += WolfpackLending.DAYS_FOR_EXPRESS_PROCESSING;
+        } else {
+            disbursementDay += WolfpackLending.DAYS_FOR_NORMAL_PROCESSING;
+        }
+
+        //roll over into the next month (and year after December)
+        if (disbursementDay > DAYS_IN_MONTH[disbursementMonth]) {
+            disbursementDay -= DAYS_IN_MONTH[disbursementMonth];
+            disbursementMonth++;
+            if (disbursementMonth > WolfpackLending.DEC) {
+                disbursementMonth = WolfpackLending.JAN;
+                disbursementYear++;
+            }
+        }
+
+        //Zeller's algorithm
+        int w = disbursementYear - (2 + WolfpackLending.MONTHS_IN_YEAR - disbursementMonth) /
+                WolfpackLending.MONTHS_IN_YEAR;
+        int x = w + w / WolfpackLending.LEAP_YEAR_FREQUENCY - 
+                w / WolfpackLending.YEARS_IN_CENTURY + 
+                w / (WolfpackLending.LEAP_YEAR_FREQUENCY * WolfpackLending.YEARS_IN_CENTURY);
+        int z = disbursementMonth + WolfpackLending.MONTHS_IN_YEAR *
+                ((2 + WolfpackLending.MONTHS_IN_YEAR - disbursementMonth) /
+                WolfpackLending.MONTHS_IN_YEAR) - 2;
+        int dayOfWeek = (disbursementDay + x + (WolfpackLending.DAYS_IN_LONG_MONTH * z) /
+                         WolfpackLending.MONTHS_IN_YEAR) % WolfpackLending.DAYS_IN_WEEK;
+
+        int entry = entry(applicationMonth, applicationDay, expressProcessing);
+        //disbursement date must be in the format "Tue, 4 21 2020"
+        DATES[entry] = (DAY_NAMES[dayOfWeek] + ", " + disbursementMonth + " " +
+                        disbursementDay + " " + disbursementYear).intern();
+        YEARS[entry] = disbursementYear;
+        MONTHS[entry] = disbursementMonth;
+        DAYS[entry] = disbursementDay;
+        DAYS_OF_WEEK[entry] = dayOfWeek;
+    }
+
+    /**
+     * Returns the day of the year (1 to 366) of a 2020 date.
+     * The date is assumed to be valid (see WolfpackLending.isValidDate).
+     * @param month Month number
+     * @param day Day of the month
+     * @return Day of the year
+     */
+    public static int dayOfYear(int month, int day) {
+        return DAYS_BEFORE_MONTH[month] + day;
+    }
+
+    /**
+     * Returns the table entry for an application date and processing type. The entry can
+     * be passed to the methods that return a single field of the disbursement date.
+     * The application date is assumed to be valid (see WolfpackLending.isValidDate).
+     * @param applicationMonth Month in which the user applied for loan
+     * @param applicationDay Day of the month on which the user applied for loan
+     * @param expressProcessing True for express processing, otherwise false
+     * @return Table entry
+     */
+    public static int entry(int applicationMonth, int applicationDay,
+                            boolean expressProcessing) {
+        return (dayOfYear(applicationMonth, applicationDay) - 1) * PROCESSING_TYPES
+               + (expressProcessing ? 1 : 0);
+    }
+
+    /**
+     * Returns the disbursement date for an application date and processing type in the
+     * format "Day, m d year" (e.g., "Tue, 4 21 2020").
+     * The application date is assumed to be valid (see WolfpackLending.isValidDate).
+     * @param applicationMonth Month in which the user applied for loan
+     * @param applicationDay Day of the month on which the user applied for loan
+     * @param expressProcessing True for express processing, otherwise false
+     * @return Formatted disbursement date
+     */
+    public static String getDisbursementDate(int applicationMonth, int applicationDay,
+                                             boolean expressProcessing) {
+        return DATES[entry(applicationMonth, applicationDay, expressProcessing)];
+    }
+
+    /**
+     * Returns the formatted disbursement date of a table entry
+     * @param entry Table entry
+     * @return Formatted disbursement date
+     */
+    public static String formattedDate(int entry) {
+        return DATES[entry];
+    }
+
+    /**
+     * Returns the disbursement date of a table entry as an epoch day
+     * @param entry Table entry
+     * @return Days from 1970-01-01 to the disbursement date
+     */
+    public static int epochDay(int entry) {
+        int applicationEpochDay = APPLICATION_YEAR_EPOCH_DAY + entry / PROCESSING_TYPES;
+        if (entry % PROCESSING_TYPES == 1) {
+            return applicationEpochDay + WolfpackLending.DAYS_FOR_EXPRESS_PROCESSING;
+        }
+        return applicationEpochDay + WolfpackLending.DAYS_FOR_NORMAL_PROCESSING;
+    }
+
+    /**
+     * Returns the disbursement year of a table entry
+     * @param entry Table entry
+     * @return Disbursement year
+     */
+    public static int year(int entry) {
+        return YEARS[entry];
+    }
+
+    /**
+     * Returns the disbursement month of a table entry
+     * @param entry Table entry
+     * @return Disbursement month number
+     */
+    public static int month(int entry) {
+        return MONTHS[entry];
+    }
+
+    /**
+     * Returns the disbursement day of the month of a table entry
+     * @param entry Table entry
+     * @return Disbursement day of the month
+     */
+    public static int day(int entry) {
+        return DAYS[entry];
+    }
+
+    /**
+     * Returns the disbursement day of the week of a table entry
+     * @param entry Table entry
+     * @return Day of the week (SUN = 0 through SAT = 6)
+     */
+    public static int dayOfWeek(int entry) {
+        return DAYS_OF_WEEK[entry];
+    }
+}
@@ -0,0 +1,338 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Queues approved loans for disbursement on their disbursement dates. Loans are kept in a
+ * timing wheel of day buckets indexed by epoch day: a loan due within WHEEL_DAYS of the
+ * current day goes straight into the bucket of its day, and loans due later wait in an
+ * overflow map until the wheel reaches them. Running a day disburses exactly one bucket,
+ * so the daily run takes time proportional to the loans due that day, not to the size of
+ * the portfolio. Express loans in the coming days can also be pulled ahead and disbursed
+ * early. The scheduler can be saved to a file and loaded after a restart.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackDisbursementScheduler {
+
+    /** Number of day buckets in the wheel (a power of 2 longer than normal processing) */
+    public static final int WHEEL_DAYS = 64;
+
+    /** Initial capacity of a day bucket */
+    private static final int INITIAL_BUCKET_SIZE = 16;
+
+    /** First int of a scheduler file ("WPDS") */
+    private static final int FILE_MAGIC = 0x57504453;
+
+    /** Version of the scheduler file format */
+    private static final int FILE_VERSION = 1;
+
+    /** Buckets of the wheel, indexed by epoch day modulo WHEEL_DAYS */
+    private final Bucket[] wheel = new Bucket[WHEEL_DAYS];
+
+    /** Buckets of days at least WHEEL_DAYS after the current day, by epoch day */
+    private final TreeMap<Integer, Bucket> overflow = new TreeMap<>();
+
+    /** Next day to be run */
+    private int currentDay;
+
+    /** Number of loans waiting */
+    private long size;
+
+    /**
+     * Receives disbursed loans
+     */
+    public interface Handler {
+        /**
+         * Disburses a loan
+         * @param loanId Loan identifier
+         * @param loanCents Total loan amount in cents
+         * @param epochDay Scheduled disbursement day
+         * @param expressProcessing True for express processing, otherwise false
+         */
+        void disburse(long loanId, long loanCents, int epochDay, boolean expressProcessing);
+    }
+
+    /**
+     * Creates an empty scheduler
+     * @param currentDay Epoch day of the next day to be run
+     */
+    public WolfpackDisbursementScheduler(int currentDay) {
+        this.currentDay = currentDay;
+        for (int i = 0; i < WHEEL_DAYS; i++) {
+            wheel[i] = new Bucket();
+        }
+    }
+
+    /**
+     * Queues a loan for disbursement
+     * @param loanId Loan identifier
+     * @param loanCents Total loan amount in cents
+     * @param epochDay Disbursement day
+     * @param expressProcessing True for express processing, otherwise false
+     * @throws IllegalArgumentException if the loan amount is not positive or the day has
+     *         already been run
+     */
+    public synchronized void schedule(long loanId, long loanCents, int epochDay,
+                                      boolean expressProcessing) {
+        if (loanCents <= 0) {
+            throw new IllegalArgumentException("Invalid loan amount");
+        }
+        if (epochDay < currentDay) {
+            throw new IllegalArgumentException("Invalid date");
+        }
+        bucket(epochDay).add(loanId, loanCents, expressProcessing);
+        size++;
+    }
+
+    /**
+     * Queues an approved quote for disbursement on its disbursement date
+     * @param loanId Loan identifier
+     * @param quote Approved quote
+     * @param expressProcessing True if the quote used express processing, otherwise false
+     * @throws IllegalArgumentException if the quote is not approved or its disbursement day
+     *         has already been run
+     */
+    public void schedule(long loanId, WolfpackQuote quote, boolean expressProcessing) {
+        if (!quote.isApproved()) {
+            throw new IllegalArgumentException("Invalid quote");
+        }
+        schedule(loanId, quote.getLoanCents(), quote.getDisbursementEpochDay(),
+                 expressProcessing);
+    }
+
+    /**
+     * Returns the bucket of a day that has not been run, creating an overflow bucket if
+     * the day is beyond the wheel
+     * @param epochDay Day
+     * @return Bucket
+     */
+    private Bucket bucket(int epochDay) {
+        if (epochDay - currentDay < WHEEL_DAYS) {
+            return wheel[epochDay & (WHEEL_DAYS - 1)];
+        }
+        return overflow.computeIfAbsent(epochDay, day -> new Bucket());
+    }
+
+    /**
+     * Disburses every loan due on the current day and moves to the next day
+     * @param handler Receives the disbursed loans
+     * @return Number of loans disbursed
+     */
+    public synchronized int runDay(Handler handler) {
+        Bucket bucket = wheel[currentDay & (WHEEL_DAYS - 1)];
+        int count = bucket.count;
+        for (int i = 0; i < count; i++) {
+            handler.disburse(bucket.loanIds[i], bucket.loanCents[i], currentDay,
+                             bucket.express[i]);
+        }
+        bucket.clear();
+        size -= count;
+        currentDay++;
+
+        //the slot just emptied now holds the day WHEEL_DAYS - 1 days ahead
+        Bucket arriving = overflow.remove(currentDay + WHEEL_DAYS - 1);
+        if (arriving != null) {
+            wheel[(currentDay + WHEEL_DAYS - 1) & (WHEEL_DAYS - 1)] = arriving;
+        }
+        return count;
+    }
+
+    /**
+     * Disburses the express loans due in the coming days now, ahead of their scheduled
+     * days. Normal loans stay in their buckets.
+     * @param days Number of days to look ahead, including the current day
+     *             (e.g., WolfpackLending.DAYS_FOR_EXPRESS_PROCESSING)
+     * @param handler Receives the disbursed loans
+     * @return Number of loans disbursed
+     * @throws IllegalArgumentException if days is negative or more than WHEEL_DAYS
+     */
+    public synchronized int pullAheadExpress(int days, Handler handler) {
+        if (days < 0 || days > WHEEL_DAYS) {
+            throw new IllegalArgumentException("Invalid number of days");
+        }
+        int count = 0;
+        for (int day = currentDay; day < currentDay + days; day++) {
+            Bucket bucket = wheel[day & (WHEEL_DAYS - 1)];
+            int kept = 0;
+            for (int i = 0; i < bucket.count; i++) {
+                if (bucket.express[i]) {
+                    handler.disburse(bucket.loanIds[i], bucket.loanCents[i], day, true);
+                    count++;
+                } else {
+                    bucket.move(i, kept++);
+                }
+            }
+            bucket.count = kept;
+        }
+        size -= count;
+        return count;
+    }
+
+    /**
+     * Returns the next day to be run
+     * @return Epoch day
+     */
+    public synchronized int getCurrentDay() {
+        return currentDay;
+    }
+
+    /**
+     * Returns the number of loans waiting for disbursement
+     * @return Number of loans
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of loans due on a day
+     * @param epochDay Day
+     * @return Number of loans, or 0 for a day that has already been run
+     */
+    public synchronized int countDue(int epochDay) {
+        if (epochDay < currentDay) {
+            return 0;
+        }
+        if (epochDay - currentDay < WHEEL_DAYS) {
+            return wheel[epochDay & (WHEEL_DAYS - 1)].count;
+        }
+        Bucket bucket = overflow.get(epochDay);
+        return bucket == null ? 0 : bucket.count;
+    }
+
+    /**
+     * Writes every waiting loan to a file. The file is written next to the target and
+     * then renamed over it, so a crash during a save leaves the previous file intact.
+     * @param file File to write
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void save(File file) throws IOException {
+        File temporary = new File(file.getPath() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temporary);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream,
+                                                                                  1 << 16))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeInt(currentDay);
+            out.writeLong(size);
+            for (int day = currentDay; day < currentDay + WHEEL_DAYS; day++) {
+                wheel[day & (WHEEL_DAYS - 1)].write(out, day);
+            }
+            for (Map.Entry<Integer, Bucket> entry : overflow.entrySet()) {
+                entry.getValue().write(out, entry.getKey());
+            }
+            out.flush();
+            stream.getFD().sync();
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a scheduler written by save
+     * @param file File to read
+     * @return Scheduler with the saved current day and loans
+     * @throws IOException if the file cannot be read or is not a scheduler file
+     */
+    public static WolfpackDisbursementScheduler load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                 new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                throw new IOException("Invalid scheduler file");
+            }
+            WolfpackDisbursementScheduler scheduler =
+                new WolfpackDisbursementScheduler(in.readInt());
+            long loans = in.readLong();
+            for (long i = 0; i < loans; i++) {
+                long loanId = in.readLong();
+                long loanCents = in.readLong();
+                int epochDay = in.readInt();
+                boolean express = in.readBoolean();
+                if (loanCents <= 0 || epochDay < scheduler.currentDay) {
+                    throw new IOException("Invalid scheduler file");
+                }
+                scheduler.schedule(loanId, loanCents, epochDay, express);
+            }
+            if (in.read() != -1) {
+                throw new IOException("Invalid scheduler file");
+            }
+            return scheduler;
+        } catch (EOFException e) {
+            throw new IOException("Invalid scheduler file");
+        }
+    }
+
+    /**
+     * Loans due on one day, held in parallel arrays that grow as needed
+     */
+    private static final class Bucket {
+        /** Loan identifiers */
+        long[] loanIds = new long[INITIAL_BUCKET_SIZE];
+
+        /** Loan amounts in cents */
+        long[] loanCents = new long[INITIAL_BUCKET_SIZE];
+
+        /** Processing types (true for express) */
+        boolean[] express = new boolean[INITIAL_BUCKET_SIZE];
+
+        /** Number of loans */
+        int count;
+
+        /**
+         * Adds a loan
+         * @param loanId Loan identifier
+         * @param cents Loan amount in cents
+         * @param expressProcessing True for express processing, otherwise false
+         */
+        void add(long loanId, long cents, boolean expressProcessing) {
+            if (count == loanIds.length) {
+                loanIds = Arrays.copyOf(loanIds, count * 2);
+                loanCents = Arrays.copyOf(loanCents, count * 2);
+                express = Arrays.copyOf(express, count * 2);
+            }
+            loanIds[count] = loanId;
+            loanCents[count] = cents;
+            express[count] = expressProcessing;
+            count++;
+        }
+
+        /**
+         * Copies a loan to an earlier position
+         * @param from Position of the loan
+         * @param to New position
+         */
+        void move(int from, int to) {
+            loanIds[to] = loanIds[from];
+            loanCents[to] = loanCents[from];
+            express[to] = express[from];
+        }
+
+        /**
+         * Removes every loan, releasing storage if the bucket grew large
+         */
+        void clear() {
+            count = 0;
+            if (loanIds.length > INITIAL_BUCKET_SIZE * 64) {
+                loanIds = new long[INITIAL_BUCKET_SIZE];
+                loanCents = new long[INITIAL_BUCKET_SIZE];
+                express = new boolean[INITIAL_BUCKET_SIZE];
+            }
+        }
+
+        /**
+         * Writes every loan
+         * @param out Destination
+         * @param epochDay Day the loans are due
+         * @throws IOException if writing fails
+         */
+        void write(DataOutputStream out, int epochDay) throws IOException {
+            for (int i = 0; i < count; i++) {
+                out.writeLong(loanIds[i]);
+                out.writeLong(loanCents[i]);
+                out.writeInt(epochDay);
+                out.writeBoolean(express[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/**
+ * Money arithmetic in whole cents and basis points, using only long arithmetic. Loan
+ * amounts and payments are longs of cents and interest rates are ints of basis points
+ * (hundredths of a percent), so sums of any number of payments are exact and every
+ * payment is rounded the same way on every machine. This sits beside the double-based
+ * WolfpackLending.getMonthlyPayment, which rounds only when printing.
+ * The monthly payment is the loan amount times the annuity factor r / (1 - (1 + r)^-n),
+ * where r is the monthly interest rate and n is the number of months. The factor is a
+ * binary fixed-point number with FRACTION_BITS fraction bits, computed once per
+ * (rate, term) pair and kept in a small fixed-size cache, so pricing a loan is one
+ * 128-bit multiply and a half-up rounding to the nearest cent. Results equal exact
+ * rational arithmetic unless the exact payment is within about 10^-12 cents of a half
+ * cent, which in practice happens only for one-month terms.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackFixedPoint {
+
+    /** Number of fraction bits in a fixed-point factor */
+    public static final int FRACTION_BITS = 60;
+
+    /** Fixed-point 1.0 */
+    public static final long ONE = 1L << FRACTION_BITS;
+
+    /** Basis points in one percent */
+    public static final int BASIS_POINTS_PER_PERCENT = WolfpackQuote.BASIS_POINTS_PER_PERCENT;
+
+    /** Smallest valid interest rate in basis points */
+    public static final int MIN_RATE_BASIS_POINTS =
+        (int) Math.round(WolfpackLending.MIN_INTEREST_RATE * BASIS_POINTS_PER_PERCENT);
+
+    /** Basis points of annual rate per whole monthly rate (12 months times 100 percent) */
+    private static final int BASIS_POINTS_PER_MONTHLY_UNIT =
+        WolfpackLending.MONTHS_IN_YEAR * 100 * BASIS_POINTS_PER_PERCENT;
+
+    /** Largest valid interest rate in basis points (a monthly rate of 100%) */
+    public static final int MAX_RATE_BASIS_POINTS = BASIS_POINTS_PER_MONTHLY_UNIT;
+
+    /** Number of entries in the cache of (rate, term) factors (a power of 2) */
+    public static final int CACHE_SIZE = 256;
+
+    /**
+     * Direct-mapped cache of (rate, term) factors. Entries are immutable, so a racing thread
+     * sees either an old entry or a complete new one, never a partial one.
+     */
+    private static final Factor[] CACHE = new Factor[CACHE_SIZE];
+
+    /**
+     * Converts an interest rate expressed as a percentage to basis points
+     * @param annualInterestRate Annual interest rate expressed as a percentage
+     * @return Rate rounded to the nearest basis point
+     */
+    public static int basisPoints(double annualInterestRate) {
+        return (int) Math.round(annualInterestRate * BASIS_POINTS_PER_PERCENT);
+    }
+
+    /**
+     * Returns the monthly payment for a loan
+     * @param loanCents Total loan amount in cents (including express processing fee)
+     * @param rateBasisPoints Annual interest rate in basis points
+     * @param numberOfMonths Number of months in loan repayment period
+     * @return Monthly payment in cents, rounded half up
+     * @throws IllegalArgumentException if the loan amount is not positive, the rate is not
+     *         from MIN_RATE_BASIS_POINTS to MAX_RATE_BASIS_POINTS, or the number of months
+     *         is not positive
+     */
+    public static long monthlyPaymentCents(long loanCents, int rateBasisPoints,
+                                           int numberOfMonths) {
+        if (loanCents <= 0) {
+            throw new IllegalArgumentException("Invalid loan amount");
+        }
+        return multiplyCents(loanCents, annuityFactor(rateBasisPoints, numberOfMonths));
+    }
+
+    /**
+     * Returns the total monthly payments of a portfolio. Every payment is rounded to the
+     * nearest cent before it is added, so the total is exactly the sum of the payments
+     * borrowers are billed.
+     * @param loanCents Total loan amounts in cents
+     * @param rateBasisPoints Annual interest rates in basis points
+     * @param numberOfMonths Number of months in loan repayment period
+     * @return Sum of the monthly payments in cents
+     * @throws IllegalArgumentException if the arrays are not the same length or any loan is
+     *         not valid for monthlyPaymentCents
+     * @throws ArithmeticException if the total does not fit in a long
+     */
+    public static long totalPaymentCents(long[] loanCents, int[] rateBasisPoints,
+                                         int numberOfMonths) {
+        if (loanCents.length != rateBasisPoints.length) {
+            throw new IllegalArgumentException("Invalid array lengths");
+        }
+        long total = 0;
+        long factor = 0;
+        int factorRate = -1;
+        for (int i = 0; i < loanCents.length; i++) {
+            //portfolios have few distinct rates, so reuse the factor of the previous loan
+            if (rateBasisPoints[i] != factorRate) {
+                factor = annuityFactor(rateBasisPoints[i], numberOfMonths);
+                factorRate = rateBasisPoints[i];
+            }
+            if (loanCents[i] <= 0) {
+                throw new IllegalArgumentException("Invalid loan amount");
+            }
+            total = Math.addExact(total, multiplyCents(loanCents[i], factor));
+        }
+        return total;
+    }
+
+    /**
+     * Returns the fixed-point annuity factor r / (1 - (1 + r)^-n) for an annual interest
+     * rate and repayment period
+     * @param rateBasisPoints Annual interest rate in basis points
+     * @param numberOfMonths Number of months in loan repayment period
+     * @return Annuity factor with FRACTION_BITS fraction bits
+     * @throws IllegalArgumentException if the rate is not from MIN_RATE_BASIS_POINTS to
+     *         MAX_RATE_BASIS_POINTS or the number of months is not positive
+     */
+    public static long annuityFactor(int rateBasisPoints, int numberOfMonths) {
+        if (rateBasisPoints < MIN_RATE_BASIS_POINTS ||
+            rateBasisPoints > MAX_RATE_BASIS_POINTS) {
+            throw new IllegalArgumentException("Invalid interest rate");
+        }
+        if (numberOfMonths <= 0) {
+            throw new IllegalArgumentException("Invalid number of months");
+        }
+        int slot = (rateBasisPoints * 31 + numberOfMonths) & (CACHE_SIZE - 1);
+        Factor entry = CACHE[slot];
+        if (entry != null && entry.rateBasisPoints == rateBasisPoints &&
+            entry.months == numberOfMonths) {
+            return entry.factor;
+        }
+        long factor = computeAnnuityFactor(rateBasisPoints, numberOfMonths);
+        CACHE[slot] = new Factor(rateBasisPoints, numberOfMonths, factor);
+        return factor;
+    }
+
+    /**
+     * Computes the annuity factor. The discount (1 + r)^-n is always between 0 and 1, so
+     * it is raised to the nth power by repeated squaring without overflow.
+     * @param rateBasisPoints Annual interest rate in basis points (from
+     *                        MIN_RATE_BASIS_POINTS to MAX_RATE_BASIS_POINTS)
+     * @param numberOfMonths Number of months in loan repayment period (positive)
+     * @return Annuity factor with FRACTION_BITS fraction bits
+     */
+    static long computeAnnuityFactor(int rateBasisPoints, int numberOfMonths) {
+        long monthlyRate = divide(rateBasisPoints, BASIS_POINTS_PER_MONTHLY_UNIT);
+        long discount = divide(BASIS_POINTS_PER_MONTHLY_UNIT,
+                               BASIS_POINTS_PER_MONTHLY_UNIT + (long) rateBasisPoints);
+        long power = ONE;
+        for (int n = numberOfMonths; n > 0; n >>= 1) {
+            if ((n & 1) != 0) {
+                power = multiply(power, discount);
+            }
+            discount = multiply(discount, discount);
+        }
+        return divide(monthlyRate, ONE - power);
+    }
+
+    /**
+     * Multiplies an amount in cents by a fixed-point factor
+     * @param cents Amount in cents (not negative)
+     * @param factor Factor with FRACTION_BITS fraction bits (not negative)
+     * @return Product rounded half up to the nearest cent
+     */
+    public static long multiplyCents(long cents, long factor) {
+        return multiply(cents, factor);
+    }
+
+    /**
+     * Multiplies two non-negative numbers and drops FRACTION_BITS bits from the 128-bit
+     * product, rounding half up
+     * @param a First number
+     * @param b Second number
+     * @return a * b / 2^FRACTION_BITS, rounded
+     */
+    private static long multiply(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        long rounding = (low >>> (FRACTION_BITS - 1)) & 1;
+        return ((high << (Long.SIZE - FRACTION_BITS)) | (low >>> FRACTION_BITS)) + rounding;
+    }
+
+    /**
+     * Divides two non-negative numbers as a fixed-point quotient by binary long division
+     * @param dividend Dividend
+     * @param divisor Divisor (positive and less than 2^62)
+     * @return dividend * 2^FRACTION_BITS / divisor, rounded half up
+     */
+    private static long divide(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        for (int bit = 0; bit < FRACTION_BITS; bit++) {
+            remainder <<= 1;
+            quotient <<= 1;
+            if (remainder >= divisor) {
+                remainder -= divisor;
+                quotient |= 1;
+            }
+        }
+        return remainder << 1 >= divisor ? quotient + 1 : quotient;
+    }
+
+    /**
+     * Cached annuity factor for one (rate, term) pair
+     */
+    private static final class Factor {
+        /** Annual interest rate in basis points */
+        final int rateBasisPoints;
+
+        /** Number of months in the repayment period */
+        final int months;
+
+        /** Fixed-point annuity factor */
+        final long factor;
+
+        /**
+         * Creates a cache entry
+         * @param rateBasisPoints Annual interest rate in basis points
+         * @param months Number of months in the repayment period
+         * @param factor Fixed-point annuity factor
+         */
+        Factor(int rateBasisPoints, int months, long factor) {
+            this.rateBasisPoints = rateBasisPoints;
+            this.months = months;
+            this.factor = factor;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Non-interactive mode of WolfpackLending for piping files of applications through the
+ * program. Skips the banner and prompts and reads applications from an input stream until
+ * end of file. Each application is one line of six fields separated by spaces, tabs, or
+ * commas: month, day, credit score, income, loan amount, and express processing (y or n),
+ * e.g. "3 16 755 40000 5000 y". A line without exactly six fields gets one "Invalid
+ * input" result, and reading goes on with the next line. Fields are parsed directly from
+ * a large byte buffer instead of with java.util.Scanner, and results are collected in one
+ * buffer that is written out in large blocks, one line per application.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackHeadless {
+
+    /** Size of the input buffer in bytes */
+    public static final int INPUT_BUFFER_SIZE = 1 << 16;
+
+    /** Output size in characters at which buffered results are written out */
+    public static final int OUTPUT_FLUSH_SIZE = 1 << 15;
+
+    /** Number of fields in an application line */
+    public static final int FIELDS_PER_LINE = 6;
+
+    /** Source of application bytes */
+    private final InputStream in;
+
+    /** Input buffer */
+    private final byte[] buffer = new byte[INPUT_BUFFER_SIZE];
+
+    /** Index of the next unread byte in the buffer */
+    private int position;
+
+    /** Number of bytes in the buffer */
+    private int limit;
+
+    /**
+     * Reads all applications from standard input and writes results to standard output
+     * @param args command line arguments (not used)
+     */
+    public static void main(String[] args) {
+        try {
+            run(System.in, System.out);
+        } catch (IOException e) {
+            System.out.println("Headless run failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Prices every application in an input stream and writes one result line per
+     * application
+     * @param in Source of applications
+     * @param out Destination of results
+     * @return Number of applications processed
+     * @throws IOException if reading or writing fails
+     */
+    public static long run(InputStream in, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        long count = new WolfpackHeadless(in).run(writer);
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Creates a reader of applications
+     * @param in Source of application bytes
+     */
+    private WolfpackHeadless(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Prices every remaining application and writes one result line per application
+     * @param out Destination of results
+     * @return Number of applications processed
+     * @throws IOException if reading or writing fails
+     */
+    private long run(Writer out) throws IOException {
+        StringBuilder results = new StringBuilder(OUTPUT_FLUSH_SIZE + 256);
+        WolfpackQuote quote = new WolfpackQuote();
+        WolfpackMetrics.Tally tally = new WolfpackMetrics.Tally();
+        long[] fields = new long[FIELDS_PER_LINE];
+        long count = 0;
+        int found;
+        while ((found = readLine(fields)) >= 0) {
+            if (found == 0) {
+                continue;
+            }
+            count++;
+            boolean valid = found == FIELDS_PER_LINE;
+            for (int i = 0; valid && i < FIELDS_PER_LINE - 1; i++) {
+                valid = fields[i] != WolfpackValidation.NOT_A_NUMBER;
+            }
+            if (!valid) {
+                quote.reject(WolfpackValidation.INVALID_INPUT);
+                results.append(WolfpackValidation.message(WolfpackValidation.INVALID_INPUT))
+                       .append('\n');
+            } else {
+                long processing = fields[FIELDS_PER_LINE - 1];
+                WolfpackLending.quote((int) fields[0], (int) fields[1], (int) fields[2],
+                                      (int) fields[3], (int) fields[4],
+                                      processing == 'y' || processing == 'Y', quote);
+                appendResult(results, quote);
+            }
+            tally.count(quote);
+            if (results.length() >= OUTPUT_FLUSH_SIZE) {
+                commitJournal();
+                out.append(results);
+                results.setLength(0);
+            }
+        }
+        tally.flush();
+        commitJournal();
+        out.append(results);
+        return count;
+    }
+
+    /**
+     * Makes the decisions journaled so far durable, if a decision journal is in use, so
+     * that no result is written before its decision is recorded
+     * @throws IOException if the journal cannot be written
+     */
+    private static void commitJournal() throws IOException {
+        WolfpackDecisionJournal journal = WolfpackDecisionJournal.current();
+        if (journal != null) {
+            journal.commit();
+        }
+    }
+
+    /**
+     * Appends the result line for a quote: the loan amount, interest rate, monthly payment,
+     * and disbursement date if approved, otherwise the same message the interactive
+     * program prints
+     * @param results Buffer to append to
+     * @param quote Priced application
+     */
+    static void appendResult(StringBuilder results, WolfpackQuote quote) {
+        if (!quote.isApproved()) {
+            results.append(quote.getMessage()).append('\n');
+            return;
+        }
+        results.append("Loan Amount: $");
+        WolfpackQuote.appendCents(results, quote.getLoanCents());
+        results.append("; Interest Rate: ").append(quote.getInterestRate());
+        results.append("%; Monthly Payment: $");
+        WolfpackQuote.appendCents(results, quote.getPaymentCents());
+        results.append("; Disbursement Date: ").append(quote.getDisbursementDate())
+               .append('\n');
+    }
+
+    /**
+     * Reads the next byte
+     * @return Next byte (0-255), or -1 at end of file
+     * @throws IOException if reading fails
+     */
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++] & 0xff;
+    }
+
+    /**
+     * Returns whether a byte separates fields on a line
+     * @param b Byte
+     * @return True for spaces, tabs, carriage returns, and commas
+     */
+    private static boolean isSeparator(int b) {
+        return b == ' ' || b == ',' || b == '\r' || b == '\t';
+    }
+
+    /**
+     * Reads the fields of the next line. The first five fields are parsed as whole
+     * numbers, stored as WolfpackValidation.NOT_A_NUMBER if they are not whole numbers
+     * that fit in an int, and the sixth is stored as its first byte.
+     * @param fields Receives the first six fields of the line
+     * @return Number of fields on the line, or -1 at end of file
+     * @throws IOException if reading fails
+     */
+    private int readLine(long[] fields) throws IOException {
+        int b = read();
+        if (b < 0) {
+            return -1;
+        }
+        int count = 0;
+        while (b >= 0 && b != '\n') {
+            if (isSeparator(b)) {
+                b = read();
+                continue;
+            }
+            if (count < FIELDS_PER_LINE - 1) {
+                boolean negative = b == '-';
+                if (negative) {
+                    b = read();
+                }
+                long value = 0;
+                boolean valid = b >= '0' && b <= '9';
+                while (b >= 0 && b != '\n' && !isSeparator(b)) {
+                    if (b < '0' || b > '9' || value > Integer.MAX_VALUE) {
+                        valid = false;
+                    } else {
+                        value = value * 10 + (b - '0');
+                    }
+                    b = read();
+                }
+                if (negative) {
+                    value = -value;
+                }
+                boolean inRange = value <= Integer.MAX_VALUE && value >= Integer.MIN_VALUE;
+                fields[count] = valid && inRange ? value : WolfpackValidation.NOT_A_NUMBER;
+            } else {
+                if (count == FIELDS_PER_LINE - 1) {
+                    fields[count] = b;
+                }
+                while (b >= 0 && b != '\n' && !isSeparator(b)) {
+                    b = read();
+                }
+            }
+            count++;
+        }
+        return count;
+    }
+}
@@ -1,3 +1,6 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 /**
@@ -155,14 +158,43 @@ public class WolfpackLending {
     /**
      * Starts program, displays program header, and gives instructions to user
      * Prints error message and exits program if user enters invalid input
-     * @param args command line arguments (not used)
+     * With the argument -headless, skips the header and prompts and prices every
+     * application read from standard input until end of file (see WolfpackHeadless)
+     * With the argument -daemon, serves the program over a Unix domain socket, and with
+     * -client, runs the program through a running daemon (see WolfpackDaemon)
+     * @param args command line arguments (optionally -headless, -daemon, or -client,
+     *             followed by the socket path for -daemon and -client)
      * 
      */
     public static void main(String[] args) {
-        Scanner console = new Scanner(System.in);
+        if (args.length > 0 && args[0].equals("-headless")) {
+            WolfpackHeadless.main(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("-daemon")) {
+            WolfpackDaemon.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("-client")) {
+            WolfpackClient.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         
-        System.out.println();
-        System.out.println("                  Welcome to Wolfpack Lending!\n" +
+        Scanner console = new Scanner(System.in);
+        printWelcome(System.out);
+        String inputValidation = userInterface(console);
+        if (!inputValidation.equals("valid input")) {
+            System.out.println(inputValidation);
+        }
+    }
+    
+    /**
+     * Displays the program header and instructions
+     * @param out Stream the header is printed to
+     */
+    static void printWelcome(PrintStream out) {
+        out.println();
+        out.println("                  Welcome to Wolfpack Lending!\n" +
                         "Applications for loans from $1000 to $10000 will be accepted from\n" +
                         "January 1 to December 31, 2020. All loans will be paid back over a\n" +
                         "5 year period. When prompted, please enter today's date, your credit\n" +
@@ -172,11 +204,6 @@ public class WolfpackLending {
                         "in which case the loan will be paid out 3 days after the application\n" +
                         "date. If your loan is approved, the loan amount, interest rate,\n" +
                         "disbursement date, and monthly payment amount will be output.\n");
-            
-        String inputValidation = userInterface(console);
-        if (!inputValidation.equals("valid input")) {
-            System.out.println(inputValidation);
-        }
     }
     
     /**
@@ -190,11 +217,23 @@ public class WolfpackLending {
      * @return String verifying valid user input or displaying error message for invalid input
      */
     public static String userInterface (Scanner console) {
+        return userInterface(console, System.out);
+    }
+    
+    /**
+     * Runs userInterface with its prompts and results printed to a given stream, so that the
+     * same conversation can be held over a socket (see WolfpackDaemon)
+     * @param console Scanner that reads user input
+     * @param out Stream the prompts and results are printed to
+     * @return String verifying valid user input or displaying error message for invalid input
+     */
+    public static String userInterface (Scanner console, PrintStream out) {
         //get and validate application date
-        System.out.print("Today's Date - Month Day (e.g., 3 15): ");
+        out.print("Today's Date - Month Day (e.g., 3 15): ");
         int month = console.nextInt();
         int monthDay = console.nextInt();
         if (!isValidDate(month, monthDay)) {
+            WolfpackMetrics.recordRejection(WolfpackValidation.INVALID_DATE);
             return "Invalid date";
         }
         
@@ -204,33 +243,37 @@ public class WolfpackLending {
         String processing = "";
         
         //get and validate credit score between 300 and 850
-        System.out.print("Credit Score (300-850): ");
+        out.print("Credit Score (300-850): ");
         creditScore = console.nextInt();
         if (creditScore < MIN_CREDIT_SCORE || creditScore > MAX_CREDIT_SCORE) {
+            WolfpackMetrics.recordRejection(WolfpackValidation.INVALID_CREDIT_SCORE);
             return "Invalid credit score";
         } 
         
         //get and validate income > 0
-        System.out.print("2019 Income: ");
+        out.print("2019 Income: ");
         income = console.nextInt();
         if (income < 0) {
+            WolfpackMetrics.recordRejection(WolfpackValidation.INVALID_INCOME);
             return "Invalid income";
         }
         
         //get and validate loan amount between 1,000 - 10,000
-        System.out.print("Loan Amount (1000-10000): ");
+        out.print("Loan Amount (1000-10000): ");
         loanAmount = console.nextInt();
         if (loanAmount < MIN_LOAN || loanAmount > MAX_LOAN) {
+            WolfpackMetrics.recordRejection(WolfpackValidation.INVALID_LOAN_AMOUNT);
             return "Invalid loan amount";
         } 
         
         //get processing    
-        System.out.print("Express Processing (y, n)): ");
+        out.print("Express Processing (y, n)): ");
         processing = console.next();
         
         //get disbursement date and adds fee for express processing
         String disbursementDate = "";
-        if (processing.startsWith("y") || processing.startsWith("Y")) {
+        boolean expressProcessing = processing.startsWith("y") || processing.startsWith("Y");
+        if (expressProcessing) {
             loanAmount += EXPRESS_PROCESSING_FEE; //adds express processing fee and parameter
             disbursementDate = getDisbursementDate(month, monthDay, true); 
         } else {    //calculates based on normal processing parameters
@@ -239,9 +282,13 @@ public class WolfpackLending {
         
         //get loan approval status annual interest rate
         double annualInterestRate = getInterestRate(loanAmount, creditScore, income);
+        journalDecision(month, monthDay, creditScore, income, loanAmount, expressProcessing,
+                        annualInterestRate);
         if (annualInterestRate == -1) {
+            WolfpackMetrics.recordRejection(WolfpackQuote.DENIED);
             return "\nLoan denied";
         }
+        WolfpackMetrics.recordApproval(annualInterestRate);
         
         // get the monthly payment
         double monthlyPayment = getMonthlyPayment(loanAmount, 
@@ -250,14 +297,100 @@ public class WolfpackLending {
         double loan = loanAmount; //Change loanAmount to a double for floating point output 
         
         //Program output                                        
-        System.out.printf("\nLoan Amount: $%.2f", loan);
-        System.out.println("\nInterest Rate: " + annualInterestRate + "%"); 
-        System.out.printf("Monthly Payment: $%.2f", monthlyPayment);
-        System.out.println("\nDisbursement Date: " + disbursementDate);
+        out.printf("\nLoan Amount: $%.2f", loan);
+        out.println("\nInterest Rate: " + annualInterestRate + "%"); 
+        out.printf("Monthly Payment: $%.2f", monthlyPayment);
+        out.println("\nDisbursement Date: " + disbursementDate);
         
         return "valid input";
     }
     
+    /**
+     * Records an interactive decision in the decision journal, if one is in use, and waits
+     * until the record is durable
+     * @param month Application month
+     * @param monthDay Application day of the month
+     * @param creditScore Loan applicant credit score
+     * @param income Loan applicant income for 2019
+     * @param loanAmount Total loan amount (including express processing fee)
+     * @param expressProcessing True if user would like express processing, otherwise false
+     * @param annualInterestRate Interest rate, or -1 if the loan is denied
+     * @throws UncheckedIOException if the journal cannot be written
+     */
+    private static void journalDecision(int month, int monthDay, int creditScore, int income,
+                                        int loanAmount, boolean expressProcessing,
+                                        double annualInterestRate) {
+        WolfpackDecisionJournal journal = WolfpackDecisionJournal.current();
+        if (journal == null) {
+            return;
+        }
+        int requestedLoan = expressProcessing ? loanAmount - EXPRESS_PROCESSING_FEE :
+                            loanAmount;
+        long sequence;
+        if (annualInterestRate == -1) {
+            sequence = journal.append(month, monthDay, creditScore, income, requestedLoan,
+                                      expressProcessing, WolfpackQuote.DENIED, 0, 0, 0);
+        } else {
+            int entry = WolfpackDisbursementCalendar.entry(month, monthDay, expressProcessing);
+            sequence = journal.append(month, monthDay, creditScore, income, requestedLoan,
+                                      expressProcessing, WolfpackQuote.APPROVED,
+                                      WolfpackFixedPoint.basisPoints(annualInterestRate),
+                                      WolfpackPaymentMatrix.paymentCents(loanAmount,
+                                          annualInterestRate, NUMBER_OF_MONTHS),
+                                      WolfpackDisbursementCalendar.epochDay(entry));
+        }
+        try {
+            journal.commit(sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write decision journal", e);
+        }
+    }
+
+    /**
+     * Prices a loan application without creating any objects, using the same validation
+     * order and rules as userInterface. The result is written into a quote supplied by the
+     * caller, which can be reused for every application.
+     * @param month Application month
+     * @param monthDay Application day of the month
+     * @param creditScore Loan applicant credit score
+     * @param income Loan applicant income for 2019
+     * @param loanAmount Requested loan amount (not including express processing fee)
+     * @param expressProcessing True if user would like express processing, otherwise false
+     * @param result Quote that receives the decision and, if approved, the loan terms
+     * @return The result quote
+     * @throws UncheckedIOException if the decision journal is full and cannot be written
+     */
+    public static WolfpackQuote quote(int month, int monthDay, int creditScore, int income,
+                                      int loanAmount, boolean expressProcessing,
+                                      WolfpackQuote result) {
+        int validation = WolfpackValidation.checkApplication(month, monthDay, creditScore,
+                                                             income, loanAmount);
+        if (validation != WolfpackValidation.VALID) {
+            result.reject(validation);
+        } else {
+            int totalLoan = expressProcessing ? loanAmount + EXPRESS_PROCESSING_FEE :
+                            loanAmount;
+            double annualInterestRate = getInterestRate(totalLoan, creditScore, income);
+            if (annualInterestRate == -1) {
+                result.reject(WolfpackQuote.DENIED);
+            } else {
+                result.approve(totalLoan * (long) WolfpackQuote.CENTS_PER_DOLLAR,
+                               WolfpackFixedPoint.basisPoints(annualInterestRate),
+                               WolfpackPaymentMatrix.paymentCents(totalLoan,
+                                                                  annualInterestRate,
+                                                                  NUMBER_OF_MONTHS),
+                               WolfpackDisbursementCalendar.entry(month, monthDay,
+                                                                  expressProcessing));
+            }
+            WolfpackDecisionJournal journal = WolfpackDecisionJournal.current();
+            if (journal != null) {
+                journal.append(month, monthDay, creditScore, income, loanAmount,
+                               expressProcessing, result);
+            }
+        }
+        return result;
+    }
+    
     /**
      * Validates the application month and application day
      * @param month Application month input by user
@@ -284,6 +417,8 @@ public class WolfpackLending {
     /**
      * Determines whether a loan is approved as well as the interest rate based on the loan 
      * amount, the borrower's credit score and the borrower's 2019 income.
+     * The rate tiers come from the rules in use (see WolfpackRateRules), which by default
+     * are the credit score, income to debt ratio, and interest rate constants.
      * @param loanAmount Total loan amount (including express processing fee)
      * @param creditScore Loan applicant credit score
      * @param income Loan applicant income for 2019
@@ -293,35 +428,14 @@ public class WolfpackLending {
      * @throws IllegalArgumentException if the income amount is less than 0
      */ 
     public static double getInterestRate(int loanAmount, int creditScore, int income) {
-        //"Invalid loan amount" exception
-        if (loanAmount <= 0) {
-            throw new IllegalArgumentException ("Invalid loan amount");
+        //"Invalid loan amount", "Invalid credit score", or "Invalid income" exception
+        int validation = WolfpackValidation.checkInterestRate(loanAmount, creditScore, income);
+        if (validation != WolfpackValidation.VALID) {
+            throw new IllegalArgumentException (WolfpackValidation.message(validation));
         }
         
-        //"Invalid credit score" exception
-        if (creditScore < MIN_CREDIT_SCORE || creditScore > MAX_CREDIT_SCORE) {
-            throw new IllegalArgumentException ("Invalid credit score");
-        }   
-            
-        //"Invalid income" exception
-        if (income < 0) {
-            throw new IllegalArgumentException ("Invalid income");
-        }  
-        
         //Returns the interest rate if loan is approved, return -1.0 if loan not approved
-        if (creditScore >= GOOD_CREDIT_SCORE) {
-            return SPECIAL_INTEREST_RATE;
-        } else if (income >= (HIGH_INCOME_TO_DEBT_RATIO * loanAmount)) {
-            return LOW_INTEREST_RATE;
-        } else if (creditScore >= FAIR_CREDIT_SCORE && 
-                   income >= (MODERATE_INCOME_TO_DEBT_RATIO * loanAmount)) {
-            return MODERATE_INTEREST_RATE;
-        } else if (creditScore >= POOR_CREDIT_SCORE 
-                   && income >= (LOW_INCOME_TO_DEBT_RATIO * loanAmount)) {
-            return HIGH_INTEREST_RATE;
-        } else {
-            return -1.0;
-        }
+        return WolfpackRateRules.current().interestRate(loanAmount, creditScore, income);
     }
     
     /**
@@ -337,27 +451,18 @@ public class WolfpackLending {
      */
     public static double getMonthlyPayment(double loanAmount, double annualInterestRate,
                                            int numberOfMonths) {
-        //"Invalid loan amount" exception
-        if (loanAmount <= 0) {
-            throw new IllegalArgumentException ("Invalid loan amount");
-        }    
-            
-        //"Invalid interest rate" exception
-        if (annualInterestRate < MIN_INTEREST_RATE) {
-            throw new IllegalArgumentException ("Invalid interest rate");
-        }     
-            
-        //"Invalid number of months" exception
-        if (numberOfMonths <= 0) {
-            throw new IllegalArgumentException ("Invalid number of months");
-        }  
+        //"Invalid loan amount", "Invalid interest rate", or "Invalid number of months" 
+        //exception
+        int validation = WolfpackValidation.checkMonthlyPayment(loanAmount, annualInterestRate,
+                                                                numberOfMonths);
+        if (validation != WolfpackValidation.VALID) {
+            throw new IllegalArgumentException (WolfpackValidation.message(validation));
+        }
         
-        // Calculate monthly payment
-        double monthlyInterestRate = annualInterestRate / (MONTHS_IN_YEAR * 100.0);
-        double formulaPowerCalc = Math.pow((1 + monthlyInterestRate), numberOfMonths);
+        // Calculate monthly payment from the cached annuity factor for this rate and term
         double monthlyPayment = loanAmount * 
-                                ((monthlyInterestRate * formulaPowerCalc) / 
-                                (formulaPowerCalc - 1));                                 
+                                WolfpackPaymentEngine.annuityFactor(annualInterestRate,
+                                                                    numberOfMonths);
             
         return monthlyPayment;                        
     }
@@ -367,9 +472,9 @@ public class WolfpackLending {
      * a year of 2020, and whether the loan will receive express processing.
      * The disbursement date is 3 days after the application date for loans receiving express
      * processing.  The disbursement date is 20 days after the application date otherwise.
-     * Method uses a monthly payment calculation (Source: http://en.wikipedia.org/wiki/Loan)
-     * Method uses Zeller's algorithm (Source: Sedgewick R & Wayne K. Introduction to 
-     * programming in Java) to determine the day of the week for a given month, day, and year. 
+     * Method looks up the date in WolfpackDisbursementCalendar, which precomputes every
+     * disbursement date with Zeller's algorithm (Source: Sedgewick R & Wayne K. Introduction
+     * to programming in Java) to determine the day of the week.
      * Method returns disbursement date in the format "Day, m d year" (e.g., "Tue, 4 21 2020")
      * @param applicationMonth Month in which the user applied for loan
      * @param applicationDay Day of the month on which the user applied for loan
@@ -381,74 +486,14 @@ public class WolfpackLending {
     public static String getDisbursementDate(int applicationMonth, int applicationDay, 
                                              boolean expressProcessing) {
         //"Invalid date" exception
-        if (!isValidDate (applicationMonth, applicationDay)) {
-            throw new IllegalArgumentException ("Invalid date");
-        }  
-        
-        int disbursementDay = applicationDay;   
-        int disbursementMonth = applicationMonth;
-        int disbursementYear = APPLICATION_YEAR;
-        
-        if (expressProcessing) {
-            disbursementDay += DAYS_FOR_EXPRESS_PROCESSING;
-        } else {
-            disbursementDay += DAYS_FOR_NORMAL_PROCESSING;
+        int validation = WolfpackValidation.checkDisbursementDate(applicationMonth, 
+                                                                  applicationDay);
+        if (validation != WolfpackValidation.VALID) {
+            throw new IllegalArgumentException (WolfpackValidation.message(validation));
         }
         
-        // Validate disbursement date in months with 30 days
-        if ((disbursementMonth == APR || disbursementMonth == JUN || 
-             disbursementMonth == SEP || disbursementMonth == NOV) 
-             && disbursementDay > DAYS_IN_SHORT_MONTH) { 
-            disbursementMonth++;
-            disbursementDay -= DAYS_IN_SHORT_MONTH;
-        //Validate disbursement date in February
-        } else if (disbursementMonth == FEB && disbursementDay > DAYS_IN_FEB_OF_LEAP_YEAR) {  
-            disbursementMonth++;
-            disbursementDay -= DAYS_IN_FEB_OF_LEAP_YEAR; 
-        //Validate disbursement date in December    
-        } else if (disbursementMonth == DEC && disbursementDay > DAYS_IN_LONG_MONTH) {
-            disbursementMonth = JAN;
-            disbursementDay -= DAYS_IN_LONG_MONTH;
-            disbursementYear++;
-        //Validate disbursement date in months with 31 days
-        } else if (disbursementDay > DAYS_IN_LONG_MONTH) {
-            disbursementMonth++;
-            disbursementDay -= DAYS_IN_LONG_MONTH;
-        }
-        //Zeller's algorithm     
-        int w = disbursementYear - (2 + MONTHS_IN_YEAR - disbursementMonth) / MONTHS_IN_YEAR;
-        int x = w + w / LEAP_YEAR_FREQUENCY - w / YEARS_IN_CENTURY + 
-                w / (LEAP_YEAR_FREQUENCY * YEARS_IN_CENTURY);
-        int z = disbursementMonth + MONTHS_IN_YEAR * 
-                ((2 + MONTHS_IN_YEAR - disbursementMonth) / MONTHS_IN_YEAR) - 2;
-        int dayOfWeek = (disbursementDay + x + (DAYS_IN_LONG_MONTH * z) / 
-                         MONTHS_IN_YEAR) % DAYS_IN_WEEK;
-        
-        //Convert numerical day of week to text String day of week
-        String day = "";
-        if (dayOfWeek == SUN) {
-            day = "Sun";
-        }
-        if (dayOfWeek == MON) {
-            day = "Mon";
-        }
-        if (dayOfWeek == TUES) {
-            day = "Tue";
-        }
-        if (dayOfWeek == WED) {
-            day = "Wed";
-        }
-        if (dayOfWeek == THU) {
-            day = "Thu";
-        }
-        if (dayOfWeek == FRI) {
-            day = "Fri";
-        }
-        if (dayOfWeek == SAT) {
-            day = "Sat";
-        }
-        //disbursement date must be in the format "Tue, 4 21 2020"
-        return (day + ", " + disbursementMonth + " " + disbursementDay + " " + 
-                disbursementYear);                            
+        //look up the precomputed date instead of running Zeller's algorithm per call
+        return WolfpackDisbursementCalendar.getDisbursementDate(applicationMonth, applicationDay,
+                                                                expressProcessing);
     }
 }
\ No newline at end of file
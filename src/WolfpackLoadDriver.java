@@ -0,0 +1,352 @@
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives synthetic loan applications from WolfpackWorkload through WolfpackLending.quote
+ * for load and soak testing. Worker threads each price their own stream of applications,
+ * either as fast as they can or paced to a combined target rate. When paced, each quote
+ * has an intended start time and its latency is measured from that time, so a stall
+ * shows up as the delay of every quote queued behind it rather than as a single slow
+ * quote. Throughput and latency percentiles are printed at a fixed interval and a final
+ * report includes the garbage collections during the run.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackLoadDriver {
+
+    /** Default length of a run in seconds */
+    public static final int DEFAULT_SECONDS = 60;
+
+    /** Default time between progress lines in seconds */
+    public static final int DEFAULT_REPORT_SECONDS = 10;
+
+    /** Nanoseconds in a second */
+    public static final double NANOS_PER_SECOND = WolfpackBatch.NANOS_PER_SECOND;
+
+    /** Nanoseconds in a microsecond */
+    public static final double NANOS_PER_MICRO = 1000.0;
+
+    /**
+     * Runs a soak test and prints its progress and report
+     * @param args command line arguments: target quotes per second (0 for as fast as
+     *             possible), and optionally the number of seconds, the number of worker
+     *             threads, and the seed
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: java WolfpackLoadDriver rate [seconds] [threads] " +
+                               "[seed]");
+            System.exit(1);
+        }
+        double rate = Double.parseDouble(args[0]);
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) :
+                      Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+        System.out.printf("Seed %d, %d threads, %d seconds\n", seed, threads, seconds);
+        Report report = run(new WolfpackWorkload(seed, WolfpackWorkload.DEFAULT_EXPRESS_RATIO),
+                            rate, threads, seconds * (long) NANOS_PER_SECOND,
+                            DEFAULT_REPORT_SECONDS * (long) NANOS_PER_SECOND, System.out);
+        System.out.println(report);
+    }
+
+    /**
+     * Prices generated applications on worker threads for a fixed time
+     * @param workload Workload split into one stream per worker thread
+     * @param rate Combined target quotes per second, or 0 for as fast as possible
+     * @param threads Number of worker threads
+     * @param durationNanos Length of the run in nanoseconds
+     * @param reportNanos Time between progress lines in nanoseconds
+     * @param progress Destination of progress lines, or null for none
+     * @return Report of the run
+     * @throws IllegalArgumentException if the rate is negative, the number of threads is
+     *         less than 1, or the duration or report interval is not positive
+     */
+    public static Report run(WolfpackWorkload workload, double rate, int threads,
+                             long durationNanos, long reportNanos, PrintStream progress) {
+        if (!(rate >= 0)) {
+            throw new IllegalArgumentException("Invalid rate");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid number of threads");
+        }
+        if (durationNanos <= 0 || reportNanos <= 0) {
+            throw new IllegalArgumentException("Invalid duration");
+        }
+        Load load = new Load();
+        long[] gcBefore = gcTotals();
+        long start = System.nanoTime();
+        long end = start + durationNanos;
+
+        //each thread keeps an equal share of the rate, offset so their quotes interleave
+        long interval = rate == 0 ? 0 : Math.max(1, (long) (threads * NANOS_PER_SECOND / rate));
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            WolfpackWorkload stream = workload.split();
+            long first = start + interval * i / threads;
+            workers[i] = new Thread(() -> work(stream, load, first, interval, end),
+                                    "wolfpack-load-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+
+        long lastCount = 0;
+        long lastTime = start;
+        for (long now = start; now < end; now = System.nanoTime()) {
+            LockSupport.parkNanos(Math.min(reportNanos - (now - lastTime), end - now));
+            now = System.nanoTime();
+            if (progress != null && now - lastTime >= reportNanos) {
+                long count = load.quotes.sum();
+                progress.printf("%7.1fs %10.0f quotes/sec  p50 %8.1f us  p99 %8.1f us\n",
+                                (now - start) / NANOS_PER_SECOND,
+                                (count - lastCount) * NANOS_PER_SECOND / (now - lastTime),
+                                load.interval.percentile(0.5) / NANOS_PER_MICRO,
+                                load.interval.percentile(0.99) / NANOS_PER_MICRO);
+                load.interval.reset();
+                lastCount = count;
+                lastTime = now;
+            }
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long[] gcAfter = gcTotals();
+        return new Report(load.quotes.sum(), load.approvals.sum(), elapsed,
+                          load.total.percentile(0.5), load.total.percentile(0.99),
+                          load.total.percentile(0.999), load.maxLatency.get(),
+                          gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+    }
+
+    /**
+     * Prices applications on one worker thread until the end of the run
+     * @param workload Application stream used only by this thread
+     * @param load Shared counters and histograms
+     * @param first Intended start time of the first quote
+     * @param interval Nanoseconds between intended start times, or 0 for as fast as possible
+     * @param end Time at which the run ends
+     */
+    private static void work(WolfpackWorkload workload, Load load, long first, long interval,
+                             long end) {
+        WolfpackQuote quote = new WolfpackQuote();
+        WolfpackMetrics.Tally tally = new WolfpackMetrics.Tally();
+        long approvals = 0;
+        long intended = first;
+        while (true) {
+            long begin;
+            if (interval == 0) {
+                begin = System.nanoTime();
+            } else {
+                for (long now = System.nanoTime(); now < intended && intended < end;
+                     now = System.nanoTime()) {
+                    LockSupport.parkNanos(intended - now);
+                }
+                begin = intended;
+                intended += interval;
+            }
+            if (begin >= end) {
+                break;
+            }
+            workload.next();
+            if (workload.quote(quote).isApproved()) {
+                approvals++;
+            }
+            tally.count(quote);
+            long latency = System.nanoTime() - begin;
+            load.total.record(latency);
+            load.interval.record(latency);
+            load.maxLatency.accumulate(latency);
+            load.quotes.increment();
+        }
+        load.approvals.add(approvals);
+        tally.flush();
+    }
+
+    /**
+     * Returns the total collections and collection time of every garbage collector
+     * @return Number of collections and milliseconds spent collecting
+     */
+    private static long[] gcTotals() {
+        long[] totals = new long[2];
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            //collectors that do not report return -1
+            totals[0] += Math.max(collector.getCollectionCount(), 0);
+            totals[1] += Math.max(collector.getCollectionTime(), 0);
+        }
+        return totals;
+    }
+
+    /**
+     * Counters and histograms shared by the worker threads of a run
+     */
+    private static final class Load {
+        /** Number of quotes priced */
+        final LongAdder quotes = new LongAdder();
+
+        /** Number of approved quotes */
+        final LongAdder approvals = new LongAdder();
+
+        /** Latencies of the whole run */
+        final WolfpackMetrics.Histogram total = new WolfpackMetrics.Histogram();
+
+        /** Latencies since the last progress line */
+        final WolfpackMetrics.Histogram interval = new WolfpackMetrics.Histogram();
+
+        /** Largest latency */
+        final LongAccumulator maxLatency = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * Result of a load run
+     */
+    public static final class Report {
+        /** Number of quotes priced */
+        private final long quotes;
+
+        /** Number of approved quotes */
+        private final long approvals;
+
+        /** Length of the run in nanoseconds */
+        private final long elapsedNanos;
+
+        /** Median latency bound in nanoseconds */
+        private final double p50Nanos;
+
+        /** 99th percentile latency bound in nanoseconds */
+        private final double p99Nanos;
+
+        /** 99.9th percentile latency bound in nanoseconds */
+        private final double p999Nanos;
+
+        /** Largest latency in nanoseconds */
+        private final long maxNanos;
+
+        /** Number of garbage collections during the run */
+        private final long gcCount;
+
+        /** Milliseconds spent in garbage collection during the run */
+        private final long gcMillis;
+
+        /**
+         * Creates a report
+         * @param quotes Number of quotes priced
+         * @param approvals Number of approved quotes
+         * @param elapsedNanos Length of the run in nanoseconds
+         * @param p50Nanos Median latency bound in nanoseconds
+         * @param p99Nanos 99th percentile latency bound in nanoseconds
+         * @param p999Nanos 99.9th percentile latency bound in nanoseconds
+         * @param maxNanos Largest latency in nanoseconds
+         * @param gcCount Number of garbage collections during the run
+         * @param gcMillis Milliseconds spent in garbage collection during the run
+         */
+        Report(long quotes, long approvals, long elapsedNanos, double p50Nanos,
+               double p99Nanos, double p999Nanos, long maxNanos, long gcCount,
+               long gcMillis) {
+            this.quotes = quotes;
+            this.approvals = approvals;
+            this.elapsedNanos = elapsedNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.p999Nanos = p999Nanos;
+            this.maxNanos = maxNanos;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+        }
+
+        /**
+         * Returns the number of quotes priced
+         * @return Number of quotes
+         */
+        public long getQuotes() {
+            return quotes;
+        }
+
+        /**
+         * Returns the number of approved quotes
+         * @return Number of approvals
+         */
+        public long getApprovals() {
+            return approvals;
+        }
+
+        /**
+         * Returns the sustained throughput of the run
+         * @return Quotes per second
+         */
+        public double getThroughput() {
+            return quotes * NANOS_PER_SECOND / Math.max(elapsedNanos, 1);
+        }
+
+        /**
+         * Returns an upper bound of the median latency
+         * @return Nanoseconds
+         */
+        public double getP50Nanos() {
+            return p50Nanos;
+        }
+
+        /**
+         * Returns an upper bound of the 99th percentile latency
+         * @return Nanoseconds
+         */
+        public double getP99Nanos() {
+            return p99Nanos;
+        }
+
+        /**
+         * Returns an upper bound of the 99.9th percentile latency
+         * @return Nanoseconds
+         */
+        public double getP999Nanos() {
+            return p999Nanos;
+        }
+
+        /**
+         * Returns the largest latency
+         * @return Nanoseconds
+         */
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * Returns the number of garbage collections during the run
+         * @return Number of collections
+         */
+        public long getGcCount() {
+            return gcCount;
+        }
+
+        /**
+         * Returns the time spent in garbage collection during the run
+         * @return Milliseconds
+         */
+        public long getGcMillis() {
+            return gcMillis;
+        }
+
+        /**
+         * Returns the report as printed at the end of a run
+         * @return Report text
+         */
+        @Override
+        public String toString() {
+            return String.format("%d quotes in %.1f seconds (%.0f quotes/sec), %d approved\n" +
+                                 "latency p50 %.1f us, p99 %.1f us, p99.9 %.1f us, " +
+                                 "max %.1f us\n%d garbage collections, %d ms",
+                                 quotes, elapsedNanos / NANOS_PER_SECOND, getThroughput(),
+                                 approvals, p50Nanos / NANOS_PER_MICRO,
+                                 p99Nanos / NANOS_PER_MICRO, p999Nanos / NANOS_PER_MICRO,
+                                 maxNanos / NANOS_PER_MICRO, gcCount, gcMillis);
+        }
+    }
+}
@@ -0,0 +1,437 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.*;
+
+/**
+ * Counters and latency histograms for the quote paths, exposed over JMX as
+ * "WolfpackLending:type=Metrics". Approvals are counted by rate tier and rejections by
+ * decision code. Every counter is a LongAdder, which spreads updates from different threads
+ * across separate cells so that concurrent quotes do not contend. WolfpackLending.quote
+ * itself records nothing: the service path counts each request's decision, and the bulk
+ * paths count decisions in a Tally of plain longs owned by one thread and add them to the
+ * shared counters every FLUSH_COUNTS decisions and at the end of each chunk. Latencies go
+ * into histograms with one LongAdder per power-of-two bucket of nanoseconds, so recording a
+ * latency is a bit count and an add.
+ * Per-row work in the bulk paths is one array increment; clocks are read once per service
+ * request and once per batch chunk, not once per quote. Metrics can be turned off with
+ * -Dwolfpack.metrics=false, which lets the JIT remove the recording calls entirely.
+ * The WolfpackRulesManager MBean for reloading the interest rate rules of a running
+ * program is registered alongside.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackMetrics implements WolfpackMetricsMBean {
+
+    /** Whether metrics are recorded */
+    public static final boolean ENABLED =
+        !"false".equals(System.getProperty("wolfpack.metrics"));
+
+    /** Name the metrics are registered under */
+    public static final String OBJECT_NAME = "WolfpackLending:type=Metrics";
+
+    /** Number of decision codes counted (APPROVED through INVALID_INPUT) */
+    private static final int DECISIONS = WolfpackValidation.INVALID_INPUT + 1;
+
+    /**
+     * Number of counters: one per decision code (the APPROVED counter is unused), then one
+     * per WolfpackQuote tier for approvals
+     */
+    private static final int SLOTS = DECISIONS + WolfpackQuote.TIERS;
+
+    /**
+     * Counter of each quote rate in basis points plus decision code. Rejected quotes
+     * have a rate of 0, so an index below DECISIONS is a rejection code; approved rates are
+     * at least MIN_INTEREST_RATE, well above DECISIONS. The last entry stands for every rate
+     * past the table, all of which are outside the tiers.
+     */
+    private static final int[] SLOT_OF = slotTable(1024);
+
+    /** Number of decisions a Tally holds before adding them to the shared counters */
+    public static final int FLUSH_COUNTS = 1024;
+
+    /** Nanoseconds in a microsecond */
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    /** The metrics instance */
+    private static final WolfpackMetrics INSTANCE = new WolfpackMetrics();
+
+    static {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (ENABLED) {
+            try {
+                server.registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+            } catch (JMException e) {
+                //metrics are still recorded; they are just not visible over JMX
+            }
+        }
+        try {
+            server.registerMBean(new WolfpackRulesManager(),
+                                 new ObjectName(WolfpackRulesManager.OBJECT_NAME));
+        } catch (JMException e) {
+            //rules can still be loaded at startup; they just cannot be reloaded over JMX
+        }
+    }
+
+    /** Count of each decision code, then of approvals in each WolfpackQuote tier */
+    private final LongAdder[] decisions = newAdders(SLOTS);
+
+    /** Quote service requests that failed because the decision journal failed */
+    private final LongAdder requestFailures = new LongAdder();
+
+    /** Quote service request latencies */
+    private final Histogram requestLatency = new Histogram();
+
+    /** Batch chunk pricing times */
+    private final Histogram batchChunkLatency = new Histogram();
+
+    /**
+     * Creates the metrics; use get() for the shared instance
+     */
+    private WolfpackMetrics() {
+    }
+
+    /**
+     * Returns the shared metrics instance
+     * @return Metrics
+     */
+    public static WolfpackMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Creates the table of counters by rate in basis points plus decision code
+     * @param size Number of entries
+     * @return Counter of each index
+     */
+    private static int[] slotTable(int size) {
+        int[] slots = new int[size];
+        for (int i = 0; i < size - 1; i++) {
+            slots[i] = i > 0 && i < DECISIONS ? i : DECISIONS +
+                WolfpackQuote.tierOf(i / (double) WolfpackQuote.BASIS_POINTS_PER_PERCENT);
+        }
+        slots[size - 1] = DECISIONS + WolfpackQuote.OTHER_TIER;
+        return slots;
+    }
+
+    /**
+     * Creates an array of counters
+     * @param size Number of counters
+     * @return Counters
+     */
+    private static LongAdder[] newAdders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Counts an approved loan
+     * @param annualInterestRate Interest rate of the loan
+     */
+    public static void recordApproval(double annualInterestRate) {
+        if (ENABLED) {
+            INSTANCE.decisions[DECISIONS + WolfpackQuote.tierOf(annualInterestRate)]
+                .increment();
+        }
+    }
+
+    /**
+     * Counts a denied loan or rejected application
+     * @param decision WolfpackQuote.DENIED or a WolfpackValidation error code
+     */
+    public static void recordRejection(int decision) {
+        if (ENABLED) {
+            INSTANCE.decisions[decision].increment();
+        }
+    }
+
+    /**
+     * Counts the decision of a priced quote: an approval by rate tier, or a denial or
+     * rejection by decision code. Paths that price many quotes on a thread use a Tally.
+     * @param quote Quote just priced
+     */
+    public static void recordDecision(WolfpackQuote quote) {
+        if (ENABLED) {
+            INSTANCE.decisions[slotOf(quote)].increment();
+        }
+    }
+
+    /**
+     * Returns the counter of a quote's decision
+     * @param quote Priced quote
+     * @return DECISIONS plus the tier for an approval, otherwise the decision code
+     */
+    private static int slotOf(WolfpackQuote quote) {
+        return SLOT_OF[Math.min(quote.getRateBasisPoints() + quote.getDecision(),
+                                SLOT_OF.length - 1)];
+    }
+
+    /**
+     * Returns a count since the last reset
+     * @param slot DECISIONS plus a tier for approvals, otherwise a decision code
+     * @return Count
+     */
+    private long count(int slot) {
+        return decisions[slot].sum();
+    }
+
+    /**
+     * Records the latency of one quote service request
+     * @param nanos Latency in nanoseconds
+     */
+    public static void recordRequest(long nanos) {
+        if (ENABLED) {
+            INSTANCE.requestLatency.record(nanos);
+        }
+    }
+
+    /**
+     * Counts a quote service request that failed because its decision could not be
+     * journaled
+     */
+    public static void recordRequestFailure() {
+        if (ENABLED) {
+            INSTANCE.requestFailures.increment();
+        }
+    }
+
+    /**
+     * Records the time taken to price one batch chunk
+     * @param nanos Time in nanoseconds
+     */
+    public static void recordBatchChunk(long nanos) {
+        if (ENABLED) {
+            INSTANCE.batchChunkLatency.record(nanos);
+        }
+    }
+
+    /**
+     * Returns the count of a decision code
+     * @param decision WolfpackQuote.APPROVED, WolfpackQuote.DENIED, or a WolfpackValidation
+     *                 error code
+     * @return Count
+     */
+    public long getDecisionCount(int decision) {
+        return decision == WolfpackQuote.APPROVED ? getApprovals() : count(decision);
+    }
+
+    @Override
+    public long getApprovals() {
+        long approvals = 0;
+        for (int tier = 0; tier < WolfpackQuote.TIERS; tier++) {
+            approvals += count(DECISIONS + tier);
+        }
+        return approvals;
+    }
+
+    @Override
+    public long getSpecialRateApprovals() {
+        return count(DECISIONS + WolfpackQuote.SPECIAL_TIER);
+    }
+
+    @Override
+    public long getLowRateApprovals() {
+        return count(DECISIONS + WolfpackQuote.LOW_TIER);
+    }
+
+    @Override
+    public long getModerateRateApprovals() {
+        return count(DECISIONS + WolfpackQuote.MODERATE_TIER);
+    }
+
+    @Override
+    public long getHighRateApprovals() {
+        return count(DECISIONS + WolfpackQuote.HIGH_TIER);
+    }
+
+    @Override
+    public long getOtherRateApprovals() {
+        return count(DECISIONS + WolfpackQuote.OTHER_TIER);
+    }
+
+    @Override
+    public long getDenials() {
+        return count(WolfpackQuote.DENIED);
+    }
+
+    @Override
+    public long getInvalidDates() {
+        return count(WolfpackValidation.INVALID_DATE);
+    }
+
+    @Override
+    public long getInvalidCreditScores() {
+        return count(WolfpackValidation.INVALID_CREDIT_SCORE);
+    }
+
+    @Override
+    public long getInvalidIncomes() {
+        return count(WolfpackValidation.INVALID_INCOME);
+    }
+
+    @Override
+    public long getInvalidLoanAmounts() {
+        return count(WolfpackValidation.INVALID_LOAN_AMOUNT);
+    }
+
+    @Override
+    public long getInvalidInputs() {
+        return count(WolfpackValidation.INVALID_INPUT);
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requestLatency.count();
+    }
+
+    @Override
+    public long getRequestFailures() {
+        return requestFailures.sum();
+    }
+
+    @Override
+    public double getRequestLatencyP50Micros() {
+        return requestLatency.percentile(0.50) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getRequestLatencyP99Micros() {
+        return requestLatency.percentile(0.99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getBatchChunkCount() {
+        return batchChunkLatency.count();
+    }
+
+    @Override
+    public double getBatchChunkLatencyP50Micros() {
+        return batchChunkLatency.percentile(0.50) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getBatchChunkLatencyP99Micros() {
+        return batchChunkLatency.percentile(0.99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder counter : decisions) {
+            counter.reset();
+        }
+        requestFailures.reset();
+        requestLatency.reset();
+        batchChunkLatency.reset();
+    }
+
+    /**
+     * Decision counts of one thread, added to the shared counters every FLUSH_COUNTS
+     * decisions and by flush. Counting is a plain array increment, so a bulk path pays for
+     * the striped counters once per FLUSH_COUNTS rows instead of once per row.
+     */
+    public static final class Tally {
+        /** Count of each counter not yet added to the shared counters */
+        private final long[] counts = new long[SLOTS];
+
+        /** Number of decisions not yet added to the shared counters */
+        private int pending;
+
+        /**
+         * Counts the decision of a priced quote
+         * @param quote Quote just priced
+         */
+        public void count(WolfpackQuote quote) {
+            if (ENABLED) {
+                counts[slotOf(quote)]++;
+                if (++pending == FLUSH_COUNTS) {
+                    flush();
+                }
+            }
+        }
+
+        /**
+         * Adds the counted decisions to the shared counters and starts over
+         */
+        public void flush() {
+            if (ENABLED && pending > 0) {
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    if (counts[slot] != 0) {
+                        INSTANCE.decisions[slot].add(counts[slot]);
+                        counts[slot] = 0;
+                    }
+                }
+                pending = 0;
+            }
+        }
+    }
+
+    /**
+     * Latency histogram with one bucket per power of two nanoseconds. Bucket b holds
+     * latencies from 2^(b-1) up to 2^b - 1 nanoseconds (bucket 0 holds 0).
+     */
+    static final class Histogram {
+        /** Number of buckets (enough for any non-negative long) */
+        static final int BUCKETS = 64;
+
+        /** Count of latencies in each bucket */
+        private final LongAdder[] buckets = newAdders(BUCKETS);
+
+        /**
+         * Records a latency
+         * @param nanos Latency in nanoseconds (negative values count as 0)
+         */
+        void record(long nanos) {
+            buckets[BUCKETS - Long.numberOfLeadingZeros(Math.max(nanos, 0))].increment();
+        }
+
+        /**
+         * Returns the number of latencies recorded
+         * @return Count
+         */
+        long count() {
+            long count = 0;
+            for (LongAdder bucket : buckets) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+
+        /**
+         * Returns an upper bound of a percentile
+         * @param fraction Percentile as a fraction (e.g., 0.99)
+         * @return Upper bound of the bucket holding the percentile in nanoseconds, or 0 if
+         *         nothing has been recorded
+         */
+        double percentile(double fraction) {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(fraction * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank && counts[i] > 0) {
+                    return i == 0 ? 0 : Math.pow(2, i) - 1;
+                }
+            }
+            return Math.pow(2, BUCKETS - 1);
+        }
+
+        /**
+         * Sets every bucket back to zero
+         */
+        void reset() {
+            for (LongAdder bucket : buckets) {
+                bucket.reset();
+            }
+        }
+    }
+}
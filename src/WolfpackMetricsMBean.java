@@ -0,0 +1,129 @@
+/**
+ * Management interface of WolfpackMetrics, registered with the platform MBean server as
+ * "WolfpackLending:type=Metrics". Latencies are reported in microseconds and are the
+ * upper bound of the histogram bucket holding the requested percentile.
+ *
+ * @author Jessica Greene
+ */
+public interface WolfpackMetricsMBean {
+
+    /**
+     * Returns the number of approved loans
+     * @return Approvals
+     */
+    long getApprovals();
+
+    /**
+     * Returns the number of loans approved at the special interest rate
+     * @return Approvals
+     */
+    long getSpecialRateApprovals();
+
+    /**
+     * Returns the number of loans approved at the low interest rate
+     * @return Approvals
+     */
+    long getLowRateApprovals();
+
+    /**
+     * Returns the number of loans approved at the moderate interest rate
+     * @return Approvals
+     */
+    long getModerateRateApprovals();
+
+    /**
+     * Returns the number of loans approved at the high interest rate
+     * @return Approvals
+     */
+    long getHighRateApprovals();
+
+    /**
+     * Returns the number of loans approved at a rate other than the four rate constants
+     * @return Approvals
+     */
+    long getOtherRateApprovals();
+
+    /**
+     * Returns the number of denied loans
+     * @return Denials
+     */
+    long getDenials();
+
+    /**
+     * Returns the number of applications rejected for an invalid date
+     * @return Rejections
+     */
+    long getInvalidDates();
+
+    /**
+     * Returns the number of applications rejected for an invalid credit score
+     * @return Rejections
+     */
+    long getInvalidCreditScores();
+
+    /**
+     * Returns the number of applications rejected for an invalid income
+     * @return Rejections
+     */
+    long getInvalidIncomes();
+
+    /**
+     * Returns the number of applications rejected for an invalid loan amount
+     * @return Rejections
+     */
+    long getInvalidLoanAmounts();
+
+    /**
+     * Returns the number of applications rejected because a field was not a number
+     * @return Rejections
+     */
+    long getInvalidInputs();
+
+    /**
+     * Returns the number of quote service requests timed
+     * @return Requests
+     */
+    long getRequestCount();
+
+    /**
+     * Returns the number of quote service requests answered with a server error because
+     * the decision could not be journaled
+     * @return Requests
+     */
+    long getRequestFailures();
+
+    /**
+     * Returns the median quote service request latency
+     * @return Latency in microseconds
+     */
+    double getRequestLatencyP50Micros();
+
+    /**
+     * Returns the 99th percentile quote service request latency
+     * @return Latency in microseconds
+     */
+    double getRequestLatencyP99Micros();
+
+    /**
+     * Returns the number of batch chunks timed
+     * @return Chunks
+     */
+    long getBatchChunkCount();
+
+    /**
+     * Returns the median batch chunk pricing time
+     * @return Latency in microseconds
+     */
+    double getBatchChunkLatencyP50Micros();
+
+    /**
+     * Returns the 99th percentile batch chunk pricing time
+     * @return Latency in microseconds
+     */
+    double getBatchChunkLatencyP99Micros();
+
+    /**
+     * Sets every counter and histogram back to zero
+     */
+    void reset();
+}
@@ -0,0 +1,115 @@
+/**
+ * Supplies the annuity factor used by the monthly payment calculation
+ * (Source: http://en.wikipedia.org/wiki/Loan). The monthly payment for a loan is the loan
+ * amount multiplied by the annuity factor r * (1 + r)^n / ((1 + r)^n - 1), where r is the
+ * monthly interest rate and n is the number of months. The factor depends only on the
+ * interest rate and the number of months, so it is computed once per (rate, term) pair
+ * instead of once per quote. Factors for the four approved interest rates over the 5-year
+ * term are precomputed. Other combinations are kept in a small fixed-size cache.
+ * Factors are computed with exactly the same operations as the original formula, so
+ * payments are bit-identical to computing the formula directly.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackPaymentEngine {
+
+    /** Number of entries in the cache of uncommon (rate, term) pairs (a power of 2) */
+    public static final int CACHE_SIZE = 256;
+
+    /** Annuity factor for the special interest rate over the 5-year term */
+    private static final double SPECIAL_FACTOR =
+        computeAnnuityFactor(WolfpackLending.SPECIAL_INTEREST_RATE,
+                             WolfpackLending.NUMBER_OF_MONTHS);
+
+    /** Annuity factor for the low interest rate over the 5-year term */
+    private static final double LOW_FACTOR =
+        computeAnnuityFactor(WolfpackLending.LOW_INTEREST_RATE,
+                             WolfpackLending.NUMBER_OF_MONTHS);
+
+    /** Annuity factor for the moderate interest rate over the 5-year term */
+    private static final double MODERATE_FACTOR =
+        computeAnnuityFactor(WolfpackLending.MODERATE_INTEREST_RATE,
+                             WolfpackLending.NUMBER_OF_MONTHS);
+
+    /** Annuity factor for the high interest rate over the 5-year term */
+    private static final double HIGH_FACTOR =
+        computeAnnuityFactor(WolfpackLending.HIGH_INTEREST_RATE,
+                             WolfpackLending.NUMBER_OF_MONTHS);
+
+    /**
+     * Direct-mapped cache of uncommon (rate, term) pairs. Entries are immutable, so a
+     * racing thread sees either an old entry or a complete new one, never a partial one.
+     */
+    private static final Factor[] CACHE = new Factor[CACHE_SIZE];
+
+    /**
+     * Returns the annuity factor for an annual interest rate and repayment period.
+     * Arguments are assumed to be valid (see WolfpackLending.getMonthlyPayment).
+     * @param annualInterestRate Annual interest rate expressed as a percentage
+     * @param numberOfMonths Number of months in loan repayment period
+     * @return Annuity factor; the monthly payment is the loan amount times this factor
+     */
+    public static double annuityFactor(double annualInterestRate, int numberOfMonths) {
+        if (numberOfMonths == WolfpackLending.NUMBER_OF_MONTHS) {
+            if (annualInterestRate == WolfpackLending.SPECIAL_INTEREST_RATE) {
+                return SPECIAL_FACTOR;
+            } else if (annualInterestRate == WolfpackLending.LOW_INTEREST_RATE) {
+                return LOW_FACTOR;
+            } else if (annualInterestRate == WolfpackLending.MODERATE_INTEREST_RATE) {
+                return MODERATE_FACTOR;
+            } else if (annualInterestRate == WolfpackLending.HIGH_INTEREST_RATE) {
+                return HIGH_FACTOR;
+            }
+        }
+
+        long rateBits = Double.doubleToLongBits(annualInterestRate);
+        long hash = (rateBits ^ (rateBits >>> 32)) * 31 + numberOfMonths;
+        int slot = (int) (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+        Factor entry = CACHE[slot];
+        if (entry != null && entry.rateBits == rateBits && entry.months == numberOfMonths) {
+            return entry.factor;
+        }
+        double factor = computeAnnuityFactor(annualInterestRate, numberOfMonths);
+        CACHE[slot] = new Factor(rateBits, numberOfMonths, factor);
+        return factor;
+    }
+
+    /**
+     * Computes the annuity factor r * (1 + r)^n / ((1 + r)^n - 1)
+     * @param annualInterestRate Annual interest rate expressed as a percentage
+     * @param numberOfMonths Number of months in loan repayment period
+     * @return Annuity factor
+     */
+    static double computeAnnuityFactor(double annualInterestRate, int numberOfMonths) {
+        double monthlyInterestRate = annualInterestRate / 
+                                     (WolfpackLending.MONTHS_IN_YEAR * 100.0);
+        double formulaPowerCalc = Math.pow((1 + monthlyInterestRate), numberOfMonths);
+        return (monthlyInterestRate * formulaPowerCalc) / (formulaPowerCalc - 1);
+    }
+
+    /**
+     * Cached annuity factor for one (rate, term) pair
+     */
+    private static final class Factor {
+        /** Bits of the annual interest rate */
+        final long rateBits;
+
+        /** Number of months in the repayment period */
+        final int months;
+
+        /** Annuity factor */
+        final double factor;
+
+        /**
+         * Creates a cache entry
+         * @param rateBits Bits of the annual interest rate
+         * @param months Number of months in the repayment period
+         * @param factor Annuity factor
+         */
+        Factor(long rateBits, int months, double factor) {
+            this.rateBits = rateBits;
+            this.months = months;
+            this.factor = factor;
+        }
+    }
+}
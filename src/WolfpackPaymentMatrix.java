@@ -0,0 +1,238 @@
+import java.io.*;
+
+/**
+ * Precomputed monthly payments, in cents, for every legal loan amount at each of the four
+ * approved interest rates over the 5-year term. Loan amounts are whole dollars from
+ * MIN_LOAN to MAX_LOAN plus the express processing fee, so the whole table is about 9,026
+ * by 4 entries held in one long array, and pricing an approved loan is a single array read.
+ * Each entry is the formula payment rounded to the nearest cent, exactly as a quote rounds
+ * it. The table is built at startup, or loaded from the binary file named by the
+ * wolfpack.paymentMatrix system property; setting the property to "off" disables it and
+ * every payment is computed from the formula. Loans outside the table (other amounts,
+ * rates, or terms) always use the formula.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackPaymentMatrix {
+
+    /** Smallest loan amount in the table */
+    public static final int MIN_AMOUNT = WolfpackLending.MIN_LOAN;
+
+    /** Largest loan amount in the table (maximum loan plus the express processing fee) */
+    public static final int MAX_AMOUNT = WolfpackLending.MAX_LOAN +
+                                         WolfpackLending.EXPRESS_PROCESSING_FEE;
+
+    /** Number of interest rates in the table (one per approved tier) */
+    public static final int RATES = WolfpackQuote.SPECIAL_TIER -
+                                    WolfpackQuote.HIGH_TIER + 1;
+
+    /** System property naming a payment matrix file to load at startup, or "off" */
+    public static final String MATRIX_PROPERTY = "wolfpack.paymentMatrix";
+
+    /** First int of a payment matrix file ("WPPM") */
+    private static final int FILE_MAGIC = 0x5750504d;
+
+    /** Version of the payment matrix file format */
+    private static final int FILE_VERSION = 1;
+
+    /** Value of the wolfpack.paymentMatrix property that disables the table */
+    private static final String OFF = "off";
+
+    /** Table installed at startup, or null if disabled */
+    private static final WolfpackPaymentMatrix CURRENT = loadStartupMatrix();
+
+    /** Payment in cents for each loan amount (row) and rate (column) */
+    private final long[] paymentCents;
+
+    /**
+     * Creates a table from payments laid out by loan amount then rate
+     * @param paymentCents Payments in cents
+     */
+    private WolfpackPaymentMatrix(long[] paymentCents) {
+        this.paymentCents = paymentCents;
+    }
+
+    /**
+     * Returns the installed table
+     * @return Table, or null if the table is disabled
+     */
+    public static WolfpackPaymentMatrix current() {
+        return CURRENT;
+    }
+
+    /**
+     * Returns the monthly payment of an approved loan in cents, reading it from the
+     * installed table when the loan is in the table and computing it otherwise.
+     * Arguments are assumed to be valid (see WolfpackLending.getMonthlyPayment).
+     * @param loanAmount Total loan amount (including express processing fee)
+     * @param annualInterestRate Annual interest rate for approved loan
+     * @param numberOfMonths Number of months in loan repayment period
+     * @return Monthly payment rounded to the nearest cent
+     */
+    public static long paymentCents(int loanAmount, double annualInterestRate,
+                                    int numberOfMonths) {
+        WolfpackPaymentMatrix matrix = CURRENT;
+        if (matrix != null && numberOfMonths == WolfpackLending.NUMBER_OF_MONTHS &&
+            loanAmount >= MIN_AMOUNT && loanAmount <= MAX_AMOUNT) {
+            int tier = WolfpackQuote.tierOf(annualInterestRate);
+            if (tier != WolfpackQuote.OTHER_TIER) {
+                return matrix.paymentCents[index(loanAmount, tier)];
+            }
+        }
+        return computeCents(loanAmount, annualInterestRate, numberOfMonths);
+    }
+
+    /**
+     * Returns a payment from this table
+     * @param loanAmount Loan amount from MIN_AMOUNT to MAX_AMOUNT
+     * @param tier WolfpackQuote tier from HIGH_TIER to SPECIAL_TIER
+     * @return Monthly payment in cents over the 5-year term
+     * @throws IllegalArgumentException if the loan amount or tier is not in the table
+     */
+    public long get(int loanAmount, int tier) {
+        if (loanAmount < MIN_AMOUNT || loanAmount > MAX_AMOUNT) {
+            throw new IllegalArgumentException("Invalid loan amount");
+        }
+        if (tier < WolfpackQuote.HIGH_TIER || tier > WolfpackQuote.SPECIAL_TIER) {
+            throw new IllegalArgumentException("Invalid tier");
+        }
+        return paymentCents[index(loanAmount, tier)];
+    }
+
+    /**
+     * Returns the position of a payment in the table
+     * @param loanAmount Loan amount from MIN_AMOUNT to MAX_AMOUNT
+     * @param tier WolfpackQuote tier from HIGH_TIER to SPECIAL_TIER
+     * @return Array index
+     */
+    private static int index(int loanAmount, int tier) {
+        return (loanAmount - MIN_AMOUNT) * RATES + (tier - WolfpackQuote.HIGH_TIER);
+    }
+
+    /**
+     * Computes a payment from the formula, rounded to the nearest cent
+     * @param loanAmount Total loan amount (including express processing fee)
+     * @param annualInterestRate Annual interest rate for approved loan
+     * @param numberOfMonths Number of months in loan repayment period
+     * @return Monthly payment in cents
+     */
+    private static long computeCents(int loanAmount, double annualInterestRate,
+                                     int numberOfMonths) {
+        return Math.round(WolfpackLending.getMonthlyPayment(loanAmount, annualInterestRate,
+                                                            numberOfMonths) *
+                          WolfpackQuote.CENTS_PER_DOLLAR);
+    }
+
+    /**
+     * Builds the table from the formula
+     * @return Table
+     */
+    public static WolfpackPaymentMatrix build() {
+        long[] payments = new long[(MAX_AMOUNT - MIN_AMOUNT + 1) * RATES];
+        for (int tier = WolfpackQuote.HIGH_TIER; tier <= WolfpackQuote.SPECIAL_TIER;
+             tier++) {
+            double rate = WolfpackColumnarPricing.tierRate(tier);
+            for (int loan = MIN_AMOUNT; loan <= MAX_AMOUNT; loan++) {
+                payments[index(loan, tier)] =
+                    computeCents(loan, rate, WolfpackLending.NUMBER_OF_MONTHS);
+            }
+        }
+        return new WolfpackPaymentMatrix(payments);
+    }
+
+    /**
+     * Writes the table to a binary file: a header of magic number, version, loan range,
+     * and rates, followed by every payment in cents
+     * @param file File to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                 new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeInt(MIN_AMOUNT);
+            out.writeInt(MAX_AMOUNT);
+            out.writeInt(RATES);
+            for (int tier = WolfpackQuote.HIGH_TIER; tier <= WolfpackQuote.SPECIAL_TIER;
+                 tier++) {
+                out.writeDouble(WolfpackColumnarPricing.tierRate(tier));
+            }
+            for (long payment : paymentCents) {
+                out.writeLong(payment);
+            }
+        }
+    }
+
+    /**
+     * Reads a table written by save. The header must match this program's loan range and
+     * interest rates, so a file built for other constants is never used.
+     * @param file File to read
+     * @return Table
+     * @throws IOException if the file cannot be read or is not a matching payment matrix
+     */
+    public static WolfpackPaymentMatrix load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                 new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION ||
+                in.readInt() != MIN_AMOUNT || in.readInt() != MAX_AMOUNT ||
+                in.readInt() != RATES) {
+                throw new IOException("Invalid payment matrix file");
+            }
+            for (int tier = WolfpackQuote.HIGH_TIER; tier <= WolfpackQuote.SPECIAL_TIER;
+                 tier++) {
+                if (in.readDouble() != WolfpackColumnarPricing.tierRate(tier)) {
+                    throw new IOException("Invalid payment matrix file");
+                }
+            }
+            long[] payments = new long[(MAX_AMOUNT - MIN_AMOUNT + 1) * RATES];
+            for (int i = 0; i < payments.length; i++) {
+                payments[i] = in.readLong();
+            }
+            if (in.read() != -1) {
+                throw new IOException("Invalid payment matrix file");
+            }
+            return new WolfpackPaymentMatrix(payments);
+        } catch (EOFException e) {
+            throw new IOException("Invalid payment matrix file");
+        }
+    }
+
+    /**
+     * Creates the startup table from the wolfpack.paymentMatrix system property: "off"
+     * disables the table, a file name loads it from that file, and no property builds it
+     * @return Table, or null if disabled
+     * @throws UncheckedIOException if the named file cannot be loaded
+     */
+    private static WolfpackPaymentMatrix loadStartupMatrix() {
+        String file = System.getProperty(MATRIX_PROPERTY);
+        if (file == null) {
+            return build();
+        }
+        if (file.equals(OFF)) {
+            return null;
+        }
+        try {
+            return load(new File(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load payment matrix from " + file, e);
+        }
+    }
+
+    /**
+     * Builds the table and writes it to a file for later runs to load
+     * @param args command line arguments: output file
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: java WolfpackPaymentMatrix payments.bin");
+            System.exit(1);
+        }
+        try {
+            build().save(new File(args[0]));
+        } catch (IOException e) {
+            System.out.println("Could not write payment matrix: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,757 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Prices a CSV file of loan applications as a pipeline of explicit stages for
+ * high-volume runs: read, parse, validate (the date and range checks), price (interest
+ * rate and monthly payment), schedule (disbursement date), and write. Input and output
+ * rows are the same as WolfpackBatch. Rows move between stages in chunks of CHUNK_SIZE,
+ * and the parse, validate, price, and schedule stages each run their own number of
+ * worker threads. Stages are connected by bounded WolfpackRingQueues and a fixed pool
+ * of chunks is reused, so a slow output sink fills the queues and stops the reader
+ * instead of growing the heap. The writer puts chunks back in input order.
+ * Each stage counts the rows it has handled, the time its workers spend working, the
+ * time they spend waiting for room in the next queue, and the number of chunks already
+ * waiting in its own queue each time a chunk arrives; together these show which stage is
+ * the bottleneck.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackPipeline {
+
+    /** Number of rows in a chunk */
+    public static final int CHUNK_SIZE = 1024;
+
+    /** Default capacity of each queue between stages, in chunks */
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    /** Stage that reads rows from the input */
+    public static final int READ = 0;
+
+    /** Stage that parses rows into fields */
+    public static final int PARSE = 1;
+
+    /** Stage that checks the date and the ranges of the fields */
+    public static final int VALIDATE = 2;
+
+    /** Stage that finds the interest rate and monthly payment */
+    public static final int PRICE = 3;
+
+    /** Stage that finds the disbursement date */
+    public static final int SCHEDULE = 4;
+
+    /** Stage that writes result rows to the output */
+    public static final int WRITE = 5;
+
+    /** Number of stages */
+    public static final int STAGES = 6;
+
+    /** Names of the stages */
+    private static final String[] STAGE_NAMES = {"read", "parse", "validate", "price",
+                                                 "schedule", "write"};
+
+    /** Number of times a waiting thread spins before it parks */
+    private static final int SPINS = 100;
+
+    /** Nanoseconds a waiting thread parks at a time */
+    private static final long PARK_NANOS = 50_000;
+
+    /** Stages, indexed by READ through WRITE */
+    private final Stage[] stages = new Stage[STAGES];
+
+    /** Capacity of each queue between stages, in chunks */
+    private final int queueCapacity;
+
+    /** Queues feeding each stage after READ (index 0 holds empty chunks for READ) */
+    private WolfpackRingQueue<Chunk>[] queues;
+
+    /** First failure of a stage thread, or null */
+    private volatile Throwable failure;
+
+    /** True once the writer has finished or failed, telling the other threads to stop */
+    private volatile boolean stopped;
+
+    /**
+     * Prices the applications in an input CSV file and writes the results to an output
+     * CSV file, printing the stage statistics at the end
+     * @param args command line arguments: input file, output file, and optionally the
+     *             worker counts of the parse, validate, price, and schedule stages
+     *             separated by commas (e.g., 1,1,2,1) and the queue capacity
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: java WolfpackPipeline input.csv output.csv " +
+                               "[parse,validate,price,schedule] [queue]");
+            System.exit(1);
+        }
+        int[] workers = {1, 1, 1, 1};
+        if (args.length > 2) {
+            String[] counts = args[2].split(",");
+            for (int i = 0; i < workers.length && i < counts.length; i++) {
+                workers[i] = Integer.parseInt(counts[i].trim());
+            }
+        }
+        int queue = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_QUEUE_CAPACITY;
+        try {
+            WolfpackPipeline pipeline = new WolfpackPipeline(workers[0], workers[1],
+                                                             workers[2], workers[3], queue);
+            long start = System.nanoTime();
+            long rows = pipeline.run(new File(args[0]), new File(args[1]));
+            double seconds = (System.nanoTime() - start) / WolfpackBatch.NANOS_PER_SECOND;
+            System.out.printf("Processed %d applications in %.3f seconds (%.0f rows/sec)\n",
+                              rows, seconds, rows / Math.max(seconds, 1e-9));
+            System.out.print(pipeline.report(seconds));
+        } catch (IOException e) {
+            System.out.println("Pipeline failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Creates a pipeline
+     * @param parseWorkers Number of parse threads
+     * @param validateWorkers Number of validate threads
+     * @param priceWorkers Number of price threads
+     * @param scheduleWorkers Number of schedule threads
+     * @param queueCapacity Capacity of each queue between stages, in chunks
+     * @throws IllegalArgumentException if a worker count or the capacity is less than 1
+     */
+    public WolfpackPipeline(int parseWorkers, int validateWorkers, int priceWorkers,
+                            int scheduleWorkers, int queueCapacity) {
+        int[] workers = {1, parseWorkers, validateWorkers, priceWorkers, scheduleWorkers, 1};
+        for (int stage = 0; stage < STAGES; stage++) {
+            if (workers[stage] < 1) {
+                throw new IllegalArgumentException("Invalid number of threads");
+            }
+            stages[stage] = new Stage(STAGE_NAMES[stage], workers[stage]);
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Invalid capacity");
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Prices every application in the input file and writes one result row per
+     * application to the output file, keeping input order
+     * @param input CSV file of applications
+     * @param output CSV file to write results to
+     * @return Number of application rows processed
+     * @throws IOException if the input file cannot be read or the output file written
+     */
+    public long run(File input, File output) throws IOException {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                 new FileInputStream(input), StandardCharsets.UTF_8), 1 << 16);
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+                 new FileOutputStream(output), StandardCharsets.UTF_8), 1 << 16)) {
+            return run(in, out);
+        }
+    }
+
+    /**
+     * Prices every application read from a reader and writes one result row per
+     * application to a writer, keeping input order. A header line, if present, is
+     * skipped. The read stage runs on its own thread and the write stage on the calling
+     * thread.
+     * @param in Reader supplying CSV application rows
+     * @param out Writer that receives CSV result rows
+     * @return Number of application rows processed
+     * @throws IOException if reading or writing fails or a stage fails
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized long run(BufferedReader in, Writer out) throws IOException {
+        failure = null;
+        stopped = false;
+        //enough chunks to fill every queue, so the reader is the last to block
+        int chunks = queueCapacity * (WRITE - READ);
+        queues = (WolfpackRingQueue<Chunk>[]) new WolfpackRingQueue<?>[STAGES];
+        for (int stage = 0; stage < STAGES; stage++) {
+            queues[stage] = new WolfpackRingQueue<>(stage == READ ? chunks : queueCapacity);
+        }
+        for (int i = 0; i < chunks; i++) {
+            queues[READ].offer(new Chunk());
+        }
+        long[] chunkCount = {-1};
+        Thread reader = new Thread(() -> {
+            try {
+                chunkCount[0] = read(in);
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+            }
+        }, "wolfpack-pipeline-read");
+        reader.setDaemon(true);
+        reader.start();
+        Thread[] workers = startWorkers();
+        try {
+            out.write(WolfpackBatch.OUTPUT_HEADER);
+            out.write('\n');
+            long rows = write(out, chunks, reader, chunkCount);
+            out.flush();
+            return rows;
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+            throw e;
+        } finally {
+            stopped = true;
+            for (Thread worker : workers) {
+                LockSupport.unpark(worker);
+            }
+            //the stage threads see the stop within one park and must not outlive the run
+            try {
+                for (Thread worker : workers) {
+                    worker.join();
+                }
+                reader.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Starts the worker threads of the parse, validate, price, and schedule stages
+     * @return Worker threads
+     */
+    private Thread[] startWorkers() {
+        int count = 0;
+        for (int stage = PARSE; stage < WRITE; stage++) {
+            count += stages[stage].workers;
+        }
+        Thread[] threads = new Thread[count];
+        int next = 0;
+        for (int stage = PARSE; stage < WRITE; stage++) {
+            for (int i = 0; i < stages[stage].workers; i++) {
+                final int workerStage = stage;
+                threads[next] = new Thread(() -> work(workerStage),
+                                           "wolfpack-pipeline-" + STAGE_NAMES[stage] + "-" + i);
+                threads[next].setDaemon(true);
+                threads[next++].start();
+            }
+        }
+        return threads;
+    }
+
+    /**
+     * Reads rows into empty chunks and passes them to the parse stage
+     * @param in Reader supplying CSV application rows
+     * @return Number of chunks read
+     * @throws IOException if reading fails
+     */
+    private long read(BufferedReader in) throws IOException {
+        Stage stage = stages[READ];
+        long sequence = 0;
+        String line = in.readLine();
+        if (line != null && WolfpackBatch.isHeader(line)) {
+            line = in.readLine();
+        }
+        while (line != null) {
+            Chunk chunk = take(queues[READ]);
+            if (chunk == null) {
+                return sequence;
+            }
+            long start = System.nanoTime();
+            chunk.sequence = sequence++;
+            chunk.count = 0;
+            while (line != null && chunk.count < CHUNK_SIZE) {
+                if (!line.isEmpty()) {
+                    chunk.lines[chunk.count++] = line;
+                }
+                line = in.readLine();
+            }
+            stage.finish(chunk.count, System.nanoTime() - start);
+            put(READ, chunk);
+        }
+        return sequence;
+    }
+
+    /**
+     * Runs one worker of a stage until the pipeline stops
+     * @param stage PARSE, VALIDATE, PRICE, or SCHEDULE
+     */
+    private void work(int stage) {
+        WolfpackRingQueue<Chunk> input = queues[stage];
+        try {
+            for (Chunk chunk = take(input); chunk != null; chunk = take(input)) {
+                long start = System.nanoTime();
+                switch (stage) {
+                    case PARSE:
+                        chunk.parse();
+                        break;
+                    case VALIDATE:
+                        chunk.validate();
+                        break;
+                    case PRICE:
+                        chunk.price();
+                        break;
+                    default:
+                        chunk.schedule();
+                        break;
+                }
+                stages[stage].finish(chunk.count, System.nanoTime() - start);
+                put(stage, chunk);
+            }
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Writes chunks in input order and returns them to the reader, until every chunk
+     * read has been written
+     * @param out Writer that receives CSV result rows
+     * @param chunks Number of chunks in the pool
+     * @param reader Thread of the read stage
+     * @param chunkCount Number of chunks read, set by the reader when it finishes
+     * @return Number of rows written
+     * @throws IOException if writing fails or a stage fails
+     */
+    private long write(Writer out, int chunks, Thread reader, long[] chunkCount)
+        throws IOException {
+        Stage stage = stages[WRITE];
+        Chunk[] pending = new Chunk[chunks];
+        StringBuilder text = new StringBuilder(CHUNK_SIZE * 96);
+        long rows = 0;
+        for (long next = 0; ; next++) {
+            //every chunk in flight has a sequence within the pool size of the next one
+            while (pending[(int) (next % chunks)] == null) {
+                if (failure != null) {
+                    throw new IOException("Pipeline failed", failure);
+                }
+                if (!reader.isAlive() && chunkCount[0] == next) {
+                    return rows;
+                }
+                Chunk chunk = take(queues[WRITE], reader, chunkCount, next);
+                if (chunk != null) {
+                    pending[(int) (chunk.sequence % chunks)] = chunk;
+                }
+            }
+            Chunk chunk = pending[(int) (next % chunks)];
+            pending[(int) (next % chunks)] = null;
+            long start = System.nanoTime();
+            text.setLength(0);
+            chunk.appendRows(text);
+            out.append(text);
+            rows += chunk.count;
+            stage.finish(chunk.count, System.nanoTime() - start);
+            queues[READ].offer(chunk);
+        }
+    }
+
+    /**
+     * Removes a chunk from a queue, waiting while it is empty
+     * @param queue Queue
+     * @return Chunk, or null if the pipeline stopped
+     */
+    private Chunk take(WolfpackRingQueue<Chunk> queue) {
+        for (int spins = 0; ; spins++) {
+            Chunk chunk = queue.poll();
+            if (chunk != null || stopped) {
+                return chunk;
+            }
+            idle(spins);
+        }
+    }
+
+    /**
+     * Removes a chunk from the write queue, waiting while it is empty, or returns early
+     * when the reader has finished and every chunk it read has been written
+     * @param queue Write queue
+     * @param reader Thread of the read stage
+     * @param chunkCount Number of chunks read, set by the reader when it finishes
+     * @param next Sequence of the next chunk to write
+     * @return Chunk, or null if there is nothing more to write or a stage failed
+     */
+    private Chunk take(WolfpackRingQueue<Chunk> queue, Thread reader, long[] chunkCount,
+                       long next) {
+        for (int spins = 0; ; spins++) {
+            Chunk chunk = queue.poll();
+            if (chunk != null || failure != null ||
+                (!reader.isAlive() && chunkCount[0] == next)) {
+                return chunk;
+            }
+            idle(spins);
+        }
+    }
+
+    /**
+     * Adds a chunk to the queue of the next stage, waiting while it is full, and counts
+     * the wait against the stage that produced the chunk and the chunks found waiting
+     * against the next stage
+     * @param stage Stage that produced the chunk, READ through SCHEDULE
+     * @param chunk Chunk
+     */
+    private void put(int stage, Chunk chunk) {
+        WolfpackRingQueue<Chunk> queue = queues[stage + 1];
+        if (!queue.offer(chunk)) {
+            long start = System.nanoTime();
+            for (int spins = 0; !queue.offer(chunk) && !stopped; spins++) {
+                idle(spins);
+            }
+            stages[stage].blockedNanos.add(System.nanoTime() - start);
+        }
+        //sampled while the run is in progress; once it drains every queue is empty
+        stages[stage + 1].recordQueueDepth(queue.size() - 1);
+    }
+
+    /**
+     * Waits briefly: spins at first, then parks
+     * @param spins Number of times the caller has already waited
+     */
+    private static void idle(int spins) {
+        if (spins < SPINS) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+
+    /**
+     * Records the first failure and stops the pipeline
+     * @param e Failure
+     */
+    private void fail(Throwable e) {
+        if (failure == null) {
+            failure = e;
+        }
+        stopped = true;
+    }
+
+    /**
+     * Returns a stage
+     * @param stage READ through WRITE
+     * @return Stage
+     */
+    public Stage getStage(int stage) {
+        return stages[stage];
+    }
+
+    /**
+     * Returns the number of chunks waiting in the queue in front of a stage
+     * @param stage PARSE through WRITE
+     * @return Number of chunks, or 0 if the pipeline has not run
+     */
+    public int getQueueDepth(int stage) {
+        WolfpackRingQueue<Chunk>[] current = queues;
+        return current == null || stage == READ ? 0 : current[stage].size();
+    }
+
+    /**
+     * Returns a table of the stage statistics: workers, rows, throughput, the share of
+     * worker time spent working and blocked on the next queue, and the mean and maximum
+     * number of chunks found waiting in the stage's queue when a chunk arrived
+     * @param seconds Length of the run in seconds
+     * @return Table text
+     */
+    public String report(double seconds) {
+        StringBuilder text = new StringBuilder(512);
+        text.append(String.format("%-9s %7s %12s %12s %6s %8s %6s %4s\n", "stage",
+                                  "workers", "rows", "rows/sec", "busy", "blocked", "queue",
+                                  "max"));
+        for (int stage = READ; stage < STAGES; stage++) {
+            Stage current = stages[stage];
+            double workerNanos = Math.max(seconds, 1e-9) * WolfpackBatch.NANOS_PER_SECOND *
+                                 current.workers;
+            text.append(String.format("%-9s %7d %12d %12.0f %5.1f%% %7.1f%% %6.1f %4d\n",
+                                      current.name, current.workers, current.getRows(),
+                                      current.getRows() / Math.max(seconds, 1e-9),
+                                      100 * current.getBusyNanos() / workerNanos,
+                                      100 * current.getBlockedNanos() / workerNanos,
+                                      current.getMeanQueueDepth(),
+                                      current.getMaxQueueDepth()));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Statistics of one stage
+     */
+    public static final class Stage {
+        /** Name of the stage */
+        private final String name;
+
+        /** Number of worker threads */
+        private final int workers;
+
+        /** Number of rows handled */
+        private final LongAdder rows = new LongAdder();
+
+        /** Time spent working, summed over the workers */
+        private final LongAdder busyNanos = new LongAdder();
+
+        /** Time spent waiting for room in the next queue, summed over the workers */
+        private final LongAdder blockedNanos = new LongAdder();
+
+        /** Number of queue depth samples */
+        private final LongAdder depthSamples = new LongAdder();
+
+        /** Sum of the queue depth samples */
+        private final LongAdder depthTotal = new LongAdder();
+
+        /** Largest queue depth sample */
+        private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+
+        /**
+         * Creates the statistics of a stage
+         * @param name Name of the stage
+         * @param workers Number of worker threads
+         */
+        Stage(String name, int workers) {
+            this.name = name;
+            this.workers = workers;
+        }
+
+        /**
+         * Counts a finished chunk
+         * @param count Number of rows in the chunk
+         * @param nanos Time spent on the chunk
+         */
+        void finish(int count, long nanos) {
+            rows.add(count);
+            busyNanos.add(nanos);
+        }
+
+        /**
+         * Records the number of chunks found waiting in the stage's queue by an arriving
+         * chunk
+         * @param depth Number of chunks
+         */
+        void recordQueueDepth(int depth) {
+            depthSamples.increment();
+            depthTotal.add(Math.max(depth, 0));
+            maxDepth.accumulate(depth);
+        }
+
+        /**
+         * Returns the name of the stage
+         * @return Name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the number of worker threads
+         * @return Number of threads
+         */
+        public int getWorkers() {
+            return workers;
+        }
+
+        /**
+         * Returns the number of rows handled
+         * @return Number of rows
+         */
+        public long getRows() {
+            return rows.sum();
+        }
+
+        /**
+         * Returns the time spent working, summed over the workers
+         * @return Nanoseconds
+         */
+        public long getBusyNanos() {
+            return busyNanos.sum();
+        }
+
+        /**
+         * Returns the time spent waiting for room in the next queue, summed over the
+         * workers
+         * @return Nanoseconds
+         */
+        public long getBlockedNanos() {
+            return blockedNanos.sum();
+        }
+
+        /**
+         * Returns the mean number of chunks found waiting in the stage's queue by an
+         * arriving chunk
+         * @return Number of chunks, or 0 if no chunk has arrived
+         */
+        public double getMeanQueueDepth() {
+            long samples = depthSamples.sum();
+            return samples == 0 ? 0 : depthTotal.sum() / (double) samples;
+        }
+
+        /**
+         * Returns the largest number of chunks found waiting in the stage's queue by an
+         * arriving chunk
+         * @return Number of chunks
+         */
+        public long getMaxQueueDepth() {
+            return maxDepth.get();
+        }
+    }
+
+    /**
+     * Rows moving through the pipeline together, with the fields filled in by each stage
+     * in parallel arrays. Chunks are reused for the whole run.
+     */
+    private static final class Chunk {
+        /** Position of the chunk in the input */
+        long sequence;
+
+        /** Number of rows */
+        int count;
+
+        /** Input rows */
+        final String[] lines = new String[CHUNK_SIZE];
+
+        /** Application months */
+        final int[] months = new int[CHUNK_SIZE];
+
+        /** Application days of the month */
+        final int[] days = new int[CHUNK_SIZE];
+
+        /** Credit scores */
+        final int[] creditScores = new int[CHUNK_SIZE];
+
+        /** Incomes */
+        final int[] incomes = new int[CHUNK_SIZE];
+
+        /** Requested loan amounts */
+        final int[] loanAmounts = new int[CHUNK_SIZE];
+
+        /** Processing types (true for express) */
+        final boolean[] express = new boolean[CHUNK_SIZE];
+
+        /** Decision codes so far (APPROVED until a stage rejects the row) */
+        final int[] decisions = new int[CHUNK_SIZE];
+
+        /** Interest rates of rows still approved after pricing */
+        final double[] rates = new double[CHUNK_SIZE];
+
+        /** Monthly payments in cents of rows still approved after pricing */
+        final long[] paymentCents = new long[CHUNK_SIZE];
+
+        /** Results */
+        final WolfpackQuote[] quotes = new WolfpackQuote[CHUNK_SIZE];
+
+        /** Metrics counts of the results, added to the shared counters once per chunk */
+        private final WolfpackMetrics.Tally tally = new WolfpackMetrics.Tally();
+
+        /** Parsed fields of one row */
+        private final long[] fields = new long[WolfpackBatch.FIELDS_PER_ROW];
+
+        /**
+         * Creates an empty chunk
+         */
+        Chunk() {
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                quotes[i] = new WolfpackQuote();
+            }
+        }
+
+        /**
+         * Parses the rows
+         */
+        void parse() {
+            for (int i = 0; i < count; i++) {
+                if (!WolfpackBatch.parseRow(lines[i], false, fields)) {
+                    decisions[i] = WolfpackValidation.INVALID_INPUT;
+                    continue;
+                }
+                decisions[i] = WolfpackQuote.APPROVED;
+                months[i] = (int) fields[0];
+                days[i] = (int) fields[1];
+                creditScores[i] = (int) fields[2];
+                incomes[i] = (int) fields[3];
+                loanAmounts[i] = (int) fields[4];
+                express[i] = fields[5] != 0;
+            }
+        }
+
+        /**
+         * Checks the date and the ranges of the fields of the parsed rows
+         */
+        void validate() {
+            for (int i = 0; i < count; i++) {
+                if (decisions[i] != WolfpackQuote.APPROVED) {
+                    continue;
+                }
+                int validation = WolfpackValidation.checkApplication(months[i], days[i],
+                                                                     creditScores[i],
+                                                                     incomes[i],
+                                                                     loanAmounts[i]);
+                if (validation != WolfpackValidation.VALID) {
+                    decisions[i] = validation;
+                }
+            }
+        }
+
+        /**
+         * Finds the interest rate and monthly payment of the valid rows
+         */
+        void price() {
+            for (int i = 0; i < count; i++) {
+                if (decisions[i] != WolfpackQuote.APPROVED) {
+                    continue;
+                }
+                int totalLoan = totalLoan(i);
+                rates[i] = WolfpackLending.getInterestRate(totalLoan, creditScores[i],
+                                                           incomes[i]);
+                if (rates[i] == -1) {
+                    decisions[i] = WolfpackQuote.DENIED;
+                } else {
+                    paymentCents[i] = WolfpackPaymentMatrix.paymentCents(totalLoan, rates[i],
+                        WolfpackLending.NUMBER_OF_MONTHS);
+                }
+            }
+        }
+
+        /**
+         * Finds the disbursement dates of the approved rows, completes every result, counts
+         * the decisions in the metrics, and records the decisions of valid rows in the
+         * decision journal if one is in use
+         * @throws IOException if the decision journal cannot be written
+         */
+        void schedule() throws IOException {
+            WolfpackDecisionJournal journal = WolfpackDecisionJournal.current();
+            for (int i = 0; i < count; i++) {
+                if (decisions[i] != WolfpackQuote.APPROVED) {
+                    quotes[i].reject(decisions[i]);
+                } else {
+                    quotes[i].approve(totalLoan(i) * (long) WolfpackQuote.CENTS_PER_DOLLAR,
+                                      WolfpackFixedPoint.basisPoints(rates[i]),
+                                      paymentCents[i],
+                                      WolfpackDisbursementCalendar.entry(months[i], days[i],
+                                                                         express[i]));
+                }
+                tally.count(quotes[i]);
+                if (journal != null && (decisions[i] == WolfpackQuote.APPROVED ||
+                                        decisions[i] == WolfpackQuote.DENIED)) {
+                    journal.append(months[i], days[i], creditScores[i], incomes[i],
+                                   loanAmounts[i], express[i], quotes[i]);
+                }
+            }
+            tally.flush();
+            //results are released only after the chunk's decisions are durable
+            if (journal != null) {
+                journal.commit();
+            }
+        }
+
+        /**
+         * Returns the total loan amount of a row, including any express processing fee
+         * @param i Row
+         * @return Total loan amount
+         */
+        private int totalLoan(int i) {
+            return express[i] ? loanAmounts[i] + WolfpackLending.EXPRESS_PROCESSING_FEE :
+                   loanAmounts[i];
+        }
+
+        /**
+         * Appends the result rows
+         * @param text Buffer that receives the rows
+         */
+        void appendRows(StringBuilder text) {
+            for (int i = 0; i < count; i++) {
+                WolfpackBatch.appendResult(text.append(lines[i]), quotes[i]).append('\n');
+                lines[i] = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,391 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A portfolio of approved loans held in primitive columns, with a parallel pass that
+ * computes the portfolio's aggregate exposure: total principal, total monthly receivable,
+ * loan counts and averages for each interest rate tier, and disbursement totals for each
+ * calendar day. The pass splits the portfolio into ranges with fork-join. Each range is
+ * added up into its own accumulator and accumulators are merged as the ranges join, so the
+ * workers never share or lock anything. All money is added up in whole cents.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackPortfolio {
+
+    /** Number of loans below which a range is added up without splitting further */
+    public static final int SPLIT_THRESHOLD = 1 << 13;
+
+    /** Tier index for loans whose rate is not one of the four rate constants */
+    public static final int OTHER_TIER = WolfpackQuote.OTHER_TIER;
+
+    /** Number of tier indexes (OTHER_TIER and the WolfpackQuote approved tiers) */
+    public static final int TIERS = WolfpackQuote.TIERS;
+
+    /**
+     * Number of calendar days on which a loan can be disbursed: every day of 2020 plus the
+     * days in January 2021 reachable with normal processing
+     */
+    public static final int DISBURSEMENT_DAYS =
+        WolfpackDisbursementCalendar.DAYS_IN_APPLICATION_YEAR +
+        WolfpackLending.DAYS_FOR_NORMAL_PROCESSING;
+
+    /** Application months */
+    private final int[] months;
+
+    /** Application days of the month */
+    private final int[] days;
+
+    /** Express processing flags */
+    private final boolean[] express;
+
+    /** Total loan amounts (including express processing fee) */
+    private final int[] loanAmounts;
+
+    /** Annual interest rates */
+    private final double[] rates;
+
+    /**
+     * Creates a portfolio from columns of approved loans. The arrays are used directly, not
+     * copied.
+     * @param months Application months
+     * @param days Application days of the month
+     * @param express Express processing flags
+     * @param loanAmounts Total loan amounts (including express processing fee)
+     * @param rates Annual interest rates
+     * @throws IllegalArgumentException if the arrays are not all the same length
+     * @throws IllegalArgumentException if a loan has an invalid date, amount, or rate
+     */
+    public WolfpackPortfolio(int[] months, int[] days, boolean[] express, int[] loanAmounts,
+                             double[] rates) {
+        int size = months.length;
+        if (days.length != size || express.length != size || loanAmounts.length != size ||
+            rates.length != size) {
+            throw new IllegalArgumentException("Invalid array lengths");
+        }
+        for (int i = 0; i < size; i++) {
+            int validation = WolfpackValidation.checkDisbursementDate(months[i], days[i]);
+            if (validation == WolfpackValidation.VALID) {
+                validation = WolfpackValidation.checkMonthlyPayment(loanAmounts[i], rates[i],
+                                                   WolfpackLending.NUMBER_OF_MONTHS);
+            }
+            if (validation != WolfpackValidation.VALID) {
+                throw new IllegalArgumentException(WolfpackValidation.message(validation));
+            }
+        }
+        this.months = months;
+        this.days = days;
+        this.express = express;
+        this.loanAmounts = loanAmounts;
+        this.rates = rates;
+    }
+
+    /**
+     * Loads the approved loans in a WolfpackBatch result file
+     * @param results WolfpackBatch result file
+     * @return Portfolio of the approved loans
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if an approved row is malformed
+     */
+    public static WolfpackPortfolio load(File results) throws IOException {
+        int capacity = 1024;
+        int[] months = new int[capacity];
+        int[] days = new int[capacity];
+        boolean[] express = new boolean[capacity];
+        int[] loanAmounts = new int[capacity];
+        double[] rates = new double[capacity];
+        int size = 0;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                 new FileInputStream(results), StandardCharsets.UTF_8), 1 << 16)) {
+            String line = in.readLine();
+            while (line != null) {
+                String[] fields = line.split(",", 10);
+                if (fields.length >= 9 && fields[6].equals("Approved")) {
+                    if (size == capacity) {
+                        capacity *= 2;
+                        months = Arrays.copyOf(months, capacity);
+                        days = Arrays.copyOf(days, capacity);
+                        express = Arrays.copyOf(express, capacity);
+                        loanAmounts = Arrays.copyOf(loanAmounts, capacity);
+                        rates = Arrays.copyOf(rates, capacity);
+                    }
+                    try {
+                        months[size] = Integer.parseInt(fields[0].trim());
+                        days[size] = Integer.parseInt(fields[1].trim());
+                        String processing = fields[5].trim();
+                        express[size] = processing.startsWith("y") ||
+                                        processing.startsWith("Y");
+                        loanAmounts[size] = (int) Math.round(Double.parseDouble(fields[7]));
+                        rates[size] = Double.parseDouble(fields[8]);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid portfolio row: " + line);
+                    }
+                    size++;
+                }
+                line = in.readLine();
+            }
+        }
+        return new WolfpackPortfolio(Arrays.copyOf(months, size), Arrays.copyOf(days, size),
+                                     Arrays.copyOf(express, size),
+                                     Arrays.copyOf(loanAmounts, size),
+                                     Arrays.copyOf(rates, size));
+    }
+
+    /**
+     * Returns the number of loans in the portfolio
+     * @return Number of loans
+     */
+    public int size() {
+        return loanAmounts.length;
+    }
+
+    /**
+     * Returns the total loan amount of a loan
+     * @param loan Loan index, 0 through size() - 1
+     * @return Total loan amount (including express processing fee)
+     */
+    public int getLoanAmount(int loan) {
+        return loanAmounts[loan];
+    }
+
+    /**
+     * Returns the annual interest rate of a loan
+     * @param loan Loan index, 0 through size() - 1
+     * @return Annual interest rate
+     */
+    public double getRate(int loan) {
+        return rates[loan];
+    }
+
+    /**
+     * Computes the aggregate exposure of the portfolio in parallel on the common fork-join
+     * pool
+     * @return Aggregate exposure
+     */
+    public Exposure aggregate() {
+        return aggregate(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the aggregate exposure of the portfolio in parallel on a fork-join pool
+     * @param pool Pool to run on
+     * @return Aggregate exposure
+     */
+    public Exposure aggregate(ForkJoinPool pool) {
+        return pool.invoke(new AggregateTask(0, size()));
+    }
+
+    /**
+     * Adds up the loans from index from (inclusive) to index to (exclusive)
+     * @param from First index
+     * @param to Index after the last index
+     * @return Exposure of the range
+     */
+    private Exposure aggregateRange(int from, int to) {
+        Exposure exposure = new Exposure();
+        for (int i = from; i < to; i++) {
+            long principalCents = loanAmounts[i] * (long) WolfpackQuote.CENTS_PER_DOLLAR;
+            long paymentCents =
+                WolfpackPaymentMatrix.paymentCents(loanAmounts[i], rates[i],
+                                                   WolfpackLending.NUMBER_OF_MONTHS);
+            int tier = WolfpackQuote.tierOf(rates[i]);
+            int entry = WolfpackDisbursementCalendar.entry(months[i], days[i], express[i]);
+            int day = WolfpackDisbursementCalendar.epochDay(entry) -
+                      WolfpackDisbursementCalendar.APPLICATION_YEAR_EPOCH_DAY;
+
+            exposure.loans++;
+            exposure.principalCents += principalCents;
+            exposure.monthlyReceivableCents += paymentCents;
+            exposure.tierCounts[tier]++;
+            exposure.tierPrincipalCents[tier] += principalCents;
+            exposure.tierPaymentCents[tier] += paymentCents;
+            exposure.dayCounts[day]++;
+            exposure.dayPrincipalCents[day] += principalCents;
+        }
+        return exposure;
+    }
+
+    /**
+     * Fork-join task that splits a range of loans in half until it is small enough to add
+     * up directly, then merges the halves' accumulators
+     */
+    private final class AggregateTask extends RecursiveTask<Exposure> {
+        /** Serialization version */
+        private static final long serialVersionUID = 1L;
+
+        /** First index of the range */
+        private final int from;
+
+        /** Index after the last index of the range */
+        private final int to;
+
+        /**
+         * Creates a task for a range of loans
+         * @param from First index
+         * @param to Index after the last index
+         */
+        AggregateTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Exposure compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                return aggregateRange(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            AggregateTask left = new AggregateTask(from, middle);
+            left.fork();
+            Exposure right = new AggregateTask(middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * Aggregate exposure of a portfolio
+     */
+    public static final class Exposure {
+        /** Number of loans */
+        private long loans;
+
+        /** Total principal in cents */
+        private long principalCents;
+
+        /** Total monthly payments receivable in cents */
+        private long monthlyReceivableCents;
+
+        /** Number of loans in each tier */
+        private final long[] tierCounts = new long[TIERS];
+
+        /** Total principal in each tier, in cents */
+        private final long[] tierPrincipalCents = new long[TIERS];
+
+        /** Total monthly payments in each tier, in cents */
+        private final long[] tierPaymentCents = new long[TIERS];
+
+        /** Number of loans disbursed on each day, indexed by days after January 1, 2020 */
+        private final long[] dayCounts = new long[DISBURSEMENT_DAYS];
+
+        /** Principal disbursed on each day in cents, indexed by days after January 1, 2020 */
+        private final long[] dayPrincipalCents = new long[DISBURSEMENT_DAYS];
+
+        /**
+         * Adds another accumulator into this one
+         * @param other Accumulator to add
+         * @return This accumulator
+         */
+        Exposure merge(Exposure other) {
+            loans += other.loans;
+            principalCents += other.principalCents;
+            monthlyReceivableCents += other.monthlyReceivableCents;
+            for (int tier = 0; tier < TIERS; tier++) {
+                tierCounts[tier] += other.tierCounts[tier];
+                tierPrincipalCents[tier] += other.tierPrincipalCents[tier];
+                tierPaymentCents[tier] += other.tierPaymentCents[tier];
+            }
+            for (int day = 0; day < DISBURSEMENT_DAYS; day++) {
+                dayCounts[day] += other.dayCounts[day];
+                dayPrincipalCents[day] += other.dayPrincipalCents[day];
+            }
+            return this;
+        }
+
+        /**
+         * Returns the number of loans
+         * @return Number of loans
+         */
+        public long getLoans() {
+            return loans;
+        }
+
+        /**
+         * Returns the total principal
+         * @return Total principal in cents
+         */
+        public long getPrincipalCents() {
+            return principalCents;
+        }
+
+        /**
+         * Returns the total of all monthly payments
+         * @return Total monthly receivable in cents
+         */
+        public long getMonthlyReceivableCents() {
+            return monthlyReceivableCents;
+        }
+
+        /**
+         * Returns the number of loans in a tier
+         * @param tier Tier index (see WolfpackQuote.tierOf)
+         * @return Number of loans
+         */
+        public long getTierCount(int tier) {
+            return tierCounts[tier];
+        }
+
+        /**
+         * Returns the total principal of a tier
+         * @param tier Tier index (see WolfpackQuote.tierOf)
+         * @return Total principal in cents
+         */
+        public long getTierPrincipalCents(int tier) {
+            return tierPrincipalCents[tier];
+        }
+
+        /**
+         * Returns the average principal of a tier
+         * @param tier Tier index (see WolfpackQuote.tierOf)
+         * @return Average principal in dollars, or 0 if the tier has no loans
+         */
+        public double getTierAveragePrincipal(int tier) {
+            if (tierCounts[tier] == 0) {
+                return 0;
+            }
+            return tierPrincipalCents[tier] / (double) WolfpackQuote.CENTS_PER_DOLLAR /
+                   tierCounts[tier];
+        }
+
+        /**
+         * Returns the average monthly payment of a tier
+         * @param tier Tier index (see WolfpackQuote.tierOf)
+         * @return Average monthly payment in dollars, or 0 if the tier has no loans
+         */
+        public double getTierAveragePayment(int tier) {
+            if (tierCounts[tier] == 0) {
+                return 0;
+            }
+            return tierPaymentCents[tier] / (double) WolfpackQuote.CENTS_PER_DOLLAR /
+                   tierCounts[tier];
+        }
+
+        /**
+         * Returns the number of loans disbursed on a day
+         * @param epochDay Disbursement date as days since 1970-01-01
+         * @return Number of loans, or 0 for days outside the disbursement window
+         */
+        public long getDisbursementCount(int epochDay) {
+            int day = epochDay - WolfpackDisbursementCalendar.APPLICATION_YEAR_EPOCH_DAY;
+            if (day < 0 || day >= DISBURSEMENT_DAYS) {
+                return 0;
+            }
+            return dayCounts[day];
+        }
+
+        /**
+         * Returns the principal disbursed on a day
+         * @param epochDay Disbursement date as days since 1970-01-01
+         * @return Principal in cents, or 0 for days outside the disbursement window
+         */
+        public long getDisbursementCents(int epochDay) {
+            int day = epochDay - WolfpackDisbursementCalendar.APPLICATION_YEAR_EPOCH_DAY;
+            if (day < 0 || day >= DISBURSEMENT_DAYS) {
+                return 0;
+            }
+            return dayPrincipalCents[day];
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ * Reusable result of pricing one loan application with WolfpackLending.quote. A caller
+ * creates one quote and passes it to every call, which fills it with a decision code and,
+ * for approved loans, the total loan amount in cents, the interest rate in basis points,
+ * the monthly payment in cents, and the disbursement date as an epoch day. All fields are
+ * primitives, so a loop that reuses one quote allocates nothing. Text is produced only
+ * when the caller asks for it at the output edge.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackQuote {
+
+    /** Decision code for an approved loan */
+    public static final int APPROVED = 0;
+
+    /** Decision code for a denied loan */
+    public static final int DENIED = 1;
+
+    /** Decision code for an invalid application date */
+    public static final int INVALID_DATE = WolfpackValidation.INVALID_DATE;
+
+    /** Decision code for a credit score outside 300-850 */
+    public static final int INVALID_CREDIT_SCORE = WolfpackValidation.INVALID_CREDIT_SCORE;
+
+    /** Decision code for a negative income */
+    public static final int INVALID_INCOME = WolfpackValidation.INVALID_INCOME;
+
+    /** Decision code for a loan amount outside 1000-10000 */
+    public static final int INVALID_LOAN_AMOUNT = WolfpackValidation.INVALID_LOAN_AMOUNT;
+
+    /** Basis points in one percentage point */
+    public static final int BASIS_POINTS_PER_PERCENT = 100;
+
+    /** Cents in one dollar */
+    public static final int CENTS_PER_DOLLAR = 100;
+
+    /** Tier index for loans whose rate is not one of the four rate constants */
+    public static final int OTHER_TIER = 0;
+
+    /** Tier index of HIGH_INTEREST_RATE */
+    public static final int HIGH_TIER = 1;
+
+    /** Tier index of MODERATE_INTEREST_RATE */
+    public static final int MODERATE_TIER = 2;
+
+    /** Tier index of LOW_INTEREST_RATE */
+    public static final int LOW_TIER = 3;
+
+    /** Tier index of SPECIAL_INTEREST_RATE */
+    public static final int SPECIAL_TIER = 4;
+
+    /** Number of tier indexes (OTHER_TIER through SPECIAL_TIER) */
+    public static final int TIERS = 5;
+
+    /** Decision code */
+    private int decision = DENIED;
+
+    /** Total loan amount including any express processing fee, in cents */
+    private long loanCents;
+
+    /** Annual interest rate in basis points */
+    private int rateBasisPoints;
+
+    /** Monthly payment in cents */
+    private long paymentCents;
+
+    /** Disbursement date as days since 1970-01-01 */
+    private int disbursementEpochDay;
+
+    /** WolfpackDisbursementCalendar entry of the disbursement date */
+    private int disbursementEntry;
+
+    /**
+     * Returns the tier index of an interest rate
+     * @param rate Annual interest rate
+     * @return HIGH_TIER through SPECIAL_TIER for the four rate constants, otherwise
+     *         OTHER_TIER
+     */
+    public static int tierOf(double rate) {
+        if (rate == WolfpackLending.SPECIAL_INTEREST_RATE) {
+            return SPECIAL_TIER;
+        } else if (rate == WolfpackLending.LOW_INTEREST_RATE) {
+            return LOW_TIER;
+        } else if (rate == WolfpackLending.MODERATE_INTEREST_RATE) {
+            return MODERATE_TIER;
+        } else if (rate == WolfpackLending.HIGH_INTEREST_RATE) {
+            return HIGH_TIER;
+        }
+        return OTHER_TIER;
+    }
+
+    /**
+     * Records a rejected application
+     * @param decision DENIED or a WolfpackValidation error code
+     */
+    void reject(int decision) {
+        this.decision = decision;
+        loanCents = 0;
+        rateBasisPoints = 0;
+        paymentCents = 0;
+        disbursementEpochDay = 0;
+        disbursementEntry = -1;
+    }
+
+    /**
+     * Records an approved application
+     * @param loanCents Total loan amount in cents
+     * @param rateBasisPoints Annual interest rate in basis points
+     * @param paymentCents Monthly payment in cents
+     * @param disbursementEntry WolfpackDisbursementCalendar entry of the disbursement date
+     */
+    void approve(long loanCents, int rateBasisPoints, long paymentCents,
+                 int disbursementEntry) {
+        this.decision = APPROVED;
+        this.loanCents = loanCents;
+        this.rateBasisPoints = rateBasisPoints;
+        this.paymentCents = paymentCents;
+        this.disbursementEntry = disbursementEntry;
+        this.disbursementEpochDay = WolfpackDisbursementCalendar.epochDay(disbursementEntry);
+    }
+
+    /**
+     * Returns the decision code
+     * @return APPROVED, DENIED, or a WolfpackValidation error code
+     */
+    public int getDecision() {
+        return decision;
+    }
+
+    /**
+     * Returns whether the loan was approved
+     * @return True if the loan was approved
+     */
+    public boolean isApproved() {
+        return decision == APPROVED;
+    }
+
+    /**
+     * Returns the total loan amount including any express processing fee
+     * @return Loan amount in cents, or 0 if not approved
+     */
+    public long getLoanCents() {
+        return loanCents;
+    }
+
+    /**
+     * Returns the annual interest rate
+     * @return Interest rate in basis points (e.g., 550 for 5.5%), or 0 if not approved
+     */
+    public int getRateBasisPoints() {
+        return rateBasisPoints;
+    }
+
+    /**
+     * Returns the monthly payment
+     * @return Monthly payment in cents, or 0 if not approved
+     */
+    public long getPaymentCents() {
+        return paymentCents;
+    }
+
+    /**
+     * Returns the disbursement date
+     * @return Days since 1970-01-01, or 0 if not approved
+     */
+    public int getDisbursementEpochDay() {
+        return disbursementEpochDay;
+    }
+
+    /**
+     * Returns the message for the decision, as printed by the interactive program
+     * @return "Approved", "Loan denied", or the validation error message
+     */
+    public String getMessage() {
+        if (decision == APPROVED) {
+            return "Approved";
+        }
+        return WolfpackValidation.message(decision);
+    }
+
+    /**
+     * Returns the annual interest rate as a percentage
+     * @return Interest rate (e.g., 5.5), or -1.0 if not approved
+     */
+    public double getInterestRate() {
+        if (decision != APPROVED) {
+            return -1.0;
+        }
+        return rateBasisPoints / (double) BASIS_POINTS_PER_PERCENT;
+    }
+
+    /**
+     * Returns the disbursement date in the format "Day, m d year" (e.g., "Tue, 4 21 2020")
+     * @return Formatted disbursement date, or null if not approved
+     */
+    public String getDisbursementDate() {
+        if (decision != APPROVED) {
+            return null;
+        }
+        return WolfpackDisbursementCalendar.formattedDate(disbursementEntry);
+    }
+
+    /**
+     * Appends a non-negative amount in cents as dollars with two decimal places
+     * (e.g., 4305 is appended as "43.05")
+     * @param text Buffer to append to
+     * @param cents Amount in cents
+     * @return The buffer
+     */
+    public static StringBuilder appendCents(StringBuilder text, long cents) {
+        text.append(cents / CENTS_PER_DOLLAR).append('.');
+        long remainder = cents % CENTS_PER_DOLLAR;
+        if (remainder < 10) {
+            text.append('0');
+        }
+        return text.append(remainder);
+    }
+}
@@ -0,0 +1,279 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Interest rate tiers compiled into a decision table. A rules file lists one tier per
+ * line as "rate minCreditScore minIncomeToDebtRatio" (e.g., "6.5 500 3"), with blank lines
+ * and lines starting with # ignored. An applicant qualifies for a tier if their credit score
+ * is at least minCreditScore and their income is at least minIncomeToDebtRatio times the
+ * loan amount. The first qualifying tier in the file gives the interest rate; an applicant
+ * who qualifies for no tier is denied.
+ * The rules are compiled into a table indexed by credit score band and income-to-debt
+ * ratio band, so finding a rate is a few array reads however many tiers there are.
+ * The rules in use can be replaced at any time with install or reload. The swap is a single
+ * reference assignment, so quotes already in progress finish with the rules they started
+ * with and are never paused. A running program reloads its rules file through the
+ * reloadRules operation of the WolfpackLending:type=Rules MBean (e.g., from JConsole).
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackRateRules {
+
+    /** System property naming a rules file to load at startup */
+    public static final String RULES_PROPERTY = "wolfpack.rules";
+
+    /** Built-in rules, equivalent to the original WolfpackLending rate constants */
+    public static final String DEFAULT_RULES =
+        "# rate minCreditScore minIncomeToDebtRatio\n" +
+        WolfpackLending.SPECIAL_INTEREST_RATE + " " + WolfpackLending.GOOD_CREDIT_SCORE +
+        " 0\n" +
+        WolfpackLending.LOW_INTEREST_RATE + " " + WolfpackLending.MIN_CREDIT_SCORE + " " +
+        WolfpackLending.HIGH_INCOME_TO_DEBT_RATIO + "\n" +
+        WolfpackLending.MODERATE_INTEREST_RATE + " " + WolfpackLending.FAIR_CREDIT_SCORE + " " +
+        WolfpackLending.MODERATE_INCOME_TO_DEBT_RATIO + "\n" +
+        WolfpackLending.HIGH_INTEREST_RATE + " " + WolfpackLending.POOR_CREDIT_SCORE + " " +
+        WolfpackLending.LOW_INCOME_TO_DEBT_RATIO + "\n";
+
+    /** Largest income-to-debt ratio a rule may require */
+    public static final int MAX_RATIO = 1000;
+
+    /** Rules currently used by WolfpackLending.getInterestRate */
+    private static volatile WolfpackRateRules current = loadStartupRules();
+
+    /** Credit score band of each credit score from MIN_CREDIT_SCORE to MAX_CREDIT_SCORE */
+    private final int[] creditBands;
+
+    /** Income-to-debt ratio band of each whole ratio from 0 to maxRatio */
+    private final int[] ratioBands;
+
+    /** Largest ratio threshold used by any rule */
+    private final int maxRatio;
+
+    /** Number of ratio bands (the row length of the table) */
+    private final int ratioBandCount;
+
+    /** Interest rate (or -1.0) for each credit score band and ratio band */
+    private final double[] table;
+
+    /** Number of tiers the table was compiled from */
+    private final int tiers;
+
+    /**
+     * Compiles tiers into a decision table
+     * @param rates Interest rate of each tier, in priority order
+     * @param minCreditScores Minimum credit score of each tier
+     * @param minRatios Minimum income-to-debt ratio of each tier
+     */
+    private WolfpackRateRules(double[] rates, int[] minCreditScores, int[] minRatios) {
+        tiers = rates.length;
+
+        //credit score bands start at each distinct credit score threshold
+        TreeSet<Integer> creditStarts = new TreeSet<>();
+        creditStarts.add(WolfpackLending.MIN_CREDIT_SCORE);
+        for (int score : minCreditScores) {
+            if (score > WolfpackLending.MIN_CREDIT_SCORE) {
+                creditStarts.add(score);
+            }
+        }
+        int scores = WolfpackLending.MAX_CREDIT_SCORE - WolfpackLending.MIN_CREDIT_SCORE + 1;
+        creditBands = new int[scores];
+        int[] creditBandStart = new int[creditStarts.size()];
+        int band = -1;
+        for (int i = 0; i < scores; i++) {
+            if (creditStarts.contains(WolfpackLending.MIN_CREDIT_SCORE + i)) {
+                band++;
+                creditBandStart[band] = WolfpackLending.MIN_CREDIT_SCORE + i;
+            }
+            creditBands[i] = band;
+        }
+
+        //ratio bands start at each distinct ratio threshold
+        TreeSet<Integer> ratioStarts = new TreeSet<>();
+        ratioStarts.add(0);
+        for (int ratio : minRatios) {
+            ratioStarts.add(ratio);
+        }
+        maxRatio = ratioStarts.last();
+        ratioBands = new int[maxRatio + 1];
+        int[] ratioBandStart = new int[ratioStarts.size()];
+        band = -1;
+        for (int ratio = 0; ratio <= maxRatio; ratio++) {
+            if (ratioStarts.contains(ratio)) {
+                band++;
+                ratioBandStart[band] = ratio;
+            }
+            ratioBands[ratio] = band;
+        }
+        ratioBandCount = ratioBandStart.length;
+
+        //evaluate the rules once for the lowest credit score and ratio of each band pair
+        table = new double[creditBandStart.length * ratioBandCount];
+        for (int creditBand = 0; creditBand < creditBandStart.length; creditBand++) {
+            for (int ratioBand = 0; ratioBand < ratioBandCount; ratioBand++) {
+                double rate = -1.0;
+                for (int tier = 0; tier < tiers && rate == -1.0; tier++) {
+                    if (creditBandStart[creditBand] >= minCreditScores[tier] &&
+                        ratioBandStart[ratioBand] >= minRatios[tier]) {
+                        rate = rates[tier];
+                    }
+                }
+                table[creditBand * ratioBandCount + ratioBand] = rate;
+            }
+        }
+    }
+
+    /**
+     * Returns the rules currently in use
+     * @return Current rules
+     */
+    public static WolfpackRateRules current() {
+        return current;
+    }
+
+    /**
+     * Replaces the rules in use. Quotes in progress finish with the rules they started with.
+     * @param rules New rules
+     */
+    public static void install(WolfpackRateRules rules) {
+        if (rules == null) {
+            throw new IllegalArgumentException("Invalid rules");
+        }
+        current = rules;
+    }
+
+    /**
+     * Loads and compiles a rules file and, if it is valid, replaces the rules in use.
+     * If the file cannot be read or is invalid, the rules in use are unchanged.
+     * @param file Rules file
+     * @return The new rules
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file contains an invalid rule
+     */
+    public static WolfpackRateRules reload(File file) throws IOException {
+        WolfpackRateRules rules = load(file);
+        install(rules);
+        return rules;
+    }
+
+    /**
+     * Loads and compiles a rules file
+     * @param file Rules file
+     * @return Compiled rules
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file contains an invalid rule
+     */
+    public static WolfpackRateRules load(File file) throws IOException {
+        try (Reader in = new InputStreamReader(new FileInputStream(file),
+                                               StandardCharsets.UTF_8)) {
+            return parse(in);
+        }
+    }
+
+    /**
+     * Returns the built-in rules
+     * @return Rules equivalent to the original WolfpackLending rate constants
+     */
+    public static WolfpackRateRules defaults() {
+        try {
+            return parse(new StringReader(DEFAULT_RULES));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads and compiles rules
+     * @param in Source of rules text
+     * @return Compiled rules
+     * @throws IOException if reading fails
+     * @throws IllegalArgumentException if a rule is invalid or there are no rules
+     */
+    public static WolfpackRateRules parse(Reader in) throws IOException {
+        BufferedReader lines = new BufferedReader(in);
+        ArrayList<double[]> rules = new ArrayList<>();
+        String line = lines.readLine();
+        int lineNumber = 1;
+        while (line != null) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                String[] fields = line.split("\\s+");
+                double rate;
+                long minCreditScore;
+                long minRatio;
+                if (fields.length != 3) {
+                    throw new IllegalArgumentException("Invalid rule on line " + lineNumber);
+                }
+                try {
+                    rate = Double.parseDouble(fields[0]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid rule on line " + lineNumber);
+                }
+                minCreditScore = WolfpackValidation.parseInt(fields[1], 0, fields[1].length());
+                minRatio = WolfpackValidation.parseInt(fields[2], 0, fields[2].length());
+                if (!(rate >= WolfpackLending.MIN_INTEREST_RATE) ||
+                    minCreditScore == WolfpackValidation.NOT_A_NUMBER ||
+                    minCreditScore > WolfpackLending.MAX_CREDIT_SCORE ||
+                    minRatio < 0 || minRatio > MAX_RATIO) {
+                    throw new IllegalArgumentException("Invalid rule on line " + lineNumber);
+                }
+                rules.add(new double[] {rate, minCreditScore, minRatio});
+            }
+            line = lines.readLine();
+            lineNumber++;
+        }
+        if (rules.isEmpty()) {
+            throw new IllegalArgumentException("No rules");
+        }
+        double[] rates = new double[rules.size()];
+        int[] minCreditScores = new int[rules.size()];
+        int[] minRatios = new int[rules.size()];
+        for (int i = 0; i < rules.size(); i++) {
+            rates[i] = rules.get(i)[0];
+            minCreditScores[i] = (int) rules.get(i)[1];
+            minRatios[i] = (int) rules.get(i)[2];
+        }
+        return new WolfpackRateRules(rates, minCreditScores, minRatios);
+    }
+
+    /**
+     * Loads the rules named by the wolfpack.rules system property, or the built-in rules if
+     * the property is not set
+     * @return Startup rules
+     */
+    private static WolfpackRateRules loadStartupRules() {
+        String file = System.getProperty(RULES_PROPERTY);
+        if (file == null) {
+            return defaults();
+        }
+        try {
+            return load(new File(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load rules from " + file, e);
+        }
+    }
+
+    /**
+     * Returns the interest rate for an application. Arguments are assumed to be valid
+     * (see WolfpackValidation.checkInterestRate).
+     * @param loanAmount Total loan amount (including express processing fee)
+     * @param creditScore Loan applicant credit score
+     * @param income Loan applicant income for 2019
+     * @return Interest rate if the loan is approved or -1.0 if the loan is not approved
+     */
+    public double interestRate(int loanAmount, int creditScore, int income) {
+        //income >= ratio * loanAmount exactly when the whole ratio income / loanAmount
+        //is at least ratio
+        int ratio = Math.min(income / loanAmount, maxRatio);
+        return table[creditBands[creditScore - WolfpackLending.MIN_CREDIT_SCORE] *
+                     ratioBandCount + ratioBands[ratio]];
+    }
+
+    /**
+     * Returns the number of tiers the table was compiled from
+     * @return Number of tiers
+     */
+    public int getTiers() {
+        return tiers;
+    }
+}
@@ -0,0 +1,126 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for any number of producer and consumer threads, used between
+ * the stages of WolfpackPipeline. Elements are kept in a ring of slots; each slot has a
+ * sequence number that tells producers when it is free and consumers when it is full, so
+ * offer and poll claim a slot with a single compare-and-set and never block. Callers
+ * decide how to wait when the queue is full or empty.
+ *
+ * @param <E> Type of the elements
+ * @author Jessica Greene
+ */
+public class WolfpackRingQueue<E> {
+
+    /** Elements, indexed by position modulo the capacity */
+    private final AtomicReferenceArray<E> elements;
+
+    /** Sequence number of each slot */
+    private final AtomicLongArray sequences;
+
+    /** Capacity minus 1 (the capacity is a power of 2) */
+    private final int mask;
+
+    /** Position of the next element to add */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Position of the next element to remove */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Creates an empty queue
+     * @param capacity Largest number of elements (rounded up to a power of 2, at least 2)
+     * @throws IllegalArgumentException if the capacity is less than 1 or more than 2^30
+     */
+    public WolfpackRingQueue(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity");
+        }
+        //a single slot cannot tell a full slot from a free one a lap later
+        int slots = Math.max(2, Integer.highestOneBit(capacity));
+        if (slots < capacity) {
+            slots <<= 1;
+        }
+        elements = new AtomicReferenceArray<>(slots);
+        sequences = new AtomicLongArray(slots);
+        for (int i = 0; i < slots; i++) {
+            sequences.set(i, i);
+        }
+        mask = slots - 1;
+    }
+
+    /**
+     * Adds an element if there is room
+     * @param element Element to add
+     * @return True if the element was added, false if the queue is full
+     * @throws NullPointerException if the element is null
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        long position = tail.get();
+        while (true) {
+            int slot = (int) position & mask;
+            long difference = sequences.get(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(slot, element);
+                    //publishing the sequence hands the slot to consumers
+                    sequences.set(slot, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest element if there is one
+     * @return Element, or null if the queue is empty
+     */
+    public E poll() {
+        long position = head.get();
+        while (true) {
+            int slot = (int) position & mask;
+            long difference = sequences.get(slot) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    E element = elements.get(slot);
+                    elements.lazySet(slot, null);
+                    //the slot is free again for the producer one lap later
+                    sequences.set(slot, position + mask + 1);
+                    return element;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of elements, which may be out of date as soon as it returns
+     * @return Number of elements
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, mask + 1));
+    }
+
+    /**
+     * Returns the largest number of elements
+     * @return Capacity
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+}
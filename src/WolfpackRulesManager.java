@@ -0,0 +1,25 @@
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Management of the interest rate rules of a running program over JMX, as
+ * "WolfpackLending:type=Rules". WolfpackMetrics registers it next to its own MBean; it is
+ * registered even when metrics are turned off, since reloading rules is not a metric.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackRulesManager implements WolfpackRulesManagerMBean {
+
+    /** Name the rules manager is registered under */
+    public static final String OBJECT_NAME = "WolfpackLending:type=Rules";
+
+    @Override
+    public int getTiers() {
+        return WolfpackRateRules.current().getTiers();
+    }
+
+    @Override
+    public int reloadRules(String file) throws IOException {
+        return WolfpackRateRules.reload(new File(file)).getTiers();
+    }
+}
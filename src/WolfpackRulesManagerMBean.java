@@ -0,0 +1,27 @@
+import java.io.IOException;
+
+/**
+ * Management interface of WolfpackRulesManager, registered with the platform MBean server
+ * as "WolfpackLending:type=Rules" next to the metrics MBean. The reloadRules operation
+ * replaces the interest rate rules without restarting the program.
+ *
+ * @author Jessica Greene
+ */
+public interface WolfpackRulesManagerMBean {
+
+    /**
+     * Returns the number of tiers in the rules in use
+     * @return Tiers
+     */
+    int getTiers();
+
+    /**
+     * Loads a rate rules file and, if it is valid, makes it the rules used by new quotes
+     * (see WolfpackRateRules.reload)
+     * @param file Path of the rules file
+     * @return Number of tiers in the new rules
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file contains an invalid rule
+     */
+    int reloadRules(String file) throws IOException;
+}
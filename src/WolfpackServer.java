@@ -0,0 +1,294 @@
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+
+/**
+ * Serves loan quotes over a local HTTP endpoint so that callers do not pay JVM startup for
+ * every applicant. Clients POST a JSON application to /quote, for example
+ * {"month": 3, "day": 16, "creditScore": 755, "income": 40000, "loanAmount": 5000,
+ * "express": true}, and receive the decision as JSON. Connections are kept alive between
+ * requests. Each request is handled on its own virtual thread when the JVM supports them
+ * (Java 21 and later) and on a pooled platform thread otherwise.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackServer {
+
+    /** Default port to listen on */
+    public static final int DEFAULT_PORT = 8020;
+
+    /** Path of the quote endpoint */
+    public static final String QUOTE_PATH = "/quote";
+
+    /** Largest request body accepted, in bytes */
+    public static final int MAX_BODY_BYTES = 4096;
+
+    /** HTTP status for a successful request */
+    public static final int HTTP_OK = 200;
+
+    /** HTTP status for a malformed or invalid application */
+    public static final int HTTP_BAD_REQUEST = 400;
+
+    /** HTTP status for a request to an unknown path or with the wrong method */
+    public static final int HTTP_NOT_FOUND = 404;
+
+    /** HTTP status for a request body that is too large */
+    public static final int HTTP_TOO_LARGE = 413;
+
+    /** HTTP status for a decision that could not be journaled */
+    public static final int HTTP_SERVER_ERROR = 500;
+
+    /** Underlying HTTP server */
+    private final HttpServer server;
+
+    /** Executor that runs request handlers */
+    private final ExecutorService executor;
+
+    /**
+     * Starts the quote service on the loopback interface
+     * @param args command line arguments: optionally the port to listen on
+     */
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        if (args.length > 0) {
+            port = Integer.parseInt(args[0]);
+        }
+        try {
+            WolfpackServer server = new WolfpackServer(port);
+            System.out.println("Wolfpack Lending quote service listening on port " +
+                               server.getPort());
+        } catch (IOException e) {
+            System.out.println("Could not start server: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Creates and starts a quote service on the loopback interface
+     * @param port Port to listen on, or 0 to choose a free port
+     * @throws IOException if the server cannot bind to the port
+     */
+    public WolfpackServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                                                         port), 0);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext(QUOTE_PATH, WolfpackServer::handleQuote);
+        server.start();
+    }
+
+    /**
+     * Returns the port the service is listening on
+     * @return Port number
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the service, waiting up to the given number of seconds for requests to finish
+     * @param delaySeconds Seconds to wait for in-flight requests
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * Returns a virtual-thread-per-task executor when the JVM provides one, otherwise a
+     * cached pool of daemon platform threads
+     * @return Executor for request handlers
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "wolfpack-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Handles one request to the quote endpoint
+     * @param exchange HTTP request and response
+     * @throws IOException if the request cannot be read or the response written
+     */
+    private static void handleQuote(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try (InputStream body = exchange.getRequestBody()) {
+            if (!"POST".equals(exchange.getRequestMethod()) ||
+                !QUOTE_PATH.equals(exchange.getRequestURI().getPath())) {
+                drain(body);
+                respond(exchange, HTTP_NOT_FOUND, "{\"error\":\"Not found\"}");
+                return;
+            }
+            byte[] bytes = body.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                drain(body);
+                respond(exchange, HTTP_TOO_LARGE, "{\"error\":\"Request too large\"}");
+                return;
+            }
+            String json = new String(bytes, StandardCharsets.UTF_8);
+            StringBuilder response = new StringBuilder(160);
+            int status;
+            try {
+                status = quoteJson(json, new WolfpackQuote(), response);
+                //the decision is durable before the client sees it
+                WolfpackDecisionJournal journal = WolfpackDecisionJournal.current();
+                if (journal != null) {
+                    journal.commit();
+                }
+            } catch (IOException | UncheckedIOException e) {
+                WolfpackMetrics.recordRequestFailure();
+                respond(exchange, HTTP_SERVER_ERROR,
+                        "{\"error\":\"Decision could not be recorded\"}");
+                return;
+            }
+            respond(exchange, status, response.toString());
+            WolfpackMetrics.recordRequest(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Prices a JSON application and writes the JSON response
+     * @param json JSON application
+     * @param quote Quote that receives the pricing result
+     * @param response Buffer that receives the JSON response
+     * @return HTTP status of the response
+     */
+    static int quoteJson(String json, WolfpackQuote quote, StringBuilder response) {
+        long month = jsonInt(json, "month");
+        long day = jsonInt(json, "day");
+        long creditScore = jsonInt(json, "creditScore");
+        long income = jsonInt(json, "income");
+        long loanAmount = jsonInt(json, "loanAmount");
+        if (month == WolfpackValidation.NOT_A_NUMBER || day == WolfpackValidation.NOT_A_NUMBER
+            || creditScore == WolfpackValidation.NOT_A_NUMBER
+            || income == WolfpackValidation.NOT_A_NUMBER
+            || loanAmount == WolfpackValidation.NOT_A_NUMBER) {
+            WolfpackMetrics.recordRejection(WolfpackValidation.INVALID_INPUT);
+            response.append("{\"error\":\"")
+                    .append(WolfpackValidation.message(WolfpackValidation.INVALID_INPUT))
+                    .append("\"}");
+            return HTTP_BAD_REQUEST;
+        }
+        boolean express = jsonTrue(json, "express");
+
+        WolfpackLending.quote((int) month, (int) day, (int) creditScore, (int) income,
+                              (int) loanAmount, express, quote);
+        WolfpackMetrics.recordDecision(quote);
+        if (quote.getDecision() != WolfpackQuote.APPROVED &&
+            quote.getDecision() != WolfpackQuote.DENIED) {
+            response.append("{\"error\":\"").append(quote.getMessage()).append("\"}");
+            return HTTP_BAD_REQUEST;
+        }
+        response.append("{\"decision\":\"").append(quote.getMessage()).append('"');
+        if (quote.isApproved()) {
+            response.append(",\"loanAmount\":");
+            WolfpackQuote.appendCents(response, quote.getLoanCents());
+            response.append(",\"interestRate\":").append(quote.getInterestRate());
+            response.append(",\"monthlyPayment\":");
+            WolfpackQuote.appendCents(response, quote.getPaymentCents());
+            response.append(",\"disbursementDate\":\"").append(quote.getDisbursementDate())
+                    .append('"');
+        }
+        response.append('}');
+        return HTTP_OK;
+    }
+
+    /**
+     * Finds the value of a whole-number field in a flat JSON object
+     * @param json JSON object
+     * @param name Field name
+     * @return Field value, or WolfpackValidation.NOT_A_NUMBER if the field is missing or
+     *         is not a whole number
+     */
+    static long jsonInt(String json, String name) {
+        int start = valueStart(json, name);
+        if (start < 0) {
+            return WolfpackValidation.NOT_A_NUMBER;
+        }
+        int end = start;
+        while (end < json.length() && json.charAt(end) != ',' && json.charAt(end) != '}') {
+            end++;
+        }
+        while (end > start && Character.isWhitespace(json.charAt(end - 1))) {
+            end--;
+        }
+        return WolfpackValidation.parseInt(json, start, end);
+    }
+
+    /**
+     * Returns whether a field in a flat JSON object is true (or a string starting with y)
+     * @param json JSON object
+     * @param name Field name
+     * @return True if the field is true, "y", or "yes"
+     */
+    static boolean jsonTrue(String json, String name) {
+        int start = valueStart(json, name);
+        if (start < 0) {
+            return false;
+        }
+        return json.startsWith("true", start) || json.startsWith("\"y", start) ||
+               json.startsWith("\"Y", start);
+    }
+
+    /**
+     * Returns the index of the first non-space character of a field value
+     * @param json JSON object
+     * @param name Field name
+     * @return Index of the value, or -1 if the field is missing
+     */
+    private static int valueStart(String json, String name) {
+        int key = json.indexOf("\"" + name + "\"");
+        if (key < 0) {
+            return -1;
+        }
+        int colon = json.indexOf(':', key + name.length() + 2);
+        if (colon < 0) {
+            return -1;
+        }
+        int start = colon + 1;
+        while (start < json.length() && Character.isWhitespace(json.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Sends a JSON response
+     * @param exchange HTTP request and response
+     * @param status HTTP status
+     * @param json Response body
+     * @throws IOException if the response cannot be written
+     */
+    private static void respond(HttpExchange exchange, int status, String json)
+        throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads and discards the rest of a request body so the connection can be reused
+     * @param body Request body
+     * @throws IOException if the body cannot be read
+     */
+    private static void drain(InputStream body) throws IOException {
+        byte[] buffer = new byte[MAX_BODY_BYTES];
+        while (body.read(buffer) >= 0) {
+            //discard
+        }
+    }
+}
@@ -0,0 +1,446 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * Prices a CSV file of loan applications too large for one JVM by splitting it into
+ * shards that are priced by separate worker processes. The input is divided into byte
+ * ranges whose boundaries are moved forward to the start of the next row, so every row
+ * belongs to exactly one shard. Each worker prices its range with the same rules as
+ * WolfpackBatch and writes its result rows and a summary file next to the output file;
+ * the coordinator then joins the shard outputs in input order behind the output header,
+ * adds up the summaries, and removes the shard files. Processes coordinate only through
+ * these files: a worker writes its summary last, by renaming it into place, so a summary
+ * marks a finished shard. If a run fails, the finished shards are kept and running the
+ * same command again prices only the unfinished ones. Workers are started with the
+ * coordinator's wolfpack.* system properties (rules file, payment matrix, metrics), so
+ * they price with the same configuration; a decision journal cannot be shared between
+ * processes, so a run with one is refused. A worker can also be started by hand (for
+ * example on another machine sharing the file system) with the command line the
+ * coordinator uses.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackShardedBatch {
+
+    /** Suffix added to the output file name, followed by the shard number, for a shard */
+    public static final String SHARD_SUFFIX = ".shard";
+
+    /** Suffix added to a shard file name for its summary */
+    public static final String SUMMARY_SUFFIX = ".summary";
+
+    /** First argument that starts a worker instead of a coordinator */
+    public static final String WORKER_ARGUMENT = "-worker";
+
+    /** Prefix of the system properties passed on to worker processes */
+    public static final String PROPERTY_PREFIX = "wolfpack.";
+
+    /** First int of a shard summary file ("WPSS") */
+    private static final int SUMMARY_MAGIC = 0x57505353;
+
+    /** Version of the shard summary file format */
+    private static final int SUMMARY_VERSION = 1;
+
+    /** Size of the buffer used to read and copy files, in bytes */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Prices the applications in an input CSV file with one worker process per shard and
+     * writes the results to an output CSV file, or runs one worker
+     * @param args command line arguments: input file, output file, and optionally the
+     *             number of shards; or WORKER_ARGUMENT, input file, first byte, end byte,
+     *             and shard file
+     */
+    public static void main(String[] args) {
+        try {
+            if (args.length == 5 && args[0].equals(WORKER_ARGUMENT)) {
+                priceShard(new File(args[1]), Long.parseLong(args[2]), Long.parseLong(args[3]),
+                           new File(args[4]));
+                return;
+            }
+            if (args.length == 2 || args.length == 3) {
+                int shards = args.length > 2 ? Integer.parseInt(args[2]) :
+                             Runtime.getRuntime().availableProcessors();
+                long start = System.nanoTime();
+                WolfpackApplicationFile.Totals totals = run(new File(args[0]),
+                                                            new File(args[1]), shards);
+                double seconds = (System.nanoTime() - start) / WolfpackBatch.NANOS_PER_SECOND;
+                System.out.println(totals);
+                System.out.printf("Processed %d applications in %.3f seconds (%.0f rows/sec)\n",
+                                  totals.getRecords(), seconds,
+                                  totals.getRecords() / Math.max(seconds, 1e-9));
+                return;
+            }
+        } catch (IOException e) {
+            System.out.println("Sharded batch failed: " + e.getMessage());
+            System.exit(1);
+        }
+        System.out.println("Usage: java WolfpackShardedBatch input.csv output.csv [shards]");
+        System.exit(1);
+    }
+
+    /**
+     * Prices every application in the input file with one worker process per shard and
+     * writes one result row per application to the output file, keeping input order.
+     * Shards finished by an earlier run of the same input and output are reused.
+     * @param input CSV file of applications
+     * @param output CSV file to write results to
+     * @param shards Number of shards (and at most this many worker processes)
+     * @return Totals of the decisions and approved loans
+     * @throws IOException if the input file cannot be read, a worker fails, the output
+     *         file cannot be written, or decisions are being journaled
+     * @throws IllegalArgumentException if the number of shards is less than 1
+     */
+    public static WolfpackApplicationFile.Totals run(File input, File output, int shards)
+        throws IOException {
+        //workers would each append to the journal file without the others knowing
+        if (System.getProperty(WolfpackDecisionJournal.JOURNAL_PROPERTY) != null ||
+            WolfpackDecisionJournal.current() != null) {
+            throw new IOException("Decisions cannot be journaled by a sharded batch");
+        }
+        long[] boundaries = boundaries(input, shards);
+        Process[] workers = new Process[shards];
+        try {
+            for (int shard = 0; shard < shards; shard++) {
+                File shardFile = shardFile(output, shard);
+                if (readSummary(shardFile, input, boundaries[shard],
+                                boundaries[shard + 1]) == null) {
+                    workers[shard] = startWorker(input, boundaries[shard],
+                                                 boundaries[shard + 1], shardFile);
+                }
+            }
+            for (int shard = 0; shard < shards; shard++) {
+                if (workers[shard] != null && workers[shard].waitFor() != 0) {
+                    throw new IOException("Shard " + shard + " failed");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Sharded batch interrupted");
+        } finally {
+            for (Process worker : workers) {
+                if (worker != null) {
+                    worker.destroy();
+                }
+            }
+        }
+        return merge(input, output, boundaries);
+    }
+
+    /**
+     * Divides the data rows of an input file into byte ranges of about the same size,
+     * each starting at the beginning of a row. A header row is left out of every range.
+     * @param input CSV file of applications
+     * @param shards Number of ranges
+     * @return shards + 1 offsets: range i is from offset i up to offset i + 1 (ranges may
+     *         be empty)
+     * @throws IOException if the input file cannot be read
+     * @throws IllegalArgumentException if the number of shards is less than 1
+     */
+    static long[] boundaries(File input, int shards) throws IOException {
+        if (shards < 1) {
+            throw new IllegalArgumentException("Invalid number of shards");
+        }
+        long[] boundaries = new long[shards + 1];
+        try (FileChannel channel = FileChannel.open(input.toPath(), StandardOpenOption.READ);
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                 new FileInputStream(input), StandardCharsets.UTF_8))) {
+            long size = channel.size();
+            String first = in.readLine();
+            long dataStart = first != null && WolfpackBatch.isHeader(first) ?
+                             rowStart(channel, 1) : 0;
+            for (int shard = 0; shard <= shards; shard++) {
+                long nominal = dataStart + (size - dataStart) * shard / shards;
+                boundaries[shard] = shard == 0 ? dataStart : rowStart(channel, nominal);
+            }
+        }
+        return boundaries;
+    }
+
+    /**
+     * Finds the first row that starts at or after a position
+     * @param channel Open input file
+     * @param position Byte offset
+     * @return Offset of the row, or the file size if no row starts at or after position
+     * @throws IOException if the file cannot be read
+     */
+    private static long rowStart(FileChannel channel, long position) throws IOException {
+        long size = channel.size();
+        if (position <= 0 || position >= size) {
+            return Math.min(Math.max(position, 0), size);
+        }
+        //a row starts at position if the byte before it ends the previous row
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        for (long next = position - 1; next < size; ) {
+            buffer.clear();
+            int read = channel.read(buffer, next);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return next + i + 1;
+                }
+            }
+            next += read;
+        }
+        return size;
+    }
+
+    /**
+     * Starts a worker process that prices one shard, with the wolfpack.* system properties
+     * of this process
+     * @param input CSV file of applications
+     * @param first Offset of the first byte of the shard
+     * @param end Offset after the last byte of the shard
+     * @param shardFile File that receives the shard's result rows
+     * @return Worker process
+     * @throws IOException if the process cannot be started
+     */
+    private static Process startWorker(File input, long first, long end, File shardFile)
+        throws IOException {
+        String java = new File(new File(System.getProperty("java.home"), "bin"), "java")
+                      .getPath();
+        ArrayList<String> command = new ArrayList<>();
+        command.add(java);
+        for (String name : new TreeSet<>(System.getProperties().stringPropertyNames())) {
+            if (name.startsWith(PROPERTY_PREFIX)) {
+                command.add("-D" + name + "=" + System.getProperty(name));
+            }
+        }
+        command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"),
+                                     WolfpackShardedBatch.class.getName(), WORKER_ARGUMENT,
+                                     input.getPath(), Long.toString(first),
+                                     Long.toString(end), shardFile.getPath()));
+        ProcessBuilder builder = new ProcessBuilder(command);
+        //a failing worker prints its error on the coordinator's console
+        return builder.redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                      .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    }
+
+    /**
+     * Prices the rows in a byte range of an input file on the calling thread and writes
+     * the result rows to a shard file, then its summary. Both files are written under
+     * temporary names, forced to disk, and renamed into place, the summary last.
+     * @param input CSV file of applications
+     * @param first Offset of the first byte of the range, which must start a row
+     * @param end Offset after the last byte of the range, which must end a row or the file
+     * @param shardFile File that receives the result rows
+     * @return Totals of the range
+     * @throws IOException if the input file cannot be read or the shard files written
+     * @throws IllegalArgumentException if the range is invalid
+     */
+    static WolfpackApplicationFile.Totals priceShard(File input, long first, long end,
+                                                     File shardFile) throws IOException {
+        if (first < 0 || end < first) {
+            throw new IllegalArgumentException("Invalid shard range");
+        }
+        WolfpackApplicationFile.Totals totals = new WolfpackApplicationFile.Totals();
+        File temporary = new File(shardFile.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(input.toPath(), StandardOpenOption.READ);
+             FileOutputStream stream = new FileOutputStream(temporary);
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+                 stream, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            WolfpackQuote quote = new WolfpackQuote();
+            WolfpackMetrics.Tally tally = new WolfpackMetrics.Tally();
+            StringBuilder row = new StringBuilder(128);
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            byte[] line = new byte[256];
+            int length = 0;
+            for (long position = first; position < end; ) {
+                buffer.clear().limit((int) Math.min(BUFFER_SIZE, end - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                position += read;
+                for (int i = 0; i < read; i++) {
+                    byte next = buffer.get(i);
+                    if (next == '\n') {
+                        priceLine(line, length, row, quote, totals, tally, out);
+                        length = 0;
+                    } else {
+                        if (length == line.length) {
+                            line = Arrays.copyOf(line, length * 2);
+                        }
+                        line[length++] = next;
+                    }
+                }
+            }
+            priceLine(line, length, row, quote, totals, tally, out);
+            tally.flush();
+            //the rows are on disk before the rename makes the shard count as finished
+            out.flush();
+            stream.getChannel().force(true);
+        }
+        Files.move(temporary.toPath(), shardFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+        writeSummary(shardFile, input, first, end, totals);
+        return totals;
+    }
+
+    /**
+     * Prices one row and writes its result row, skipping empty rows as WolfpackBatch does
+     * @param line Bytes of the row, without the line feed
+     * @param length Number of bytes in the row
+     * @param row Reusable buffer used to build the result row
+     * @param quote Reusable quote
+     * @param totals Totals that count the result
+     * @param tally Metrics tally that counts the result
+     * @param out Writer that receives the result row
+     * @throws IOException if writing fails
+     */
+    private static void priceLine(byte[] line, int length, StringBuilder row,
+                                  WolfpackQuote quote, WolfpackApplicationFile.Totals totals,
+                                  WolfpackMetrics.Tally tally, Writer out)
+        throws IOException {
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        if (length == 0) {
+            return;
+        }
+        row.setLength(0);
+        out.write(WolfpackBatch.quoteRow(new String(line, 0, length, StandardCharsets.UTF_8),
+                                         row, quote, false));
+        out.write('\n');
+        totals.record(quote);
+        tally.count(quote);
+    }
+
+    /**
+     * Writes the summary of a finished shard under a temporary name and renames it into
+     * place
+     * @param shardFile Shard file
+     * @param input CSV file of applications
+     * @param first Offset of the first byte of the shard
+     * @param end Offset after the last byte of the shard
+     * @param totals Totals of the shard
+     * @throws IOException if the summary cannot be written
+     */
+    private static void writeSummary(File shardFile, File input, long first, long end,
+                                     WolfpackApplicationFile.Totals totals)
+        throws IOException {
+        File summary = summaryFile(shardFile);
+        File temporary = new File(summary.getPath() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temporary);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(SUMMARY_MAGIC);
+            out.writeInt(SUMMARY_VERSION);
+            out.writeLong(input.length());
+            out.writeLong(input.lastModified());
+            out.writeLong(first);
+            out.writeLong(end);
+            totals.write(out);
+            out.flush();
+            stream.getChannel().force(true);
+        }
+        Files.move(temporary.toPath(), summary.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the summary of a finished shard
+     * @param shardFile Shard file
+     * @param input CSV file of applications
+     * @param first Offset of the first byte of the shard
+     * @param end Offset after the last byte of the shard
+     * @return Totals of the shard, or null if the shard is not finished or its summary
+     *         belongs to a different input file or range
+     */
+    static WolfpackApplicationFile.Totals readSummary(File shardFile, File input, long first,
+                                                      long end) {
+        File summary = summaryFile(shardFile);
+        if (!summary.exists() || !shardFile.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                 new FileInputStream(summary)))) {
+            if (in.readInt() != SUMMARY_MAGIC || in.readInt() != SUMMARY_VERSION ||
+                in.readLong() != input.length() || in.readLong() != input.lastModified() ||
+                in.readLong() != first || in.readLong() != end) {
+                return null;
+            }
+            return WolfpackApplicationFile.Totals.read(in);
+        } catch (IOException e) {
+            //an unreadable summary means the shard is priced again
+            return null;
+        }
+    }
+
+    /**
+     * Joins the finished shards in input order behind the output header, renames the
+     * result over the output file, and removes the shard files
+     * @param input CSV file of applications
+     * @param output CSV file to write results to
+     * @param boundaries Shard boundaries from boundaries
+     * @return Totals of all shards
+     * @throws IOException if a shard is not finished or the output file cannot be written
+     */
+    private static WolfpackApplicationFile.Totals merge(File input, File output,
+                                                        long[] boundaries) throws IOException {
+        int shards = boundaries.length - 1;
+        WolfpackApplicationFile.Totals totals = new WolfpackApplicationFile.Totals();
+        File temporary = new File(output.getPath() + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary.toPath(), StandardOpenOption.CREATE,
+                                                StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(ByteBuffer.wrap((WolfpackBatch.OUTPUT_HEADER + "\n")
+                                      .getBytes(StandardCharsets.UTF_8)));
+            for (int shard = 0; shard < shards; shard++) {
+                File shardFile = shardFile(output, shard);
+                WolfpackApplicationFile.Totals part = readSummary(shardFile, input,
+                                                                  boundaries[shard],
+                                                                  boundaries[shard + 1]);
+                if (part == null) {
+                    throw new IOException("Shard " + shard + " not finished");
+                }
+                totals.add(part);
+                try (FileChannel in = FileChannel.open(shardFile.toPath(),
+                                                       StandardOpenOption.READ)) {
+                    //the copy stays in the kernel where the platform allows it
+                    long size = in.size();
+                    for (long copied = 0; copied < size; ) {
+                        copied += in.transferTo(copied, size - copied, out);
+                    }
+                }
+            }
+            //the shard files are removed once the output is renamed into place
+            out.force(true);
+        }
+        Files.move(temporary.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+        for (int shard = 0; shard < shards; shard++) {
+            File shardFile = shardFile(output, shard);
+            Files.deleteIfExists(summaryFile(shardFile).toPath());
+            Files.deleteIfExists(shardFile.toPath());
+        }
+        return totals;
+    }
+
+    /**
+     * Returns the file that receives a shard's result rows
+     * @param output CSV file to write results to
+     * @param shard Shard number
+     * @return Shard file
+     */
+    static File shardFile(File output, int shard) {
+        return new File(output.getPath() + SHARD_SUFFIX + shard);
+    }
+
+    /**
+     * Returns the summary file of a shard
+     * @param shardFile Shard file
+     * @return Summary file
+     */
+    static File summaryFile(File shardFile) {
+        return new File(shardFile.getPath() + SUMMARY_SUFFIX);
+    }
+}
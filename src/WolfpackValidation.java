@@ -0,0 +1,181 @@
+/**
+ * Validates loan application fields without throwing exceptions. Each check returns VALID
+ * or an error code naming the first invalid field, so rejecting a malformed record costs
+ * about the same as accepting a good one (no exception object or stack trace is created).
+ * The throwing WolfpackLending methods use these checks and convert an error code into an
+ * IllegalArgumentException with the matching message. Error codes are the same numbers as
+ * the WolfpackQuote decision codes.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackValidation {
+
+    /** Code for valid input */
+    public static final int VALID = 0;
+
+    /** Code for an invalid application date */
+    public static final int INVALID_DATE = 2;
+
+    /** Code for an invalid credit score */
+    public static final int INVALID_CREDIT_SCORE = 3;
+
+    /** Code for an invalid income */
+    public static final int INVALID_INCOME = 4;
+
+    /** Code for an invalid loan amount */
+    public static final int INVALID_LOAN_AMOUNT = 5;
+
+    /** Code for an invalid interest rate */
+    public static final int INVALID_INTEREST_RATE = 6;
+
+    /** Code for an invalid number of months */
+    public static final int INVALID_NUMBER_OF_MONTHS = 7;
+
+    /** Code for a field that is not a whole number */
+    public static final int INVALID_INPUT = 8;
+
+    /** Value returned by parseInt for text that is not a whole number */
+    public static final long NOT_A_NUMBER = Long.MIN_VALUE;
+
+    /** Messages for each code, indexed by code (code 1 is WolfpackQuote.DENIED) */
+    private static final String[] MESSAGES = {"valid input", "Loan denied", "Invalid date",
+                                              "Invalid credit score", "Invalid income",
+                                              "Invalid loan amount", "Invalid interest rate",
+                                              "Invalid number of months", "Invalid input"};
+
+    /**
+     * Returns the message for a code
+     * @param code VALID or an error code
+     * @return Message (e.g., "Invalid credit score")
+     */
+    public static String message(int code) {
+        return MESSAGES[code];
+    }
+
+    /**
+     * Checks the fields of a loan application using the same rules as the interactive
+     * program: a valid 2020 date, a credit score from 300 to 850, a non-negative income, and
+     * a loan amount from 1000 to 10000 (before any express processing fee)
+     * @param month Application month
+     * @param day Application day of the month
+     * @param creditScore Loan applicant credit score
+     * @param income Loan applicant income for 2019
+     * @param loanAmount Requested loan amount
+     * @return VALID or the code for the first invalid field
+     */
+    public static int checkApplication(int month, int day, int creditScore, int income,
+                                       int loanAmount) {
+        if (!WolfpackLending.isValidDate(month, day)) {
+            return INVALID_DATE;
+        }
+        if (creditScore < WolfpackLending.MIN_CREDIT_SCORE ||
+            creditScore > WolfpackLending.MAX_CREDIT_SCORE) {
+            return INVALID_CREDIT_SCORE;
+        }
+        if (income < 0) {
+            return INVALID_INCOME;
+        }
+        if (loanAmount < WolfpackLending.MIN_LOAN || loanAmount > WolfpackLending.MAX_LOAN) {
+            return INVALID_LOAN_AMOUNT;
+        }
+        return VALID;
+    }
+
+    /**
+     * Checks the arguments of WolfpackLending.getInterestRate
+     * @param loanAmount Total loan amount (including express processing fee)
+     * @param creditScore Loan applicant credit score
+     * @param income Loan applicant income for 2019
+     * @return VALID or the code for the first invalid argument
+     */
+    public static int checkInterestRate(int loanAmount, int creditScore, int income) {
+        if (loanAmount <= 0) {
+            return INVALID_LOAN_AMOUNT;
+        }
+        if (creditScore < WolfpackLending.MIN_CREDIT_SCORE ||
+            creditScore > WolfpackLending.MAX_CREDIT_SCORE) {
+            return INVALID_CREDIT_SCORE;
+        }
+        if (income < 0) {
+            return INVALID_INCOME;
+        }
+        return VALID;
+    }
+
+    /**
+     * Checks the arguments of WolfpackLending.getMonthlyPayment
+     * @param loanAmount Total loan amount (including express processing fee)
+     * @param annualInterestRate Annual interest rate for approved loan
+     * @param numberOfMonths Number of months in loan repayment period
+     * @return VALID or the code for the first invalid argument
+     */
+    public static int checkMonthlyPayment(double loanAmount, double annualInterestRate,
+                                          int numberOfMonths) {
+        if (loanAmount <= 0) {
+            return INVALID_LOAN_AMOUNT;
+        }
+        if (annualInterestRate < WolfpackLending.MIN_INTEREST_RATE) {
+            return INVALID_INTEREST_RATE;
+        }
+        if (numberOfMonths <= 0) {
+            return INVALID_NUMBER_OF_MONTHS;
+        }
+        return VALID;
+    }
+
+    /**
+     * Checks the arguments of WolfpackLending.getDisbursementDate
+     * @param applicationMonth Month in which the user applied for loan
+     * @param applicationDay Day of the month on which the user applied for loan
+     * @return VALID or INVALID_DATE
+     */
+    public static int checkDisbursementDate(int applicationMonth, int applicationDay) {
+        if (!WolfpackLending.isValidDate(applicationMonth, applicationDay)) {
+            return INVALID_DATE;
+        }
+        return VALID;
+    }
+
+    /**
+     * Parses a whole number from part of a line without throwing an exception. Spaces
+     * around the number are ignored, and a leading minus sign is allowed.
+     * @param text Text containing the number
+     * @param start Index of the first character of the field
+     * @param end Index just past the last character of the field
+     * @return The number, or NOT_A_NUMBER if the field is empty, contains anything other
+     *         than digits, or does not fit in an int
+     */
+    public static long parseInt(CharSequence text, int start, int end) {
+        while (start < end && text.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+        boolean negative = start < end && text.charAt(start) == '-';
+        if (negative) {
+            start++;
+        }
+        if (start == end) {
+            return NOT_A_NUMBER;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return NOT_A_NUMBER;
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                return NOT_A_NUMBER;
+            }
+        }
+        if (negative) {
+            value = -value;
+        }
+        if (value > Integer.MAX_VALUE) {
+            return NOT_A_NUMBER;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,254 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+/**
+ * Generates a realistic stream of synthetic loan applications for load and capacity tests.
+ * A workload is a cursor: each call to next generates the following application and the
+ * getters return its fields, so generating applications creates no objects. Each thread
+ * should use its own workload, created with split so that every thread draws from an
+ * independent SplittableRandom stream and a run is repeatable from its seed.
+ * Application dates are spread evenly over 2020, with a small share of invalid dates.
+ * Credit scores cluster around FAIR_CREDIT_SCORE and GOOD_CREDIT_SCORE. Loan amounts are
+ * usually round numbers, and incomes are a multiple of the loan amount drawn so that
+ * every income-to-debt ratio tier is represented. A set share of applications request
+ * express processing.
+ *
+ * @author Jessica Greene
+ */
+public class WolfpackWorkload {
+
+    /** Default share of applications that request express processing */
+    public static final double DEFAULT_EXPRESS_RATIO = 0.25;
+
+    /** Share of applications with an invalid date */
+    public static final double INVALID_DATE_RATIO = 0.02;
+
+    /** Share of credit scores drawn around GOOD_CREDIT_SCORE rather than FAIR_CREDIT_SCORE */
+    public static final double GOOD_CREDIT_RATIO = 0.4;
+
+    /** Spread of credit scores around their center (half-width of each uniform draw) */
+    public static final int CREDIT_SCORE_SPREAD = 90;
+
+    /** Smallest income as a multiple of the loan amount */
+    public static final double MIN_INCOME_RATIO = 0.5;
+
+    /** Largest income as a multiple of the loan amount */
+    public static final double MAX_INCOME_RATIO = 8.0;
+
+    /** Share of loan amounts that are a multiple of LOAN_ROUNDING */
+    public static final double ROUND_LOAN_RATIO = 0.8;
+
+    /** Unit of round loan amounts */
+    public static final int LOAN_ROUNDING = 100;
+
+    /** Header written as the first line of a generated application file */
+    public static final String CSV_HEADER = "month,day,creditScore,income,loanAmount,express";
+
+    /** Random source of this workload */
+    private final SplittableRandom random;
+
+    /** Share of applications that request express processing */
+    private final double expressRatio;
+
+    /** Application month */
+    private int month;
+
+    /** Application day of the month */
+    private int day;
+
+    /** Credit score */
+    private int creditScore;
+
+    /** Income */
+    private int income;
+
+    /** Requested loan amount */
+    private int loanAmount;
+
+    /** Whether express processing is requested */
+    private boolean expressProcessing;
+
+    /**
+     * Creates a workload
+     * @param seed Seed of the random source
+     * @param expressRatio Share of applications that request express processing
+     * @throws IllegalArgumentException if the express ratio is not from 0 to 1
+     */
+    public WolfpackWorkload(long seed, double expressRatio) {
+        this(new SplittableRandom(seed), expressRatio);
+    }
+
+    /**
+     * Creates a workload from a random source
+     * @param random Random source used only by this workload
+     * @param expressRatio Share of applications that request express processing
+     * @throws IllegalArgumentException if the express ratio is not from 0 to 1
+     */
+    private WolfpackWorkload(SplittableRandom random, double expressRatio) {
+        if (!(expressRatio >= 0 && expressRatio <= 1)) {
+            throw new IllegalArgumentException("Invalid express ratio");
+        }
+        this.random = random;
+        this.expressRatio = expressRatio;
+    }
+
+    /**
+     * Creates a workload for another thread, drawing from an independent random stream
+     * @return New workload with the same express ratio
+     */
+    public WolfpackWorkload split() {
+        return new WolfpackWorkload(random.split(), expressRatio);
+    }
+
+    /**
+     * Generates the next application
+     */
+    public void next() {
+        int epochDay = WolfpackDisbursementCalendar.APPLICATION_YEAR_EPOCH_DAY +
+                       random.nextInt(WolfpackDisbursementCalendar.DAYS_IN_APPLICATION_YEAR);
+        int date = WolfpackBusinessCalendar.date(epochDay);
+        month = date / WolfpackBusinessCalendar.MONTH_FACTOR %
+                WolfpackBusinessCalendar.MONTH_FACTOR;
+        day = date % WolfpackBusinessCalendar.MONTH_FACTOR;
+        if (random.nextDouble() < INVALID_DATE_RATIO) {
+            //the day after the last day of the month
+            day = daysInMonth(month) + 1;
+        }
+
+        //the sum of two uniform draws peaks at the center of its range
+        int center = random.nextDouble() < GOOD_CREDIT_RATIO ?
+                     WolfpackLending.GOOD_CREDIT_SCORE : WolfpackLending.FAIR_CREDIT_SCORE;
+        int score = center + random.nextInt(-CREDIT_SCORE_SPREAD, CREDIT_SCORE_SPREAD + 1) / 2 +
+                    random.nextInt(-CREDIT_SCORE_SPREAD, CREDIT_SCORE_SPREAD + 1) / 2;
+        creditScore = Math.max(WolfpackLending.MIN_CREDIT_SCORE,
+                               Math.min(WolfpackLending.MAX_CREDIT_SCORE, score));
+
+        if (random.nextDouble() < ROUND_LOAN_RATIO) {
+            loanAmount = random.nextInt(WolfpackLending.MIN_LOAN / LOAN_ROUNDING,
+                                        WolfpackLending.MAX_LOAN / LOAN_ROUNDING + 1) *
+                         LOAN_ROUNDING;
+        } else {
+            loanAmount = random.nextInt(WolfpackLending.MIN_LOAN, WolfpackLending.MAX_LOAN + 1);
+        }
+
+        //ratios are drawn evenly on a log scale so that every ratio tier is common
+        double ratio = MIN_INCOME_RATIO * Math.pow(MAX_INCOME_RATIO / MIN_INCOME_RATIO,
+                                                   random.nextDouble());
+        income = (int) (loanAmount * ratio);
+        expressProcessing = random.nextDouble() < expressRatio;
+    }
+
+    /**
+     * Returns the number of days in a month of 2020
+     * @param month Month number
+     * @return Number of days
+     */
+    private static int daysInMonth(int month) {
+        if (month == WolfpackLending.DEC) {
+            return WolfpackLending.DAYS_IN_LONG_MONTH;
+        }
+        int year = WolfpackLending.APPLICATION_YEAR;
+        return WolfpackBusinessCalendar.epochDay(year, month + 1, 1) -
+               WolfpackBusinessCalendar.epochDay(year, month, 1);
+    }
+
+    /**
+     * Returns the application month
+     * @return Month number
+     */
+    public int getMonth() {
+        return month;
+    }
+
+    /**
+     * Returns the application day of the month
+     * @return Day of the month (occasionally invalid)
+     */
+    public int getDay() {
+        return day;
+    }
+
+    /**
+     * Returns the credit score
+     * @return Credit score
+     */
+    public int getCreditScore() {
+        return creditScore;
+    }
+
+    /**
+     * Returns the income
+     * @return Income for 2019
+     */
+    public int getIncome() {
+        return income;
+    }
+
+    /**
+     * Returns the requested loan amount
+     * @return Loan amount (not including the express processing fee)
+     */
+    public int getLoanAmount() {
+        return loanAmount;
+    }
+
+    /**
+     * Returns whether express processing is requested
+     * @return True for express processing
+     */
+    public boolean isExpressProcessing() {
+        return expressProcessing;
+    }
+
+    /**
+     * Prices the current application
+     * @param result Quote that receives the decision
+     * @return The result quote
+     */
+    public WolfpackQuote quote(WolfpackQuote result) {
+        return WolfpackLending.quote(month, day, creditScore, income, loanAmount,
+                                     expressProcessing, result);
+    }
+
+    /**
+     * Writes generated applications as a CSV file for WolfpackBatch
+     * @param out Destination of the rows
+     * @param count Number of applications
+     * @throws IOException if writing fails
+     */
+    public void writeCsv(Writer out, long count) throws IOException {
+        StringBuilder row = new StringBuilder(64);
+        out.write(CSV_HEADER);
+        out.write('\n');
+        for (long i = 0; i < count; i++) {
+            next();
+            row.setLength(0);
+            row.append(month).append(',').append(day).append(',').append(creditScore)
+               .append(',').append(income).append(',').append(loanAmount).append(',')
+               .append(expressProcessing ? 'y' : 'n').append('\n');
+            out.append(row);
+        }
+    }
+
+    /**
+     * Writes a CSV file of generated applications
+     * @param args command line arguments: output file, number of applications, and
+     *             optionally the seed
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: java WolfpackWorkload applications.csv count [seed]");
+            System.exit(1);
+        }
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                 new FileOutputStream(args[0]), StandardCharsets.UTF_8), 1 << 16)) {
+            new WolfpackWorkload(seed, DEFAULT_EXPRESS_RATIO).writeCsv(out,
+                                                                  Long.parseLong(args[1]));
+        } catch (IOException e) {
+            System.out.println("Could not write applications: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
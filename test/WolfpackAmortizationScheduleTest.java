@@ -0,0 +1,127 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackAmortizationSchedule
+ * @author Jessica Greene
+ */
+public class WolfpackAmortizationScheduleTest extends TestCase {
+    /** Acceptable margin of error for test cases that produce monetary values */
+    public static final double DELTA = .01;
+
+    /**
+     * Testing a 60-month schedule repays the loan with the monthly payment
+     */
+    @Test
+    public void testScheduleRepaysLoan() {
+        WolfpackAmortizationSchedule schedule = new WolfpackAmortizationSchedule(5000, 5.5, 60);
+        double totalPrincipal = 0;
+        int months = 0;
+        while (schedule.next()) {
+            months++;
+            assertEquals(months, schedule.getMonth());
+            assertEquals(95.51, schedule.getPayment(), DELTA);
+            assertEquals(schedule.getPayment(), schedule.getInterest() + schedule.getPrincipal(),
+                         1e-9);
+            totalPrincipal += schedule.getPrincipal();
+        }
+        assertEquals(60, months);
+        assertEquals(5000, totalPrincipal, 1e-6);
+        assertEquals(0.0, schedule.getBalance(), 0);
+        assertFalse(schedule.next());
+    }
+
+    /**
+     * Testing the first month's interest and balance
+     */
+    @Test
+    public void testFirstMonth() {
+        WolfpackAmortizationSchedule schedule = new WolfpackAmortizationSchedule(1200, 6.0, 12);
+        assertTrue(schedule.next());
+        assertEquals(6.00, schedule.getInterest(), DELTA);
+        assertEquals(1200 - (schedule.getPayment() - 6.0), schedule.getBalance(), 1e-9);
+    }
+
+    /**
+     * Testing rows streams the same rows as the cursor, lazily
+     */
+    @Test
+    public void testRowsMatchesCursor() {
+        WolfpackAmortizationSchedule schedule = new WolfpackAmortizationSchedule(2025, 7.5, 60);
+        WolfpackAmortizationSchedule.Row[] rows = 
+            WolfpackAmortizationSchedule.rows(2025, 7.5, 60)
+            .toArray(WolfpackAmortizationSchedule.Row[]::new);
+        assertEquals(60, rows.length);
+        for (WolfpackAmortizationSchedule.Row row : rows) {
+            assertTrue(schedule.next());
+            assertEquals(schedule.getMonth(), row.getMonth());
+            assertEquals(schedule.getBalance(), row.getBalance(), 0);
+        }
+        assertEquals(2, WolfpackAmortizationSchedule.rows(2025, 7.5, 60).limit(2).count());
+    }
+
+    /**
+     * Testing invalid loans are rejected like getMonthlyPayment
+     */
+    @Test
+    public void testInvalidLoan() {
+        try {
+            new WolfpackAmortizationSchedule(3000, 0.49, 20);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid interest rate", e.getMessage());
+        }
+    }
+
+    /**
+     * Testing writeSchedules writes 60 rows for each approved loan in a batch result file
+     * @throws IOException if the temporary files cannot be used
+     */
+    @Test
+    public void testWriteSchedulesFromBatchResults() throws IOException {
+        File input = File.createTempFile("applications", ".csv");
+        File results = File.createTempFile("results", ".csv");
+        File schedules = File.createTempFile("schedules", ".csv");
+        input.deleteOnExit();
+        results.deleteOnExit();
+        schedules.deleteOnExit();
+        Files.write(input.toPath(), ("3,16,755,2000,2229,y\n4,30,300,0,8967,n\n" +
+                                     "5,1,600,40000,5000,n\n").getBytes(StandardCharsets.UTF_8));
+        WolfpackBatch.run(input, results, 2);
+        assertEquals(2, WolfpackAmortizationSchedule.writeSchedules(results, schedules));
+
+        String[] lines = new String(Files.readAllBytes(schedules.toPath()),
+                                    StandardCharsets.UTF_8).split("\n");
+        assertEquals(121, lines.length);
+        assertEquals(WolfpackAmortizationSchedule.OUTPUT_HEADER, lines[0]);
+        assertTrue(lines[1], lines[1].startsWith("1,1,43.05,10.33,"));
+        assertTrue(lines[60], lines[60].endsWith(",0.00"));
+        assertTrue(lines[61], lines[61].startsWith("3,1,"));
+    }
+
+    /**
+     * Testing writeSchedules reports the line of an approved row whose loan amount is not
+     * a number
+     * @throws IOException if the temporary files cannot be used
+     */
+    @Test
+    public void testWriteSchedulesInvalidRow() throws IOException {
+        File results = File.createTempFile("results", ".csv");
+        File schedules = File.createTempFile("schedules", ".csv");
+        results.deleteOnExit();
+        schedules.deleteOnExit();
+        Files.write(results.toPath(), (WolfpackBatch.OUTPUT_HEADER + "\n" +
+                                       "4,30,300,0,8967,n,Loan denied,,,,\n" +
+                                       "3,16,755,2000,2229,y,Approved,22x54.00,5.5,43.05," +
+                                       "Thu 3 19 2020\n").getBytes(StandardCharsets.UTF_8));
+        try {
+            WolfpackAmortizationSchedule.writeSchedules(results, schedules);
+            fail("A loan amount that is not a number should be rejected");
+        } catch (IOException e) {
+            assertEquals("Invalid result row on line 3", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackApplicationFile methods
+ * @author Jessica Greene
+ */
+public class WolfpackApplicationFileTest extends TestCase {
+
+    /** Application rows covering each decision */
+    private static final String CSV = "month,day,creditScore,income,loanAmount,express\n" +
+                                      "3,16,755,2000,2229,y\n" +
+                                      "4,30,300,0,8967,n\n" +
+                                      "\n" +
+                                      "2,30,755,2000,2229,y\n" +
+                                      "2,3,900,2000,2229,y\n" +
+                                      "2,3,700,-1,2229,y\n" +
+                                      "2,3,700,1,999,y\n" +
+                                      "a,3,700,1,999,y\n" +
+                                      "300,3,700,40000,5000,n\n" +
+                                      "12,31,600,40000,5000, Y\n";
+
+    /**
+     * Converts CSV text to a temporary application file
+     * @param csv CSV application rows
+     * @return Application file
+     * @throws IOException if the file cannot be written
+     */
+    private static File convert(String csv) throws IOException {
+        File file = File.createTempFile("applications", ".bin");
+        file.deleteOnExit();
+        WolfpackApplicationFile.convert(new BufferedReader(new StringReader(csv)), file);
+        return file;
+    }
+
+    /**
+     * Testing records read back hold the fields of their CSV rows
+     */
+    @Test
+    public void testConvertAndScan() throws IOException {
+        File file = convert(CSV);
+        assertEquals(WolfpackApplicationFile.HEADER_SIZE +
+                     9 * WolfpackApplicationFile.RECORD_SIZE, file.length());
+        assertEquals(9, WolfpackApplicationFile.count(file));
+        ArrayList<String> records = new ArrayList<>();
+        assertEquals(9, WolfpackApplicationFile.scan(file, (index, parsed, month, day,
+                     creditScore, income, loanAmount, express) ->
+            records.add(index + ":" + (parsed ? month + "," + day + "," + creditScore + "," +
+                        income + "," + loanAmount + "," + express : "invalid"))));
+        assertEquals("0:3,16,755,2000,2229,true", records.get(0));
+        assertEquals("1:4,30,300,0,8967,false", records.get(1));
+        assertEquals("4:2,3,700,-1,2229,true", records.get(4));
+        assertEquals("6:invalid", records.get(6));
+        assertEquals("7:0,3,700,40000,5000,false", records.get(7));
+        assertEquals("8:12,31,600,40000,5000,true", records.get(8));
+
+        records.clear();
+        WolfpackApplicationFile.scan(file, 7, 2, (index, parsed, month, day, creditScore,
+                                                  income, loanAmount, express) ->
+            records.add(index + ":" + month));
+        assertEquals("[7:0, 8:12]", records.toString());
+        try {
+            WolfpackApplicationFile.scan(file, 8, 2, (index, parsed, month, day, creditScore,
+                                                      income, loanAmount, express) -> { });
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid record range", e.getMessage());
+        }
+    }
+
+    /**
+     * Testing pricing an application file gives the same decisions as WolfpackBatch
+     */
+    @Test
+    public void testPrice() throws IOException {
+        File file = convert(CSV);
+        ArrayList<String> messages = new ArrayList<>();
+        WolfpackQuote record = new WolfpackQuote();
+        WolfpackApplicationFile.scan(file, (index, parsed, month, day, creditScore, income,
+                                            loanAmount, express) ->
+            messages.add(parsed ? WolfpackLending.quote(month, day, creditScore, income,
+                                                        loanAmount, express, record)
+                                                 .getMessage() : "Invalid input"));
+        int row = 0;
+        for (String line : CSV.split("\n")) {
+            if (line.isEmpty() || line.startsWith("month")) {
+                continue;
+            }
+            String result = WolfpackBatch.quoteRow(line, new StringBuilder());
+            assertTrue(result, result.startsWith(line + "," + messages.get(row++) + ","));
+        }
+        for (int threads = 1; threads <= 4; threads++) {
+            WolfpackApplicationFile.Totals totals = WolfpackApplicationFile.price(file, threads);
+            assertEquals(9, totals.getRecords());
+            assertEquals(2, totals.getDecisionCount(WolfpackQuote.APPROVED));
+            assertEquals(1, totals.getDecisionCount(WolfpackQuote.DENIED));
+            assertEquals(2, totals.getDecisionCount(WolfpackValidation.INVALID_DATE));
+            assertEquals(1, totals.getDecisionCount(WolfpackValidation.INVALID_CREDIT_SCORE));
+            assertEquals(1, totals.getDecisionCount(WolfpackValidation.INVALID_INCOME));
+            assertEquals(1, totals.getDecisionCount(WolfpackValidation.INVALID_LOAN_AMOUNT));
+            assertEquals(1, totals.getDecisionCount(WolfpackValidation.INVALID_INPUT));
+            assertEquals(225400 + 502500, totals.getLoanCents());
+            WolfpackQuote quote = new WolfpackQuote();
+            long payments = WolfpackLending.quote(3, 16, 755, 2000, 2229, true, quote)
+                                           .getPaymentCents() +
+                            WolfpackLending.quote(12, 31, 600, 40000, 5000, true, quote)
+                                           .getPaymentCents();
+            assertEquals(payments, totals.getPaymentCents());
+        }
+    }
+
+    /**
+     * Testing pricing with a decision journal leaves every decision durable
+     * @throws IOException if a temporary file cannot be used
+     */
+    @Test
+    public void testPriceJournaled() throws IOException {
+        int rows = WolfpackApplicationFile.COMMIT_RECORDS * 2 + 3;
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            csv.append(i % 12 + 1).append(",5,").append(300 + i % 551).append(",")
+               .append(i).append(",").append(1000 + i % 9001).append(",n\n");
+        }
+        File file = convert(csv.toString());
+        File journalFile = File.createTempFile("decisions", ".journal");
+        journalFile.delete();
+        journalFile.deleteOnExit();
+        try (WolfpackDecisionJournal journal = WolfpackDecisionJournal.open(journalFile)) {
+            WolfpackDecisionJournal.install(journal);
+            WolfpackApplicationFile.Totals totals = WolfpackApplicationFile.price(file, 2);
+            assertEquals(0, journal.pendingRecords());
+            long decided = totals.getDecisionCount(WolfpackQuote.APPROVED) +
+                           totals.getDecisionCount(WolfpackQuote.DENIED);
+            assertEquals(decided, WolfpackDecisionJournal.read(journalFile, record -> { }));
+        } finally {
+            WolfpackDecisionJournal.install(null);
+        }
+    }
+
+    /**
+     * Testing files that are not application files are rejected
+     */
+    @Test
+    public void testInvalidFile() throws IOException {
+        File file = File.createTempFile("applications", ".bin");
+        file.deleteOnExit();
+        Files.write(file.toPath(), new byte[WolfpackApplicationFile.HEADER_SIZE]);
+        try {
+            WolfpackApplicationFile.count(file);
+            fail();
+        } catch (IOException e) {
+            assertEquals("Invalid application file", e.getMessage());
+        }
+        File valid = convert(CSV);
+        byte[] bytes = Files.readAllBytes(valid.toPath());
+        Files.write(file.toPath(), java.util.Arrays.copyOf(bytes, bytes.length - 1));
+        try {
+            WolfpackApplicationFile.price(file, 1);
+            fail();
+        } catch (IOException e) {
+            assertEquals("Invalid application file", e.getMessage());
+        }
+    }
+}
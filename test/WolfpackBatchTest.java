@@ -0,0 +1,266 @@
+import java.io.*;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackBatch methods
+ * @author Jessica Greene
+ */
+public class WolfpackBatchTest extends TestCase {
+
+    /**
+     * Testing quoteRow for an approved express application
+     */
+    @Test
+    public void testQuoteRowApprovedExpress() {
+        assertEquals("WolfpackBatch.quoteRow(\"3,16,755,2000,2229,y\")",
+                     "3,16,755,2000,2229,y,Approved,2254.00,5.5,43.05,\"Thu, 3 19 2020\"",
+                     WolfpackBatch.quoteRow("3,16,755,2000,2229,y", new StringBuilder()));
+    }
+
+    /**
+     * Testing quoteRow for a denied application
+     */
+    @Test
+    public void testQuoteRowDenied() {
+        assertEquals("WolfpackBatch.quoteRow(\"4,30,300,0,8967,n\")",
+                     "4,30,300,0,8967,n,Loan denied,,,,",
+                     WolfpackBatch.quoteRow("4,30,300,0,8967,n", new StringBuilder()));
+    }
+
+    /**
+     * Testing quoteRow with invalid fields
+     */
+    @Test
+    public void testQuoteRowInvalid() {
+        assertEquals("3,16,755,2000,2229,y,,Invalid input,,,,",
+                     WolfpackBatch.quoteRow("3,16,755,2000,2229,y,", new StringBuilder()));
+        assertEquals("2,30,755,2000,2229,y,Invalid date,,,,",
+                     WolfpackBatch.quoteRow("2,30,755,2000,2229,y", new StringBuilder()));
+        assertEquals("2,3,900,2000,2229,y,Invalid credit score,,,,",
+                     WolfpackBatch.quoteRow("2,3,900,2000,2229,y", new StringBuilder()));
+        assertEquals("2,3,700,-1,2229,y,Invalid income,,,,",
+                     WolfpackBatch.quoteRow("2,3,700,-1,2229,y", new StringBuilder()));
+        assertEquals("2,3,700,1,999,y,Invalid loan amount,,,,",
+                     WolfpackBatch.quoteRow("2,3,700,1,999,y", new StringBuilder()));
+        assertEquals("a,3,700,1,999,y,Invalid input,,,,",
+                     WolfpackBatch.quoteRow("a,3,700,1,999,y", new StringBuilder()));
+    }
+
+    /**
+     * Testing run keeps input order across many chunks and threads
+     * @throws IOException if the in-memory reader or writer fails
+     */
+    @Test
+    public void testRunKeepsOrder() throws IOException {
+        int rows = WolfpackBatch.CHUNK_SIZE * 5 + 17;
+        StringBuilder input = new StringBuilder("month,day,creditScore,income,loan,express\n");
+        for (int i = 0; i < rows; i++) {
+            input.append(i % 12 + 1).append(",1,").append(300 + i % 551).append(",")
+                 .append(i).append(",").append(1000 + i % 9001).append(",n\n");
+        }
+        StringWriter output = new StringWriter();
+        long count = WolfpackBatch.run(new BufferedReader(new StringReader(input.toString())),
+                                       output, 4);
+        assertEquals(rows, count);
+
+        String[] lines = output.toString().split("\n");
+        assertEquals(rows + 1, lines.length);
+        assertEquals(WolfpackBatch.OUTPUT_HEADER, lines[0]);
+        for (int i = 0; i < rows; i++) {
+            String expected = (i % 12 + 1) + ",1," + (300 + i % 551) + "," + i + ","
+                              + (1000 + i % 9001) + ",n";
+            assertEquals(WolfpackBatch.quoteRow(expected, new StringBuilder()), lines[i + 1]);
+        }
+    }
+
+    /**
+     * Testing a first data row that starts with a space is priced rather than skipped as
+     * a header
+     * @throws IOException if the rows cannot be read or written
+     */
+    @Test
+    public void testRunFirstRowWithLeadingSpace() throws IOException {
+        StringWriter output = new StringWriter();
+        assertEquals(2, WolfpackBatch.run(new BufferedReader(new StringReader(
+                         " 3,16,755,2000,2229,y\n4,30,300,0,8967,n\n")), output, 1));
+        assertEquals(WolfpackBatch.OUTPUT_HEADER + "\n" +
+                     WolfpackBatch.quoteRow(" 3,16,755,2000,2229,y", new StringBuilder()) +
+                     "\n4,30,300,0,8967,n,Loan denied,,,,\n", output.toString());
+        assertTrue(WolfpackBatch.isHeader(" month,day"));
+    }
+
+    /**
+     * Testing a repeated run with a dedup index prices only the rows the failed run did
+     * not finish and completes the same output file without duplicates
+     * @throws IOException if a temporary file cannot be written
+     */
+    @Test
+    public void testRerunWithIndex() throws IOException {
+        int rows = WolfpackBatch.CHUNK_SIZE * 3 + 5;
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            input.append(i % 12 + 1).append(",2,").append(300 + i % 551).append(",")
+                 .append(i * 3).append(",").append(1000 + i % 9001).append(",y,")
+                 .append(1000 + i).append('\n');
+        }
+        int finished = WolfpackBatch.CHUNK_SIZE + 100;
+        String full = input.toString();
+        String partial = full.substring(0, full.indexOf("," + (1000 + finished) + "\n"));
+        partial = partial.substring(0, partial.lastIndexOf('\n') + 1);
+
+        File inputFile = File.createTempFile("applications", ".csv");
+        File outputFile = File.createTempFile("results", ".csv");
+        File indexFile = File.createTempFile("decided", ".idx");
+        inputFile.deleteOnExit();
+        outputFile.deleteOnExit();
+        indexFile.deleteOnExit();
+        outputFile.delete();
+        indexFile.delete();
+        try (Writer out = new FileWriter(inputFile)) {
+            out.write(partial + "3,16,755,2000,2229,y\n");
+        }
+        try (WolfpackDedupIndex index = WolfpackDedupIndex.open(indexFile)) {
+            assertEquals(finished + 1, WolfpackBatch.run(inputFile, outputFile, 2, index));
+            //the row without an ID is recorded by its line number
+            assertEquals(finished + 1, index.size());
+        }
+        try (Writer out = new FileWriter(inputFile)) {
+            out.write(full);
+        }
+        try (WolfpackDedupIndex index = WolfpackDedupIndex.open(indexFile)) {
+            assertEquals(rows - finished, WolfpackBatch.run(inputFile, outputFile, 3, index));
+            assertEquals(finished, index.getHits());
+            assertEquals(rows + 1, index.size());
+        }
+
+        String[] lines = new String(java.nio.file.Files.readAllBytes(outputFile.toPath()))
+                             .split("\n");
+        assertEquals(rows + 2, lines.length);
+        assertEquals(WolfpackBatch.OUTPUT_HEADER_WITH_ID, lines[0]);
+        assertEquals("3,16,755,2000,2229,y,Invalid input,,,,,", lines[finished + 1]);
+        String[] expected = full.split("\n");
+        for (int i = 0; i < rows; i++) {
+            String line = lines[i < finished ? i + 1 : i + 2];
+            int idStart = expected[i].lastIndexOf(',');
+            String unpriced = expected[i].substring(0, idStart);
+            assertEquals(WolfpackBatch.quoteRow(unpriced, new StringBuilder()) +
+                         expected[i].substring(idStart), line);
+        }
+    }
+
+    /**
+     * Testing rows without a valid applicant ID are reported once, however often the same
+     * input is run again with a dedup index
+     * @throws IOException if a temporary file cannot be written
+     */
+    @Test
+    public void testRerunReportsRowsWithoutIdOnce() throws IOException {
+        String input = "month,day,creditScore,income,loanAmount,express,applicantId\n" +
+                       "3,16,755,40000,5000,y,1\n" +
+                       "3,16,755,40000,5000,y\n" +
+                       "3,16,755,40000,5000,y,x\n" +
+                       "3,16,755,40000,5000,y,2\n";
+        File inputFile = File.createTempFile("applications", ".csv");
+        File outputFile = File.createTempFile("results", ".csv");
+        File indexFile = File.createTempFile("decided", ".idx");
+        inputFile.deleteOnExit();
+        outputFile.deleteOnExit();
+        indexFile.deleteOnExit();
+        outputFile.delete();
+        indexFile.delete();
+        try (Writer out = new FileWriter(inputFile)) {
+            out.write(input);
+        }
+        try (WolfpackDedupIndex index = WolfpackDedupIndex.open(indexFile)) {
+            assertEquals(4, WolfpackBatch.run(inputFile, outputFile, 1, index));
+        }
+        long length = outputFile.length();
+        for (int run = 0; run < 2; run++) {
+            try (WolfpackDedupIndex index = WolfpackDedupIndex.open(indexFile)) {
+                assertEquals(0, WolfpackBatch.run(inputFile, outputFile, 1, index));
+                assertEquals(4, index.getHits());
+            }
+            assertEquals(length, outputFile.length());
+        }
+
+        String[] lines = new String(java.nio.file.Files.readAllBytes(outputFile.toPath()))
+                             .split("\n");
+        assertEquals(5, lines.length);
+        assertEquals("3,16,755,40000,5000,y,Invalid input,,,,,", lines[2]);
+        assertEquals("3,16,755,40000,5000,y,Invalid input,,,,,x", lines[3]);
+    }
+
+    /**
+     * Testing a rerun after a crash in the middle of a chunk, when some of the chunk's
+     * rows reached the output file before their IDs reached the index and the last row is
+     * torn, writes every row exactly once
+     * @throws IOException if a temporary file cannot be written
+     */
+    @Test
+    public void testRerunAfterCrashMidChunk() throws IOException {
+        int rows = WolfpackBatch.CHUNK_SIZE + 50;
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            input.append(i % 12 + 1).append(",3,").append(300 + i % 551).append(",")
+                 .append(i * 7).append(",").append(1000 + i % 9001).append(",n,")
+                 .append(5000 + i).append('\n');
+        }
+        String[] applications = input.toString().split("\n");
+        int finished = WolfpackBatch.CHUNK_SIZE;
+
+        File inputFile = File.createTempFile("applications", ".csv");
+        File outputFile = File.createTempFile("results", ".csv");
+        File indexFile = File.createTempFile("decided", ".idx");
+        inputFile.deleteOnExit();
+        outputFile.deleteOnExit();
+        indexFile.deleteOnExit();
+        outputFile.delete();
+        indexFile.delete();
+        StringBuilder partial = new StringBuilder();
+        for (int i = 0; i < finished; i++) {
+            partial.append(applications[i]).append('\n');
+        }
+        try (Writer out = new FileWriter(inputFile)) {
+            out.write(partial.toString());
+        }
+        try (WolfpackDedupIndex index = WolfpackDedupIndex.open(indexFile)) {
+            assertEquals(finished, WolfpackBatch.run(inputFile, outputFile, 1, index));
+            assertEquals(outputFile.length(), index.getOutputOffset());
+        }
+
+        //the writer flushed part of the next chunk, then the run died mid-row
+        int flushed = 20;
+        try (Writer out = new FileWriter(outputFile, true)) {
+            for (int i = finished; i < finished + flushed; i++) {
+                out.write(WolfpackBatch.quoteRow(applications[i], new StringBuilder(),
+                                                 new WolfpackQuote(), true));
+                out.write('\n');
+            }
+            String torn = WolfpackBatch.quoteRow(applications[finished + flushed],
+                                                 new StringBuilder(), new WolfpackQuote(),
+                                                 true);
+            out.write(torn.substring(0, torn.length() / 2));
+        }
+
+        try (Writer out = new FileWriter(inputFile)) {
+            out.write(input.toString());
+        }
+        try (WolfpackDedupIndex index = WolfpackDedupIndex.open(indexFile)) {
+            assertEquals(rows - finished - flushed,
+                         WolfpackBatch.run(inputFile, outputFile, 2, index));
+            assertEquals(finished + flushed, index.getHits());
+            assertEquals(rows, index.size());
+            assertEquals(outputFile.length(), index.getOutputOffset());
+        }
+
+        String[] lines = new String(java.nio.file.Files.readAllBytes(outputFile.toPath()))
+                             .split("\n");
+        assertEquals(rows + 1, lines.length);
+        assertEquals(WolfpackBatch.OUTPUT_HEADER_WITH_ID, lines[0]);
+        for (int i = 0; i < rows; i++) {
+            assertEquals(WolfpackBatch.quoteRow(applications[i], new StringBuilder(),
+                                                new WolfpackQuote(), true), lines[i + 1]);
+        }
+    }
+}
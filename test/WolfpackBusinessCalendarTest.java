@@ -0,0 +1,159 @@
+import java.io.StringReader;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.HashSet;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackBusinessCalendar methods
+ * @author Jessica Greene
+ */
+public class WolfpackBusinessCalendarTest extends TestCase {
+
+    /** Holiday file used by the tests */
+    private static final String HOLIDAYS =
+        "# New Year's Day and Christmas every year\n" +
+        "01-01\n" +
+        "12-25   # Christmas\n" +
+        "\n" +
+        "2020-07-03\n" +
+        "2021-11-25\n";
+
+    /**
+     * Testing date conversions against java.time over several centuries
+     */
+    @Test
+    public void testDateConversions() {
+        String[] dayNames = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"};
+        LocalDate date = LocalDate.of(1899, 12, 1);
+        while (date.getYear() < 2102) {
+            int epochDay = (int) date.toEpochDay();
+            assertEquals(epochDay, WolfpackBusinessCalendar.epochDay(date.getYear(),
+                         date.getMonthValue(), date.getDayOfMonth()));
+            assertEquals(date.getYear(), WolfpackBusinessCalendar.year(epochDay));
+            assertEquals(date.getMonthValue(), WolfpackBusinessCalendar.month(epochDay));
+            assertEquals(date.getDayOfMonth(), WolfpackBusinessCalendar.day(epochDay));
+            assertEquals(date.getYear() * 10000 + date.getMonthValue() * 100 +
+                         date.getDayOfMonth(), WolfpackBusinessCalendar.date(epochDay));
+            assertEquals(date.getDayOfWeek().getValue() % 7,
+                         WolfpackBusinessCalendar.dayOfWeek(epochDay));
+            assertEquals(dayNames[date.getDayOfWeek().getValue() - 1] + ", " +
+                         date.getMonthValue() + " " + date.getDayOfMonth() + " " +
+                         date.getYear(), WolfpackBusinessCalendar.format(epochDay));
+            date = date.plusDays(1);
+        }
+        assertTrue(WolfpackBusinessCalendar.isValidDate(2000, 2, 29));
+        assertFalse(WolfpackBusinessCalendar.isValidDate(1900, 2, 29));
+        assertFalse(WolfpackBusinessCalendar.isValidDate(2021, 4, 31));
+        assertFalse(WolfpackBusinessCalendar.isValidDate(2021, 13, 1));
+    }
+
+    /**
+     * Testing every disbursement date of a multi-year window against java.time
+     * @throws Exception if the holidays cannot be read
+     */
+    @Test
+    public void testDisbursementsSkipWeekendsAndHolidays() throws Exception {
+        WolfpackBusinessCalendar calendar =
+            WolfpackBusinessCalendar.parse(new StringReader(HOLIDAYS), 2019, 2023);
+        HashSet<LocalDate> holidays = new HashSet<>();
+        for (int year = 2019; year <= 2024; year++) {
+            holidays.add(LocalDate.of(year, 1, 1));
+            holidays.add(LocalDate.of(year, 12, 25));
+        }
+        holidays.add(LocalDate.of(2020, 7, 3));
+        holidays.add(LocalDate.of(2021, 11, 25));
+
+        LocalDate date = LocalDate.of(2019, 1, 1);
+        while (date.getYear() <= 2023) {
+            for (boolean express : new boolean[] {false, true}) {
+                LocalDate expected = date.plusDays(express ? 3 : 20);
+                while (expected.getDayOfWeek() == DayOfWeek.SATURDAY ||
+                       expected.getDayOfWeek() == DayOfWeek.SUNDAY ||
+                       holidays.contains(expected)) {
+                    expected = expected.plusDays(1);
+                }
+                assertEquals(expected.toEpochDay(), calendar.disbursementEpochDay(
+                                 (int) date.toEpochDay(), express));
+            }
+            date = date.plusDays(1);
+        }
+        //Friday, July 3, 2020 is a holiday, so express applications from June 30 wait
+        //until Monday
+        assertEquals("Mon, 7 6 2020", calendar.getDisbursementDate(2020, 6, 30, true));
+        assertEquals("Mon, 1 3 2022", calendar.getDisbursementDate(2021, 12, 29, true));
+        assertFalse(calendar.isBusinessDay(WolfpackBusinessCalendar.epochDay(2021, 11, 25)));
+        assertTrue(calendar.isBusinessDay(WolfpackBusinessCalendar.epochDay(2021, 11, 26)));
+    }
+
+    /**
+     * Testing searches at the ends of the calendar
+     */
+    @Test
+    public void testCalendarBounds() {
+        //January 1, 2023 is a Sunday
+        WolfpackBusinessCalendar calendar = new WolfpackBusinessCalendar(2023, 2023,
+                                                                         new int[0]);
+        int first = WolfpackBusinessCalendar.epochDay(2023, 1, 1);
+        assertFalse(calendar.isBusinessDay(first));
+        assertEquals(first + 1, calendar.nextBusinessDay(first));
+        assertEquals("Tue, 1 2 2024", WolfpackBusinessCalendar.format(
+                         calendar.disbursementEpochDay(WolfpackBusinessCalendar.epochDay(
+                             2023, 12, 13), false)));
+        //December 30 and 31, 2024 are a Monday and Tuesday; the calendar ends after them
+        assertEquals(WolfpackBusinessCalendar.epochDay(2024, 12, 31),
+                     calendar.nextBusinessDay(WolfpackBusinessCalendar.epochDay(2024, 12, 31)));
+
+        WolfpackBusinessCalendar closedEnd = new WolfpackBusinessCalendar(2023, 2023,
+            new int[] {WolfpackBusinessCalendar.epochDay(2024, 12, 30),
+                       WolfpackBusinessCalendar.epochDay(2024, 12, 31)});
+        try {
+            closedEnd.nextBusinessDay(WolfpackBusinessCalendar.epochDay(2024, 12, 28));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid date", e.getMessage());
+        }
+        try {
+            calendar.disbursementEpochDay(WolfpackBusinessCalendar.epochDay(2024, 1, 1), true);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid date", e.getMessage());
+        }
+        try {
+            calendar.getDisbursementDate(2023, 2, 29, true);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid date", e.getMessage());
+        }
+    }
+
+    /**
+     * Testing invalid holiday files and year ranges
+     * @throws Exception if the holidays cannot be read
+     */
+    @Test
+    public void testInvalidHolidays() throws Exception {
+        String[] invalid = {"2020-02-30", "13-01", "July 4", "2020-07-04-1", "07--04"};
+        for (String holidays : invalid) {
+            try {
+                WolfpackBusinessCalendar.parse(new StringReader("01-01\n" + holidays), 2020,
+                                               2020);
+                fail(holidays);
+            } catch (IllegalArgumentException e) {
+                assertEquals("Invalid holiday on line 2", e.getMessage());
+            }
+        }
+        try {
+            new WolfpackBusinessCalendar(2021, 2020, new int[0]);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid year range", e.getMessage());
+        }
+        //an annual February 29 holiday only closes leap years
+        WolfpackBusinessCalendar calendar =
+            WolfpackBusinessCalendar.parse(new StringReader("02-29"), 2023, 2024);
+        assertFalse(calendar.isBusinessDay(WolfpackBusinessCalendar.epochDay(2024, 2, 29)));
+        assertTrue(calendar.isBusinessDay(WolfpackBusinessCalendar.epochDay(2023, 3, 1)));
+    }
+}
@@ -0,0 +1,158 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackCashFlowSimulator
+ * @author Jessica Greene
+ */
+public class WolfpackCashFlowSimulatorTest extends TestCase {
+
+    /**
+     * Creates a portfolio of random approved loans
+     * @param size Number of loans
+     * @return Portfolio
+     */
+    private static WolfpackPortfolio portfolio(int size) {
+        int[] months = new int[size];
+        int[] days = new int[size];
+        boolean[] express = new boolean[size];
+        int[] loanAmounts = new int[size];
+        double[] rates = new double[size];
+        double[] tierRates = {WolfpackLending.SPECIAL_INTEREST_RATE,
+                              WolfpackLending.LOW_INTEREST_RATE,
+                              WolfpackLending.MODERATE_INTEREST_RATE,
+                              WolfpackLending.HIGH_INTEREST_RATE};
+        SplittableRandom random = new SplittableRandom(5);
+        for (int i = 0; i < size; i++) {
+            months[i] = random.nextInt(1, 13);
+            days[i] = random.nextInt(1, 29);
+            express[i] = random.nextBoolean();
+            loanAmounts[i] = random.nextInt(1000, 10026);
+            rates[i] = tierRates[random.nextInt(tierRates.length)];
+        }
+        return new WolfpackPortfolio(months, days, express, loanAmounts, rates);
+    }
+
+    /**
+     * Testing every path is the payment schedule when no loan prepays or defaults
+     */
+    @Test
+    public void testNoEvents() {
+        WolfpackPortfolio portfolio = portfolio(200);
+        long scheduled = portfolio.aggregate().getMonthlyReceivableCents();
+        WolfpackCashFlowSimulator.Result result =
+            new WolfpackCashFlowSimulator(portfolio, 0, 0, 0).simulate(5000, 1, 2);
+        assertEquals(5000, result.getPaths());
+        for (int month = 1; month <= WolfpackLending.NUMBER_OF_MONTHS; month++) {
+            assertEquals(scheduled, result.getScheduledInflowCents(month));
+            assertEquals(scheduled, result.getMeanInflowCents(month), 1e-6);
+            assertEquals(scheduled, result.getPercentileInflowCents(month, 5));
+            assertEquals(scheduled, result.getPercentileInflowCents(month, 95));
+        }
+        assertEquals(0.0, result.getMeanPrepayments());
+        assertEquals(0.0, result.getMeanDefaults());
+    }
+
+    /**
+     * Testing the same seed gives the same result with any number of threads
+     */
+    @Test
+    public void testReproducible() {
+        WolfpackCashFlowSimulator simulator =
+            new WolfpackCashFlowSimulator(portfolio(300), 0.1, 0.05, 0.3);
+        long paths = WolfpackCashFlowSimulator.BLOCK_PATHS * 9 + 100;
+        String one = simulator.simulate(paths, 42, 1).toString();
+        assertEquals(one, simulator.simulate(paths, 42, 3).toString());
+        assertFalse(one.equals(simulator.simulate(paths, 43, 3).toString()));
+    }
+
+    /**
+     * Testing the bands are ordered and around the mean, and prepayments and defaults
+     * lower the inflows late in the term
+     */
+    @Test
+    public void testBands() {
+        WolfpackPortfolio portfolio = portfolio(500);
+        WolfpackCashFlowSimulator.Result result =
+            new WolfpackCashFlowSimulator(portfolio, 0.2, 0.05, 0.25).simulate(20000, 7, 2);
+        for (int month = 1; month <= WolfpackLending.NUMBER_OF_MONTHS; month++) {
+            long[] bands = new long[WolfpackCashFlowSimulator.BANDS.length];
+            for (int i = 0; i < bands.length; i++) {
+                bands[i] = result.getPercentileInflowCents(month,
+                                                           WolfpackCashFlowSimulator.BANDS[i]);
+            }
+            long[] sorted = bands.clone();
+            Arrays.sort(sorted);
+            assertTrue(Arrays.equals(sorted, bands));
+            assertTrue(bands[0] <= result.getMeanInflowCents(month));
+            assertTrue(bands[bands.length - 1] >= result.getMeanInflowCents(month));
+        }
+        assertTrue(result.getMeanInflowCents(WolfpackLending.NUMBER_OF_MONTHS) <
+                   result.getScheduledInflowCents(WolfpackLending.NUMBER_OF_MONTHS));
+
+        //chance that a loan has an event within 5 years, split by the monthly hazards
+        double prepayment = 1 - Math.pow(0.8, 1.0 / 12);
+        double defaults = 1 - Math.pow(0.95, 1.0 / 12);
+        double event = 1 - (1 - prepayment) * (1 - defaults);
+        double anyEvent = 1 - Math.pow(1 - event, WolfpackLending.NUMBER_OF_MONTHS);
+        assertEquals(500 * anyEvent * defaults / event, result.getMeanDefaults(), 0.5);
+        assertEquals(500 * anyEvent * (1 - defaults / event), result.getMeanPrepayments(),
+                     0.5);
+    }
+
+    /**
+     * Testing a prepayment receives the whole remaining balance, so with prepayments only
+     * each path receives at least the principal and at most the scheduled payments
+     */
+    @Test
+    public void testPrepaymentReturnsPrincipal() {
+        WolfpackPortfolio portfolio = portfolio(100);
+        WolfpackPortfolio.Exposure exposure = portfolio.aggregate();
+        WolfpackCashFlowSimulator.Result result =
+            new WolfpackCashFlowSimulator(portfolio, 0.5, 0, 0).simulate(1000, 3, 1);
+        double total = 0;
+        for (int month = 1; month <= WolfpackLending.NUMBER_OF_MONTHS; month++) {
+            total += result.getMeanInflowCents(month);
+        }
+        assertTrue(total > exposure.getPrincipalCents());
+        assertTrue(total < exposure.getMonthlyReceivableCents() *
+                           (double) WolfpackLending.NUMBER_OF_MONTHS);
+        assertTrue(result.getMeanPrepayments() > 0);
+        assertEquals(0.0, result.getMeanDefaults());
+    }
+
+    /**
+     * Testing invalid arguments are rejected
+     */
+    @Test
+    public void testInvalidArguments() {
+        WolfpackPortfolio portfolio = portfolio(10);
+        try {
+            new WolfpackCashFlowSimulator(portfolio, 1, 0, 0);
+            fail("A prepayment rate of 1 should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid rate", e.getMessage());
+        }
+        WolfpackCashFlowSimulator simulator = new WolfpackCashFlowSimulator(portfolio, 0, 0, 0);
+        try {
+            simulator.simulate(0, 1, 1);
+            fail("0 paths should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid number of paths", e.getMessage());
+        }
+        try {
+            simulator.simulate(10, 1, 0);
+            fail("0 threads should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid number of threads", e.getMessage());
+        }
+        try {
+            simulator.simulate(10, 1, 1).getPercentileInflowCents(61, 50);
+            fail("Month 61 should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid month", e.getMessage());
+        }
+    }
+}
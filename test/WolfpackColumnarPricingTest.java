@@ -0,0 +1,83 @@
+import java.util.SplittableRandom;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackColumnarPricing methods
+ * @author Jessica Greene
+ */
+public class WolfpackColumnarPricingTest extends TestCase {
+
+    /**
+     * Testing price matches getInterestRate and getMonthlyPayment for random applications
+     * around every credit score and income threshold
+     */
+    @Test
+    public void testPriceMatchesScalarMethods() {
+        int size = 200000;
+        int[] loanAmounts = new int[size];
+        int[] creditScores = new int[size];
+        int[] incomes = new int[size];
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < size; i++) {
+            loanAmounts[i] = random.nextInt(1000, 10026);
+            creditScores[i] = random.nextInt(300, 851);
+            int ratio = random.nextInt(1, 6);
+            incomes[i] = Math.max(0, ratio * loanAmounts[i] + random.nextInt(-2, 3));
+        }
+        double[] rates = new double[size];
+        double[] payments = new double[size];
+        WolfpackColumnarPricing.price(loanAmounts, creditScores, incomes, rates, payments);
+        for (int i = 0; i < size; i++) {
+            double rate = WolfpackLending.getInterestRate(loanAmounts[i], creditScores[i],
+                                                          incomes[i]);
+            assertEquals(rate, rates[i], 0);
+            if (rate == -1) {
+                assertEquals(0.0, payments[i], 0);
+            } else {
+                assertEquals(Double.doubleToLongBits(WolfpackLending.getMonthlyPayment(
+                                 loanAmounts[i], rate, WolfpackLending.NUMBER_OF_MONTHS)),
+                             Double.doubleToLongBits(payments[i]));
+            }
+        }
+    }
+
+    /**
+     * Testing tier for invalid arguments and at the credit score boundaries
+     */
+    @Test
+    public void testTier() {
+        assertEquals(WolfpackColumnarPricing.DENIED_TIER, 
+                     WolfpackColumnarPricing.tier(0, 800, 5000));
+        assertEquals(WolfpackColumnarPricing.DENIED_TIER, 
+                     WolfpackColumnarPricing.tier(1000, 851, 5000));
+        assertEquals(WolfpackColumnarPricing.DENIED_TIER, 
+                     WolfpackColumnarPricing.tier(1000, 800, -1));
+        assertEquals(WolfpackColumnarPricing.SPECIAL_TIER, 
+                     WolfpackColumnarPricing.tier(1000, 720, 0));
+        assertEquals(WolfpackColumnarPricing.LOW_TIER, 
+                     WolfpackColumnarPricing.tier(5000, 300, 25000));
+        assertEquals(WolfpackColumnarPricing.MODERATE_TIER, 
+                     WolfpackColumnarPricing.tier(10000, 500, 30000));
+        assertEquals(WolfpackColumnarPricing.HIGH_TIER, 
+                     WolfpackColumnarPricing.tier(10000, 499, 30000));
+        assertEquals(WolfpackColumnarPricing.DENIED_TIER, 
+                     WolfpackColumnarPricing.tier(10000, 349, 30000));
+        assertEquals(WolfpackLending.HIGH_INTEREST_RATE, 
+                     WolfpackColumnarPricing.tierRate(WolfpackColumnarPricing.HIGH_TIER), 0);
+    }
+
+    /**
+     * Testing price rejects arrays of different lengths
+     */
+    @Test
+    public void testPriceInvalidLengths() {
+        try {
+            WolfpackColumnarPricing.price(new int[2], new int[2], new int[1], new double[2],
+                                          new double[2]);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid array lengths", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+import java.io.*;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Scanner;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackDaemon and WolfpackClient methods
+ * @author Jessica Greene
+ */
+public class WolfpackDaemonTest extends TestCase {
+
+    /**
+     * Returns the output of the program on the console for some input
+     * @param input Answers to the prompts
+     * @return Header, prompts, and result
+     */
+    private static String consoleOutput(String input) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        WolfpackLending.printWelcome(out);
+        String inputValidation = WolfpackLending.userInterface(new Scanner(input), out);
+        if (!inputValidation.equals("valid input")) {
+            out.println(inputValidation);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the output of the program through a daemon for some input
+     * @param socketPath Path of the daemon socket
+     * @param input Answers to the prompts
+     * @return Everything the daemon sent
+     * @throws IOException if the connection fails
+     */
+    private static String daemonOutput(Path socketPath, String input) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+            WolfpackClient.run(channel, new ByteArrayInputStream(
+                input.getBytes(StandardCharsets.UTF_8)), bytes);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Testing a daemon conversation matches the console program for approved, denied, and
+     * invalid applications, over several connections
+     */
+    @Test
+    public void testConversations() throws IOException {
+        Path directory = Files.createTempDirectory("wolfpack");
+        Path socketPath = directory.resolve("daemon.sock");
+        try (WolfpackDaemon daemon = new WolfpackDaemon(socketPath)) {
+            assertTrue(WolfpackDaemon.isRunning(daemon.getSocketPath()));
+            String[] inputs = {"3 16\n755\n40000\n5000\ny\n", "4 30 300 0 8967 n\n",
+                               "2 30\n", "2 3\n900\n"};
+            for (String input : inputs) {
+                String output = daemonOutput(socketPath, input);
+                assertEquals(input, consoleOutput(input), output);
+            }
+            assertTrue(daemonOutput(socketPath, inputs[0]).contains("Loan Amount: $5025.00"));
+            assertTrue(daemonOutput(socketPath, "3 x\n").endsWith("\nInvalid input\n"));
+        }
+        assertFalse(Files.exists(socketPath));
+        Files.delete(directory);
+    }
+
+    /**
+     * Testing a conversation whose decision cannot be journaled ends with an error line
+     * instead of the result, and the next conversation is still answered
+     * @throws IOException if the journal cannot be created
+     */
+    @Test
+    public void testJournalFailure() throws IOException {
+        File file = File.createTempFile("decisions", ".journal");
+        file.delete();
+        file.deleteOnExit();
+        WolfpackDecisionJournal journal = WolfpackDecisionJournal.open(file);
+        journal.close();
+        WolfpackDecisionJournal.install(journal);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+            WolfpackDaemon.converse(new Scanner("3 16 755 40000 5000 y\n"), out);
+            String output = bytes.toString(StandardCharsets.UTF_8);
+            assertTrue(output, output.endsWith("\nCould not write decision journal\n"));
+            assertFalse(output.contains("Loan Amount: $"));
+        } finally {
+            WolfpackDecisionJournal.install(null);
+        }
+        String input = "3 16 755 40000 5000 y\n";
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WolfpackDaemon.converse(new Scanner(input),
+                                new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        assertEquals(consoleOutput(input), bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Testing a stale socket file is replaced and a live daemon is not
+     */
+    @Test
+    public void testSocketFile() throws IOException {
+        Path directory = Files.createTempDirectory("wolfpack");
+        Path socketPath = directory.resolve("daemon.sock");
+        try (WolfpackDaemon daemon = new WolfpackDaemon(socketPath)) {
+            assertEquals(socketPath, daemon.getSocketPath());
+            try {
+                new WolfpackDaemon(socketPath);
+                fail();
+            } catch (IOException e) {
+                assertTrue(e.getMessage().startsWith("Daemon already running"));
+            }
+        }
+        Files.createFile(socketPath);
+        assertFalse(WolfpackDaemon.isRunning(socketPath));
+        try (WolfpackDaemon daemon = new WolfpackDaemon(socketPath)) {
+            assertTrue(WolfpackDaemon.isRunning(socketPath));
+            assertEquals(socketPath, daemon.getSocketPath());
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,197 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.concurrent.*;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackDecisionJournal methods
+ * @author Jessica Greene
+ */
+public class WolfpackDecisionJournalTest extends TestCase {
+
+    /** Journal file used by each test */
+    private File file;
+
+    /**
+     * Creates an empty journal file name
+     * @throws IOException if the temporary file cannot be created
+     */
+    @Override
+    protected void setUp() throws IOException {
+        file = File.createTempFile("decisions", ".journal");
+        file.delete();
+    }
+
+    /**
+     * Removes the journal file and stops journaling
+     */
+    @Override
+    protected void tearDown() {
+        WolfpackDecisionJournal.install(null);
+        file.delete();
+    }
+
+    /**
+     * Reads every record of the journal file
+     * @return Records in order
+     * @throws IOException if the file cannot be read
+     */
+    private ArrayList<WolfpackDecisionJournal.Record> readAll() throws IOException {
+        ArrayList<WolfpackDecisionJournal.Record> records = new ArrayList<>();
+        WolfpackDecisionJournal.read(file, records::add);
+        return records;
+    }
+
+    /**
+     * Testing quotes are journaled with their decisions and terms, and invalid applications
+     * are not
+     * @throws IOException if the journal cannot be written
+     */
+    @Test
+    public void testQuotesJournaled() throws IOException {
+        try (WolfpackDecisionJournal journal = WolfpackDecisionJournal.open(file)) {
+            WolfpackDecisionJournal.install(journal);
+            WolfpackQuote quote = new WolfpackQuote();
+            WolfpackLending.quote(3, 16, 755, 2000, 2229, true, quote);
+            WolfpackLending.quote(4, 30, 300, 0, 8967, false, quote);
+            WolfpackLending.quote(2, 30, 755, 2000, 2229, true, quote);
+            journal.commit();
+        }
+        ArrayList<WolfpackDecisionJournal.Record> records = readAll();
+        assertEquals(2, records.size());
+        WolfpackDecisionJournal.Record approved = records.get(0);
+        assertEquals(1, approved.getSequence());
+        assertEquals(3, approved.getMonth());
+        assertEquals(16, approved.getDay());
+        assertEquals(755, approved.getCreditScore());
+        assertEquals(2000, approved.getIncome());
+        assertEquals(2229, approved.getLoanAmount());
+        assertTrue(approved.isExpressProcessing());
+        assertEquals(WolfpackQuote.APPROVED, approved.getDecision());
+        assertEquals(550, approved.getRateBasisPoints());
+        assertEquals(4305, approved.getPaymentCents());
+        assertEquals(WolfpackDisbursementCalendar.APPLICATION_YEAR_EPOCH_DAY + 78,
+                     approved.getDisbursementEpochDay());
+        assertTrue(approved.getTimeMillis() > 0);
+        assertEquals(WolfpackQuote.DENIED, records.get(1).getDecision());
+        assertEquals(2, records.get(1).getSequence());
+    }
+
+    /**
+     * Testing concurrent commits all become durable and sequence numbers are unique
+     * @throws Exception if a thread fails
+     */
+    @Test
+    public void testConcurrentGroupCommit() throws Exception {
+        int threads = 8;
+        int perThread = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (WolfpackDecisionJournal journal = WolfpackDecisionJournal.open(file)) {
+            ArrayList<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        long sequence = journal.append(1, 1, 700, thread, i, false,
+                                                       WolfpackQuote.DENIED, 0, 0, 0);
+                        journal.commit(sequence);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        ArrayList<WolfpackDecisionJournal.Record> records = readAll();
+        assertEquals(threads * perThread, records.size());
+        int[] seen = new int[threads];
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(i + 1, records.get(i).getSequence());
+            WolfpackDecisionJournal.Record record = records.get(i);
+            //each thread's records are in the order it appended them
+            assertEquals(seen[record.getIncome()]++, record.getLoanAmount());
+        }
+    }
+
+    /**
+     * Testing appends without commits write the waiting records once MAX_PENDING_RECORDS
+     * are buffered, so the buffer stays bounded
+     * @throws IOException if the journal cannot be written
+     */
+    @Test
+    public void testAppendCommitsFullBuffer() throws IOException {
+        int limit = WolfpackDecisionJournal.MAX_PENDING_RECORDS;
+        try (WolfpackDecisionJournal journal = WolfpackDecisionJournal.open(file)) {
+            for (int i = 0; i < limit * 3 + 7; i++) {
+                journal.append(1, 1, 700, 0, i, false, WolfpackQuote.DENIED, 0, 0, 0);
+                assertTrue(journal.pendingRecords() <= limit);
+            }
+            assertEquals(7, journal.pendingRecords());
+            assertEquals(limit * 3, readAll().size());
+        }
+        assertEquals(limit * 3 + 7, readAll().size());
+    }
+
+    /**
+     * Testing recovery truncates a torn record and later appends continue the sequence
+     * @throws IOException if the journal cannot be written
+     */
+    @Test
+    public void testRecoveryTruncatesTornTail() throws IOException {
+        try (WolfpackDecisionJournal journal = WolfpackDecisionJournal.open(file)) {
+            for (int i = 0; i < 5; i++) {
+                journal.append(1, 1, 700, 50000, 1000 + i, false, WolfpackQuote.DENIED,
+                               0, 0, 0);
+            }
+        }
+        long fullSize = file.length();
+        assertEquals(WolfpackDecisionJournal.HEADER_SIZE +
+                     5 * WolfpackDecisionJournal.RECORD_SIZE, fullSize);
+
+        //tear the last record in half and corrupt the fourth
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(fullSize - WolfpackDecisionJournal.RECORD_SIZE / 2);
+        }
+        try (WolfpackDecisionJournal journal = WolfpackDecisionJournal.open(file)) {
+            assertEquals(4, journal.getRecoveredRecords());
+            assertEquals(WolfpackDecisionJournal.RECORD_SIZE / 2, journal.getTruncatedBytes());
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(WolfpackDecisionJournal.HEADER_SIZE +
+                     3 * WolfpackDecisionJournal.RECORD_SIZE + 30);
+            raf.write(0x7f);
+        }
+        try (WolfpackDecisionJournal journal = WolfpackDecisionJournal.open(file)) {
+            assertEquals(3, journal.getRecoveredRecords());
+            assertEquals(WolfpackDecisionJournal.RECORD_SIZE, journal.getTruncatedBytes());
+            journal.append(2, 2, 700, 50000, 2000, true, WolfpackQuote.DENIED, 0, 0, 0);
+        }
+        ArrayList<WolfpackDecisionJournal.Record> records = readAll();
+        assertEquals(4, records.size());
+        assertEquals(4, records.get(3).getSequence());
+        assertEquals(2000, records.get(3).getLoanAmount());
+    }
+
+    /**
+     * Testing a file that is not a journal is rejected and left unchanged
+     * @throws IOException if the file cannot be written
+     */
+    @Test
+    public void testInvalidFile() throws IOException {
+        try (Writer out = new FileWriter(file)) {
+            out.write("month,day,creditScore,income,loanAmount,express\n");
+        }
+        long size = file.length();
+        try {
+            WolfpackDecisionJournal.open(file);
+            fail();
+        } catch (IOException e) {
+            assertEquals("Invalid journal file", e.getMessage());
+        }
+        assertEquals(size, file.length());
+    }
+}
@@ -0,0 +1,102 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.util.SplittableRandom;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackDedupIndex methods
+ * @author Jessica Greene
+ */
+public class WolfpackDedupIndexTest extends TestCase {
+
+    /**
+     * Returns a path for a new index file
+     * @return File that does not exist
+     * @throws IOException if a temporary file cannot be created
+     */
+    private static File newIndexFile() throws IOException {
+        File file = File.createTempFile("decided", ".idx");
+        file.delete();
+        file.deleteOnExit();
+        new File(file.getPath() + ".tmp").deleteOnExit();
+        return file;
+    }
+
+    /**
+     * Testing IDs added are found, including after the table grows and the file reopens
+     */
+    @Test
+    public void testAddAndContains() throws IOException {
+        File file = newIndexFile();
+        int ids = (int) WolfpackDedupIndex.INITIAL_CAPACITY * 3;
+        try (WolfpackDedupIndex index = WolfpackDedupIndex.open(file)) {
+            assertEquals(0, index.size());
+            for (long id = 1; id <= ids; id++) {
+                assertTrue(index.add(id * 7));
+            }
+            assertFalse(index.add(7));
+            assertEquals(ids, index.size());
+            assertTrue(index.capacity() * WolfpackDedupIndex.MAX_LOAD_PERCENT >= ids * 100L);
+            assertEquals(WolfpackDedupIndex.HEADER_SIZE + index.capacity() * Long.BYTES,
+                         file.length());
+        }
+        try (WolfpackDedupIndex index = WolfpackDedupIndex.open(file)) {
+            assertEquals(ids, index.size());
+            for (long id = 1; id <= ids * 7L; id++) {
+                assertEquals(id % 7 == 0, index.contains(id));
+            }
+            assertEquals(ids, index.getHits());
+        }
+    }
+
+    /**
+     * Testing random IDs, including very large ones
+     */
+    @Test
+    public void testRandomIds() throws IOException {
+        SplittableRandom random = new SplittableRandom(11);
+        long[] ids = new long[50000];
+        try (WolfpackDedupIndex index = WolfpackDedupIndex.open(newIndexFile())) {
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = random.nextLong(1, Long.MAX_VALUE);
+                index.add(ids[i]);
+            }
+            index.add(Long.MAX_VALUE);
+            for (long id : ids) {
+                assertTrue(index.contains(id));
+            }
+            assertTrue(index.contains(Long.MAX_VALUE));
+            assertFalse(index.contains(1));
+        }
+    }
+
+    /**
+     * Testing IDs that are not positive and files that are not index files
+     */
+    @Test
+    public void testInvalid() throws IOException {
+        File file = newIndexFile();
+        try (WolfpackDedupIndex index = WolfpackDedupIndex.open(file)) {
+            try {
+                index.add(0);
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertEquals("Invalid applicant ID", e.getMessage());
+            }
+            try {
+                index.contains(-5);
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertEquals("Invalid applicant ID", e.getMessage());
+            }
+        }
+        Files.write(file.toPath(), "not an index file at all, not even close".getBytes());
+        try {
+            WolfpackDedupIndex.open(file);
+            fail();
+        } catch (IOException e) {
+            assertEquals("Invalid dedup index file", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+import java.time.LocalDate;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackDisbursementCalendar methods
+ * @author Jessica Greene
+ */
+public class WolfpackDisbursementCalendarTest extends TestCase {
+
+    /**
+     * Testing every table entry against java.time for both processing types
+     */
+    @Test
+    public void testEveryEntryMatchesJavaTime() {
+        String[] dayNames = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"};
+        LocalDate date = LocalDate.of(2020, 1, 1);
+        while (date.getYear() == 2020) {
+            for (boolean express : new boolean[] {false, true}) {
+                LocalDate expected = date.plusDays(express ? 3 : 20);
+                int entry = WolfpackDisbursementCalendar.entry(date.getMonthValue(),
+                                                               date.getDayOfMonth(), express);
+                assertEquals(expected.getYear(), WolfpackDisbursementCalendar.year(entry));
+                assertEquals(expected.getMonthValue(), 
+                             WolfpackDisbursementCalendar.month(entry));
+                assertEquals(expected.getDayOfMonth(), WolfpackDisbursementCalendar.day(entry));
+                assertEquals(expected.getDayOfWeek().getValue() % 7,
+                             WolfpackDisbursementCalendar.dayOfWeek(entry));
+                String formatted = dayNames[expected.getDayOfWeek().getValue() - 1] + ", " +
+                                   expected.getMonthValue() + " " + expected.getDayOfMonth() +
+                                   " " + expected.getYear();
+                assertEquals(formatted, WolfpackDisbursementCalendar.formattedDate(entry));
+                assertEquals(formatted, WolfpackDisbursementCalendar.getDisbursementDate(
+                                 date.getMonthValue(), date.getDayOfMonth(), express));
+            }
+            date = date.plusDays(1);
+        }
+    }
+
+    /**
+     * Testing dayOfYear for the first and last days of 2020 and the leap day
+     */
+    @Test
+    public void testDayOfYear() {
+        assertEquals(1, WolfpackDisbursementCalendar.dayOfYear(1, 1));
+        assertEquals(60, WolfpackDisbursementCalendar.dayOfYear(2, 29));
+        assertEquals(366, WolfpackDisbursementCalendar.dayOfYear(12, 31));
+    }
+
+    /**
+     * Testing getDisbursementDate returns the same interned String on every call
+     */
+    @Test
+    public void testLookupDoesNotAllocate() {
+        assertSame(WolfpackLending.getDisbursementDate(3, 16, true),
+                   WolfpackLending.getDisbursementDate(3, 16, true));
+    }
+}
@@ -0,0 +1,149 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackDisbursementScheduler methods
+ * @author Jessica Greene
+ */
+public class WolfpackDisbursementSchedulerTest extends TestCase {
+
+    /** Epoch day of January 1, 2020 */
+    private static final int JAN_1 = WolfpackDisbursementCalendar.APPLICATION_YEAR_EPOCH_DAY;
+
+    /**
+     * Collects disbursed loans as "id@day" strings
+     */
+    private static class Recorder implements WolfpackDisbursementScheduler.Handler {
+        /** Disbursed loans */
+        final ArrayList<String> loans = new ArrayList<>();
+
+        @Override
+        public void disburse(long loanId, long loanCents, int epochDay,
+                             boolean expressProcessing) {
+            loans.add(loanId + "@" + (epochDay - JAN_1) + (expressProcessing ? "e" : ""));
+        }
+    }
+
+    /**
+     * Testing each day's run disburses exactly that day's loans, including loans scheduled
+     * beyond the wheel
+     */
+    @Test
+    public void testRunDays() {
+        WolfpackDisbursementScheduler scheduler = new WolfpackDisbursementScheduler(JAN_1);
+        scheduler.schedule(1, 100000, JAN_1 + 2, false);
+        scheduler.schedule(2, 200000, JAN_1, true);
+        scheduler.schedule(3, 300000, JAN_1 + 2, true);
+        scheduler.schedule(4, 400000, JAN_1 + 200, false);
+        scheduler.schedule(5, 500000, JAN_1 + WolfpackDisbursementScheduler.WHEEL_DAYS, false);
+        assertEquals(5, scheduler.size());
+        assertEquals(2, scheduler.countDue(JAN_1 + 2));
+        assertEquals(1, scheduler.countDue(JAN_1 + 200));
+
+        Recorder recorder = new Recorder();
+        assertEquals(1, scheduler.runDay(recorder));
+        assertEquals(0, scheduler.runDay(recorder));
+        assertEquals(2, scheduler.runDay(recorder));
+        assertEquals("[2@0e, 1@2, 3@2e]", recorder.loans.toString());
+        for (int day = 3; day <= 200; day++) {
+            scheduler.runDay(recorder);
+        }
+        assertEquals("[2@0e, 1@2, 3@2e, 5@64, 4@200]", recorder.loans.toString());
+        assertEquals(0, scheduler.size());
+        assertEquals(JAN_1 + 201, scheduler.getCurrentDay());
+    }
+
+    /**
+     * Testing express loans are pulled ahead and normal loans stay in their buckets
+     */
+    @Test
+    public void testPullAheadExpress() {
+        WolfpackDisbursementScheduler scheduler = new WolfpackDisbursementScheduler(JAN_1);
+        scheduler.schedule(1, 100000, JAN_1 + 1, true);
+        scheduler.schedule(2, 100000, JAN_1 + 1, false);
+        scheduler.schedule(3, 100000, JAN_1 + 2, true);
+        scheduler.schedule(4, 100000, JAN_1 + 5, true);
+        Recorder recorder = new Recorder();
+        assertEquals(2, scheduler.pullAheadExpress(
+                         WolfpackLending.DAYS_FOR_EXPRESS_PROCESSING, recorder));
+        assertEquals("[1@1e, 3@2e]", recorder.loans.toString());
+        assertEquals(2, scheduler.size());
+        assertEquals(1, scheduler.countDue(JAN_1 + 1));
+        scheduler.runDay(recorder);
+        scheduler.runDay(recorder);
+        assertEquals("[1@1e, 3@2e, 2@1]", recorder.loans.toString());
+    }
+
+    /**
+     * Testing approved quotes are scheduled on their disbursement dates
+     */
+    @Test
+    public void testScheduleQuote() {
+        WolfpackDisbursementScheduler scheduler = new WolfpackDisbursementScheduler(JAN_1);
+        WolfpackQuote quote = WolfpackLending.quote(3, 16, 755, 2000, 2229, true,
+                                                    new WolfpackQuote());
+        scheduler.schedule(7, quote, true);
+        assertEquals(1, scheduler.countDue(JAN_1 + 78));
+        try {
+            scheduler.schedule(8, WolfpackLending.quote(4, 30, 300, 0, 8967, false,
+                                                        new WolfpackQuote()), false);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid quote", e.getMessage());
+        }
+        scheduler.runDay(new Recorder());
+        try {
+            scheduler.schedule(9, 100000, JAN_1, false);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid date", e.getMessage());
+        }
+    }
+
+    /**
+     * Testing a saved scheduler loads with the same loans and a damaged file is rejected
+     * @throws IOException if the temporary file cannot be written
+     */
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        File file = File.createTempFile("disbursements", ".bin");
+        try {
+            WolfpackDisbursementScheduler scheduler =
+                new WolfpackDisbursementScheduler(JAN_1);
+            for (int i = 0; i < 1000; i++) {
+                scheduler.schedule(i, 100000 + i, JAN_1 + 1 + i % 300, i % 4 == 0);
+            }
+            Recorder before = new Recorder();
+            scheduler.runDay(before);
+            scheduler.save(file);
+
+            WolfpackDisbursementScheduler loaded = WolfpackDisbursementScheduler.load(file);
+            assertEquals(scheduler.getCurrentDay(), loaded.getCurrentDay());
+            assertEquals(scheduler.size(), loaded.size());
+            Recorder original = new Recorder();
+            Recorder restored = new Recorder();
+            for (int day = 1; day <= 300; day++) {
+                scheduler.runDay(original);
+                loaded.runDay(restored);
+            }
+            assertEquals(1000, restored.loans.size());
+            assertEquals(original.loans, restored.loans);
+
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(raf.length() - 3);
+            }
+            try {
+                WolfpackDisbursementScheduler.load(file);
+                fail();
+            } catch (IOException e) {
+                assertEquals("Invalid scheduler file", e.getMessage());
+            }
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import java.math.BigInteger;
+import java.util.SplittableRandom;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackFixedPoint methods
+ * @author Jessica Greene
+ */
+public class WolfpackFixedPointTest extends TestCase {
+
+    /**
+     * Computes a payment in cents exactly with rational arithmetic, rounded half up
+     * @param loanCents Loan amount in cents
+     * @param rateBasisPoints Annual interest rate in basis points
+     * @param numberOfMonths Number of months in loan repayment period
+     * @return Monthly payment in cents
+     */
+    private static long exactPaymentCents(long loanCents, int rateBasisPoints,
+                                          int numberOfMonths) {
+        //payment = L * r * (1 + r)^n / ((1 + r)^n - 1) with r = bp / 120000
+        BigInteger unit = BigInteger.valueOf(120000);
+        BigInteger growth = unit.add(BigInteger.valueOf(rateBasisPoints)).pow(numberOfMonths);
+        BigInteger numerator = BigInteger.valueOf(loanCents).multiply(
+                               BigInteger.valueOf(rateBasisPoints)).multiply(growth);
+        BigInteger denominator = unit.multiply(growth.subtract(unit.pow(numberOfMonths)));
+        return numerator.shiftLeft(1).add(denominator).divide(denominator.shiftLeft(1))
+                        .longValueExact();
+    }
+
+    /**
+     * Testing payments match the double API rounded to cents for every legal loan amount
+     * (with and without the express fee) at each approved interest rate over 60 months
+     */
+    @Test
+    public void testMatchesDoubleApi() {
+        double[] rates = {WolfpackLending.SPECIAL_INTEREST_RATE,
+                          WolfpackLending.LOW_INTEREST_RATE,
+                          WolfpackLending.MODERATE_INTEREST_RATE,
+                          WolfpackLending.HIGH_INTEREST_RATE};
+        for (double rate : rates) {
+            for (int loan = WolfpackLending.MIN_LOAN;
+                 loan <= WolfpackLending.MAX_LOAN + WolfpackLending.EXPRESS_PROCESSING_FEE;
+                 loan++) {
+                assertEquals(Math.round(WolfpackLending.getMonthlyPayment(loan, rate, 60) * 100),
+                             WolfpackFixedPoint.monthlyPaymentCents(loan * 100L,
+                                 WolfpackFixedPoint.basisPoints(rate), 60));
+            }
+        }
+        assertEquals(4305, WolfpackFixedPoint.monthlyPaymentCents(225400, 550, 60));
+    }
+
+    /**
+     * Testing payments match exact rational arithmetic for random loans, rates, and terms
+     */
+    @Test
+    public void testMatchesExactArithmetic() {
+        SplittableRandom random = new SplittableRandom(15);
+        int[] terms = {12, 36, 60, 120, 360};
+        for (int i = 0; i < 20000; i++) {
+            long loanCents = random.nextLong(1, 100000000000L);
+            int rate = random.nextInt(WolfpackFixedPoint.MIN_RATE_BASIS_POINTS, 5000);
+            int months = terms[random.nextInt(terms.length)];
+            assertEquals(exactPaymentCents(loanCents, rate, months),
+                         WolfpackFixedPoint.monthlyPaymentCents(loanCents, rate, months));
+        }
+    }
+
+    /**
+     * Testing a portfolio total is exactly the sum of the rounded double-API payments
+     */
+    @Test
+    public void testTotalPaymentCents() {
+        SplittableRandom random = new SplittableRandom(2020);
+        int[] rates = {550, 600, 650, 750};
+        long[] loanCents = new long[100000];
+        int[] rateBasisPoints = new int[loanCents.length];
+        long expected = 0;
+        for (int i = 0; i < loanCents.length; i++) {
+            int loan = random.nextInt(WolfpackLending.MIN_LOAN, WolfpackLending.MAX_LOAN + 1);
+            loanCents[i] = loan * 100L;
+            rateBasisPoints[i] = rates[random.nextInt(rates.length)];
+            expected += Math.round(WolfpackLending.getMonthlyPayment(loan,
+                                   rateBasisPoints[i] / 100.0, 60) * 100);
+        }
+        assertEquals(expected, WolfpackFixedPoint.totalPaymentCents(loanCents,
+                                                                    rateBasisPoints, 60));
+        assertEquals(0, WolfpackFixedPoint.totalPaymentCents(new long[0], new int[0], 60));
+    }
+
+    /**
+     * Testing invalid arguments
+     */
+    @Test
+    public void testInvalidArguments() {
+        try {
+            WolfpackFixedPoint.monthlyPaymentCents(0, 550, 60);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid loan amount", e.getMessage());
+        }
+        try {
+            WolfpackFixedPoint.monthlyPaymentCents(100000, 49, 60);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid interest rate", e.getMessage());
+        }
+        try {
+            WolfpackFixedPoint.monthlyPaymentCents(100000, 550, 0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid number of months", e.getMessage());
+        }
+        try {
+            WolfpackFixedPoint.totalPaymentCents(new long[1], new int[2], 60);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid array lengths", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackHeadless
+ * @author Jessica Greene
+ */
+public class WolfpackHeadlessTest extends TestCase {
+
+    /**
+     * Runs the headless mode over some input
+     * @param input Application text
+     * @return Result text
+     * @throws IOException if the in-memory streams fail
+     */
+    private static String runHeadless(String input) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WolfpackHeadless.run(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+                             out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Testing run with whitespace- and comma-separated records
+     * @throws IOException if the in-memory streams fail
+     */
+    @Test
+    public void testRunMixedSeparators() throws IOException {
+        assertEquals("Loan Amount: $2254.00; Interest Rate: 5.5%; Monthly Payment: $43.05; " +
+                     "Disbursement Date: Thu, 3 19 2020\n" +
+                     "Loan denied\n" +
+                     "Invalid date\n" +
+                     "Invalid input\n" +
+                     "Invalid credit score\n",
+                     runHeadless("3 16 755 2000 2229 yes\n" +
+                                 "4,30,300,0,8967,n\r\n" +
+                                 "  2 30\t755 2000 2229 n\n" +
+                                 "2 x 755 2000 2229 n\n" +
+                                 "2,3,299,2000,2229,Y"));
+    }
+
+    /**
+     * Testing run reports a truncated final record
+     * @throws IOException if the in-memory streams fail
+     */
+    @Test
+    public void testRunTruncatedRecord() throws IOException {
+        assertEquals("Invalid input\n", runHeadless("3 16 755"));
+        assertEquals("", runHeadless(" \n"));
+    }
+
+    /**
+     * Testing a line without six fields gets one result and the next line is read as a
+     * new application
+     * @throws IOException if the in-memory streams fail
+     */
+    @Test
+    public void testRunShortLine() throws IOException {
+        assertEquals("Invalid input\n" +
+                     "Loan Amount: $9000.00; Interest Rate: 5.5%; Monthly Payment: $171.91; " +
+                     "Disbursement Date: Fri, 5 22 2020\n" +
+                     "Loan Amount: $5025.00; Interest Rate: 5.5%; Monthly Payment: $95.98; " +
+                     "Disbursement Date: Thu, 3 19 2020\n" +
+                     "Invalid input\n",
+                     runHeadless("3 16 755\n" +
+                                 "5 2 800 90000 9000 n\n" +
+                                 "3 16 755 40000 5000 y\n" +
+                                 "3 16 755 40000 5000 y 7\n"));
+    }
+
+    /**
+     * Testing run over many records spanning several input buffers
+     * @throws IOException if the in-memory streams fail
+     */
+    @Test
+    public void testRunManyRecords() throws IOException {
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        WolfpackQuote quote = new WolfpackQuote();
+        for (int i = 0; i < 20000; i++) {
+            int month = i % 12 + 1;
+            int day = i % 28 + 1;
+            int creditScore = 300 + i % 551;
+            int loanAmount = 1000 + i % 9001;
+            boolean express = i % 3 == 0;
+            input.append(month).append(' ').append(day).append(' ').append(creditScore)
+                 .append(' ').append(i).append(' ').append(loanAmount)
+                 .append(express ? " y\n" : " n\n");
+            WolfpackLending.quote(month, day, creditScore, i, loanAmount, express, quote);
+            WolfpackHeadless.appendResult(expected, quote);
+        }
+        assertEquals(expected.toString(), runHeadless(input.toString()));
+    }
+}
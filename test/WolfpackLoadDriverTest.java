@@ -0,0 +1,71 @@
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackLoadDriver methods
+ * @author Jessica Greene
+ */
+public class WolfpackLoadDriverTest extends TestCase {
+
+    /** Nanoseconds in a millisecond */
+    private static final long NANOS_PER_MILLI = 1_000_000;
+
+    /**
+     * Testing a paced run stays near its target rate and prints progress lines
+     */
+    @Test
+    public void testPacedRun() {
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        WolfpackLoadDriver.Report report = WolfpackLoadDriver.run(
+            new WolfpackWorkload(3, WolfpackWorkload.DEFAULT_EXPRESS_RATIO), 2000, 2,
+            500 * NANOS_PER_MILLI, 200 * NANOS_PER_MILLI, new PrintStream(text));
+        assertEquals(1000, report.getQuotes(), 20);
+        assertTrue(report.getApprovals() > 0 && report.getApprovals() < report.getQuotes());
+        assertTrue(report.getP50Nanos() <= report.getP99Nanos());
+        assertTrue(report.getP99Nanos() <= report.getP999Nanos());
+        assertTrue(report.getMaxNanos() > 0);
+        assertTrue(report.getGcCount() >= 0);
+        assertEquals(2, text.toString().split("\n").length);
+        assertTrue(report.toString().contains(report.getQuotes() + " quotes"));
+    }
+
+    /**
+     * Testing an unpaced run prices applications on every thread
+     */
+    @Test
+    public void testUnpacedRun() {
+        WolfpackLoadDriver.Report report = WolfpackLoadDriver.run(
+            new WolfpackWorkload(5, 0), 0, 2, 100 * NANOS_PER_MILLI, 100 * NANOS_PER_MILLI,
+            null);
+        assertTrue(report.getQuotes() > 1000);
+        assertTrue(report.getThroughput() > 0);
+    }
+
+    /**
+     * Testing invalid run settings
+     */
+    @Test
+    public void testInvalidSettings() {
+        WolfpackWorkload workload = new WolfpackWorkload(1, 0);
+        try {
+            WolfpackLoadDriver.run(workload, -1, 1, 1, 1, null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid rate", e.getMessage());
+        }
+        try {
+            WolfpackLoadDriver.run(workload, 0, 0, 1, 1, null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid number of threads", e.getMessage());
+        }
+        try {
+            WolfpackLoadDriver.run(workload, 0, 1, 0, 1, null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid duration", e.getMessage());
+        }
+    }
+}
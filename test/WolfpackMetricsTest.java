@@ -0,0 +1,94 @@
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackMetrics
+ * @author Jessica Greene
+ */
+public class WolfpackMetricsTest extends TestCase {
+
+    /**
+     * Testing quote decisions are counted by tier and reason
+     */
+    @Test
+    public void testQuoteDecisionsCounted() {
+        WolfpackMetrics metrics = WolfpackMetrics.get();
+        metrics.reset();
+        String[] rows = {"3,16,755,2000,2229,y", "3,16,600,40000,5000,n",
+                         "3,16,600,40000,5000,n", "4,30,300,0,8967,n", "2,30,755,2000,2229,y",
+                         "2,3,299,2000,2229,y", "2,3,700,-1,2229,y", "2,3,700,1,999,y",
+                         "x,1,1,1,1,n"};
+        for (String row : rows) {
+            WolfpackBatch.quoteRow(row, new StringBuilder());
+        }
+
+        assertEquals(3, metrics.getApprovals());
+        assertEquals(1, metrics.getSpecialRateApprovals());
+        assertEquals(2, metrics.getLowRateApprovals());
+        assertEquals(0, metrics.getModerateRateApprovals());
+        assertEquals(1, metrics.getDenials());
+        assertEquals(1, metrics.getInvalidDates());
+        assertEquals(1, metrics.getInvalidCreditScores());
+        assertEquals(1, metrics.getInvalidIncomes());
+        assertEquals(1, metrics.getInvalidLoanAmounts());
+        assertEquals(1, metrics.getInvalidInputs());
+    }
+
+    /**
+     * Testing a tally adds its counts to the metrics every FLUSH_COUNTS decisions and on
+     * flush, and the structured quote API counts nothing by itself
+     */
+    @Test
+    public void testTally() {
+        WolfpackMetrics metrics = WolfpackMetrics.get();
+        metrics.reset();
+        WolfpackMetrics.Tally tally = new WolfpackMetrics.Tally();
+        WolfpackQuote quote = new WolfpackQuote();
+        for (int i = 0; i < WolfpackMetrics.FLUSH_COUNTS + 5; i++) {
+            tally.count(WolfpackLending.quote(4, 30, 300, 0, 8967, false, quote));
+        }
+        assertEquals(WolfpackMetrics.FLUSH_COUNTS, metrics.getDenials());
+        tally.count(WolfpackLending.quote(3, 16, 755, 2000, 2229, true, quote));
+        tally.flush();
+        tally.flush();
+        assertEquals(WolfpackMetrics.FLUSH_COUNTS + 5, metrics.getDenials());
+        assertEquals(1, metrics.getSpecialRateApprovals());
+
+        WolfpackLending.quote(3, 16, 755, 2000, 2229, true, quote);
+        assertEquals(1, metrics.getApprovals());
+    }
+
+    /**
+     * Testing histogram percentiles report the upper bound of the right bucket
+     */
+    @Test
+    public void testHistogramPercentiles() {
+        WolfpackMetrics.Histogram histogram = new WolfpackMetrics.Histogram();
+        assertEquals(0.0, histogram.percentile(0.5), 0);
+        for (int i = 0; i < 98; i++) {
+            histogram.record(1000);
+        }
+        histogram.record(1000000);
+        histogram.record(1000000);
+        assertEquals(100, histogram.count());
+        assertEquals(1023.0, histogram.percentile(0.5), 0);
+        assertEquals(1023.0, histogram.percentile(0.98), 0);
+        assertEquals(1048575.0, histogram.percentile(0.99), 0);
+        histogram.reset();
+        assertEquals(0, histogram.count());
+    }
+
+    /**
+     * Testing the metrics are registered with the platform MBean server
+     * @throws Exception if the MBean cannot be read
+     */
+    @Test
+    public void testRegisteredOverJmx() throws Exception {
+        WolfpackMetrics.get().reset();
+        WolfpackBatch.quoteRow("4,30,300,0,8967,n", new StringBuilder());
+        assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(
+                     new ObjectName(WolfpackMetrics.OBJECT_NAME), "Denials"));
+    }
+}
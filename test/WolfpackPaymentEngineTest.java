@@ -0,0 +1,63 @@
+import java.util.SplittableRandom;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackPaymentEngine methods
+ * @author Jessica Greene
+ */
+public class WolfpackPaymentEngineTest extends TestCase {
+
+    /**
+     * Computes the monthly payment with the original formula
+     * @param loanAmount Total loan amount
+     * @param annualInterestRate Annual interest rate
+     * @param numberOfMonths Number of months in loan repayment period
+     * @return Monthly payment
+     */
+    private static double formulaPayment(double loanAmount, double annualInterestRate,
+                                         int numberOfMonths) {
+        double monthlyInterestRate = annualInterestRate / (12 * 100.0);
+        double formulaPowerCalc = Math.pow((1 + monthlyInterestRate), numberOfMonths);
+        return loanAmount * ((monthlyInterestRate * formulaPowerCalc) / 
+                             (formulaPowerCalc - 1));
+    }
+
+    /**
+     * Testing getMonthlyPayment is bit-identical to the formula for every legal loan amount
+     * (with and without the express fee) at each approved interest rate over 60 months
+     */
+    @Test
+    public void testPrecomputedRatesBitIdentical() {
+        double[] rates = {WolfpackLending.SPECIAL_INTEREST_RATE, 
+                          WolfpackLending.LOW_INTEREST_RATE,
+                          WolfpackLending.MODERATE_INTEREST_RATE, 
+                          WolfpackLending.HIGH_INTEREST_RATE};
+        for (double rate : rates) {
+            for (int loan = WolfpackLending.MIN_LOAN; 
+                 loan <= WolfpackLending.MAX_LOAN + WolfpackLending.EXPRESS_PROCESSING_FEE;
+                 loan++) {
+                assertEquals(Double.doubleToLongBits(formulaPayment(loan, rate, 60)),
+                             Double.doubleToLongBits(
+                                 WolfpackLending.getMonthlyPayment(loan, rate, 60)));
+            }
+        }
+    }
+
+    /**
+     * Testing annuityFactor is bit-identical to the formula for uncommon rates and terms,
+     * including repeated lookups that hit the cache
+     */
+    @Test
+    public void testCachedRatesBitIdentical() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 10000; i++) {
+            double rate = 0.5 + random.nextInt(200) / 10.0;
+            int months = 1 + random.nextInt(120);
+            double loan = 1 + random.nextDouble() * 50000;
+            assertEquals(Double.doubleToLongBits(formulaPayment(loan, rate, months)),
+                         Double.doubleToLongBits(
+                             WolfpackLending.getMonthlyPayment(loan, rate, months)));
+        }
+    }
+}
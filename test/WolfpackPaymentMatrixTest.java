@@ -0,0 +1,95 @@
+import java.io.*;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackPaymentMatrix methods
+ * @author Jessica Greene
+ */
+public class WolfpackPaymentMatrixTest extends TestCase {
+
+    /**
+     * Testing every table entry is the rounded getMonthlyPayment result
+     */
+    @Test
+    public void testTableMatchesFormula() {
+        WolfpackPaymentMatrix matrix = WolfpackPaymentMatrix.current();
+        assertNotNull(matrix);
+        for (int tier = WolfpackColumnarPricing.HIGH_TIER;
+             tier <= WolfpackColumnarPricing.SPECIAL_TIER; tier++) {
+            double rate = WolfpackColumnarPricing.tierRate(tier);
+            for (int loan = WolfpackPaymentMatrix.MIN_AMOUNT;
+                 loan <= WolfpackPaymentMatrix.MAX_AMOUNT; loan++) {
+                long expected = Math.round(WolfpackLending.getMonthlyPayment(loan, rate, 60) *
+                                           100);
+                assertEquals(expected, matrix.get(loan, tier));
+                assertEquals(expected, WolfpackPaymentMatrix.paymentCents(loan, rate, 60));
+            }
+        }
+        assertEquals(4305, matrix.get(2254, WolfpackColumnarPricing.SPECIAL_TIER));
+    }
+
+    /**
+     * Testing loans outside the table fall back to the formula
+     */
+    @Test
+    public void testOutOfTableFallsBack() {
+        assertEquals(Math.round(WolfpackLending.getMonthlyPayment(5000, 6.0, 36) * 100),
+                     WolfpackPaymentMatrix.paymentCents(5000, 6.0, 36));
+        assertEquals(Math.round(WolfpackLending.getMonthlyPayment(5000, 4.25, 60) * 100),
+                     WolfpackPaymentMatrix.paymentCents(5000, 4.25, 60));
+        assertEquals(Math.round(WolfpackLending.getMonthlyPayment(20000, 6.0, 60) * 100),
+                     WolfpackPaymentMatrix.paymentCents(20000, 6.0, 60));
+    }
+
+    /**
+     * Testing get rejects entries outside the table
+     */
+    @Test
+    public void testInvalidGet() {
+        WolfpackPaymentMatrix matrix = WolfpackPaymentMatrix.current();
+        try {
+            matrix.get(999, WolfpackColumnarPricing.LOW_TIER);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid loan amount", e.getMessage());
+        }
+        try {
+            matrix.get(5000, WolfpackColumnarPricing.DENIED_TIER);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid tier", e.getMessage());
+        }
+    }
+
+    /**
+     * Testing a saved table loads back unchanged and a damaged file is rejected
+     * @throws IOException if the temporary files cannot be written
+     */
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        File file = File.createTempFile("payments", ".bin");
+        try {
+            WolfpackPaymentMatrix.build().save(file);
+            WolfpackPaymentMatrix loaded = WolfpackPaymentMatrix.load(file);
+            WolfpackPaymentMatrix current = WolfpackPaymentMatrix.current();
+            for (int loan = WolfpackPaymentMatrix.MIN_AMOUNT;
+                 loan <= WolfpackPaymentMatrix.MAX_AMOUNT; loan++) {
+                assertEquals(current.get(loan, WolfpackColumnarPricing.HIGH_TIER),
+                             loaded.get(loan, WolfpackColumnarPricing.HIGH_TIER));
+            }
+
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(raf.length() - 1);
+            }
+            try {
+                WolfpackPaymentMatrix.load(file);
+                fail();
+            } catch (IOException e) {
+                assertEquals("Invalid payment matrix file", e.getMessage());
+            }
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+import java.io.*;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackPipeline and WolfpackRingQueue methods
+ * @author Jessica Greene
+ */
+public class WolfpackPipelineTest extends TestCase {
+
+    /**
+     * Testing the ring queue keeps order, rounds its capacity up, and reports full and
+     * empty
+     */
+    @Test
+    public void testRingQueue() {
+        WolfpackRingQueue<Integer> queue = new WolfpackRingQueue<>(3);
+        assertEquals(4, queue.capacity());
+        assertNull(queue.poll());
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(queue.offer(i));
+            }
+            assertFalse(queue.offer(4));
+            assertEquals(4, queue.size());
+            for (int i = 0; i < 4; i++) {
+                assertEquals(Integer.valueOf(i), queue.poll());
+            }
+            assertNull(queue.poll());
+            assertEquals(0, queue.size());
+        }
+        try {
+            new WolfpackRingQueue<Integer>(0);
+            fail("Capacity 0 should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid capacity", e.getMessage());
+        }
+    }
+
+    /**
+     * Testing the ring queue hands every element to exactly one consumer when several
+     * threads offer and poll at once
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    @Test
+    public void testRingQueueConcurrent() throws InterruptedException {
+        WolfpackRingQueue<Integer> queue = new WolfpackRingQueue<>(8);
+        int perProducer = 20000;
+        long[] sums = new long[2];
+        Thread[] threads = new Thread[4];
+        for (int p = 0; p < 2; p++) {
+            final int base = p * perProducer;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!queue.offer(base + i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+        for (int c = 0; c < 2; c++) {
+            final int consumer = c;
+            threads[2 + c] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    Integer element = queue.poll();
+                    while (element == null) {
+                        Thread.yield();
+                        element = queue.poll();
+                    }
+                    sums[consumer] += element;
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long total = 2L * perProducer;
+        assertEquals(total * (total - 1) / 2, sums[0] + sums[1]);
+        assertNull(queue.poll());
+    }
+
+    /**
+     * Testing run writes the same output as WolfpackBatch, in input order, with several
+     * workers per stage and small queues
+     * @throws IOException if the in-memory reader or writer fails
+     */
+    @Test
+    public void testRunMatchesBatch() throws IOException {
+        StringWriter csv = new StringWriter();
+        new WolfpackWorkload(7, WolfpackWorkload.DEFAULT_EXPRESS_RATIO)
+            .writeCsv(csv, WolfpackPipeline.CHUNK_SIZE * 9 + 5);
+        String input = csv.toString() + "a,3,700,1,999,y\n\n3,16,755,2000,2229,y,\n";
+        StringWriter expected = new StringWriter();
+        long batchRows = WolfpackBatch.run(new BufferedReader(new StringReader(input)),
+                                           expected, 2);
+
+        WolfpackPipeline pipeline = new WolfpackPipeline(2, 1, 3, 2, 1);
+        StringWriter actual = new StringWriter();
+        assertEquals(batchRows,
+                     pipeline.run(new BufferedReader(new StringReader(input)), actual));
+        assertEquals(expected.toString(), actual.toString());
+        for (int stage = WolfpackPipeline.READ; stage < WolfpackPipeline.STAGES; stage++) {
+            assertEquals(batchRows, pipeline.getStage(stage).getRows());
+        }
+        assertEquals(3, pipeline.getStage(WolfpackPipeline.PRICE).getWorkers());
+        assertTrue(pipeline.report(1).startsWith("stage"));
+    }
+
+    /**
+     * Testing a slow output sink shows as a backlog in the write stage's queue, sampled
+     * while the run is in progress
+     * @throws IOException if the in-memory reader or writer fails
+     */
+    @Test
+    public void testQueueDepthOfSlowStage() throws IOException {
+        StringWriter csv = new StringWriter();
+        new WolfpackWorkload(5, WolfpackWorkload.DEFAULT_EXPRESS_RATIO)
+            .writeCsv(csv, WolfpackPipeline.CHUNK_SIZE * 24);
+        Writer slow = new StringWriter() {
+            @Override
+            public StringWriter append(CharSequence text) {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.append(text);
+            }
+        };
+        WolfpackPipeline pipeline = new WolfpackPipeline(1, 1, 1, 1, 4);
+        pipeline.run(new BufferedReader(new StringReader(csv.toString())), slow);
+        WolfpackPipeline.Stage write = pipeline.getStage(WolfpackPipeline.WRITE);
+        assertEquals(0, pipeline.getQueueDepth(WolfpackPipeline.WRITE));
+        assertTrue(write.getMaxQueueDepth() >= 2);
+        assertTrue(write.getMeanQueueDepth() >= 1);
+        assertEquals(0, pipeline.getStage(WolfpackPipeline.READ).getMaxQueueDepth());
+        assertTrue(pipeline.report(1).contains("max"));
+    }
+
+    /**
+     * Testing run on an empty input writes only the header
+     * @throws IOException if the in-memory reader or writer fails
+     */
+    @Test
+    public void testRunEmpty() throws IOException {
+        StringWriter out = new StringWriter();
+        assertEquals(0, new WolfpackPipeline(1, 1, 1, 1, 1)
+                            .run(new BufferedReader(new StringReader("")), out));
+        assertEquals(WolfpackBatch.OUTPUT_HEADER + "\n", out.toString());
+    }
+
+    /**
+     * Testing a failing output stops the pipeline and reports the failure
+     * @throws IOException if the in-memory workload writer fails
+     */
+    @Test
+    public void testRunWriteFailure() throws IOException {
+        StringWriter csv = new StringWriter();
+        new WolfpackWorkload(3, WolfpackWorkload.DEFAULT_EXPRESS_RATIO)
+            .writeCsv(csv, WolfpackPipeline.CHUNK_SIZE * 4);
+        Writer broken = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                throw new IOException("Disk full");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try {
+            new WolfpackPipeline(1, 1, 1, 1, 1)
+                .run(new BufferedReader(new StringReader(csv.toString())), broken);
+            fail("A failing writer should fail the run");
+        } catch (IOException e) {
+            assertEquals("Disk full", e.getMessage());
+        }
+    }
+
+    /**
+     * Testing the constructor rejects invalid worker counts and capacities
+     */
+    @Test
+    public void testInvalidArguments() {
+        try {
+            new WolfpackPipeline(1, 0, 1, 1, 1);
+            fail("0 validate workers should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid number of threads", e.getMessage());
+        }
+        try {
+            new WolfpackPipeline(1, 1, 1, 1, 0);
+            fail("Queue capacity 0 should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid capacity", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackPortfolio
+ * @author Jessica Greene
+ */
+public class WolfpackPortfolioTest extends TestCase {
+
+    /**
+     * Testing the parallel aggregate matches a simple sequential sum
+     */
+    @Test
+    public void testAggregateMatchesSequentialSum() {
+        int size = 100000;
+        int[] months = new int[size];
+        int[] days = new int[size];
+        boolean[] express = new boolean[size];
+        int[] loanAmounts = new int[size];
+        double[] rates = new double[size];
+        double[] tierRates = {WolfpackLending.SPECIAL_INTEREST_RATE, 
+                              WolfpackLending.LOW_INTEREST_RATE,
+                              WolfpackLending.MODERATE_INTEREST_RATE, 
+                              WolfpackLending.HIGH_INTEREST_RATE, 8.0};
+        SplittableRandom random = new SplittableRandom(11);
+        long principalCents = 0;
+        long receivableCents = 0;
+        long[] tierCounts = new long[WolfpackPortfolio.TIERS];
+        long[] dayCents = new long[400];
+        for (int i = 0; i < size; i++) {
+            months[i] = random.nextInt(1, 13);
+            days[i] = random.nextInt(1, 29);
+            express[i] = random.nextBoolean();
+            loanAmounts[i] = random.nextInt(1000, 10026);
+            rates[i] = tierRates[random.nextInt(tierRates.length)];
+            principalCents += loanAmounts[i] * 100L;
+            receivableCents += Math.round(WolfpackLending.getMonthlyPayment(loanAmounts[i],
+                                          rates[i], 60) * 100);
+            tierCounts[WolfpackQuote.tierOf(rates[i])]++;
+            int entry = WolfpackDisbursementCalendar.entry(months[i], days[i], express[i]);
+            dayCents[WolfpackDisbursementCalendar.epochDay(entry) - 18262] += 
+                loanAmounts[i] * 100L;
+        }
+        WolfpackPortfolio portfolio = new WolfpackPortfolio(months, days, express, loanAmounts,
+                                                            rates);
+        WolfpackPortfolio.Exposure exposure = portfolio.aggregate(new ForkJoinPool(4));
+        assertEquals(size, exposure.getLoans());
+        assertEquals(principalCents, exposure.getPrincipalCents());
+        assertEquals(receivableCents, exposure.getMonthlyReceivableCents());
+        long tierTotal = 0;
+        for (int tier = 0; tier < WolfpackPortfolio.TIERS; tier++) {
+            assertEquals(tierCounts[tier], exposure.getTierCount(tier));
+            tierTotal += exposure.getTierPrincipalCents(tier);
+        }
+        assertEquals(principalCents, tierTotal);
+        for (int day = 0; day < dayCents.length; day++) {
+            assertEquals(dayCents[day], exposure.getDisbursementCents(18262 + day));
+        }
+    }
+
+    /**
+     * Testing load reads the approved rows of a batch result file
+     * @throws IOException if the temporary files cannot be used
+     */
+    @Test
+    public void testLoadBatchResults() throws IOException {
+        File input = File.createTempFile("applications", ".csv");
+        File results = File.createTempFile("results", ".csv");
+        input.deleteOnExit();
+        results.deleteOnExit();
+        Files.write(input.toPath(), ("3,16,755,2000,2229,y\n4,30,300,0,8967,n\n" +
+                                     "5,1,600,40000,5000,n\n").getBytes(StandardCharsets.UTF_8));
+        WolfpackBatch.run(input, results, 1);
+        WolfpackPortfolio portfolio = WolfpackPortfolio.load(results);
+        assertEquals(2, portfolio.size());
+
+        WolfpackPortfolio.Exposure exposure = portfolio.aggregate();
+        assertEquals(725400, exposure.getPrincipalCents());
+        assertEquals(1, exposure.getTierCount(WolfpackQuote.SPECIAL_TIER));
+        assertEquals(1, exposure.getTierCount(WolfpackQuote.LOW_TIER));
+        assertEquals(2254.0, 
+                     exposure.getTierAveragePrincipal(WolfpackQuote.SPECIAL_TIER), 0);
+        assertEquals(225400, exposure.getDisbursementCents(
+                     (int) java.time.LocalDate.of(2020, 3, 19).toEpochDay()));
+        assertEquals(1, exposure.getDisbursementCount(
+                     (int) java.time.LocalDate.of(2020, 5, 21).toEpochDay()));
+    }
+
+    /**
+     * Testing load reads the approved rows of a batch result file whose rows carry
+     * applicant IDs
+     * @throws IOException if the temporary files cannot be used
+     */
+    @Test
+    public void testLoadBatchResultsWithIds() throws IOException {
+        File input = File.createTempFile("applications", ".csv");
+        File results = File.createTempFile("results", ".csv");
+        File indexFile = File.createTempFile("decided", ".idx");
+        input.deleteOnExit();
+        results.deleteOnExit();
+        indexFile.deleteOnExit();
+        results.delete();
+        indexFile.delete();
+        Files.write(input.toPath(), ("3,16,755,2000,2229,y,11\n4,30,300,0,8967,n,12\n" +
+                                     "5,1,600,40000,5000,n,13\n").getBytes(StandardCharsets.UTF_8));
+        try (WolfpackDedupIndex index = WolfpackDedupIndex.open(indexFile)) {
+            WolfpackBatch.run(input, results, 1, index);
+        }
+        WolfpackPortfolio portfolio = WolfpackPortfolio.load(results);
+        assertEquals(2, portfolio.size());
+        assertEquals(725400, portfolio.aggregate().getPrincipalCents());
+    }
+
+    /**
+     * Testing the portfolio rejects invalid loans
+     */
+    @Test
+    public void testInvalidLoan() {
+        try {
+            new WolfpackPortfolio(new int[] {2}, new int[] {30}, new boolean[1], 
+                                  new int[] {1000}, new double[] {5.5});
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid date", e.getMessage());
+        }
+    }
+}
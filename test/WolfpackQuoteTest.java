@@ -0,0 +1,90 @@
+import java.lang.management.ManagementFactory;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackQuote and WolfpackLending.quote
+ * @author Jessica Greene
+ */
+public class WolfpackQuoteTest extends TestCase {
+
+    /**
+     * Testing quote for an approved express application
+     */
+    @Test
+    public void testQuoteApproved() {
+        WolfpackQuote quote = WolfpackLending.quote(3, 16, 755, 2000, 2229, true, 
+                                                    new WolfpackQuote());
+        assertTrue(quote.isApproved());
+        assertEquals(WolfpackQuote.APPROVED, quote.getDecision());
+        assertEquals(225400, quote.getLoanCents());
+        assertEquals(550, quote.getRateBasisPoints());
+        assertEquals(5.5, quote.getInterestRate(), 0);
+        assertEquals(Math.round(WolfpackLending.getMonthlyPayment(2254, 5.5, 60) * 100),
+                     quote.getPaymentCents());
+        assertEquals(java.time.LocalDate.of(2020, 3, 19).toEpochDay(), 
+                     quote.getDisbursementEpochDay());
+        assertEquals("Thu, 3 19 2020", quote.getDisbursementDate());
+    }
+
+    /**
+     * Testing quote reports each rejection reason and clears earlier loan terms
+     */
+    @Test
+    public void testQuoteRejected() {
+        WolfpackQuote quote = new WolfpackQuote();
+        WolfpackLending.quote(3, 16, 755, 2000, 2229, true, quote);
+        assertEquals(WolfpackQuote.INVALID_DATE, 
+                     WolfpackLending.quote(2, 30, 755, 2000, 2229, true, quote).getDecision());
+        assertEquals(0, quote.getPaymentCents());
+        assertNull(quote.getDisbursementDate());
+        assertEquals(-1.0, quote.getInterestRate(), 0);
+        assertEquals("Invalid date", quote.getMessage());
+        assertEquals(WolfpackQuote.INVALID_CREDIT_SCORE, 
+                     WolfpackLending.quote(2, 3, 299, 2000, 2229, true, quote).getDecision());
+        assertEquals(WolfpackQuote.INVALID_INCOME, 
+                     WolfpackLending.quote(2, 3, 700, -1, 2229, true, quote).getDecision());
+        assertEquals(WolfpackQuote.INVALID_LOAN_AMOUNT, 
+                     WolfpackLending.quote(2, 3, 700, 1, 10001, true, quote).getDecision());
+        assertEquals(WolfpackQuote.DENIED, 
+                     WolfpackLending.quote(4, 30, 300, 0, 8967, false, quote).getDecision());
+        assertEquals("Loan denied", quote.getMessage());
+    }
+
+    /**
+     * Testing a steady-state quote loop allocates (almost) nothing
+     */
+    @Test
+    public void testQuoteLoopDoesNotAllocate() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+        WolfpackQuote quote = new WolfpackQuote();
+        int quotes = 200000;
+        long checksum = runQuotes(quote, quotes);
+        long before = counter.getThreadAllocatedBytes(Thread.currentThread().getId());
+        checksum += runQuotes(quote, quotes);
+        long allocated = counter.getThreadAllocatedBytes(Thread.currentThread().getId()) -
+                         before;
+        assertTrue("checksum", checksum != 0);
+        assertTrue("allocated " + allocated + " bytes", allocated < quotes);
+    }
+
+    /**
+     * Prices a sequence of applications with one reusable quote
+     * @param quote Reusable quote
+     * @param quotes Number of applications to price
+     * @return Sum of the monthly payments in cents
+     */
+    private static long runQuotes(WolfpackQuote quote, int quotes) {
+        long checksum = 0;
+        for (int i = 0; i < quotes; i++) {
+            WolfpackLending.quote(i % 12 + 1, i % 28 + 1, 300 + i % 551, i % 60000,
+                                  1000 + i % 9001, (i & 1) == 0, quote);
+            checksum += quote.getPaymentCents();
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,222 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.management.ObjectName;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackRateRules
+ * @author Jessica Greene
+ */
+public class WolfpackRateRulesTest extends TestCase {
+
+    /**
+     * Computes the interest rate with the original if/else chain
+     * @param loanAmount Total loan amount
+     * @param creditScore Loan applicant credit score
+     * @param income Loan applicant income
+     * @return Interest rate or -1.0
+     */
+    private static double originalRate(int loanAmount, int creditScore, int income) {
+        if (creditScore >= 720) {
+            return 5.5;
+        } else if (income >= 5 * loanAmount) {
+            return 6.0;
+        } else if (creditScore >= 500 && income >= 3 * loanAmount) {
+            return 6.5;
+        } else if (creditScore >= 350 && income >= 2 * loanAmount) {
+            return 7.5;
+        }
+        return -1.0;
+    }
+
+    /**
+     * Restores the built-in rules after each test
+     */
+    @Override
+    protected void tearDown() {
+        WolfpackRateRules.install(WolfpackRateRules.defaults());
+    }
+
+    /**
+     * Testing the built-in rules match the original if/else chain around every threshold
+     */
+    @Test
+    public void testDefaultsMatchOriginalRules() {
+        WolfpackRateRules rules = WolfpackRateRules.defaults();
+        assertEquals(4, rules.getTiers());
+        for (int loanAmount = 1000; loanAmount <= 10025; loanAmount += 97) {
+            for (int creditScore = 300; creditScore <= 850; creditScore++) {
+                for (int ratio = 0; ratio <= 6; ratio++) {
+                    for (int offset = -1; offset <= 1; offset++) {
+                        int income = Math.max(0, ratio * loanAmount + offset);
+                        assertEquals(originalRate(loanAmount, creditScore, income),
+                                     rules.interestRate(loanAmount, creditScore, income), 0);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Testing custom rules are used by getInterestRate once installed
+     * @throws IOException if the rules cannot be read
+     */
+    @Test
+    public void testCustomRules() throws IOException {
+        WolfpackRateRules rules = WolfpackRateRules.parse(new StringReader(
+            "# tighter rules\n" +
+            "4.9 800 1\n" +
+            "\n" +
+            "5.9 650 4\n" +
+            "8.25 400 10\n"));
+        assertEquals(3, rules.getTiers());
+        WolfpackRateRules.install(rules);
+        assertEquals(4.9, WolfpackLending.getInterestRate(1000, 800, 1000), 0);
+        assertEquals(-1.0, WolfpackLending.getInterestRate(1000, 800, 999), 0);
+        assertEquals(5.9, WolfpackLending.getInterestRate(1000, 799, 4000), 0);
+        assertEquals(8.25, WolfpackLending.getInterestRate(1000, 400, 10000), 0);
+        assertEquals(8.25, WolfpackLending.getInterestRate(1000, 400, 100000000), 0);
+        assertEquals(-1.0, WolfpackLending.getInterestRate(1000, 399, 100000000), 0);
+    }
+
+    /**
+     * Testing reload installs a valid rules file and leaves the rules unchanged for an
+     * invalid one
+     * @throws IOException if the temporary file cannot be written
+     */
+    @Test
+    public void testReload() throws IOException {
+        File file = File.createTempFile("rules", ".txt");
+        file.deleteOnExit();
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file),
+                                                 StandardCharsets.UTF_8)) {
+            out.write("9.0 300 0\n");
+        }
+        WolfpackRateRules.reload(file);
+        assertEquals(9.0, WolfpackLending.getInterestRate(1000, 300, 0), 0);
+
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file),
+                                                 StandardCharsets.UTF_8)) {
+            out.write("9.0 300\n");
+        }
+        try {
+            WolfpackRateRules.reload(file);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid rule on line 1", e.getMessage());
+        }
+        assertEquals(9.0, WolfpackLending.getInterestRate(1000, 300, 0), 0);
+    }
+
+    /**
+     * Writes a temporary rules file
+     * @param rules Rules text
+     * @return Rules file
+     * @throws IOException if the file cannot be written
+     */
+    private static File rulesFile(String rules) throws IOException {
+        File file = File.createTempFile("rules", ".txt");
+        file.deleteOnExit();
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file),
+                                                 StandardCharsets.UTF_8)) {
+            out.write(rules);
+        }
+        return file;
+    }
+
+    /**
+     * Testing the reloadRules operation of the rules MBean swaps rules while quotes are
+     * in flight, and every quote is priced entirely by one of the two tables
+     * @throws Exception if the MBean cannot be invoked or a quoting thread fails
+     */
+    @Test
+    public void testReloadRulesDuringQuotes() throws Exception {
+        String custom = "9.0 800 0\n8.5 600 4\n8.0 400 7\n7.0 300 12\n";
+        File defaultFile = rulesFile(WolfpackRateRules.DEFAULT_RULES);
+        File customFile = rulesFile(custom);
+        WolfpackRateRules defaults = WolfpackRateRules.defaults();
+        WolfpackRateRules customRules = WolfpackRateRules.parse(new StringReader(custom));
+        //loading the metrics registers the rules MBean next to them
+        WolfpackMetrics.get();
+        ObjectName name = new ObjectName(WolfpackRulesManager.OBJECT_NAME);
+        String[] signature = {String.class.getName()};
+        assertEquals(4, ManagementFactory.getPlatformMBeanServer().invoke(name, "reloadRules",
+                     new Object[] {customFile.getPath()}, signature));
+        assertEquals(9.0, WolfpackLending.getInterestRate(1000, 850, 0), 0);
+        assertEquals(4, ManagementFactory.getPlatformMBeanServer().getAttribute(name,
+                                                                                "Tiers"));
+
+        int threads = 3;
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        AtomicBoolean done = new AtomicBoolean();
+        try {
+            Future<?>[] quoters = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                final int seed = t;
+                quoters[t] = pool.submit(() -> {
+                    SplittableRandom random = new SplittableRandom(seed);
+                    WolfpackQuote quote = new WolfpackQuote();
+                    for (int i = 0; i < 200000; i++) {
+                        int creditScore = random.nextInt(300, 851);
+                        int income = random.nextInt(0, 150000);
+                        int loanAmount = random.nextInt(1000, 10001);
+                        WolfpackLending.quote(3, 16, creditScore, income, loanAmount, false,
+                                              quote);
+                        double rate = quote.isApproved() ? quote.getInterestRate() : -1.0;
+                        if (rate != defaults.interestRate(loanAmount, creditScore, income) &&
+                            rate != customRules.interestRate(loanAmount, creditScore,
+                                                             income)) {
+                            throw new AssertionError("Inconsistent rate " + rate);
+                        }
+                    }
+                    return null;
+                });
+            }
+            Future<?> swapper = pool.submit(() -> {
+                for (int i = 0; !done.get(); i++) {
+                    File file = i % 2 == 0 ? defaultFile : customFile;
+                    ManagementFactory.getPlatformMBeanServer().invoke(name, "reloadRules",
+                        new Object[] {file.getPath()}, signature);
+                    Thread.yield();
+                }
+                return null;
+            });
+            for (Future<?> quoter : quoters) {
+                quoter.get();
+            }
+            done.set(true);
+            swapper.get();
+        } finally {
+            done.set(true);
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Testing parse rejects invalid rules
+     * @throws IOException if the rules cannot be read
+     */
+    @Test
+    public void testParseInvalid() throws IOException {
+        String[] invalid = {"0.4 300 0", "x 300 0", "5 900 0", "5 300 -1", "5 300 1.5"};
+        for (String rule : invalid) {
+            try {
+                WolfpackRateRules.parse(new StringReader(rule));
+                fail(rule);
+            } catch (IllegalArgumentException e) {
+                assertEquals("Invalid rule on line 1", e.getMessage());
+            }
+        }
+        try {
+            WolfpackRateRules.parse(new StringReader("# nothing\n"));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("No rules", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackServer
+ * @author Jessica Greene
+ */
+public class WolfpackServerTest extends TestCase {
+
+    /**
+     * Testing quoteJson for approved, denied, invalid, and malformed applications
+     */
+    @Test
+    public void testQuoteJson() {
+        StringBuilder response = new StringBuilder();
+        assertEquals(WolfpackServer.HTTP_OK, WolfpackServer.quoteJson(
+            "{\"month\": 3, \"day\": 16, \"creditScore\": 755, \"income\": 2000,\n" +
+            " \"loanAmount\": 2229, \"express\": true}", new WolfpackQuote(), response));
+        assertEquals("{\"decision\":\"Approved\",\"loanAmount\":2254.00,\"interestRate\":5.5," +
+                     "\"monthlyPayment\":43.05,\"disbursementDate\":\"Thu, 3 19 2020\"}",
+                     response.toString());
+
+        response.setLength(0);
+        assertEquals(WolfpackServer.HTTP_OK, WolfpackServer.quoteJson(
+            "{\"month\":4,\"day\":30,\"creditScore\":300,\"income\":0,\"loanAmount\":8967}", 
+            new WolfpackQuote(), response));
+        assertEquals("{\"decision\":\"Loan denied\"}", response.toString());
+
+        response.setLength(0);
+        assertEquals(WolfpackServer.HTTP_BAD_REQUEST, WolfpackServer.quoteJson(
+            "{\"month\":4,\"day\":31,\"creditScore\":300,\"income\":0,\"loanAmount\":8967}", 
+            new WolfpackQuote(), response));
+        assertEquals("{\"error\":\"Invalid date\"}", response.toString());
+
+        response.setLength(0);
+        assertEquals(WolfpackServer.HTTP_BAD_REQUEST, WolfpackServer.quoteJson(
+            "{\"month\":4,\"creditScore\":300,\"income\":0,\"loanAmount\":8967}", 
+            new WolfpackQuote(), response));
+        assertEquals("{\"error\":\"Invalid input\"}", response.toString());
+    }
+
+    /**
+     * Testing the service answers quotes over HTTP
+     * @throws IOException if the request fails
+     */
+    @Test
+    public void testServiceAnswersQuotes() throws IOException {
+        WolfpackServer server = new WolfpackServer(0);
+        try {
+            for (int i = 0; i < 3; i++) {
+                HttpURLConnection connection = (HttpURLConnection) new URL(
+                    "http://127.0.0.1:" + server.getPort() + "/quote").openConnection();
+                connection.setRequestMethod("POST");
+                connection.setDoOutput(true);
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(("{\"month\":3,\"day\":16,\"creditScore\":755,\"income\":2000," +
+                               "\"loanAmount\":2229,\"express\":\"y\"}")
+                              .getBytes(StandardCharsets.UTF_8));
+                }
+                assertEquals(200, connection.getResponseCode());
+                try (InputStream in = connection.getInputStream()) {
+                    String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                    assertTrue(body, body.contains("\"monthlyPayment\":43.05"));
+                }
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Testing a decision that cannot be journaled is answered with a server error and
+     * counted as a failed request
+     * @throws IOException if the request fails
+     */
+    @Test
+    public void testJournalFailure() throws IOException {
+        File file = File.createTempFile("decisions", ".journal");
+        file.delete();
+        file.deleteOnExit();
+        WolfpackDecisionJournal journal = WolfpackDecisionJournal.open(file);
+        journal.close();
+        WolfpackDecisionJournal.install(journal);
+        WolfpackServer server = new WolfpackServer(0);
+        try {
+            long failures = WolfpackMetrics.get().getRequestFailures();
+            HttpURLConnection connection = (HttpURLConnection) new URL(
+                "http://127.0.0.1:" + server.getPort() + "/quote").openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(("{\"month\":3,\"day\":16,\"creditScore\":755,\"income\":2000," +
+                           "\"loanAmount\":2229,\"express\":\"y\"}")
+                          .getBytes(StandardCharsets.UTF_8));
+            }
+            assertEquals(WolfpackServer.HTTP_SERVER_ERROR, connection.getResponseCode());
+            try (InputStream in = connection.getErrorStream()) {
+                assertEquals("{\"error\":\"Decision could not be recorded\"}",
+                             new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            if (WolfpackMetrics.ENABLED) {
+                assertEquals(failures + 1, WolfpackMetrics.get().getRequestFailures());
+            }
+        } finally {
+            WolfpackDecisionJournal.install(null);
+            server.stop(0);
+        }
+    }
+}
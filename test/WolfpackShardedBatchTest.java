@@ -0,0 +1,168 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackShardedBatch methods
+ * @author Jessica Greene
+ */
+public class WolfpackShardedBatchTest extends TestCase {
+
+    /**
+     * Writes a CSV file of generated applications with a header and a few unusual rows
+     * @param rows Number of generated rows
+     * @return CSV file
+     * @throws IOException if the file cannot be written
+     */
+    private static File input(int rows) throws IOException {
+        File file = File.createTempFile("wolfpack-sharded", ".csv");
+        file.deleteOnExit();
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file),
+                                                 StandardCharsets.UTF_8)) {
+            new WolfpackWorkload(11, WolfpackWorkload.DEFAULT_EXPRESS_RATIO)
+                .writeCsv(out, rows);
+            out.write("a,3,700,1,999,y\r\n\n3,16,755,2000,2229,y");
+        }
+        return file;
+    }
+
+    /**
+     * Returns the output WolfpackBatch writes for an input file
+     * @param input CSV file
+     * @return Output text
+     * @throws IOException if the file cannot be read
+     */
+    private static String batchOutput(File input) throws IOException {
+        StringWriter out = new StringWriter();
+        try (BufferedReader in = Files.newBufferedReader(input.toPath())) {
+            WolfpackBatch.run(in, out, 1);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Testing boundaries start every shard at a row and leave out the header
+     * @throws IOException if the temporary file cannot be used
+     */
+    @Test
+    public void testBoundaries() throws IOException {
+        File input = input(1000);
+        byte[] bytes = Files.readAllBytes(input.toPath());
+        long[] boundaries = WolfpackShardedBatch.boundaries(input, 7);
+        assertEquals(8, boundaries.length);
+        assertEquals(WolfpackWorkload.CSV_HEADER.length() + 1, boundaries[0]);
+        assertEquals(bytes.length, boundaries[7]);
+        for (int i = 1; i < 7; i++) {
+            assertTrue(boundaries[i] >= boundaries[i - 1]);
+            assertEquals('\n', bytes[(int) boundaries[i] - 1]);
+        }
+        assertEquals(2, WolfpackShardedBatch.boundaries(input, 1).length);
+        try {
+            WolfpackShardedBatch.boundaries(input, 0);
+            fail("0 shards should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid number of shards", e.getMessage());
+        }
+    }
+
+    /**
+     * Testing the shards priced in order give the same rows as WolfpackBatch, and the
+     * summaries match their ranges only
+     * @throws IOException if the temporary files cannot be used
+     */
+    @Test
+    public void testPriceShards() throws IOException {
+        File input = input(5000);
+        long[] boundaries = WolfpackShardedBatch.boundaries(input, 4);
+        File output = File.createTempFile("wolfpack-sharded", ".out");
+        output.deleteOnExit();
+        StringBuilder rows = new StringBuilder(WolfpackBatch.OUTPUT_HEADER).append('\n');
+        long records = 0;
+        for (int shard = 0; shard < 4; shard++) {
+            File shardFile = WolfpackShardedBatch.shardFile(output, shard);
+            shardFile.deleteOnExit();
+            WolfpackShardedBatch.summaryFile(shardFile).deleteOnExit();
+            records += WolfpackShardedBatch.priceShard(input, boundaries[shard],
+                                                       boundaries[shard + 1], shardFile)
+                                           .getRecords();
+            rows.append(new String(Files.readAllBytes(shardFile.toPath()),
+                                   StandardCharsets.UTF_8));
+            assertNotNull(WolfpackShardedBatch.readSummary(shardFile, input, boundaries[shard],
+                                                           boundaries[shard + 1]));
+            assertNull(WolfpackShardedBatch.readSummary(shardFile, input, boundaries[shard],
+                                                        boundaries[shard + 1] + 1));
+        }
+        assertEquals(batchOutput(input), rows.toString());
+        assertEquals(5002, records);
+    }
+
+    /**
+     * Testing workers price with the rules file of the coordinator
+     * @throws IOException if the temporary files cannot be used or a worker fails
+     */
+    @Test
+    public void testRunWithRulesFile() throws IOException {
+        File input = input(500);
+        File rules = File.createTempFile("rules", ".txt");
+        File output = File.createTempFile("wolfpack-sharded", ".out");
+        rules.deleteOnExit();
+        output.deleteOnExit();
+        Files.write(rules.toPath(), "9.0 300 0\n".getBytes(StandardCharsets.UTF_8));
+        System.setProperty(WolfpackRateRules.RULES_PROPERTY, rules.getPath());
+        try {
+            WolfpackRateRules.reload(rules);
+            WolfpackShardedBatch.run(input, output, 2);
+            String expected = batchOutput(input);
+            assertTrue(expected.contains("Approved,2254.00,9.0,46.79"));
+            assertEquals(expected, new String(Files.readAllBytes(output.toPath()),
+                                              StandardCharsets.UTF_8));
+        } finally {
+            System.clearProperty(WolfpackRateRules.RULES_PROPERTY);
+            WolfpackRateRules.install(WolfpackRateRules.defaults());
+        }
+    }
+
+    /**
+     * Testing a run is refused while decisions are journaled
+     * @throws IOException if the temporary file cannot be used
+     */
+    @Test
+    public void testRunRefusedWithJournal() throws IOException {
+        File input = input(10);
+        File output = File.createTempFile("wolfpack-sharded", ".out");
+        output.deleteOnExit();
+        System.setProperty(WolfpackDecisionJournal.JOURNAL_PROPERTY,
+                           output.getPath() + ".journal");
+        try {
+            WolfpackShardedBatch.run(input, output, 2);
+            fail("A journaled run should be refused");
+        } catch (IOException e) {
+            assertEquals("Decisions cannot be journaled by a sharded batch", e.getMessage());
+        } finally {
+            System.clearProperty(WolfpackDecisionJournal.JOURNAL_PROPERTY);
+        }
+        assertFalse(WolfpackShardedBatch.shardFile(output, 0).exists());
+    }
+
+    /**
+     * Testing run with worker processes writes the same output as WolfpackBatch and
+     * removes the shard files
+     * @throws IOException if the temporary files cannot be used or a worker fails
+     */
+    @Test
+    public void testRun() throws IOException {
+        File input = input(3000);
+        File output = File.createTempFile("wolfpack-sharded", ".out");
+        output.deleteOnExit();
+        WolfpackApplicationFile.Totals totals = WolfpackShardedBatch.run(input, output, 3);
+        assertEquals(batchOutput(input), new String(Files.readAllBytes(output.toPath()),
+                                                    StandardCharsets.UTF_8));
+        assertEquals(3002, totals.getRecords());
+        assertEquals(1, totals.getDecisionCount(WolfpackValidation.INVALID_INPUT));
+        for (int shard = 0; shard < 3; shard++) {
+            assertFalse(WolfpackShardedBatch.shardFile(output, shard).exists());
+        }
+    }
+}
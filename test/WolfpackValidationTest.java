@@ -0,0 +1,66 @@
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackValidation methods
+ * @author Jessica Greene
+ */
+public class WolfpackValidationTest extends TestCase {
+
+    /**
+     * Testing checkApplication for valid input and each invalid field
+     */
+    @Test
+    public void testCheckApplication() {
+        assertEquals(WolfpackValidation.VALID,
+                     WolfpackValidation.checkApplication(2, 29, 300, 0, 1000));
+        assertEquals(WolfpackValidation.INVALID_DATE,
+                     WolfpackValidation.checkApplication(2, 30, 900, -1, 0));
+        assertEquals(WolfpackValidation.INVALID_CREDIT_SCORE,
+                     WolfpackValidation.checkApplication(2, 3, 851, -1, 0));
+        assertEquals(WolfpackValidation.INVALID_INCOME,
+                     WolfpackValidation.checkApplication(2, 3, 850, -1, 0));
+        assertEquals(WolfpackValidation.INVALID_LOAN_AMOUNT,
+                     WolfpackValidation.checkApplication(2, 3, 850, 0, 10001));
+    }
+
+    /**
+     * Testing the checks for the throwing methods return the codes whose messages the
+     * throwing methods use
+     */
+    @Test
+    public void testCheckMethodArguments() {
+        assertEquals("Invalid loan amount", WolfpackValidation.message(
+                     WolfpackValidation.checkInterestRate(0, 500, 5000)));
+        assertEquals("Invalid credit score", WolfpackValidation.message(
+                     WolfpackValidation.checkInterestRate(1000, 200, 5000)));
+        assertEquals("Invalid income", WolfpackValidation.message(
+                     WolfpackValidation.checkInterestRate(1000, 500, -20)));
+        assertEquals("Invalid interest rate", WolfpackValidation.message(
+                     WolfpackValidation.checkMonthlyPayment(3000, 0.49, 20)));
+        assertEquals("Invalid number of months", WolfpackValidation.message(
+                     WolfpackValidation.checkMonthlyPayment(4500, 5.5, 0)));
+        assertEquals(WolfpackValidation.VALID, 
+                     WolfpackValidation.checkMonthlyPayment(4500, 0.5, 1));
+        assertEquals("Invalid date", WolfpackValidation.message(
+                     WolfpackValidation.checkDisbursementDate(4, 31)));
+    }
+
+    /**
+     * Testing parseInt with numbers, spaces, signs, and malformed text
+     */
+    @Test
+    public void testParseInt() {
+        assertEquals(755, WolfpackValidation.parseInt("a, 755 ,b", 2, 7));
+        assertEquals(-20, WolfpackValidation.parseInt("-20", 0, 3));
+        assertEquals(Integer.MIN_VALUE, WolfpackValidation.parseInt("-2147483648", 0, 11));
+        assertEquals(Integer.MAX_VALUE, WolfpackValidation.parseInt("2147483647", 0, 10));
+        assertEquals(WolfpackValidation.NOT_A_NUMBER, 
+                     WolfpackValidation.parseInt("2147483648", 0, 10));
+        assertEquals(WolfpackValidation.NOT_A_NUMBER, WolfpackValidation.parseInt("", 0, 0));
+        assertEquals(WolfpackValidation.NOT_A_NUMBER, WolfpackValidation.parseInt(" - ", 0, 3));
+        assertEquals(WolfpackValidation.NOT_A_NUMBER, WolfpackValidation.parseInt("7x", 0, 2));
+        assertEquals(WolfpackValidation.NOT_A_NUMBER, 
+                     WolfpackValidation.parseInt("99999999999999999999", 0, 20));
+    }
+}
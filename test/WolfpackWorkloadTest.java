@@ -0,0 +1,91 @@
+import java.io.*;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * Program to test WolfpackWorkload methods
+ * @author Jessica Greene
+ */
+public class WolfpackWorkloadTest extends TestCase {
+
+    /** Number of applications generated by the distribution tests */
+    private static final int APPLICATIONS = 100000;
+
+    /**
+     * Testing the same seed generates the same applications and split streams differ
+     */
+    @Test
+    public void testRepeatable() throws IOException {
+        StringWriter first = new StringWriter();
+        StringWriter second = new StringWriter();
+        new WolfpackWorkload(42, WolfpackWorkload.DEFAULT_EXPRESS_RATIO).writeCsv(first, 100);
+        new WolfpackWorkload(42, WolfpackWorkload.DEFAULT_EXPRESS_RATIO).writeCsv(second, 100);
+        assertEquals(first.toString(), second.toString());
+        assertTrue(first.toString().startsWith(WolfpackWorkload.CSV_HEADER + "\n"));
+        assertEquals(101, first.toString().split("\n").length);
+
+        WolfpackWorkload workload = new WolfpackWorkload(42, 0.5);
+        StringWriter left = new StringWriter();
+        StringWriter right = new StringWriter();
+        workload.split().writeCsv(left, 100);
+        workload.split().writeCsv(right, 100);
+        assertFalse(left.toString().equals(right.toString()));
+    }
+
+    /**
+     * Testing generated applications are in range and follow the configured shares
+     */
+    @Test
+    public void testDistribution() {
+        WolfpackWorkload workload = new WolfpackWorkload(7,
+                                                         WolfpackWorkload.DEFAULT_EXPRESS_RATIO);
+        int invalidDates = 0;
+        int express = 0;
+        int nearFairOrGood = 0;
+        int[] decisions = new int[WolfpackValidation.INVALID_INPUT + 1];
+        WolfpackQuote quote = new WolfpackQuote();
+        for (int i = 0; i < APPLICATIONS; i++) {
+            workload.next();
+            assertTrue(workload.getMonth() >= WolfpackLending.JAN &&
+                       workload.getMonth() <= WolfpackLending.DEC);
+            if (!WolfpackLending.isValidDate(workload.getMonth(), workload.getDay())) {
+                invalidDates++;
+            }
+            if (workload.isExpressProcessing()) {
+                express++;
+            }
+            int score = workload.getCreditScore();
+            assertTrue(score >= WolfpackLending.MIN_CREDIT_SCORE &&
+                       score <= WolfpackLending.MAX_CREDIT_SCORE);
+            if (Math.abs(score - WolfpackLending.FAIR_CREDIT_SCORE) <= 90 ||
+                Math.abs(score - WolfpackLending.GOOD_CREDIT_SCORE) <= 90) {
+                nearFairOrGood++;
+            }
+            assertTrue(workload.getLoanAmount() >= WolfpackLending.MIN_LOAN &&
+                       workload.getLoanAmount() <= WolfpackLending.MAX_LOAN);
+            assertTrue(workload.getIncome() >= 0);
+            decisions[workload.quote(quote).getDecision()]++;
+        }
+        assertEquals(WolfpackWorkload.INVALID_DATE_RATIO, invalidDates / (double) APPLICATIONS,
+                     0.005);
+        assertEquals(WolfpackWorkload.DEFAULT_EXPRESS_RATIO, express / (double) APPLICATIONS,
+                     0.01);
+        assertEquals(APPLICATIONS, nearFairOrGood);
+        assertEquals(invalidDates, decisions[WolfpackValidation.INVALID_DATE]);
+        assertTrue(decisions[WolfpackQuote.APPROVED] > APPLICATIONS / 2);
+        assertTrue(decisions[WolfpackQuote.DENIED] > 0);
+    }
+
+    /**
+     * Testing an invalid express ratio
+     */
+    @Test
+    public void testInvalidExpressRatio() {
+        try {
+            new WolfpackWorkload(1, 1.5);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid express ratio", e.getMessage());
+        }
+    }
+}